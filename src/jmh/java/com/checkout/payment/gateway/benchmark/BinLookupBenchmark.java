@@ -0,0 +1,96 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.enums.CardScheme;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BIN lookups per second over a table of {@value #RANGES} issuer ranges (8-digit Visa BINs with
+ * country and card type, nested in the scheme-level Visa range), loaded from a CSV file like
+ * {@code payment.gateway.bins.file}. {@code treeMapLookup} is the same search over a
+ * {@code TreeMap<Long, String[]>} for comparison. Card numbers cycle through {@value #CARDS}
+ * random cards from the issuer ranges. Run with {@code -prof gc} to see that
+ * {@link BinTable#find} does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BinLookupBenchmark {
+
+  private static final int RANGES = 500_000;
+  private static final int CARDS = 1 << 16;
+  private static final String[] COUNTRIES = {"GB", "US", "FR", "DE", "ES", "IT", "NL", "IE"};
+  private static final String[] TYPES = {"CREDIT", "DEBIT", "PREPAID"};
+
+  private BinTable table;
+  private TreeMap<Long, String[]> treeMap;
+  private String[] cards;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    Path file = Files.createTempFile("bins", ".csv");
+    treeMap = new TreeMap<>();
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write("4,,VISA,,\n");
+      // Every 20th 8-digit BIN from 40000000, so the flattened table also has the gaps between
+      for (int i = 0; i < RANGES; i++) {
+        long bin = 40_000_000L + 20L * i;
+        String scheme = "VISA";
+        String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+        String type = TYPES[random.nextInt(TYPES.length)];
+        writer.write(bin + ",," + scheme + "," + country + "," + type + "\n");
+        treeMap.put(bin * 10_000, new String[] {scheme, country, type});
+      }
+    }
+    long started = System.nanoTime();
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      table = BinTable.load(reader);
+    }
+    System.out.printf("%nLoaded %d ranges (%d after flattening) in %d ms%n", RANGES,
+        table.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    Files.delete(file);
+
+    cards = new String[CARDS];
+    for (int i = 0; i < CARDS; i++) {
+      long bin = 40_000_000L + 20L * random.nextInt(RANGES);
+      cards[i] = bin + String.format("%08d", random.nextInt(100_000_000));
+    }
+  }
+
+  @Benchmark
+  public CardScheme binTableLookup() {
+    String card = cards[next++ & (CARDS - 1)];
+    return table.scheme(table.find(card));
+  }
+
+  @Benchmark
+  public String treeMapLookup() {
+    String card = cards[next++ & (CARDS - 1)];
+    long key = Long.parseLong(card, 0, 12, 10);
+    Map.Entry<Long, String[]> entry = treeMap.floorEntry(key);
+    return entry != null && key < entry.getKey() + 10_000 ? entry.getValue()[0] : null;
+  }
+}
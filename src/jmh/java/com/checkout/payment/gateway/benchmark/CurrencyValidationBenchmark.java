@@ -0,0 +1,74 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the previous currency check ({@code toUpperCase()} plus a {@code Set<String>} lookup)
+ * with {@link CurrencyRegistry#codeOf}, and times the full {@link PaymentValidator#validate}.
+ * Run with {@code -prof gc} to see that the registry lookup does not allocate, while the old check
+ * allocates a new string for every lower-case code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyValidationBenchmark {
+
+  @Param({"USD", "usd", "JPY"})
+  public String currency;
+
+  private Set<String> supportedCurrencies;
+  private CurrencyRegistry registry;
+  private PaymentValidator validator;
+  private PostPaymentRequest request;
+
+  @Setup
+  public void setUp() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    supportedCurrencies = Set.copyOf(config.getSupportedCurrencies());
+    registry = new CurrencyRegistry(config);
+    validator = new PaymentValidator(registry, BinTable.defaults());
+    request = new PostPaymentRequest("4111111111111111", 12, 2030, currency, 100, "123");
+  }
+
+  @Benchmark
+  public boolean setLookup() {
+    return currency.length() == 3 && supportedCurrencies.contains(currency.toUpperCase());
+  }
+
+  @Benchmark
+  public int registryLookup() {
+    return registry.codeOf(currency);
+  }
+
+  @Benchmark
+  public boolean validate() {
+    try {
+      validator.validate(request);
+      return true;
+    } catch (RuntimeException ex) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.decline.DeclineCache;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.profiling.GatewayFlightRecorder;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import io.opentelemetry.api.OpenTelemetry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Measures the cost the continuous flight recording adds to {@code processPayment}: one payment
+ * event, validate, bank and store stage events and one bank call event per payment, plus the
+ * JDK's own events and sampling. {@code off} records nothing and is the baseline; the other
+ * values are the JDK settings the recording is started with. The bank is a stub
+ * {@link RestTemplate}, so the real {@link BankService} runs and emits its bank call events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightRecorderOverheadBenchmark {
+
+  @Param({"off", "default", "profile"})
+  public String settings;
+
+  private GatewayFlightRecorder recorder;
+  private PaymentInstrumentation instrumentation;
+  private ApplicationConfiguration config;
+  private BankService bankService;
+  private PaymentGatewayService service;
+  private PostPaymentRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    config.setBankUrl("http://localhost:0/payments");
+    // Every invocation pays with the same card
+    config.getScreening().setEnabled(false);
+    if (!"off".equals(settings)) {
+      config.getProfiling().setEnabled(true);
+      config.getProfiling().setSettings(settings);
+    }
+    recorder = new GatewayFlightRecorder(config);
+    instrumentation = new PaymentInstrumentation(OpenTelemetry.noop());
+    bankService = new BankService(new AuthorizingRestTemplate(), config, OpenTelemetry.noop(),
+        BinTable.defaults());
+    request = new PostPaymentRequest("4111111111111111", 12, 2030, "USD", 100, "123");
+  }
+
+  /**
+   * Fresh service per iteration so stored payments do not accumulate across the run.
+   */
+  @Setup(Level.Iteration)
+  public void createService() {
+    CurrencyRegistry currencies = new CurrencyRegistry(config);
+    PaymentsRepository repository = new PaymentsRepository();
+    PaymentLedger ledger = new PaymentLedger(
+        SegmentedPaymentEventLog.inMemory(1 << 16, currencies::canonical), null, repository,
+        Long.MAX_VALUE);
+    PaymentValidator validator = new PaymentValidator(currencies, BinTable.defaults());
+    service = new PaymentGatewayService(repository, validator, bankService, instrumentation,
+        currencies, ledger, new VelocityScreener(config), new PaymentDrain(config, ledger),
+        new DeclineCache(config));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    recorder.close();
+  }
+
+  @Benchmark
+  public PostPaymentResponse processPayment() {
+    return service.processPayment(request);
+  }
+
+  private static class AuthorizingRestTemplate extends RestTemplate {
+
+    private final ResponseEntity<GetAcquiringBankResponse> authorized;
+
+    AuthorizingRestTemplate() {
+      GetAcquiringBankResponse response = new GetAcquiringBankResponse();
+      response.setAuthorized(true);
+      authorized = new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> exchange(String url, HttpMethod method,
+        HttpEntity<?> requestEntity, Class<T> responseType, Object... uriVariables) {
+      return (ResponseEntity<T>) authorized;
+    }
+  }
+}
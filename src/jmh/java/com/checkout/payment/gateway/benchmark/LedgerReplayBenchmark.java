@@ -0,0 +1,67 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to rebuild the read model from a log of {@code events} events (four per payment: created,
+ * bank response, capture, refund), without a snapshot. Replay cost grows linearly with the log,
+ * so the result scales directly to larger logs; it is the bound the snapshot interval keeps
+ * startup under.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LedgerReplayBenchmark {
+
+  @Param({"1000000"})
+  public int events;
+
+  private SegmentedPaymentEventLog log;
+
+  @Setup(Level.Trial)
+  public void writeLog() {
+    log = SegmentedPaymentEventLog.inMemory(1 << 20, currency -> currency);
+    PaymentLedger writer = new PaymentLedger(log, null, new PaymentsRepository(), Long.MAX_VALUE);
+    for (int i = 0; i < events / 4; i++) {
+      PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(), null, 8877, 4,
+          2030, "GBP", 1000);
+      writer.record(PaymentEventType.CREATED, payment);
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      writer.record(PaymentEventType.BANK_RESPONDED, payment);
+      payment.capture(0);
+      writer.record(PaymentEventType.CAPTURED, payment);
+      payment.refund(400);
+      writer.record(PaymentEventType.REFUNDED, payment);
+    }
+  }
+
+  @Benchmark
+  public PaymentsRepository replay() throws IOException {
+    PaymentsRepository repository = new PaymentsRepository();
+    new PaymentLedger(log, null, repository, Long.MAX_VALUE).restore();
+    return repository;
+  }
+}
@@ -0,0 +1,145 @@
+package com.checkout.payment.gateway.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.decline.DeclineCache;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import io.opentelemetry.api.OpenTelemetry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Measures {@code processPayment} latency for requests that log a warning (rejected payments)
+ * while the log sink is saturated. The sink takes 1 ms per event to mimic a slow disk, so it can
+ * never keep up. With {@code direct} every request pays that cost; with {@code ring-buffer} the
+ * request thread only publishes into the Disruptor ring buffer and events are dropped once it is
+ * full, so request latency must stay in the microsecond range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingSaturationBenchmark {
+
+  @Param({"direct", "ring-buffer"})
+  public String appender;
+
+  private PaymentGatewayService service;
+  private PostPaymentRequest rejectedRequest;
+  private LoggingEventAsyncDisruptorAppender asyncAppender;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    context.reset();
+    Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+    SlowAppender slowSink = new SlowAppender();
+    slowSink.setContext(context);
+    slowSink.start();
+    if ("direct".equals(appender)) {
+      root.addAppender(slowSink);
+    } else {
+      asyncAppender = new LoggingEventAsyncDisruptorAppender();
+      asyncAppender.setContext(context);
+      asyncAppender.setRingBufferSize(1024);
+      asyncAppender.setAppendTimeout(ch.qos.logback.core.util.Duration.buildByMilliseconds(0));
+      asyncAppender.addAppender(slowSink);
+      asyncAppender.start();
+      root.addAppender(asyncAppender);
+    }
+  }
+
+  /**
+   * Fresh service per iteration so the stored rejected payments do not accumulate across the run.
+   */
+  @Setup(Level.Iteration)
+  public void createService() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    config.setBankUrl("http://localhost:0/payments");
+    CurrencyRegistry currencies = new CurrencyRegistry(config);
+    PaymentsRepository repository = new PaymentsRepository();
+    PaymentLedger ledger = new PaymentLedger(
+        SegmentedPaymentEventLog.inMemory(1 << 16, currencies::canonical), null, repository,
+        Long.MAX_VALUE);
+    PaymentValidator validator = new PaymentValidator(currencies, BinTable.defaults());
+    service = new PaymentGatewayService(repository, validator,
+        new StubBankService(config), new PaymentInstrumentation(OpenTelemetry.noop()), currencies,
+        ledger, new VelocityScreener(config), new PaymentDrain(config, ledger),
+        new DeclineCache(config));
+    rejectedRequest = new PostPaymentRequest("4111", 12, 2030, "USD", 100, "123");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (asyncAppender != null) {
+      asyncAppender.stop();
+    }
+  }
+
+  @Benchmark
+  public PostPaymentResponse processRejectedPayment() {
+    return service.processPayment(rejectedRequest);
+  }
+
+  private static class SlowAppender extends AppenderBase<ILoggingEvent> {
+
+    @Override
+    protected void append(ILoggingEvent event) {
+      event.getFormattedMessage();
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+  }
+
+  private static class StubBankService extends BankService {
+
+    StubBankService(ApplicationConfiguration config) {
+      super(new RestTemplate(), config, OpenTelemetry.noop(), BinTable.defaults());
+    }
+
+    @Override
+    public GetAcquiringBankResponse submitBankRequest(GetAcquiringBankRequest request,
+        String merchantId) {
+      GetAcquiringBankResponse response = new GetAcquiringBankResponse();
+      response.setAuthorized(true);
+      return response;
+    }
+  }
+}
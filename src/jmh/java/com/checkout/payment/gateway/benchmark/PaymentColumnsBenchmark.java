@@ -0,0 +1,174 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.AuthorizationRate;
+import com.checkout.payment.gateway.model.PaymentVolume;
+import com.checkout.payment.gateway.reporting.PaymentColumnStore;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aggregate queries over {@code payments} payments spread evenly over 180 days, in three
+ * currencies, 85% authorized. The {@code columns} benchmarks scan a {@link PaymentColumnStore};
+ * the {@code rows} benchmarks run the same aggregation over one {@link PaymentEvent} object per
+ * payment, the row-per-object layout the ledger and read model use. {@code Week} queries cover
+ * the last seven days only.
+ *
+ * <p>
+ * Setup prints the bytes per payment of the sealed columns, of the row objects, and of a live
+ * {@link PaymentsRepository} holding the same payments (measured on a 1M sample from heap
+ * deltas, so approximate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PaymentColumnsBenchmark {
+
+  private static final int DAYS = 180;
+  private static final long DAY_MILLIS = 86_400_000L;
+  private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+  private static final String[] CURRENCIES = {"GBP", "USD", "EUR"};
+  private static final int FOOTPRINT_SAMPLE = 1_000_000;
+
+  @Param({"10000000"})
+  public int payments;
+
+  private PaymentColumnStore columns;
+  private List<PaymentEvent> rows;
+  private final LocalDate lastDay = FIRST_DAY.plusDays(DAYS - 1);
+  private final LocalDate weekStart = lastDay.minusDays(6);
+
+  @Setup(Level.Trial)
+  public void fill() throws IOException {
+    printRepositoryFootprint();
+    long before = usedHeap();
+    rows = new ArrayList<>(payments);
+    Random random = new Random(42);
+    long start = FIRST_DAY.toEpochDay() * DAY_MILLIS;
+    double step = (double) DAYS * DAY_MILLIS / payments;
+    for (int i = 0; i < payments; i++) {
+      rows.add(event(random, i, start + (long) (i * step)));
+    }
+    long rowBytes = usedHeap() - before;
+    columns = PaymentColumnStore.open(null, 1 << 16, Duration.ofDays(1), currency -> currency);
+    rows.forEach(columns::onEvent);
+    // Seals every buffered row; queries keep working on the sealed segments
+    columns.close();
+    System.out.printf("%nrow objects: %.1f bytes/payment, columns: %.2f bytes/payment%n",
+        rowBytes / (double) payments, columns.sealedSizeInBytes() / (double) payments);
+  }
+
+  @Benchmark
+  public List<PaymentVolume> columnsDailyVolume() {
+    return columns.dailyVolume(FIRST_DAY, lastDay);
+  }
+
+  @Benchmark
+  public Map<String, long[]> rowsDailyVolume() {
+    return rowsDailyVolume(FIRST_DAY, lastDay);
+  }
+
+  @Benchmark
+  public List<PaymentVolume> columnsDailyVolumeWeek() {
+    return columns.dailyVolume(weekStart, lastDay);
+  }
+
+  @Benchmark
+  public Map<String, long[]> rowsDailyVolumeWeek() {
+    return rowsDailyVolume(weekStart, lastDay);
+  }
+
+  @Benchmark
+  public AuthorizationRate columnsAuthorizationRate() {
+    return columns.authorizationRate(FIRST_DAY, lastDay, "USD");
+  }
+
+  @Benchmark
+  public long[] rowsAuthorizationRate() {
+    long from = FIRST_DAY.toEpochDay() * DAY_MILLIS;
+    long to = (lastDay.toEpochDay() + 1) * DAY_MILLIS;
+    long[] counts = new long[PaymentStatus.values().length];
+    for (PaymentEvent row : rows) {
+      if (row.timestampMillis() >= from && row.timestampMillis() < to
+          && "USD".equals(row.currency())) {
+        counts[row.outcome().ordinal()]++;
+      }
+    }
+    return counts;
+  }
+
+  private Map<String, long[]> rowsDailyVolume(LocalDate first, LocalDate last) {
+    long from = first.toEpochDay() * DAY_MILLIS;
+    long to = (last.toEpochDay() + 1) * DAY_MILLIS;
+    int days = (int) (last.toEpochDay() - first.toEpochDay() + 1);
+    Map<String, long[]> totals = new HashMap<>();
+    for (PaymentEvent row : rows) {
+      if (row.outcome() == PaymentStatus.AUTHORIZED && row.timestampMillis() >= from
+          && row.timestampMillis() < to) {
+        int day = (int) ((row.timestampMillis() - from) / DAY_MILLIS);
+        long[] currency = totals.computeIfAbsent(row.currency(), c -> new long[2 * days]);
+        currency[2 * day]++;
+        currency[2 * day + 1] += row.amount();
+      }
+    }
+    return totals;
+  }
+
+  private void printRepositoryFootprint() {
+    Random random = new Random(7);
+    long before = usedHeap();
+    PaymentsRepository repository = new PaymentsRepository();
+    for (int i = 0; i < FOOTPRINT_SAMPLE; i++) {
+      repository.add(event(random, i, 0).toPayment());
+    }
+    long repositoryBytes = usedHeap() - before;
+    System.out.printf("%nlive repository: %.1f bytes/payment (%d payments)%n",
+        repositoryBytes / (double) repository.size(), repository.size());
+  }
+
+  private static PaymentEvent event(Random random, int i, long timestampMillis) {
+    int percentile = random.nextInt(100);
+    PaymentStatus outcome = percentile < 85 ? PaymentStatus.AUTHORIZED
+        : percentile < 95 ? PaymentStatus.DECLINED
+        : PaymentStatus.REJECTED;
+    // Most payments are small, a few are large
+    int amount = 100 + (int) Math.min(10_000_000, Math.exp(random.nextGaussian() * 1.5 + 8));
+    return new PaymentEvent(i, PaymentEvent.NONE, timestampMillis,
+        PaymentEventType.BANK_RESPONDED, UUID.randomUUID(), outcome, 0, random.nextInt(10_000),
+        12, 2030, CURRENCIES[random.nextInt(CURRENCIES.length)], amount, null, null);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,84 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for four threads to append 250,000 events each (one million in total), to a heap log and to a
+ * memory-mapped file log. Each iteration starts from an empty log, so the file variant also pays
+ * for mapping new segments but never for {@code force()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 250_000)
+@Measurement(iterations = 10, batchSize = 250_000)
+@Threads(4)
+@Fork(1)
+public class PaymentEventLogBenchmark {
+
+  @Param({"heap", "file"})
+  public String storage;
+
+  private PaymentEvent event;
+  private Path directory;
+  private SegmentedPaymentEventLog log;
+
+  @Setup(Level.Trial)
+  public void createEvent() {
+    PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(),
+        PaymentStatus.AUTHORIZED, 8877, 4, 2030, "GBP", 1050);
+    event = PaymentEvent.of(PaymentEventType.BANK_RESPONDED, payment);
+  }
+
+  @Setup(Level.Iteration)
+  public void openLog() throws IOException {
+    if ("heap".equals(storage)) {
+      log = SegmentedPaymentEventLog.inMemory(1 << 18, currency -> currency);
+    } else {
+      directory = Files.createTempDirectory("payment-events");
+      log = SegmentedPaymentEventLog.open(directory, 1 << 18, currency -> currency);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteLog() throws IOException {
+    log = null;
+    if (directory != null) {
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public long append() {
+    return log.append(event);
+  }
+}
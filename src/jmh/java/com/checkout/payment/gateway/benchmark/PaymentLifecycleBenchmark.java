@@ -0,0 +1,100 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentStateException;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of mixed lifecycle operations running concurrently on shared payments: partial
+ * captures, partial refunds, void attempts that are always refused (captured payments) and status
+ * reads. With {@code payments=1} every thread contends on the same state word; with 1024 the
+ * operations are spread out as they would be in production.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentLifecycleBenchmark {
+
+  @Param({"1", "1024"})
+  public int payments;
+
+  private PostPaymentResponse[] authorized;
+  private PostPaymentResponse[] captured;
+
+  /**
+   * Fresh payments per iteration; amounts are large enough that no payment runs out of
+   * capturable or refundable funds within one iteration.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    authorized = new PostPaymentResponse[payments];
+    captured = new PostPaymentResponse[payments];
+    for (int i = 0; i < payments; i++) {
+      authorized[i] = payment();
+      captured[i] = payment();
+      captured[i].capture(0);
+    }
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public int capture() {
+    return pick(authorized).capture(1);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public int refund() {
+    return pick(captured).refund(1);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public boolean refusedVoid() {
+    try {
+      pick(captured).voidAuthorization();
+      return true;
+    } catch (PaymentStateException e) {
+      return false;
+    }
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public PaymentStatus read() {
+    return pick(authorized).getStatus();
+  }
+
+  private PostPaymentResponse pick(PostPaymentResponse[] pool) {
+    return pool[pool.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(pool.length)];
+  }
+
+  private static PostPaymentResponse payment() {
+    return new PostPaymentResponse(UUID.randomUUID(), PaymentStatus.AUTHORIZED, 1111, 12, 2030,
+        "USD", Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,58 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Estimates the retained heap per stored payment by filling a {@link PaymentsRepository} and
+ * comparing used heap before and after. Records either hold their own currency string, as they
+ * did when the currency came straight from the parsed request, or the registry's shared instance.
+ * Heap deltas are approximate, so use a large count and a fixed heap, for example
+ * {@code ./gradlew recordFootprint -PrecordFootprintArgs=1000000}.
+ */
+public final class PaymentRecordFootprint {
+
+  private PaymentRecordFootprint() {
+  }
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    CurrencyRegistry registry = new CurrencyRegistry(config);
+
+    System.out.printf("per-record currency string: %.1f bytes/record%n",
+        measure(count, i -> new String(new char[] {'u', 's', 'd'}).toUpperCase()));
+    System.out.printf("shared registry currency:   %.1f bytes/record%n",
+        measure(count, i -> registry.canonical("usd")));
+  }
+
+  private static double measure(int count, IntFunction<String> currency) {
+    long before = usedHeap();
+    PaymentsRepository repository = new PaymentsRepository();
+    for (int i = 0; i < count; i++) {
+      repository.add(new PostPaymentResponse(UUID.randomUUID(), PaymentStatus.AUTHORIZED, 1111,
+          12, 2030, currency.apply(i), 100));
+    }
+    long after = usedHeap();
+    // Keep the repository reachable until after the measurement
+    if (repository.get(UUID.randomUUID()).isPresent()) {
+      throw new IllegalStateException();
+    }
+    return (after - before) / (double) count;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,115 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentRequestReader;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Payment request bodies read and validated per second, by Jackson data binding followed by
+ * {@link PaymentValidator#validate} as before, and by {@link PaymentRequestReader}, which checks
+ * each field as it reads it and stops checking, though not reading, at the first invalid one.
+ *
+ * <p>
+ * Each invocation takes the next of 1024 bodies, {@code rejectedShare} of them invalid: a card
+ * number failing the Luhn check, an unsupported currency, a negative amount or an expired card,
+ * in equal parts. Fields come in the order of the API documentation, card number first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentRequestParsingBenchmark {
+
+  private static final int BODIES = 1024;
+  private static final String[] INVALID = {
+      body("4111111111111112", 12, 2030, "USD", 100),
+      body("4111111111111111", 12, 2030, "XYZ", 100),
+      body("4111111111111111", 12, 2030, "USD", -100),
+      body("4111111111111111", 1, 2001, "USD", 100),
+  };
+  private static final String VALID = body("4111111111111111", 12, 2030, "USD", 100);
+
+  @Param({"0.0", "0.5", "0.9"})
+  public double rejectedShare;
+
+  private ObjectMapper mapper;
+  private PaymentValidator validator;
+  private PaymentRequestReader reader;
+  private byte[][] bodies;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    // As configured by Spring Boot
+    mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    validator = new PaymentValidator(new CurrencyRegistry(config), BinTable.defaults());
+    reader = new PaymentRequestReader(mapper, validator);
+
+    Random random = new Random(42);
+    bodies = new byte[BODIES][];
+    for (int i = 0; i < BODIES; i++) {
+      String body = random.nextDouble() < rejectedShare
+          ? INVALID[random.nextInt(INVALID.length)] : VALID;
+      bodies[i] = body.getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public boolean dataBinding() throws IOException {
+    return isValid(mapper.readValue(nextBody(), PostPaymentRequest.class));
+  }
+
+  @Benchmark
+  public boolean streaming() throws IOException {
+    return isValid(reader.read(new ByteArrayInputStream(nextBody())));
+  }
+
+  private boolean isValid(PostPaymentRequest request) {
+    // As PaymentGatewayService does
+    try {
+      validator.validate(request);
+      return true;
+    } catch (RuntimeException ex) {
+      return false;
+    }
+  }
+
+  private byte[] nextBody() {
+    byte[] body = bodies[next];
+    next = (next + 1) & (BODIES - 1);
+    return body;
+  }
+
+  private static String body(String cardNumber, int month, int year, String currency,
+      int amount) {
+    return "{\"card_number\":\"" + cardNumber + "\",\"expiry_month\":" + month
+        + ",\"expiry_year\":" + year + ",\"currency\":\"" + currency + "\",\"amount\":"
+        + amount + ",\"cvv\":\"123\"}";
+  }
+}
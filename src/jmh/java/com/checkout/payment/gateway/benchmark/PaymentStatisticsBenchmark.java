@@ -0,0 +1,185 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.PaymentStats;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.stats.PaymentStatistics;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost that {@link PaymentStatistics} adds to each payment with an outcome, from 1 and 32
+ * threads, against the same per-second ring built on one {@link AtomicLongArray} per slot, where
+ * every thread recording the same currency and outcome retries its CAS on one shared cell. Each
+ * operation builds the outcome event the ledger would pass, timestamped now, so the ring turns
+ * over every second as it does in production; {@code event} is that cost alone. {@code report}
+ * is one {@code GET /admin/stats} over a full 60-second window while nothing records. Payments
+ * are in three currencies, 85% authorized. On fewer than 32 CPUs the multi-threaded time per
+ * operation also counts the time each thread waits for a CPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentStatisticsBenchmark {
+
+  private static final int PAYMENTS = 1024;
+  private static final String[] CURRENCIES = {"GBP", "USD", "EUR"};
+
+  private CurrencyRegistry currencies;
+  private PaymentStatistics statistics;
+  private AtomicRing atomic;
+  private PaymentStatistics fullWindow;
+
+  @State(Scope.Thread)
+  public static class Payments {
+
+    private final UUID paymentId = UUID.randomUUID();
+    private final String[] currencies = new String[PAYMENTS];
+    private final PaymentStatus[] outcomes = new PaymentStatus[PAYMENTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+      Random random = new Random(Thread.currentThread().getId());
+      for (int i = 0; i < PAYMENTS; i++) {
+        currencies[i] = CURRENCIES[random.nextInt(CURRENCIES.length)];
+        int percentile = random.nextInt(100);
+        outcomes[i] = percentile < 85 ? PaymentStatus.AUTHORIZED
+            : percentile < 95 ? PaymentStatus.DECLINED
+            : PaymentStatus.REJECTED;
+      }
+    }
+
+    PaymentEvent next() {
+      next = (next + 1) & (PAYMENTS - 1);
+      return new PaymentEvent(next, PaymentEvent.NONE, System.currentTimeMillis(),
+          PaymentEventType.BANK_RESPONDED, paymentId, outcomes[next], 0, 8877, 4, 2030,
+          currencies[next], 1000 + next, null, null);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of(CURRENCIES));
+    currencies = new CurrencyRegistry(config);
+    statistics = new PaymentStatistics(Duration.ofMinutes(1), currencies,
+        System::currentTimeMillis);
+    atomic = new AtomicRing(60, currencies);
+    // Every second of the window and every currency and outcome have payments to sum
+    long now = System.currentTimeMillis();
+    fullWindow = new PaymentStatistics(Duration.ofMinutes(1), currencies, () -> now);
+    Payments payments = new Payments();
+    payments.setUp();
+    for (int i = 0; i < 60 * PAYMENTS; i++) {
+      PaymentEvent event = payments.next();
+      fullWindow.onEvent(new PaymentEvent(i, PaymentEvent.NONE, now - 60_000 + i / 17,
+          event.type(), event.paymentId(), event.outcome(), 0, 8877, 4, 2030, event.currency(),
+          event.amount(), null, null));
+    }
+  }
+
+  @Benchmark
+  public PaymentEvent event(Payments payments) {
+    return payments.next();
+  }
+
+  @Benchmark
+  public void adders(Payments payments) {
+    statistics.onEvent(payments.next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void adders32Threads(Payments payments) {
+    statistics.onEvent(payments.next());
+  }
+
+  @Benchmark
+  public void atomics(Payments payments) {
+    atomic.onEvent(payments.next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void atomics32Threads(Payments payments) {
+    atomic.onEvent(payments.next());
+  }
+
+  @Benchmark
+  public PaymentStats report() {
+    return fullWindow.report();
+  }
+
+  /**
+   * The same totals and ring as {@link PaymentStatistics}, with one shared cell per figure.
+   */
+  private static final class AtomicRing {
+
+    private static final int STATUSES = PaymentStatus.values().length;
+
+    private final CurrencyRegistry currencies;
+    private final AtomicLongArray totals;
+    private final AtomicLongArray[] slots;
+    private final AtomicLongArray seconds;
+
+    AtomicRing(int windowSeconds, CurrencyRegistry currencies) {
+      this.currencies = currencies;
+      int keys = (currencies.size() + 1) * STATUSES;
+      totals = new AtomicLongArray(2 * keys);
+      slots = new AtomicLongArray[windowSeconds + 2];
+      seconds = new AtomicLongArray(slots.length);
+      for (int i = 0; i < slots.length; i++) {
+        slots[i] = new AtomicLongArray(2 * keys);
+      }
+    }
+
+    void onEvent(PaymentEvent event) {
+      if (!event.setsOutcome()) {
+        return;
+      }
+      int key = currencies.codeOf(event.currency()) * STATUSES + event.outcome().ordinal();
+      totals.incrementAndGet(2 * key);
+      totals.addAndGet(2 * key + 1, event.amount());
+      long second = event.timestampMillis() / 1000;
+      int index = (int) (second % slots.length);
+      AtomicLongArray slot = slots[index];
+      if (seconds.get(index) != second) {
+        synchronized (slot) {
+          if (seconds.get(index) < second) {
+            for (int i = 0; i < slot.length(); i++) {
+              slot.set(i, 0);
+            }
+            seconds.set(index, second);
+          } else if (seconds.get(index) > second) {
+            return;
+          }
+        }
+      }
+      slot.incrementAndGet(2 * key);
+      slot.addAndGet(2 * key + 1, event.amount());
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the repository's secondary indexes. The {@code add} benchmarks store new payments in
+ * an empty repository, against {@code mapPut}, a bare {@link ConcurrentHashMap} as the repository
+ * was before it had indexes; {@code addAgain} is what every capture, void and refund pays to move
+ * a payment to its new status. The {@code find} benchmarks query a repository of
+ * {@code payments} payments: 10,000 cards, 500 distinct amounts, a unique reference each, and
+ * statuses from common ({@code Captured}, 40%) to rare ({@code Voided}, 1%). Each query returns
+ * at most 100 payments. Filling 10M payments takes about a minute and 3 GB of heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PaymentsRepositoryBenchmark {
+
+  private static final int LIMIT = 100;
+  private static final int QUERIES = 1024;
+
+  @State(Scope.Benchmark)
+  public static class Stored {
+
+    @Param({"10000000"})
+    public int payments;
+
+    PaymentsRepository repository;
+    final String[] references = new String[QUERIES];
+    final int[] lastFours = new int[QUERIES];
+    final int[] amounts = new int[QUERIES];
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      repository = new PaymentsRepository();
+      Random random = new Random(42);
+      for (int i = 0; i < payments; i++) {
+        int lastFour = random.nextInt(10_000);
+        int amount = (random.nextInt(500) + 1) * 100;
+        PostPaymentResponse payment = payment(random.nextInt(100), lastFour, amount);
+        payment.setReference("order-" + i);
+        repository.add(payment);
+        if (i % (payments / QUERIES) == 0 && i / (payments / QUERIES) < QUERIES) {
+          int query = i / (payments / QUERIES);
+          references[query] = payment.getReference();
+          lastFours[query] = lastFour;
+          amounts[query] = amount;
+        }
+      }
+    }
+
+    int next() {
+      next = (next + 1) & (QUERIES - 1);
+      return next;
+    }
+
+    private static PostPaymentResponse payment(int percentile, int lastFour, int amount) {
+      PaymentStatus outcome = percentile < 15 ? PaymentStatus.DECLINED
+          : percentile < 19 ? PaymentStatus.REJECTED
+          : PaymentStatus.AUTHORIZED;
+      PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(), outcome, lastFour,
+          12, 2030, "USD", amount);
+      if (percentile >= 19 && percentile < 59) {
+        payment.capture(0);
+      } else if (percentile >= 59 && percentile < 69) {
+        payment.capture(amount / 2);
+      } else if (percentile >= 69 && percentile < 79) {
+        payment.capture(0);
+        payment.refund(0);
+      } else if (percentile == 99) {
+        payment.voidAuthorization();
+      }
+      return payment;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Fresh {
+
+    PaymentsRepository repository;
+    ConcurrentHashMap<UUID, PostPaymentResponse> map;
+    PostPaymentResponse stored;
+    int next;
+
+    /**
+     * New stores per iteration so they do not grow across the run.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+      repository = new PaymentsRepository();
+      map = new ConcurrentHashMap<>();
+      stored = newPayment(0);
+      repository.add(stored);
+    }
+
+    PostPaymentResponse newPayment(int i) {
+      PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(),
+          PaymentStatus.AUTHORIZED, i % 10_000, 12, 2030, "USD", (i % 500 + 1) * 100);
+      payment.setReference("order-" + i);
+      return payment;
+    }
+  }
+
+  @Benchmark
+  public PostPaymentResponse mapPut(Fresh fresh) {
+    PostPaymentResponse payment = fresh.newPayment(fresh.next++);
+    return fresh.map.put(payment.getId(), payment);
+  }
+
+  @Benchmark
+  public void add(Fresh fresh) {
+    fresh.repository.add(fresh.newPayment(fresh.next++));
+  }
+
+  @Benchmark
+  public void addAgain(Fresh fresh) {
+    fresh.repository.add(fresh.stored);
+  }
+
+  @Benchmark
+  public List<PostPaymentResponse> findByReference(Stored stored) {
+    return stored.repository.findByReference(stored.references[stored.next()], LIMIT);
+  }
+
+  @Benchmark
+  public List<PostPaymentResponse> findByCardAndAmount(Stored stored) {
+    int i = stored.next();
+    return stored.repository.findByCardAndAmount(stored.lastFours[i], stored.amounts[i], LIMIT);
+  }
+
+  @Benchmark
+  public List<PostPaymentResponse> findByCommonStatus(Stored stored) {
+    return stored.repository.findByStatus(PaymentStatus.CAPTURED, LIMIT);
+  }
+
+  @Benchmark
+  public List<PostPaymentResponse> findByRareStatus(Stored stored) {
+    return stored.repository.findByStatus(PaymentStatus.VOIDED, LIMIT);
+  }
+}
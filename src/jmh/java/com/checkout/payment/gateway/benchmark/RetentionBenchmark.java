@@ -0,0 +1,140 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentArchive;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for one retention pass to archive {@code payments} old payments, with {@code loadThreads}
+ * threads recording {@code loadRate} new payments a second between them through the same ledger
+ * for the whole pass. Dividing {@code payments} by the score gives the archive rate. At the end
+ * of each iteration the load threads print how many payments they recorded and the slowest
+ * single record, which shows whether the pass held request threads up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RetentionBenchmark {
+
+  private static final int FILE_PAYMENTS = 250_000;
+
+  @Param({"1000000"})
+  public int payments;
+
+  @Param({"0", "2"})
+  public int loadThreads;
+
+  @Param({"20000"})
+  public int loadRate;
+
+  private Path directory;
+  private PaymentArchive archive;
+  private PaymentLedger ledger;
+  private long cutoff;
+  private Thread[] load;
+  private volatile boolean running;
+  private volatile long recorded;
+  private volatile long slowestNanos;
+
+  @Setup(Level.Iteration)
+  public void fillLedger() throws IOException {
+    directory = Files.createTempDirectory("retention-benchmark");
+    archive = PaymentArchive.open(directory, currency -> currency);
+    ledger = new PaymentLedger(SegmentedPaymentEventLog.inMemory(1 << 16, currency -> currency),
+        null, archive, new PaymentsRepository(), Long.MAX_VALUE);
+    for (int i = 0; i < payments; i++) {
+      record(ledger, i);
+    }
+    cutoff = System.currentTimeMillis() + 1;
+    while (System.currentTimeMillis() <= cutoff) {
+      Thread.onSpinWait();
+    }
+    running = true;
+    recorded = 0;
+    slowestNanos = 0;
+    load = new Thread[loadThreads];
+    for (int t = 0; t < load.length; t++) {
+      load[t] = new Thread(this::recordUntilStopped, "load-" + t);
+      load[t].start();
+    }
+  }
+
+  @Benchmark
+  public long archivePass() throws IOException {
+    return ledger.archiveCreatedBefore(cutoff, FILE_PAYMENTS);
+  }
+
+  @TearDown(Level.Iteration)
+  public void stopLoad() throws Exception {
+    running = false;
+    for (Thread thread : load) {
+      thread.join();
+    }
+    if (load.length > 0) {
+      System.out.printf("recorded %d payments, slowest record %d µs%n", recorded,
+          TimeUnit.NANOSECONDS.toMicros(slowestNanos));
+    }
+    archive.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private void recordUntilStopped() {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) * loadThreads / loadRate;
+    long count = 0;
+    long slowest = 0;
+    long due = System.nanoTime();
+    while (running) {
+      LockSupport.parkNanos(due - System.nanoTime());
+      long started = System.nanoTime();
+      record(ledger, (int) count);
+      slowest = Math.max(slowest, System.nanoTime() - started);
+      count++;
+      due += intervalNanos;
+    }
+    synchronized (this) {
+      recorded += count;
+      slowestNanos = Math.max(slowestNanos, slowest);
+    }
+  }
+
+  private static void record(PaymentLedger ledger, int i) {
+    PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(), null, i % 10_000, 4,
+        2030, "GBP", 1000);
+    payment.setReference("order-" + i);
+    ledger.record(PaymentEventType.CREATED, payment);
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+  }
+}
@@ -0,0 +1,71 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ScreeningException;
+import com.checkout.payment.gateway.model.PaymentOrigin;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency that velocity screening adds to each payment. The screener's clock advances by 20 µs per
+ * call, so the sketches see time pass as they would at 50k payments per second: a new slice
+ * starts every 10 seconds of simulated traffic. Requests cycle through 1M distinct cards, 65k
+ * client IPs and 100 merchants with every limit enabled, so over a minute each card is seen 3
+ * times and each IP about 46 times and nearly every payment passes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScreeningOverheadBenchmark {
+
+  private static final int REQUESTS_PER_SECOND = 50_000;
+  private static final int KEYS = 1 << 20;
+
+  private final SplittableRandom random = new SplittableRandom(7);
+  private VelocityScreener screener;
+  private String[] cards;
+  private PaymentOrigin[] origins;
+  private long calls;
+
+  @Setup
+  public void setUp() {
+    ApplicationConfiguration.Screening settings = new ApplicationConfiguration.Screening();
+    settings.setEnabled(true);
+    settings.setCardLimit(10);
+    settings.setIpLimit(200);
+    settings.setMerchantLimit(100_000);
+    screener = new VelocityScreener(settings, () -> calls * 1000 / REQUESTS_PER_SECOND);
+    cards = new String[KEYS];
+    origins = new PaymentOrigin[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      cards[i] = String.valueOf(4_000_000_000_000_000L + i);
+      origins[i] = new PaymentOrigin("merchant-" + random.nextInt(100),
+          "10.0." + random.nextInt(256) + "." + random.nextInt(256), true);
+    }
+  }
+
+  @Benchmark
+  public boolean screen() {
+    int i = (int) (calls++ & (KEYS - 1));
+    try {
+      screener.screen(cards[i], origins[i]);
+      return true;
+    } catch (ScreeningException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.latency.StageLatencyTracker;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording one stage duration in {@link StageLatencyTracker}, which every stage of every
+ * payment pays. {@code record} is the tracker alone; {@code timeAndRecord} adds the two
+ * {@link System#nanoTime()} calls that measure the stage. Durations are spread from 1 µs to about
+ * 1 s across the six stages, and the tracker merges every second as it would in production, so
+ * recording threads keep swapping histograms with the merging thread. {@code recordFourThreads}
+ * shows that threads do not slow each other down; on fewer than four CPUs its time per operation
+ * also counts the time each thread waits for a CPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageLatencyRecordingBenchmark {
+
+  private static final int DURATIONS = 1024;
+  private static final PaymentStage[] STAGES = PaymentStage.values();
+
+  private StageLatencyTracker tracker;
+
+  @State(Scope.Thread)
+  public static class Durations {
+
+    private final long[] nanos = new long[DURATIONS];
+    private final PaymentStage[] stages = new PaymentStage[DURATIONS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+      Random random = new Random(42);
+      for (int i = 0; i < DURATIONS; i++) {
+        // Log-uniform between 1 µs and 1 s
+        nanos[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+        stages[i] = STAGES[i % STAGES.length];
+      }
+    }
+
+    int next() {
+      next = (next + 1) & (DURATIONS - 1);
+      return next;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ApplicationConfiguration.Latency settings = new ApplicationConfiguration.Latency();
+    settings.setInterval(Duration.ofSeconds(1));
+    tracker = new StageLatencyTracker(settings);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracker.close();
+  }
+
+  @Benchmark
+  public void record(Durations durations) {
+    int i = durations.next();
+    tracker.recordStage(durations.stages[i], durations.nanos[i]);
+  }
+
+  @Benchmark
+  public void timeAndRecord(Durations durations) {
+    long started = System.nanoTime();
+    int i = durations.next();
+    tracker.recordStage(durations.stages[i], System.nanoTime() - started);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void recordFourThreads(Durations durations) {
+    record(durations);
+  }
+}
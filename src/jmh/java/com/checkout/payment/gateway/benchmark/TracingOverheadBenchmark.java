@@ -0,0 +1,154 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.decline.DeclineCache;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Measures the cost tracing adds to {@code processPayment} (one payment span plus validate, bank
+ * and store stage spans) at different sampling ratios. {@code off} uses the no-op API and is the
+ * baseline; the other values use the SDK with a batch processor in front of an exporter that
+ * discards spans, so the numbers cover span creation and queueing but not serialization, which
+ * happens on the exporter thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+  @Param({"off", "0.0", "0.05", "1.0"})
+  public String samplingRatio;
+
+  private OpenTelemetrySdk sdk;
+  private PaymentInstrumentation instrumentation;
+  private ApplicationConfiguration config;
+  private PaymentGatewayService service;
+  private PostPaymentRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    OpenTelemetry openTelemetry;
+    if ("off".equals(samplingRatio)) {
+      openTelemetry = OpenTelemetry.noop();
+    } else {
+      sdk = OpenTelemetrySdk.builder()
+          .setTracerProvider(SdkTracerProvider.builder()
+              .setSampler(Sampler.parentBased(
+                  Sampler.traceIdRatioBased(Double.parseDouble(samplingRatio))))
+              .addSpanProcessor(BatchSpanProcessor.builder(new DiscardingExporter()).build())
+              .build())
+          .build();
+      openTelemetry = sdk;
+    }
+    instrumentation = new PaymentInstrumentation(openTelemetry);
+    config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    config.setBankUrl("http://localhost:0/payments");
+    // Every invocation pays with the same card
+    config.getScreening().setEnabled(false);
+    request = new PostPaymentRequest("4111111111111111", 12, 2030, "USD", 100, "123");
+  }
+
+  /**
+   * Fresh service per iteration so stored payments do not accumulate across the run.
+   */
+  @Setup(Level.Iteration)
+  public void createService() {
+    CurrencyRegistry currencies = new CurrencyRegistry(config);
+    PaymentsRepository repository = new PaymentsRepository();
+    PaymentLedger ledger = new PaymentLedger(
+        SegmentedPaymentEventLog.inMemory(1 << 16, currencies::canonical), null, repository,
+        Long.MAX_VALUE);
+    PaymentValidator validator = new PaymentValidator(currencies, BinTable.defaults());
+    service = new PaymentGatewayService(repository, validator,
+        new StubBankService(config), instrumentation, currencies, ledger,
+        new VelocityScreener(config), new PaymentDrain(config, ledger), new DeclineCache(config));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (sdk != null) {
+      sdk.close();
+    }
+  }
+
+  @Benchmark
+  public PostPaymentResponse processPayment() {
+    return service.processPayment(request);
+  }
+
+  private static class DiscardingExporter implements SpanExporter {
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+
+  private static class StubBankService extends BankService {
+
+    StubBankService(ApplicationConfiguration config) {
+      super(new RestTemplate(), config, OpenTelemetry.noop(), BinTable.defaults());
+    }
+
+    @Override
+    public GetAcquiringBankResponse submitBankRequest(GetAcquiringBankRequest request,
+        String merchantId) {
+      GetAcquiringBankResponse response = new GetAcquiringBankResponse();
+      response.setAuthorized(true);
+      return response;
+    }
+  }
+}
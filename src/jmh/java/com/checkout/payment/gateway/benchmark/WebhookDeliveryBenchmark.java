@@ -0,0 +1,95 @@
+package com.checkout.payment.gateway.benchmark;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.webhook.WebhookDispatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Delivered webhook notifications per second to a local receiver that accepts every request.
+ * Each invocation queues {@value #EVENTS} notifications and waits until all of them have been
+ * delivered, so the score is end-to-end delivery throughput rather than queueing speed. With
+ * {@code maxBatchSize=1} every notification is its own request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class WebhookDeliveryBenchmark {
+
+  private static final int EVENTS = 1000;
+
+  @Param({"1", "100"})
+  public int maxBatchSize;
+
+  private HttpServer receiver;
+  private WebhookDispatcher dispatcher;
+  private PaymentEvent event;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    receiver = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    receiver.setExecutor(Executors.newFixedThreadPool(4));
+    receiver.createContext("/webhooks", exchange -> {
+      exchange.getRequestBody().readAllBytes();
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    receiver.start();
+
+    ApplicationConfiguration.Webhooks settings = new ApplicationConfiguration.Webhooks();
+    settings.setUrl("http://localhost:" + receiver.getAddress().getPort() + "/webhooks");
+    settings.setMaxBatchSize(maxBatchSize);
+    settings.setQueueCapacity(EVENTS);
+    dispatcher = new WebhookDispatcher(settings, new ObjectMapper().findAndRegisterModules(), null);
+    PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(),
+        PaymentStatus.AUTHORIZED, 8877, 4, 2030, "GBP", 1050);
+    event = PaymentEvent.of(PaymentEventType.BANK_RESPONDED, payment)
+        .withPosition(0, PaymentEvent.NONE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dispatcher.close();
+    receiver.stop(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENTS)
+  public long deliver() {
+    long target = dispatcher.getDeliveredCount() + EVENTS;
+    for (int i = 0; i < EVENTS; i++) {
+      dispatcher.onEvent(event);
+    }
+    while (dispatcher.getDeliveredCount() < target) {
+      Thread.onSpinWait();
+    }
+    return target;
+  }
+}
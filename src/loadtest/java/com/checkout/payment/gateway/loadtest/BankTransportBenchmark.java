@@ -0,0 +1,153 @@
+package com.checkout.payment.gateway.loadtest;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import io.opentelemetry.api.OpenTelemetry;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+/**
+ * Compares the bank transports at high concurrency: how many connections the bank sees, and the
+ * throughput and latency of bank calls made through {@link BankService}.
+ *
+ * <p>
+ * Each mode starts a fresh bank simulator and keeps {@code --concurrency} callers submitting
+ * payments back to back for {@code --duration} seconds, after a warm-up of the same length.
+ * Modes: {@code http1} and {@code http2} talk to a bank that supports HTTP/2, and
+ * {@code http2-fallback} uses the HTTP/2 transport against a bank that only speaks HTTP/1.1.
+ *
+ * <p>
+ * Options: {@code --modes=<mode>[,<mode>...]}, {@code --concurrency=<n>},
+ * {@code --duration=<seconds>}, {@code --latency=<spec>} (see
+ * {@link LatencyDistribution#parse(String)}), {@code --connections=<n>} and
+ * {@code --max-streams=<n>} (HTTP/2 streams the bank allows per connection).
+ */
+public class BankTransportBenchmark {
+
+  private List<String> modes = List.of("http1", "http2", "http2-fallback");
+  private int concurrency = 200;
+  private int durationSeconds = 10;
+  private LatencyDistribution latency = LatencyDistribution.parse("fixed:20ms");
+  private int connections = 2;
+  private int maxStreams;
+
+  public static void main(String[] args) throws Exception {
+    BankTransportBenchmark benchmark = new BankTransportBenchmark();
+    for (String arg : args) {
+      String[] option = arg.replaceFirst("^--", "").split("=", 2);
+      String value = option.length > 1 ? option[1] : "";
+      switch (option[0]) {
+        case "modes" -> benchmark.modes = List.of(value.split(","));
+        case "concurrency" -> benchmark.concurrency = Integer.parseInt(value);
+        case "duration" -> benchmark.durationSeconds = Integer.parseInt(value);
+        case "latency" -> benchmark.latency = LatencyDistribution.parse(value);
+        case "connections" -> benchmark.connections = Integer.parseInt(value);
+        case "max-streams" -> benchmark.maxStreams = Integer.parseInt(value);
+        default -> throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+    List<Result> results = new ArrayList<>();
+    for (String mode : benchmark.modes) {
+      results.add(benchmark.measure(mode));
+    }
+    report(System.out, benchmark.concurrency, results);
+  }
+
+  Result measure(String mode) throws Exception {
+    if (!List.of("http1", "http2", "http2-fallback").contains(mode)) {
+      throw new IllegalArgumentException("Unknown mode " + mode);
+    }
+    System.out.printf("Measuring %s%n", mode);
+    try (BankSimulator bank = BankSimulator.builder()
+        .http2(!"http2-fallback".equals(mode))
+        .maxConcurrentStreams(maxStreams)
+        .workerThreads(concurrency)
+        .latency(latency)
+        .start()) {
+      ApplicationConfiguration config = new ApplicationConfiguration();
+      config.setBankUrl(bank.getPaymentsUrl());
+      config.getBankTransport().setProtocol(mode.startsWith("http2") ? "http2" : "http1");
+      config.getBankTransport().setConnections(connections);
+      config.getTuning().setBankMaxConcurrentCalls(concurrency);
+      // Built like the gateway's own RestTemplate, so http1 gets the same client
+      BankService bankService = new BankService(config.restTemplate(new RestTemplateBuilder()),
+          config, OpenTelemetry.noop(), BinTable.defaults());
+
+      run(bankService, new Recorder(3), new LongAdder(), new LongAdder());
+      Recorder recorder = new Recorder(3);
+      LongAdder completed = new LongAdder();
+      LongAdder failed = new LongAdder();
+      long started = System.nanoTime();
+      run(bankService, recorder, completed, failed);
+      double seconds = (System.nanoTime() - started) / 1e9;
+      return new Result(mode, completed.sum() / seconds, failed.sum(),
+          recorder.getIntervalHistogram(), bank.getConnectionCount(),
+          bank.getHttp2RequestCount() * 100.0 / Math.max(bank.getRequestCount(), 1));
+    }
+  }
+
+  private void run(BankService bankService, Recorder recorder, LongAdder completed,
+      LongAdder failed) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < concurrency; i++) {
+        futures.add(callers.submit(() -> {
+          GetAcquiringBankRequest request = payment();
+          while (System.nanoTime() < deadline) {
+            long sent = System.nanoTime();
+            GetAcquiringBankResponse response = bankService.submitBankRequest(request);
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+            (response != null && response.isAuthorized() ? completed : failed).increment();
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  private static GetAcquiringBankRequest payment() {
+    GetAcquiringBankRequest request = new GetAcquiringBankRequest();
+    request.setCardNumber("4111111111111111");
+    request.setExpiryDate("12/2030");
+    request.setCurrency("USD");
+    request.setAmount(100);
+    request.setCvv("123");
+    return request;
+  }
+
+  static void report(PrintStream out, int concurrency, List<Result> results) {
+    out.printf("%n%d concurrent bank calls:%n", concurrency);
+    out.printf("%-16s %12s %10s %10s %8s %12s %8s%n", "mode", "requests/s", "p50 ms",
+        "p99 ms", "failed", "connections", "HTTP/2");
+    for (Result result : results) {
+      out.printf("%-16s %12.0f %10.1f %10.1f %8d %12d %7.0f%%%n", result.mode(),
+          result.throughput(), result.latency().getValueAtPercentile(50) / 1000.0,
+          result.latency().getValueAtPercentile(99) / 1000.0, result.failed(),
+          result.connections(), result.http2Percent());
+    }
+  }
+
+  record Result(String mode, double throughput, long failed, Histogram latency, int connections,
+      double http2Percent) {
+  }
+}
@@ -0,0 +1,247 @@
+package com.checkout.payment.gateway.loadtest;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Open-loop load generator that replays a JSONL file of payment requests against the gateway.
+ *
+ * <p>
+ * Requests are scheduled at a fixed target rate regardless of how fast the gateway answers.
+ * Latency is measured from the <em>intended</em> send time of each request, so a stalled gateway
+ * is charged for every request that should have been sent while it was stalled (coordinated
+ * omission correction). The raw service time is recorded separately for comparison.
+ *
+ * <p>
+ * By default the gateway is started in-process against a {@link BankSimulator}. Pass
+ * {@code --target=http://host:port} to drive an already running gateway instead.
+ *
+ * <p>
+ * Options: {@code --requests=<file>} (one JSON request body per line),
+ * {@code --rate=<requests/s>}, {@code --duration=<seconds>}, {@code --warmup=<seconds>},
+ * {@code --bank-latency=<spec>[,<spec>...]} (see {@link LatencyDistribution#parse(String)}; one
+ * simulated acquirer per spec), {@code --routing=least-latency|weighted},
+ * {@code --bank-error-rate=<0..1>}, {@code --decline-cache=<ttl>} (turns the gateway's decline
+ * cache on), {@code --target=<url>}, {@code --report=<hgrm file>},
+ * {@code --max-p99-ms=<ms>} (exit code 2 when exceeded).
+ */
+public class LoadGenerator {
+
+  private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"(\\w+)\"");
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final LoadTestOptions options;
+  private final HttpClient client;
+  private final Recorder correctedRecorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+  private final Recorder serviceTimeRecorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+  private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+  LoadGenerator(LoadTestOptions options) {
+    this.options = options;
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    List<String> bodies = readRequests(options.getRequests());
+
+    ConfigurableApplicationContext gateway = null;
+    List<BankSimulator> banks = new ArrayList<>();
+    String target = options.getTarget();
+    int exitCode;
+    try {
+      if (target == null) {
+        List<String> gatewayArgs = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--payment.gateway.routing.strategy=" + options.getRouting(),
+            // Every request comes from this host and the corpus repeats cards
+            "--payment.gateway.screening.enabled=false",
+            "--springdoc.api-docs.enabled=false",
+            "--springdoc.swagger-ui.enabled=false"));
+        if (options.getDeclineCacheTtl() != null) {
+          gatewayArgs.add("--payment.gateway.decline-cache.enabled=true");
+          gatewayArgs.add("--payment.gateway.decline-cache.ttl=" + options.getDeclineCacheTtl());
+        }
+        for (String latency : options.getBankLatency().split(",")) {
+          BankSimulator bank = BankSimulator.builder()
+              .latency(LatencyDistribution.parse(latency))
+              .errorRate(options.getBankErrorRate())
+              .start();
+          int index = banks.size();
+          banks.add(bank);
+          gatewayArgs.add("--payment.gateway.acquirers[" + index + "].name=bank-" + index);
+          gatewayArgs.add("--payment.gateway.acquirers[" + index + "].url="
+              + bank.getPaymentsUrl());
+        }
+        gateway = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+            .run(gatewayArgs.toArray(String[]::new));
+        int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+        target = "http://localhost:" + port;
+      }
+
+      LoadGenerator generator = new LoadGenerator(options);
+      URI paymentsUri = URI.create(target + "/api/v1/payments");
+      if (options.getWarmupSeconds() > 0) {
+        generator.run(paymentsUri, bodies, options.getWarmupSeconds());
+        generator.reset();
+      }
+      long bankRequestsBefore = bankRequests(banks);
+      generator.run(paymentsUri, bodies, options.getDurationSeconds());
+      exitCode = generator.report(System.out);
+      if (!banks.isEmpty()) {
+        System.out.printf("Bank requests: %d%n", bankRequests(banks) - bankRequestsBefore);
+      }
+    } finally {
+      if (gateway != null) {
+        gateway.close();
+      }
+      banks.forEach(BankSimulator::close);
+    }
+    System.exit(exitCode);
+  }
+
+  /**
+   * Sends requests at the configured rate for the given number of seconds and waits for all
+   * outstanding responses.
+   */
+  void run(URI paymentsUri, List<String> bodies, int seconds) {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+    long totalRequests = (long) options.getRate() * seconds;
+    Phaser inFlight = new Phaser(1);
+    long start = System.nanoTime();
+
+    for (long i = 0; i < totalRequests; i++) {
+      long intendedStart = start + i * intervalNanos;
+      long wait;
+      while ((wait = intendedStart - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      HttpRequest request = HttpRequest.newBuilder(paymentsUri)
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(bodies.get((int) (i % bodies.size()))))
+          .build();
+      long actualStart = System.nanoTime();
+      inFlight.register();
+      client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+          .whenComplete((response, error) -> {
+            long end = System.nanoTime();
+            correctedRecorder.recordValue(Math.min(end - intendedStart, HIGHEST_TRACKABLE_NANOS));
+            serviceTimeRecorder.recordValue(Math.min(end - actualStart, HIGHEST_TRACKABLE_NANOS));
+            outcomes.computeIfAbsent(outcomeOf(response, error), key -> new LongAdder())
+                .increment();
+            inFlight.arriveAndDeregister();
+          });
+    }
+    inFlight.arriveAndAwaitAdvance();
+  }
+
+  void reset() {
+    correctedRecorder.reset();
+    serviceTimeRecorder.reset();
+    outcomes.clear();
+  }
+
+  /**
+   * Prints the percentile report and returns the process exit code.
+   */
+  int report(PrintStream out) throws IOException {
+    Histogram corrected = correctedRecorder.getIntervalHistogram();
+    Histogram serviceTime = serviceTimeRecorder.getIntervalHistogram();
+
+    out.printf("Target rate: %d req/s for %d s%n", options.getRate(),
+        options.getDurationSeconds());
+    out.println("Outcomes: " + outcomes);
+    printSummary(out, "Latency (corrected for coordinated omission)", corrected);
+    printSummary(out, "Service time (uncorrected)", serviceTime);
+    out.println();
+    out.println("Corrected latency distribution (ms):");
+    corrected.outputPercentileDistribution(out, 5, 1_000_000.0);
+
+    if (options.getReport() != null) {
+      Path report = options.getReport();
+      if (report.getParent() != null) {
+        Files.createDirectories(report.getParent());
+      }
+      try (PrintStream file = new PrintStream(Files.newOutputStream(report))) {
+        HistogramLogWriter writer = new HistogramLogWriter(file);
+        writer.outputLogFormatVersion();
+        writer.outputLegend();
+        writer.outputIntervalHistogram(corrected);
+      }
+      out.println("Histogram log written to " + report);
+    }
+
+    double p99Ms = corrected.getValueAtPercentile(99.0) / 1_000_000.0;
+    if (options.getMaxP99Ms() > 0 && p99Ms > options.getMaxP99Ms()) {
+      out.printf("FAILED: p99 %.3f ms exceeds budget of %d ms%n", p99Ms, options.getMaxP99Ms());
+      return 2;
+    }
+    return 0;
+  }
+
+  private static void printSummary(PrintStream out, String title, Histogram histogram) {
+    out.printf("%s: count=%d p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms p99.99=%.3fms"
+            + " max=%.3fms%n",
+        title,
+        histogram.getTotalCount(),
+        histogram.getValueAtPercentile(50.0) / 1_000_000.0,
+        histogram.getValueAtPercentile(90.0) / 1_000_000.0,
+        histogram.getValueAtPercentile(99.0) / 1_000_000.0,
+        histogram.getValueAtPercentile(99.9) / 1_000_000.0,
+        histogram.getValueAtPercentile(99.99) / 1_000_000.0,
+        histogram.getMaxValue() / 1_000_000.0);
+  }
+
+  private static String outcomeOf(HttpResponse<String> response, Throwable error) {
+    if (error != null) {
+      return "error:" + error.getClass().getSimpleName();
+    }
+    Matcher matcher = STATUS.matcher(response.body());
+    return response.statusCode() + (matcher.find() ? ":" + matcher.group(1) : "");
+  }
+
+  private static long bankRequests(List<BankSimulator> banks) {
+    return banks.stream().mapToLong(BankSimulator::getRequestCount).sum();
+  }
+
+  private static List<String> readRequests(Path file) throws IOException {
+    List<String> bodies = Files.readAllLines(file).stream()
+        .map(String::trim)
+        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+        .toList();
+    if (bodies.isEmpty()) {
+      throw new IllegalArgumentException("No requests found in " + file);
+    }
+    return bodies;
+  }
+}
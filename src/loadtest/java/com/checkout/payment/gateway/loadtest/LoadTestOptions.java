@@ -0,0 +1,123 @@
+package com.checkout.payment.gateway.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options for {@link LoadGenerator}, given as {@code --name=value} pairs.
+ */
+public class LoadTestOptions {
+
+  private Path requests = Path.of("src/loadtest/resources/payments.jsonl");
+  private int rate = 500;
+  private int durationSeconds = 30;
+  private int warmupSeconds = 5;
+  private String bankLatency = "fixed:5ms";
+  private double bankErrorRate;
+  private String routing = "least-latency";
+  private String declineCacheTtl;
+  private String target;
+  private Path report;
+  private long maxP99Ms;
+
+  public static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    LoadTestOptions options = new LoadTestOptions();
+    if (values.containsKey("requests")) {
+      options.requests = Path.of(values.remove("requests"));
+    }
+    if (values.containsKey("rate")) {
+      options.rate = Integer.parseInt(values.remove("rate"));
+    }
+    if (values.containsKey("duration")) {
+      options.durationSeconds = Integer.parseInt(values.remove("duration"));
+    }
+    if (values.containsKey("warmup")) {
+      options.warmupSeconds = Integer.parseInt(values.remove("warmup"));
+    }
+    if (values.containsKey("bank-latency")) {
+      options.bankLatency = values.remove("bank-latency");
+    }
+    if (values.containsKey("bank-error-rate")) {
+      options.bankErrorRate = Double.parseDouble(values.remove("bank-error-rate"));
+    }
+    if (values.containsKey("routing")) {
+      options.routing = values.remove("routing");
+    }
+    if (values.containsKey("decline-cache")) {
+      options.declineCacheTtl = values.remove("decline-cache");
+    }
+    if (values.containsKey("target")) {
+      options.target = values.remove("target");
+    }
+    if (values.containsKey("report")) {
+      options.report = Path.of(values.remove("report"));
+    }
+    if (values.containsKey("max-p99-ms")) {
+      options.maxP99Ms = Long.parseLong(values.remove("max-p99-ms"));
+    }
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options: " + values.keySet());
+    }
+    if (options.rate <= 0) {
+      throw new IllegalArgumentException("--rate must be positive");
+    }
+    return options;
+  }
+
+  public Path getRequests() {
+    return requests;
+  }
+
+  public int getRate() {
+    return rate;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public int getWarmupSeconds() {
+    return warmupSeconds;
+  }
+
+  public String getBankLatency() {
+    return bankLatency;
+  }
+
+  public double getBankErrorRate() {
+    return bankErrorRate;
+  }
+
+  public String getRouting() {
+    return routing;
+  }
+
+  /**
+   * TTL of the gateway's decline cache, e.g. {@code 30s}, or null to leave the cache off.
+   */
+  public String getDeclineCacheTtl() {
+    return declineCacheTtl;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public Path getReport() {
+    return report;
+  }
+
+  public long getMaxP99Ms() {
+    return maxP99Ms;
+  }
+}
@@ -0,0 +1,270 @@
+package com.checkout.payment.gateway.loadtest;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how quickly a freshly started gateway can take payments, for each startup mode.
+ *
+ * <p>
+ * Each run launches the gateway as a new process and records two times from launch: until
+ * {@code /health/readiness} first answers 200, and until the first payment has been authorized.
+ * The second includes the lazy initialization done by the first request (JSON binding, the
+ * dispatcher servlet, the bank client), so it is what a new pod's first customer waits for.
+ *
+ * <p>
+ * A mode is {@code baseline} or a {@code +}-separated combination of {@code prod} (the prod
+ * profile, which turns springdoc off), {@code aot} (the Spring AOT initializers generated at build
+ * time), {@code cds} (an AppCDS archive) and {@code native} (the GraalVM native executable from
+ * {@code --native-image}). A {@code cds} mode first does a training run: it starts the gateway
+ * with {@code -XX:ArchiveClassesAtExit}, sends a few payments so the request path is loaded too,
+ * and stops it. The JVM writes the archive to {@code <work>/cds/<mode>.jsa} on exit, where it can
+ * be reused with the same jars. Training again on every invocation keeps the archive in step with
+ * the jars, which the JVM would otherwise reject after a rebuild.
+ *
+ * <p>
+ * Options: {@code --lib=<dir of jars>} (the application classpath, including the AOT classes),
+ * {@code --work=<dir>} (archives and process logs), {@code --modes=<mode>[,<mode>...]},
+ * {@code --runs=<n>}, {@code --training-payments=<n>}, {@code --native-image=<executable>}.
+ */
+public class StartupBenchmark {
+
+  private static final Set<String> FEATURES = Set.of("prod", "aot", "cds", "native");
+  private static final String PAYMENT = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+  private static final long START_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+  private final StartupOptions options;
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(1))
+      .build();
+  private final BankSimulator bank;
+
+  StartupBenchmark(StartupOptions options, BankSimulator bank) {
+    this.options = options;
+    this.bank = bank;
+  }
+
+  public static void main(String[] args) throws Exception {
+    StartupOptions options = StartupOptions.parse(args);
+    Files.createDirectories(options.getWork().resolve("cds"));
+    Files.createDirectories(options.getWork().resolve("logs"));
+    try (BankSimulator bank = BankSimulator.start(Duration.ZERO)) {
+      StartupBenchmark benchmark = new StartupBenchmark(options, bank);
+      List<Result> results = new ArrayList<>();
+      for (String mode : options.getModes()) {
+        results.add(benchmark.measure(mode));
+      }
+      report(System.out, options.getRuns(), results);
+    }
+  }
+
+  Result measure(String mode) throws IOException, InterruptedException {
+    Set<String> features = features(mode);
+    Path archive = options.getWork().resolve("cds").resolve(mode + ".jsa");
+    if (features.contains("cds")) {
+      Files.deleteIfExists(archive);
+      train(mode, features, archive);
+    }
+    long[] ready = new long[options.getRuns()];
+    long[] firstPayment = new long[options.getRuns()];
+    for (int run = 0; run < options.getRuns(); run++) {
+      int port = freePort();
+      long launched = System.nanoTime();
+      Process gateway = launch(command(features, port, "-XX:SharedArchiveFile=" + archive),
+          mode + "-" + run);
+      try {
+        String target = "http://localhost:" + port;
+        awaitReady(gateway, target, launched);
+        ready[run] = System.nanoTime() - launched;
+        pay(target);
+        firstPayment[run] = System.nanoTime() - launched;
+      } finally {
+        stop(gateway);
+      }
+    }
+    return new Result(mode, ready, firstPayment);
+  }
+
+  /**
+   * Runs the gateway once with {@code -XX:ArchiveClassesAtExit}, so the JVM dumps every class
+   * loaded during startup and the first payments into an AppCDS archive when it exits.
+   */
+  private void train(String mode, Set<String> features, Path archive)
+      throws IOException, InterruptedException {
+    System.out.printf("Training AppCDS archive for %s%n", mode);
+    int port = freePort();
+    long launched = System.nanoTime();
+    Process gateway = launch(command(features, port, "-XX:ArchiveClassesAtExit=" + archive),
+        mode + "-training");
+    try {
+      String target = "http://localhost:" + port;
+      awaitReady(gateway, target, launched);
+      for (int i = 0; i < options.getTrainingPayments(); i++) {
+        pay(target);
+      }
+    } finally {
+      stop(gateway);
+    }
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException("No archive written for " + mode + ", see "
+          + options.getWork().resolve("logs").resolve(mode + "-training.log"));
+    }
+  }
+
+  private List<String> command(Set<String> features, int port, String archiveOption)
+      throws IOException {
+    List<String> command = new ArrayList<>();
+    if (features.contains("native")) {
+      if (options.getNativeImage() == null) {
+        throw new IllegalArgumentException("Mode native needs --native-image");
+      }
+      command.add(options.getNativeImage().toAbsolutePath().toString());
+    } else {
+      command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+      if (features.contains("cds")) {
+        command.add(archiveOption);
+      }
+      if (features.contains("aot")) {
+        command.add("-Dspring.aot.enabled=true");
+      }
+      command.add("-cp");
+      command.add(classpath());
+      command.add(PaymentGatewayApplication.class.getName());
+    }
+    command.add("--server.port=" + port);
+    command.add("--payment.gateway.bank-url=" + bank.getPaymentsUrl());
+    // Training pays with the same card many times
+    command.add("--payment.gateway.screening.enabled=false");
+    if (features.contains("prod")) {
+      command.add("--spring.profiles.active=prod");
+    }
+    return command;
+  }
+
+  /**
+   * The jars in {@code --lib} in name order. AppCDS checks that the classpath matches the one the
+   * archive was trained with, so it must come out the same on every launch.
+   */
+  private String classpath() throws IOException {
+    try (Stream<Path> jars = Files.list(options.getLib())) {
+      return jars.filter(jar -> jar.toString().endsWith(".jar"))
+          .map(jar -> jar.toAbsolutePath().toString())
+          .sorted()
+          .collect(Collectors.joining(System.getProperty("path.separator")));
+    }
+  }
+
+  private Process launch(List<String> command, String name) throws IOException {
+    Path log = options.getWork().resolve("logs").resolve(name + ".log");
+    return new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(log.toFile())
+        .start();
+  }
+
+  private void awaitReady(Process gateway, String target, long launched)
+      throws InterruptedException {
+    HttpRequest readiness = HttpRequest.newBuilder(URI.create(target + "/health/readiness"))
+        .GET()
+        .build();
+    while (System.nanoTime() - launched < START_TIMEOUT_NANOS) {
+      if (!gateway.isAlive()) {
+        throw new IllegalStateException("Gateway exited with code " + gateway.exitValue());
+      }
+      try {
+        if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+          return;
+        }
+      } catch (IOException notListeningYet) {
+        // Retried below until the port opens
+      }
+      Thread.sleep(5);
+    }
+    throw new IllegalStateException("Gateway not ready after 2 minutes");
+  }
+
+  private void pay(String target) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/api/v1/payments"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+        .build();
+    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() != 201 || !response.body().contains("Authorized")) {
+      throw new IllegalStateException("Unexpected payment response " + response.statusCode()
+          + ": " + response.body());
+    }
+  }
+
+  private static void stop(Process gateway) throws InterruptedException {
+    // SIGTERM, so shutdown hooks run and a training JVM writes its archive
+    gateway.destroy();
+    if (!gateway.waitFor(60, TimeUnit.SECONDS)) {
+      gateway.destroyForcibly().waitFor();
+    }
+  }
+
+  private static Set<String> features(String mode) {
+    if ("baseline".equals(mode)) {
+      return Set.of();
+    }
+    Set<String> features = Set.of(mode.split("\\+"));
+    for (String feature : features) {
+      if (!FEATURES.contains(feature)) {
+        throw new IllegalArgumentException("Unknown startup feature " + feature + " in " + mode);
+      }
+    }
+    if (features.contains("native") && (features.contains("cds") || features.contains("aot"))) {
+      throw new IllegalArgumentException("A native image already includes AOT and has no JVM");
+    }
+    return features;
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  static void report(PrintStream out, int runs, List<Result> results) {
+    out.printf("%nMedian of %d runs, milliseconds from process launch:%n", runs);
+    out.printf("%-16s %10s %10s %16s%n", "mode", "ready", "min", "first payment");
+    for (Result result : results) {
+      out.printf("%-16s %10d %10d %16d%n", result.mode(), millis(median(result.ready())),
+          millis(Arrays.stream(result.ready()).min().orElse(0)),
+          millis(median(result.firstPayment())));
+    }
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  record Result(String mode, long[] ready, long[] firstPayment) {
+  }
+}
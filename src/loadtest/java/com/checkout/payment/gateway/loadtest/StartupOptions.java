@@ -0,0 +1,85 @@
+package com.checkout.payment.gateway.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options for {@link StartupBenchmark}, given as {@code --name=value} pairs.
+ */
+public class StartupOptions {
+
+  private Path lib = Path.of("build/startup/lib");
+  private Path work = Path.of("build/startup");
+  private List<String> modes = List.of("baseline", "prod", "prod+cds");
+  private int runs = 5;
+  private int trainingPayments = 50;
+  private Path nativeImage;
+
+  public static StartupOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    StartupOptions options = new StartupOptions();
+    if (values.containsKey("lib")) {
+      options.lib = Path.of(values.remove("lib"));
+    }
+    if (values.containsKey("work")) {
+      options.work = Path.of(values.remove("work"));
+    }
+    if (values.containsKey("modes")) {
+      options.modes = Arrays.stream(values.remove("modes").split(","))
+          .map(String::trim)
+          .filter(mode -> !mode.isEmpty())
+          .toList();
+    }
+    if (values.containsKey("runs")) {
+      options.runs = Integer.parseInt(values.remove("runs"));
+    }
+    if (values.containsKey("training-payments")) {
+      options.trainingPayments = Integer.parseInt(values.remove("training-payments"));
+    }
+    if (values.containsKey("native-image")) {
+      options.nativeImage = Path.of(values.remove("native-image"));
+    }
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options: " + values.keySet());
+    }
+    if (options.runs <= 0) {
+      throw new IllegalArgumentException("--runs must be positive");
+    }
+    return options;
+  }
+
+  public Path getLib() {
+    return lib;
+  }
+
+  public Path getWork() {
+    return work;
+  }
+
+  public List<String> getModes() {
+    return modes;
+  }
+
+  public int getRuns() {
+    return runs;
+  }
+
+  public int getTrainingPayments() {
+    return trainingPayments;
+  }
+
+  public Path getNativeImage() {
+    return nativeImage;
+  }
+}
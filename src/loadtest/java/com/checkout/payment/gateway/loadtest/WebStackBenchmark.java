@@ -0,0 +1,172 @@
+package com.checkout.payment.gateway.loadtest;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.reactive.ReactivePaymentGatewayApplication;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the servlet gateway and the reactive gateway side by side under the same load: payment
+ * throughput and latency through the whole API, and how many threads each spends on HTTP.
+ *
+ * <p>
+ * Each stack is started in-process against a fresh bank simulator. {@code --concurrency} callers
+ * then submit payments back to back for {@code --duration} seconds, after a warm-up of the same
+ * length. HTTP threads are Tomcat's request threads ({@code http-nio-*}) for the servlet stack
+ * and Reactor Netty's event loops ({@code reactor-*}) for the reactive one, counted once the run
+ * is over: Tomcat keeps idle request threads for a minute.
+ *
+ * <p>
+ * Options: {@code --stacks=servlet|reactive[,...]}, {@code --concurrency=<n>},
+ * {@code --duration=<seconds>} and {@code --bank-latency=<spec>} (see
+ * {@link LatencyDistribution#parse(String)}).
+ */
+public class WebStackBenchmark {
+
+  private static final String PAYMENT = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+
+  private List<String> stacks = List.of("servlet", "reactive");
+  private int concurrency = 200;
+  private int durationSeconds = 10;
+  private LatencyDistribution bankLatency = LatencyDistribution.parse("fixed:20ms");
+
+  public static void main(String[] args) throws Exception {
+    WebStackBenchmark benchmark = new WebStackBenchmark();
+    for (String arg : args) {
+      String[] option = arg.replaceFirst("^--", "").split("=", 2);
+      String value = option.length > 1 ? option[1] : "";
+      switch (option[0]) {
+        case "stacks" -> benchmark.stacks = List.of(value.split(","));
+        case "concurrency" -> benchmark.concurrency = Integer.parseInt(value);
+        case "duration" -> benchmark.durationSeconds = Integer.parseInt(value);
+        case "bank-latency" -> benchmark.bankLatency = LatencyDistribution.parse(value);
+        default -> throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+    List<Result> results = new ArrayList<>();
+    for (String stack : benchmark.stacks) {
+      results.add(benchmark.measure(stack));
+    }
+    report(System.out, benchmark.concurrency, results);
+    System.exit(0);
+  }
+
+  Result measure(String stack) throws Exception {
+    SpringApplicationBuilder application = switch (stack) {
+      case "servlet" -> new SpringApplicationBuilder(PaymentGatewayApplication.class);
+      case "reactive" -> new SpringApplicationBuilder(ReactivePaymentGatewayApplication.class)
+          .web(WebApplicationType.REACTIVE);
+      default -> throw new IllegalArgumentException("Unknown stack " + stack);
+    };
+    System.out.printf("Measuring %s%n", stack);
+    try (BankSimulator bank = BankSimulator.builder().latency(bankLatency).start();
+        ConfigurableApplicationContext gateway = application.run(
+            "--server.port=0",
+            "--payment.gateway.bank-url=" + bank.getPaymentsUrl(),
+            // Every request comes from this host with the same card
+            "--payment.gateway.screening.enabled=false",
+            "--springdoc.api-docs.enabled=false",
+            "--springdoc.swagger-ui.enabled=false")) {
+      int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+      URI payments = URI.create("http://localhost:" + port + "/api/v1/payments");
+      HttpClient client = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .connectTimeout(Duration.ofSeconds(5))
+          .build();
+
+      run(client, payments, new Recorder(3), new LongAdder(), new LongAdder());
+      Recorder recorder = new Recorder(3);
+      LongAdder completed = new LongAdder();
+      LongAdder failed = new LongAdder();
+      long started = System.nanoTime();
+      run(client, payments, recorder, completed, failed);
+      double seconds = (System.nanoTime() - started) / 1e9;
+      return new Result(stack, completed.sum() / seconds, failed.sum(),
+          recorder.getIntervalHistogram(), httpThreads());
+    }
+  }
+
+  private static int httpThreads() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    int count = 0;
+    for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+      if (thread != null && (thread.getThreadName().startsWith("http-nio-")
+          || thread.getThreadName().startsWith("reactor-"))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void run(HttpClient client, URI payments, Recorder recorder, LongAdder completed,
+      LongAdder failed) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    HttpRequest request = HttpRequest.newBuilder(payments)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+        .build();
+    List<CompletableFuture<Void>> callers = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      callers.add(call(client, request, deadline, recorder, completed, failed));
+    }
+    CompletableFuture.allOf(callers.toArray(CompletableFuture[]::new)).join();
+  }
+
+  /**
+   * One caller: sends the next payment as soon as the previous one is answered.
+   */
+  private static CompletableFuture<Void> call(HttpClient client, HttpRequest request,
+      long deadline, Recorder recorder, LongAdder completed, LongAdder failed) {
+    if (System.nanoTime() >= deadline) {
+      return CompletableFuture.completedFuture(null);
+    }
+    long sent = System.nanoTime();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle((response, error) -> {
+          recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+          boolean authorized = error == null && response.statusCode() == 201
+              && response.body().contains("\"Authorized\"");
+          (authorized ? completed : failed).increment();
+          return null;
+        })
+        .thenCompose(ignored -> call(client, request, deadline, recorder, completed, failed));
+  }
+
+  static void report(PrintStream out, int concurrency, List<Result> results) {
+    out.printf("%n%d concurrent payments:%n", concurrency);
+    out.printf("%-10s %12s %10s %10s %8s %12s%n", "stack", "payments/s", "p50 ms", "p99 ms",
+        "failed", "HTTP threads");
+    for (Result result : results) {
+      out.printf("%-10s %12.0f %10.1f %10.1f %8d %12d%n", result.stack(), result.throughput(),
+          result.latency().getValueAtPercentile(50) / 1000.0,
+          result.latency().getValueAtPercentile(99) / 1000.0, result.failed(),
+          result.httpThreads());
+    }
+  }
+
+  record Result(String stack, double throughput, long failed, Histogram latency,
+      int httpThreads) {
+  }
+}
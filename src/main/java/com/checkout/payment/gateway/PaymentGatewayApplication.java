@@ -1,9 +1,27 @@
 package com.checkout.payment.gateway;
 
+import com.checkout.payment.gateway.configuration.GatewayRuntimeHints;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
-@SpringBootApplication
+/**
+ * The gateway on Spring MVC. The WebFlux variant in the {@code reactive} package, which shares
+ * this tree on the test classpath, is left out of the scan.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(excludeFilters = {
+    @Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+    @Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+    @Filter(type = FilterType.REGEX, pattern = "com\\.checkout\\.payment\\.gateway\\.reactive\\..*")})
+@ImportRuntimeHints(GatewayRuntimeHints.class)
 public class PaymentGatewayApplication {
 
   public static void main(String[] args) {
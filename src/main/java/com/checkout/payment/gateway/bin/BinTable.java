@@ -0,0 +1,318 @@
+package com.checkout.payment.gateway.bin;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.CardScheme;
+import com.checkout.payment.gateway.enums.CardType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Table of BIN ranges giving the scheme, issuing country and type of a card from the leading
+ * digits of its number.
+ *
+ * <p>
+ * Ranges are read once from a CSV file with lines {@code low,high,scheme,country,type}. The bounds
+ * are digit prefixes of up to {@value #KEY_DIGITS} digits ({@code high} defaults to {@code low})
+ * and the other columns may be left empty. Ranges may nest, in which case the narrower one wins,
+ * but may not partially overlap. At load they are flattened into disjoint ranges over the first
+ * {@value #KEY_DIGITS} digits and kept in sorted {@code long[]} arrays, with the attributes packed
+ * into an {@code int[]}: 20 bytes per range, and a lookup is one binary search that neither
+ * allocates nor hashes. Lookups return a row number, like {@code CurrencyRegistry} codes, which
+ * the accessors resolve to attributes.
+ */
+@Component
+public class BinTable {
+
+  public static final int NOT_FOUND = -1;
+
+  static final int KEY_DIGITS = 12;
+
+  private static final String DEFAULT_RESOURCE = "bin-ranges.csv";
+  private static final CardScheme[] SCHEMES = CardScheme.values();
+  private static final CardType[] TYPES = CardType.values();
+  private static final String[] COUNTRIES = countryCodes();
+
+  private final long[] lows;
+  private final long[] highs;
+  private final int[] attributes;
+  private final Set<CardScheme> acceptedSchemes;
+
+  @Autowired
+  public BinTable(ApplicationConfiguration config) {
+    this(readRanges(config.getBins().getFile()), acceptedSchemes(config.getBins()));
+  }
+
+  private BinTable(List<Range> ranges, Set<CardScheme> acceptedSchemes) {
+    List<Range> sorted = new ArrayList<>(ranges);
+    // Wider ranges first among equal lows, so a range is always pushed before those nested in it
+    sorted.sort(Comparator.comparingLong(Range::low)
+        .thenComparing(Comparator.comparingLong(Range::high).reversed()));
+    Segments segments = new Segments(2 * sorted.size());
+    Deque<Range> open = new ArrayDeque<>();
+    long cursor = 0;
+    for (Range range : sorted) {
+      while (!open.isEmpty() && open.peek().high() < range.low()) {
+        Range closed = open.pop();
+        segments.add(cursor, closed.high(), closed.attributes());
+        cursor = Math.max(cursor, closed.high() + 1);
+      }
+      Range parent = open.peek();
+      if (parent != null) {
+        if (range.high() > parent.high()) {
+          throw new IllegalArgumentException("BIN range at line " + range.line()
+              + " partially overlaps the range at line " + parent.line());
+        }
+        segments.add(cursor, range.low() - 1, parent.attributes());
+      }
+      cursor = range.low();
+      open.push(range);
+    }
+    while (!open.isEmpty()) {
+      Range closed = open.pop();
+      segments.add(cursor, closed.high(), closed.attributes());
+      cursor = Math.max(cursor, closed.high() + 1);
+    }
+    this.lows = Arrays.copyOf(segments.lows, segments.count);
+    this.highs = Arrays.copyOf(segments.highs, segments.count);
+    this.attributes = Arrays.copyOf(segments.attributes, segments.count);
+    this.acceptedSchemes = acceptedSchemes;
+  }
+
+  /**
+   * Reads a table in the CSV format described above. Every scheme is accepted.
+   */
+  public static BinTable load(BufferedReader reader) throws IOException {
+    return new BinTable(parse(reader), EnumSet.allOf(CardScheme.class));
+  }
+
+  /**
+   * Returns the bundled scheme-level table, with no country or card type information.
+   */
+  public static BinTable defaults() {
+    return new BinTable(readRanges(""), EnumSet.allOf(CardScheme.class));
+  }
+
+  /**
+   * Returns the row for a card number, or {@link #NOT_FOUND} when no range covers it or it does
+   * not start with digits.
+   */
+  public int find(CharSequence cardNumber) {
+    long key = keyOf(cardNumber);
+    if (key < 0) {
+      return NOT_FOUND;
+    }
+    int row = Arrays.binarySearch(lows, key);
+    if (row < 0) {
+      row = -row - 2;
+    }
+    return row >= 0 && key <= highs[row] ? row : NOT_FOUND;
+  }
+
+  public CardScheme scheme(int row) {
+    return row == NOT_FOUND ? CardScheme.UNKNOWN : SCHEMES[attributes[row] >>> 24];
+  }
+
+  public CardType cardType(int row) {
+    return row == NOT_FOUND ? CardType.UNKNOWN : TYPES[(attributes[row] >>> 16) & 0xff];
+  }
+
+  /**
+   * Returns the ISO 3166 alpha-2 code of the issuing country, or null when unknown.
+   */
+  public String country(int row) {
+    return row == NOT_FOUND ? null : COUNTRIES[attributes[row] & 0xffff];
+  }
+
+  public CardScheme schemeOf(CharSequence cardNumber) {
+    return scheme(find(cardNumber));
+  }
+
+  /**
+   * Whether {@code payment.gateway.bins.accepted-schemes} allows the scheme.
+   */
+  public boolean accepts(CardScheme scheme) {
+    return acceptedSchemes.contains(scheme);
+  }
+
+  /**
+   * Number of disjoint ranges after flattening.
+   */
+  public int size() {
+    return lows.length;
+  }
+
+  /**
+   * The first {@value #KEY_DIGITS} digits as a number, zero-padded on the right, or -1.
+   */
+  private static long keyOf(CharSequence cardNumber) {
+    if (cardNumber == null || cardNumber.length() == 0) {
+      return -1;
+    }
+    long key = 0;
+    for (int i = 0; i < KEY_DIGITS; i++) {
+      int digit = i < cardNumber.length() ? cardNumber.charAt(i) - '0' : 0;
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      key = key * 10 + digit;
+    }
+    return key;
+  }
+
+  private static List<Range> readRanges(String file) {
+    try {
+      if (file == null || file.isBlank()) {
+        InputStream in = BinTable.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE);
+        if (in == null) {
+          throw new IllegalStateException(DEFAULT_RESOURCE + " is missing from the classpath");
+        }
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(in, StandardCharsets.UTF_8))) {
+          return parse(reader);
+        }
+      }
+      try (BufferedReader reader = Files.newBufferedReader(Path.of(file))) {
+        return parse(reader);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Could not read BIN table " + file, ex);
+    }
+  }
+
+  private static List<Range> parse(BufferedReader reader) throws IOException {
+    List<Range> ranges = new ArrayList<>();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] columns = line.split(",", -1);
+      try {
+        String low = columns[0].trim();
+        String high = columns.length > 1 && !columns[1].isBlank() ? columns[1].trim() : low;
+        CardScheme scheme = columns.length > 2 ? parseEnum(CardScheme.class, columns[2])
+            : CardScheme.UNKNOWN;
+        int country = columns.length > 3 ? countryIndex(columns[3].trim()) : 0;
+        CardType type = columns.length > 4 ? parseEnum(CardType.class, columns[4])
+            : CardType.UNKNOWN;
+        Range range = new Range(bound(low, '0'), bound(high, '9'),
+            scheme.ordinal() << 24 | type.ordinal() << 16 | country, lineNumber);
+        if (range.low() > range.high()) {
+          throw new IllegalArgumentException("low is above high");
+        }
+        ranges.add(range);
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("Invalid BIN range at line " + lineNumber + ": "
+            + ex.getMessage(), ex);
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Pads a prefix to {@value #KEY_DIGITS} digits with {@code fill}.
+   */
+  private static long bound(String prefix, char fill) {
+    if (prefix.isEmpty() || prefix.length() > KEY_DIGITS) {
+      throw new IllegalArgumentException("BIN prefix must have 1 to " + KEY_DIGITS + " digits");
+    }
+    long value = 0;
+    for (int i = 0; i < KEY_DIGITS; i++) {
+      char c = i < prefix.length() ? prefix.charAt(i) : fill;
+      if (c < '0' || c > '9') {
+        throw new IllegalArgumentException("BIN prefix must be numeric: " + prefix);
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+    String name = value.trim().toUpperCase(Locale.ROOT);
+    return Enum.valueOf(type, name.isEmpty() ? "UNKNOWN" : name);
+  }
+
+  /**
+   * Maps a two-letter country code to 1..676, or an empty column to 0.
+   */
+  private static int countryIndex(String country) {
+    if (country.isEmpty()) {
+      return 0;
+    }
+    int first = (country.charAt(0) | 0x20) - 'a';
+    int second = country.length() == 2 ? (country.charAt(1) | 0x20) - 'a' : -1;
+    if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+      throw new IllegalArgumentException("Invalid country code: " + country);
+    }
+    return first * 26 + second + 1;
+  }
+
+  private static String[] countryCodes() {
+    String[] codes = new String[26 * 26 + 1];
+    for (int i = 1; i < codes.length; i++) {
+      codes[i] = new String(new char[] {(char) ('A' + (i - 1) / 26), (char) ('A' + (i - 1) % 26)});
+    }
+    return codes;
+  }
+
+  private static Set<CardScheme> acceptedSchemes(ApplicationConfiguration.Bins bins) {
+    if (bins.getAcceptedSchemes().isEmpty()) {
+      return EnumSet.allOf(CardScheme.class);
+    }
+    Set<CardScheme> schemes = EnumSet.noneOf(CardScheme.class);
+    for (String scheme : bins.getAcceptedSchemes()) {
+      schemes.add(parseEnum(CardScheme.class, scheme));
+    }
+    return schemes;
+  }
+
+  private record Range(long low, long high, int attributes, int line) {
+  }
+
+  /**
+   * Flattened ranges in the order they are produced, which is ascending.
+   */
+  private static final class Segments {
+
+    private final long[] lows;
+    private final long[] highs;
+    private final int[] attributes;
+    private int count;
+
+    Segments(int capacity) {
+      lows = new long[capacity];
+      highs = new long[capacity];
+      attributes = new int[capacity];
+    }
+
+    void add(long low, long high, int attribute) {
+      if (low > high) {
+        return;
+      }
+      lows[count] = low;
+      highs[count] = high;
+      attributes[count] = attribute;
+      count++;
+    }
+  }
+}
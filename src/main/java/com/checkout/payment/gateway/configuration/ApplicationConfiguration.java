@@ -1,11 +1,21 @@
 package com.checkout.payment.gateway.configuration;
 
+import com.checkout.payment.gateway.transport.Http2ClientHttpRequestFactory;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -13,15 +23,57 @@ import org.springframework.web.client.RestTemplate;
 public class ApplicationConfiguration {
 
   private List<String> supportedCurrencies;
+  private String bankUrl;
+  private DataSize maxPaymentRequestSize = DataSize.ofKilobytes(8);
+  private final Map<String, CurrencySettings> currencySettings = new LinkedHashMap<>();
+  private final Tracing tracing = new Tracing();
+  private final Ledger ledger = new Ledger();
+  private final Retention retention = new Retention();
+  private final Reporting reporting = new Reporting();
+  private final Webhooks webhooks = new Webhooks();
+  private final Screening screening = new Screening();
+  private final List<Acquirer> acquirers = new ArrayList<>();
+  private final Routing routing = new Routing();
+  private final Bins bins = new Bins();
+  private final Shutdown shutdown = new Shutdown();
+  private final DeclineCache declineCache = new DeclineCache();
+  private final BankTransport bankTransport = new BankTransport();
+  private final Tuning tuning = new Tuning();
+  private final Latency latency = new Latency();
+  private final Stats stats = new Stats();
+  private final Tenants tenants = new Tenants();
+  private final Profiling profiling = new Profiling();
+  private final Admin admin = new Admin();
 
+  /**
+   * The client for bank calls. The request factory is always chosen here rather than detected from
+   * the classpath, which holds OkHttp for the OTLP exporter: OkHttp's defaults resend a request
+   * whose pooled connection turns out to be dead, which for a payment may reach the bank twice,
+   * and keep only 5 idle connections.
+   */
   @Bean
   public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    if ("http2".equals(bankTransport.getProtocol())) {
+      builder = builder.requestFactory(() -> new Http2ClientHttpRequestFactory(bankTransport));
+    } else {
+      builder = builder.requestFactory(this::http1RequestFactory);
+    }
     return builder
-        .setConnectTimeout(Duration.ofMillis(10000))
-        .setReadTimeout(Duration.ofMillis(10000))
+        .setConnectTimeout(tuning.getBankConnectTimeout())
+        .setReadTimeout(tuning.getBankReadTimeout())
         .build();
   }
 
+  private ClientHttpRequestFactory http1RequestFactory() {
+    OkHttpClient client = new OkHttpClient.Builder()
+        .retryOnConnectionFailure(false)
+        // Enough idle connections for every call the limiter lets through at once
+        .connectionPool(new ConnectionPool(tuning.getBankMaxConcurrentCalls(),
+            bankTransport.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS))
+        .build();
+    return new OkHttp3ClientHttpRequestFactory(client);
+  }
+
   public List<String> getSupportedCurrencies() {
     return supportedCurrencies;
   }
@@ -29,4 +81,1273 @@ public class ApplicationConfiguration {
   public void setSupportedCurrencies(List<String> supportedCurrencies) {
     this.supportedCurrencies = supportedCurrencies;
   }
+
+  public String getBankUrl() {
+    return bankUrl;
+  }
+
+  public void setBankUrl(String bankUrl) {
+    this.bankUrl = bankUrl;
+  }
+
+  /**
+   * Largest payment request body accepted; larger ones are refused with 413 before they are read.
+   */
+  public DataSize getMaxPaymentRequestSize() {
+    return maxPaymentRequestSize;
+  }
+
+  public void setMaxPaymentRequestSize(DataSize maxPaymentRequestSize) {
+    this.maxPaymentRequestSize = maxPaymentRequestSize;
+  }
+
+  /**
+   * Optional per-currency overrides keyed by ISO 4217 code, bound from
+   * {@code payment.gateway.currency-settings.<CODE>.*}.
+   */
+  public Map<String, CurrencySettings> getCurrencySettings() {
+    return currencySettings;
+  }
+
+  public Tracing getTracing() {
+    return tracing;
+  }
+
+  public Ledger getLedger() {
+    return ledger;
+  }
+
+  public Retention getRetention() {
+    return retention;
+  }
+
+  public Reporting getReporting() {
+    return reporting;
+  }
+
+  public Webhooks getWebhooks() {
+    return webhooks;
+  }
+
+  public Screening getScreening() {
+    return screening;
+  }
+
+  /**
+   * Acquiring banks to route payments to. When empty, every payment goes to {@code bank-url}.
+   */
+  public List<Acquirer> getAcquirers() {
+    return acquirers;
+  }
+
+  public Routing getRouting() {
+    return routing;
+  }
+
+  public Bins getBins() {
+    return bins;
+  }
+
+  public Shutdown getShutdown() {
+    return shutdown;
+  }
+
+  public DeclineCache getDeclineCache() {
+    return declineCache;
+  }
+
+  public BankTransport getBankTransport() {
+    return bankTransport;
+  }
+
+  public Tuning getTuning() {
+    return tuning;
+  }
+
+  public Latency getLatency() {
+    return latency;
+  }
+
+  public Stats getStats() {
+    return stats;
+  }
+
+  public Tenants getTenants() {
+    return tenants;
+  }
+
+  public Profiling getProfiling() {
+    return profiling;
+  }
+
+  public Admin getAdmin() {
+    return admin;
+  }
+
+  /**
+   * Metadata for one supported currency.
+   */
+  public static class CurrencySettings {
+
+    private Integer minorUnits;
+    private Long maxAmount;
+
+    /**
+     * Digits after the decimal point. Defaults to the ISO 4217 value from {@link java.util.Currency}
+     * and is required for codes the JDK does not know.
+     */
+    public Integer getMinorUnits() {
+      return minorUnits;
+    }
+
+    public void setMinorUnits(Integer minorUnits) {
+      this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Largest accepted amount in major units (for example 10000 means 10000.00 GBP). No limit
+     * beyond the range of the amount field when unset.
+     */
+    public Long getMaxAmount() {
+      return maxAmount;
+    }
+
+    public void setMaxAmount(Long maxAmount) {
+      this.maxAmount = maxAmount;
+    }
+  }
+
+  /**
+   * Tracing settings, bound from {@code payment.gateway.tracing.*}.
+   */
+  public static class Tracing {
+
+    private double samplingRatio = 0.05;
+    private String exporter = "none";
+    private String file = "build/traces/spans.jsonl";
+    private String otlpEndpoint = "http://localhost:4318/v1/traces";
+    private String otlpMetricsEndpoint = "http://localhost:4318/v1/metrics";
+    private Duration metricsInterval = Duration.ofSeconds(30);
+    private int maxQueueSize = 2048;
+
+    /**
+     * Fraction of new traces that are recorded and exported. Traces started by a caller that
+     * already sampled them (sampled {@code traceparent} header) are always recorded.
+     */
+    public double getSamplingRatio() {
+      return samplingRatio;
+    }
+
+    public void setSamplingRatio(double samplingRatio) {
+      this.samplingRatio = samplingRatio;
+    }
+
+    /**
+     * Where finished spans go: {@code none}, {@code file} (JSON lines) or {@code otlp} (HTTP).
+     */
+    public String getExporter() {
+      return exporter;
+    }
+
+    public void setExporter(String exporter) {
+      this.exporter = exporter;
+    }
+
+    public String getFile() {
+      return file;
+    }
+
+    public void setFile(String file) {
+      this.file = file;
+    }
+
+    public String getOtlpEndpoint() {
+      return otlpEndpoint;
+    }
+
+    public void setOtlpEndpoint(String otlpEndpoint) {
+      this.otlpEndpoint = otlpEndpoint;
+    }
+
+    public String getOtlpMetricsEndpoint() {
+      return otlpMetricsEndpoint;
+    }
+
+    public void setOtlpMetricsEndpoint(String otlpMetricsEndpoint) {
+      this.otlpMetricsEndpoint = otlpMetricsEndpoint;
+    }
+
+    /**
+     * How often metrics are pushed with the {@code otlp} exporter.
+     */
+    public Duration getMetricsInterval() {
+      return metricsInterval;
+    }
+
+    public void setMetricsInterval(Duration metricsInterval) {
+      this.metricsInterval = metricsInterval;
+    }
+
+    /**
+     * Spans buffered for export; once full, new spans are dropped rather than blocking.
+     */
+    public int getMaxQueueSize() {
+      return maxQueueSize;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+    }
+  }
+
+  /**
+   * Payment event log settings, bound from {@code payment.gateway.ledger.*}.
+   */
+  public static class Ledger {
+
+    private String directory = "";
+    private int segmentRecords = 1 << 20;
+    private long snapshotInterval = 1_000_000;
+
+    /**
+     * Where log segments and snapshots are stored. Empty keeps the log in memory.
+     */
+    public String getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * Events per segment; each event takes 128 bytes.
+     */
+    public int getSegmentRecords() {
+      return segmentRecords;
+    }
+
+    public void setSegmentRecords(int segmentRecords) {
+      this.segmentRecords = segmentRecords;
+    }
+
+    /**
+     * Events between snapshots. Startup replays at most this many events after the snapshot.
+     */
+    public long getSnapshotInterval() {
+      return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(long snapshotInterval) {
+      this.snapshotInterval = snapshotInterval;
+    }
+  }
+
+  /**
+   * Payment retention settings, bound from {@code payment.gateway.retention.*}.
+   */
+  public static class Retention {
+
+    private boolean enabled;
+    private String directory = "";
+    private Duration archiveAfter = Duration.ofDays(90);
+    private Duration deleteAfter = Duration.ofDays(395);
+    private Duration interval = Duration.ofHours(1);
+    private int filePayments = 250_000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Where the archive is kept. Empty means {@code archive} under the ledger directory.
+     */
+    public String getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * Age at which a payment moves to the archive and can no longer be captured, voided or
+     * refunded.
+     */
+    public Duration getArchiveAfter() {
+      return archiveAfter;
+    }
+
+    public void setArchiveAfter(Duration archiveAfter) {
+      this.archiveAfter = archiveAfter;
+    }
+
+    /**
+     * Age at which an archived payment is deleted. At least {@code archive-after}.
+     */
+    public Duration getDeleteAfter() {
+      return deleteAfter;
+    }
+
+    public void setDeleteAfter(Duration deleteAfter) {
+      this.deleteAfter = deleteAfter;
+    }
+
+    /**
+     * Time between retention passes.
+     */
+    public Duration getInterval() {
+      return interval;
+    }
+
+    public void setInterval(Duration interval) {
+      this.interval = interval;
+    }
+
+    /**
+     * Payments per archive file; a pass holds one file's worth in memory while writing it.
+     */
+    public int getFilePayments() {
+      return filePayments;
+    }
+
+    public void setFilePayments(int filePayments) {
+      this.filePayments = filePayments;
+    }
+  }
+
+  /**
+   * Columnar reporting store settings, bound from {@code payment.gateway.reporting.*}.
+   */
+  public static class Reporting {
+
+    private String directory = "";
+    private int segmentRows = 1 << 16;
+    private Duration rollInterval = Duration.ofHours(1);
+
+    /**
+     * Where sealed segments are kept. Empty means {@code columns} under the ledger directory, or
+     * the heap without one.
+     */
+    public String getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * Payments per segment; the open buffer holds this many before it is sealed.
+     */
+    public int getSegmentRows() {
+      return segmentRows;
+    }
+
+    public void setSegmentRows(int segmentRows) {
+      this.segmentRows = segmentRows;
+    }
+
+    /**
+     * Longest time payments wait in the open buffer before it is sealed anyway.
+     */
+    public Duration getRollInterval() {
+      return rollInterval;
+    }
+
+    public void setRollInterval(Duration rollInterval) {
+      this.rollInterval = rollInterval;
+    }
+  }
+
+  public static class Webhooks {
+
+    private String url = "";
+    private int maxBatchSize = 100;
+    private int queueCapacity = 10_000;
+    private int maxAttempts = 10;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+    private Duration timeout = Duration.ofSeconds(5);
+    private String retryDirectory = "";
+
+    /**
+     * Where status notifications of payments that belong to no merchant are posted. Empty sends
+     * none.
+     */
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    /**
+     * Most notifications sent in one request; 1 sends each on its own.
+     */
+    public int getMaxBatchSize() {
+      return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Notifications queued per destination before new ones go straight to the retry store.
+     */
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Delivery attempts per batch before it is given up.
+     */
+    public int getMaxAttempts() {
+      return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+      return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+      this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+      return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+      this.maxBackoff = maxBackoff;
+    }
+
+    public Duration getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+      this.timeout = timeout;
+    }
+
+    /**
+     * Where failed batches are kept until delivered. Empty keeps them in memory only.
+     */
+    public String getRetryDirectory() {
+      return retryDirectory;
+    }
+
+    public void setRetryDirectory(String retryDirectory) {
+      this.retryDirectory = retryDirectory;
+    }
+  }
+
+  public static class Screening {
+
+    private boolean enabled;
+    private Duration window = Duration.ofMinutes(1);
+    private int buckets = 6;
+    private int sketchWidth = 4096;
+    private int cardLimit = 10;
+    private int ipLimit = 0;
+    private int merchantLimit = 0;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Time window the limits apply to.
+     */
+    public Duration getWindow() {
+      return window;
+    }
+
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+
+    /**
+     * Slices the window is divided into; it slides by one slice at a time.
+     */
+    public int getBuckets() {
+      return buckets;
+    }
+
+    public void setBuckets(int buckets) {
+      this.buckets = buckets;
+    }
+
+    /**
+     * Counters per sketch row, rounded up to a power of two. Wider sketches overcount less.
+     */
+    public int getSketchWidth() {
+      return sketchWidth;
+    }
+
+    public void setSketchWidth(int sketchWidth) {
+      this.sketchWidth = sketchWidth;
+    }
+
+    /**
+     * Attempts allowed per card within the window; 0 disables the check.
+     */
+    public int getCardLimit() {
+      return cardLimit;
+    }
+
+    public void setCardLimit(int cardLimit) {
+      this.cardLimit = cardLimit;
+    }
+
+    /**
+     * Attempts allowed per client IP within the window; 0, the default, disables the check. Off
+     * by default because merchants call from a few servers, or from behind one load balancer
+     * address, so any default would cap their whole traffic.
+     */
+    public int getIpLimit() {
+      return ipLimit;
+    }
+
+    public void setIpLimit(int ipLimit) {
+      this.ipLimit = ipLimit;
+    }
+
+    /**
+     * Attempts allowed per merchant within the window; 0 disables the check.
+     */
+    public int getMerchantLimit() {
+      return merchantLimit;
+    }
+
+    public void setMerchantLimit(int merchantLimit) {
+      this.merchantLimit = merchantLimit;
+    }
+  }
+
+  public static class Acquirer {
+
+    private String name;
+    private String url;
+    private int weight = 1;
+    private List<String> currencies = new ArrayList<>();
+    private List<String> binPrefixes = new ArrayList<>();
+    private List<String> schemes = new ArrayList<>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    /**
+     * Share of traffic relative to the other acquirers, all else being equal.
+     */
+    public int getWeight() {
+      return weight;
+    }
+
+    public void setWeight(int weight) {
+      this.weight = weight;
+    }
+
+    /**
+     * Currencies this acquirer accepts. Empty accepts all.
+     */
+    public List<String> getCurrencies() {
+      return currencies;
+    }
+
+    public void setCurrencies(List<String> currencies) {
+      this.currencies = currencies;
+    }
+
+    /**
+     * Card number prefixes routed to this acquirer in preference to acquirers without a matching
+     * prefix. Empty accepts all cards without preference.
+     */
+    public List<String> getBinPrefixes() {
+      return binPrefixes;
+    }
+
+    public void setBinPrefixes(List<String> binPrefixes) {
+      this.binPrefixes = binPrefixes;
+    }
+
+    /**
+     * Card schemes this acquirer accepts, as detected from the BIN table. Empty accepts all.
+     */
+    public List<String> getSchemes() {
+      return schemes;
+    }
+
+    public void setSchemes(List<String> schemes) {
+      this.schemes = schemes;
+    }
+  }
+
+  public static class Routing {
+
+    private String strategy = "least-latency";
+    private Duration latencyDecay = Duration.ofSeconds(1);
+    private Duration failurePenalty = Duration.ofSeconds(1);
+
+    /**
+     * {@code least-latency} picks the acquirer with the lowest expected wait (latency times
+     * requests in flight, divided by weight); {@code weighted} splits traffic by weight only.
+     */
+    public String getStrategy() {
+      return strategy;
+    }
+
+    public void setStrategy(String strategy) {
+      this.strategy = strategy;
+    }
+
+    /**
+     * Time constant of the moving latency average; older samples fade out over a few multiples.
+     */
+    public Duration getLatencyDecay() {
+      return latencyDecay;
+    }
+
+    public void setLatencyDecay(Duration latencyDecay) {
+      this.latencyDecay = latencyDecay;
+    }
+
+    /**
+     * Latency charged to an acquirer for a 503 or a refused connection.
+     */
+    public Duration getFailurePenalty() {
+      return failurePenalty;
+    }
+
+    public void setFailurePenalty(Duration failurePenalty) {
+      this.failurePenalty = failurePenalty;
+    }
+  }
+
+  /**
+   * BIN table settings, bound from {@code payment.gateway.bins.*}.
+   */
+  public static class Bins {
+
+    private String file = "";
+    private List<String> acceptedSchemes = new ArrayList<>();
+
+    /**
+     * CSV file of BIN ranges. When empty, the scheme-level ranges bundled as
+     * {@code bin-ranges.csv} are used.
+     */
+    public String getFile() {
+      return file;
+    }
+
+    public void setFile(String file) {
+      this.file = file;
+    }
+
+    /**
+     * Card schemes the gateway accepts. Empty accepts every card, including unknown BINs.
+     */
+    public List<String> getAcceptedSchemes() {
+      return acceptedSchemes;
+    }
+
+    public void setAcceptedSchemes(List<String> acceptedSchemes) {
+      this.acceptedSchemes = acceptedSchemes;
+    }
+  }
+
+  /**
+   * Shutdown settings, bound from {@code payment.gateway.shutdown.*}.
+   */
+  public static class Shutdown {
+
+    private Duration readinessDelay = Duration.ZERO;
+    private Duration drainTimeout = Duration.ofSeconds(20);
+
+    /**
+     * How long the readiness probe reports down before new payments are refused, so load
+     * balancers can stop routing here first.
+     */
+    public Duration getReadinessDelay() {
+      return readinessDelay;
+    }
+
+    public void setReadinessDelay(Duration readinessDelay) {
+      this.readinessDelay = readinessDelay;
+    }
+
+    /**
+     * How long payments in progress, including their bank calls, are given to finish.
+     */
+    public Duration getDrainTimeout() {
+      return drainTimeout;
+    }
+
+    public void setDrainTimeout(Duration drainTimeout) {
+      this.drainTimeout = drainTimeout;
+    }
+  }
+
+  /**
+   * Cache of recent bank declines, bound from {@code payment.gateway.decline-cache.*}.
+   */
+  public static class DeclineCache {
+
+    private boolean enabled;
+    private Duration ttl = Duration.ofSeconds(30);
+    private int capacity = 65536;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * How long a decline is repeated without asking the bank again.
+     */
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+
+    /**
+     * Declines remembered at most, rounded up to a power of two; older ones are overwritten.
+     */
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+  }
+
+  /**
+   * HTTP client settings for calls to the acquiring banks, bound from
+   * {@code payment.gateway.bank-transport.*}.
+   */
+  public static class BankTransport {
+
+    private String protocol = "http1";
+    private int connections = 2;
+    private int maxConcurrentStreams = 100;
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private int streamWindowSize;
+    private int connectionWindowSize;
+
+    /**
+     * {@code http1} sends each request on its own pooled HTTP/1.1 connection; {@code http2}
+     * multiplexes requests over a few HTTP/2 connections per acquirer, and falls back to HTTP/1.1
+     * for acquirers that do not support HTTP/2.
+     */
+    public String getProtocol() {
+      return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+      this.protocol = protocol;
+    }
+
+    /**
+     * HTTP/2 connections kept open to each acquirer.
+     */
+    public int getConnections() {
+      return connections;
+    }
+
+    public void setConnections(int connections) {
+      this.connections = connections;
+    }
+
+    /**
+     * Requests in flight at once on one HTTP/2 connection. Lowered automatically for an acquirer
+     * that allows fewer.
+     */
+    public int getMaxConcurrentStreams() {
+      return maxConcurrentStreams;
+    }
+
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+      this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    /**
+     * A connection unused for longer is replaced before its next request, rather than trusting
+     * one a firewall or load balancer may have dropped without telling us.
+     */
+    public Duration getIdleTimeout() {
+      return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * HTTP/2 flow-control window per request in bytes; 0 keeps the JDK default of 16 MiB.
+     */
+    public int getStreamWindowSize() {
+      return streamWindowSize;
+    }
+
+    public void setStreamWindowSize(int streamWindowSize) {
+      this.streamWindowSize = streamWindowSize;
+    }
+
+    /**
+     * HTTP/2 flow-control window per connection in bytes; 0 keeps the JDK default of 32 MiB.
+     */
+    public int getConnectionWindowSize() {
+      return connectionWindowSize;
+    }
+
+    public void setConnectionWindowSize(int connectionWindowSize) {
+      this.connectionWindowSize = connectionWindowSize;
+    }
+  }
+
+  /**
+   * Server and bank call limits, bound from {@code payment.gateway.tuning.*}. They take precedence
+   * over {@code server.tomcat.*} and can be changed while running through {@code /admin/tuning}.
+   */
+  public static class Tuning {
+
+    private int maxThreads = 200;
+    private int minSpareThreads = 10;
+    private int acceptCount = 100;
+    private Duration keepAliveTimeout = Duration.ofSeconds(20);
+    private int maxKeepAliveRequests = 100;
+    private int bankMaxConcurrentCalls = 200;
+    private int bankMaxQueuedCalls = 200;
+    private Duration bankQueueTimeout = Duration.ofSeconds(1);
+    private Duration bankConnectTimeout = Duration.ofSeconds(10);
+    private Duration bankReadTimeout = Duration.ofSeconds(10);
+
+    public Tuning() {
+    }
+
+    public Tuning(Tuning other) {
+      this.maxThreads = other.maxThreads;
+      this.minSpareThreads = other.minSpareThreads;
+      this.acceptCount = other.acceptCount;
+      this.keepAliveTimeout = other.keepAliveTimeout;
+      this.maxKeepAliveRequests = other.maxKeepAliveRequests;
+      this.bankMaxConcurrentCalls = other.bankMaxConcurrentCalls;
+      this.bankMaxQueuedCalls = other.bankMaxQueuedCalls;
+      this.bankQueueTimeout = other.bankQueueTimeout;
+      this.bankConnectTimeout = other.bankConnectTimeout;
+      this.bankReadTimeout = other.bankReadTimeout;
+    }
+
+    /**
+     * Request threads of the servlet container. Requests beyond this wait in the executor's queue.
+     */
+    public int getMaxThreads() {
+      return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+      this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Request threads kept alive when idle.
+     */
+    public int getMinSpareThreads() {
+      return minSpareThreads;
+    }
+
+    public void setMinSpareThreads(int minSpareThreads) {
+      this.minSpareThreads = minSpareThreads;
+    }
+
+    /**
+     * Connections the operating system queues while the server is not accepting. Only read when
+     * the server binds its port, so a change applies on the next start.
+     */
+    public int getAcceptCount() {
+      return acceptCount;
+    }
+
+    public void setAcceptCount(int acceptCount) {
+      this.acceptCount = acceptCount;
+    }
+
+    /**
+     * How long an idle keep-alive connection is held open for its next request.
+     */
+    public Duration getKeepAliveTimeout() {
+      return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(Duration keepAliveTimeout) {
+      this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    /**
+     * Requests served on one connection before it is closed, spreading clients over instances.
+     */
+    public int getMaxKeepAliveRequests() {
+      return maxKeepAliveRequests;
+    }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+      this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+
+    /**
+     * Bank calls in progress at once, across acquirers.
+     */
+    public int getBankMaxConcurrentCalls() {
+      return bankMaxConcurrentCalls;
+    }
+
+    public void setBankMaxConcurrentCalls(int bankMaxConcurrentCalls) {
+      this.bankMaxConcurrentCalls = bankMaxConcurrentCalls;
+    }
+
+    /**
+     * Payments of one merchant waiting for a bank call slot (payments without a merchant count
+     * as one). Payments beyond this are rejected at once.
+     */
+    public int getBankMaxQueuedCalls() {
+      return bankMaxQueuedCalls;
+    }
+
+    public void setBankMaxQueuedCalls(int bankMaxQueuedCalls) {
+      this.bankMaxQueuedCalls = bankMaxQueuedCalls;
+    }
+
+    /**
+     * Longest a payment waits for a bank call slot before it is rejected.
+     */
+    public Duration getBankQueueTimeout() {
+      return bankQueueTimeout;
+    }
+
+    public void setBankQueueTimeout(Duration bankQueueTimeout) {
+      this.bankQueueTimeout = bankQueueTimeout;
+    }
+
+    public Duration getBankConnectTimeout() {
+      return bankConnectTimeout;
+    }
+
+    public void setBankConnectTimeout(Duration bankConnectTimeout) {
+      this.bankConnectTimeout = bankConnectTimeout;
+    }
+
+    public Duration getBankReadTimeout() {
+      return bankReadTimeout;
+    }
+
+    public void setBankReadTimeout(Duration bankReadTimeout) {
+      this.bankReadTimeout = bankReadTimeout;
+    }
+  }
+
+  /**
+   * Latency percentiles and SLO burn rates reported by {@code /admin/latency}, bound from
+   * {@code payment.gateway.latency.*}.
+   */
+  public static class Latency {
+
+    private Duration interval = Duration.ofSeconds(5);
+    private Duration window = Duration.ofMinutes(1);
+    private Duration sloThreshold = Duration.ofMillis(500);
+    private double sloObjective = 0.99;
+    private List<Duration> burnRateWindows =
+        new ArrayList<>(List.of(Duration.ofMinutes(5), Duration.ofHours(1)));
+
+    /**
+     * How often the recording threads' histograms are merged.
+     */
+    public Duration getInterval() {
+      return interval;
+    }
+
+    public void setInterval(Duration interval) {
+      this.interval = interval;
+    }
+
+    /**
+     * Span of the reported percentiles, rounded up to whole intervals.
+     */
+    public Duration getWindow() {
+      return window;
+    }
+
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+
+    /**
+     * A payment slower than this, from the start of processing to its status, counts against the
+     * SLO.
+     */
+    public Duration getSloThreshold() {
+      return sloThreshold;
+    }
+
+    public void setSloThreshold(Duration sloThreshold) {
+      this.sloThreshold = sloThreshold;
+    }
+
+    /**
+     * Share of payments that must be within the threshold, e.g. 0.99.
+     */
+    public double getSloObjective() {
+      return sloObjective;
+    }
+
+    public void setSloObjective(double sloObjective) {
+      this.sloObjective = sloObjective;
+    }
+
+    /**
+     * Windows over which burn rates are reported, rounded up to whole intervals.
+     */
+    public List<Duration> getBurnRateWindows() {
+      return burnRateWindows;
+    }
+
+    public void setBurnRateWindows(List<Duration> burnRateWindows) {
+      this.burnRateWindows = burnRateWindows;
+    }
+  }
+
+  /**
+   * Live payment figures served by {@code /admin/stats}, bound from
+   * {@code payment.gateway.stats.*}.
+   */
+  public static class Stats {
+
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Span of the per-second series and the figures over it, in whole seconds.
+     */
+    public Duration getWindow() {
+      return window;
+    }
+
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+  }
+
+  /**
+   * Merchant authentication and per-merchant limits, bound from {@code payment.gateway.tenants.*}.
+   */
+  public static class Tenants {
+
+    private boolean enabled = false;
+    private final Map<String, Merchant> merchants = new LinkedHashMap<>();
+
+    /**
+     * Whether payment API requests must carry a configured merchant ID and its API key. Without
+     * it, every payment belongs to no merchant and no quotas apply.
+     */
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Merchants keyed by ID, bound from {@code payment.gateway.tenants.merchants.<ID>.*}. IDs are
+     * at most 13 printable ASCII characters, because every stored payment event carries one.
+     */
+    public Map<String, Merchant> getMerchants() {
+      return merchants;
+    }
+  }
+
+  public static class Merchant {
+
+    private String apiKey;
+    private String webhookUrl = "";
+    private int weight = 1;
+    private int maxConcurrentRequests = 20;
+    private int requestsPerSecond = 0;
+
+    /**
+     * Secret the merchant sends in the {@code X-Api-Key} header.
+     */
+    public String getApiKey() {
+      return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+      this.apiKey = apiKey;
+    }
+
+    /**
+     * Where status notifications of this merchant's payments are posted. Empty sends none; they
+     * never go to {@code payment.gateway.webhooks.url}, which only gets payments of no merchant.
+     */
+    public String getWebhookUrl() {
+      return webhookUrl;
+    }
+
+    public void setWebhookUrl(String webhookUrl) {
+      this.webhookUrl = webhookUrl;
+    }
+
+    /**
+     * Share of bank calls relative to the other merchants when calls have to wait for a slot.
+     */
+    public int getWeight() {
+      return weight;
+    }
+
+    public void setWeight(int weight) {
+      this.weight = weight;
+    }
+
+    /**
+     * Requests of this merchant served at once, and so request threads it can hold; further
+     * requests are refused with 429 until one finishes.
+     */
+    public int getMaxConcurrentRequests() {
+      return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Sustained requests per second, with bursts of up to one second's worth; further requests
+     * are refused with 429. 0 disables the check.
+     */
+    public int getRequestsPerSecond() {
+      return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(int requestsPerSecond) {
+      this.requestsPerSecond = requestsPerSecond;
+    }
+  }
+
+  /**
+   * Continuous Java Flight Recorder recording, bound from {@code payment.gateway.profiling.*}.
+   */
+  public static class Profiling {
+
+    private boolean enabled;
+    private String settings = "default";
+    private Duration maxAge = Duration.ofMinutes(30);
+    private DataSize maxSize = DataSize.ofMegabytes(250);
+    private Duration eventThreshold = Duration.ZERO;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * JDK event settings to record with: {@code default}, about 1% overhead, or {@code profile},
+     * which samples more often and records more.
+     */
+    public String getSettings() {
+      return settings;
+    }
+
+    public void setSettings(String settings) {
+      this.settings = settings;
+    }
+
+    /**
+     * How far back the recording reaches; older data is discarded.
+     */
+    public Duration getMaxAge() {
+      return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+      this.maxAge = maxAge;
+    }
+
+    /**
+     * Disk space the recording may use before older data is discarded.
+     */
+    public DataSize getMaxSize() {
+      return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    /**
+     * Payment, stage and bank call events shorter than this are not recorded.
+     */
+    public Duration getEventThreshold() {
+      return eventThreshold;
+    }
+
+    public void setEventThreshold(Duration eventThreshold) {
+      this.eventThreshold = eventThreshold;
+    }
+  }
+
+  public static class Admin {
+
+    private String apiKey;
+
+    /**
+     * Secret operators send in the {@code X-Admin-Key} header to reach {@code /admin}. Unset,
+     * every {@code /admin} request is refused.
+     */
+    public String getApiKey() {
+      return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+      this.apiKey = apiKey;
+    }
+  }
 }
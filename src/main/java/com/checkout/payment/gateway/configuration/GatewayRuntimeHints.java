@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.configuration;
+
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import net.logstash.logback.encoder.LogstashEncoder;
+import net.logstash.logback.mask.MaskingJsonGeneratorDecorator;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * What a GraalVM native image needs beyond the hints Spring AOT derives from the beans: the
+ * bundled BIN ranges and the logstash classes that logback instantiates and configures by
+ * reflection from {@code logback-spring.xml}.
+ */
+public class GatewayRuntimeHints implements RuntimeHintsRegistrar {
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    hints.resources().registerPattern("bin-ranges.csv");
+    hints.resources().registerPattern("logback-spring.xml");
+    for (Class<?> type : new Class<?>[] {LoggingEventAsyncDisruptorAppender.class,
+        LogstashEncoder.class, MaskingJsonGeneratorDecorator.class,
+        MaskingJsonGeneratorDecorator.ValueMask.class}) {
+      hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+          MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+  }
+}
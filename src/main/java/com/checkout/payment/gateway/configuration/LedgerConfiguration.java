@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.ledger.PaymentArchive;
+import com.checkout.payment.gateway.ledger.PaymentEventListener;
+import com.checkout.payment.gateway.ledger.PaymentEventLog;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.PaymentSnapshotStore;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.reporting.PaymentColumnStore;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.retention.RetentionEngine;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the payment event log and the ledger that projects it into {@link PaymentsRepository}.
+ * With {@code payment.gateway.ledger.directory} set, events and snapshots survive restarts and
+ * the repository is rebuilt from them on startup; otherwise the log lives on the heap.
+ * Every {@link PaymentEventListener} bean is registered once the restore is done.
+ * With {@code payment.gateway.retention.enabled}, a {@link RetentionEngine} moves old payments
+ * to a {@link PaymentArchive} and deletes them from it when they expire.
+ * The {@link PaymentColumnStore} is one of the listeners; it first catches up on events the log
+ * holds beyond its last sealed segment.
+ */
+@Configuration
+public class LedgerConfiguration {
+
+  private static final int IN_MEMORY_SEGMENT_RECORDS = 1 << 16;
+
+  @Bean(destroyMethod = "close")
+  public PaymentEventLog paymentEventLog(ApplicationConfiguration config,
+      CurrencyRegistry currencyRegistry) throws IOException {
+    ApplicationConfiguration.Ledger ledger = config.getLedger();
+    if (ledger.getDirectory().isBlank()) {
+      return SegmentedPaymentEventLog.inMemory(IN_MEMORY_SEGMENT_RECORDS,
+          currencyRegistry::canonical);
+    }
+    return SegmentedPaymentEventLog.open(Path.of(ledger.getDirectory(), "events"),
+        ledger.getSegmentRecords(), currencyRegistry::canonical);
+  }
+
+  @Bean(destroyMethod = "close")
+  public PaymentLedger paymentLedger(ApplicationConfiguration config, PaymentEventLog eventLog,
+      PaymentsRepository paymentsRepository, CurrencyRegistry currencyRegistry,
+      ObjectProvider<PaymentArchive> archive, List<PaymentEventListener> listeners)
+      throws IOException {
+    ApplicationConfiguration.Ledger ledger = config.getLedger();
+    PaymentSnapshotStore snapshots = ledger.getDirectory().isBlank()
+        ? null
+        : new PaymentSnapshotStore(Path.of(ledger.getDirectory(), "snapshots"),
+            currencyRegistry::canonical);
+    PaymentLedger paymentLedger = new PaymentLedger(eventLog, snapshots, archive.getIfAvailable(),
+        paymentsRepository, ledger.getSnapshotInterval());
+    paymentLedger.restore();
+    listeners.forEach(paymentLedger::addListener);
+    return paymentLedger;
+  }
+
+  @Bean(destroyMethod = "close")
+  public PaymentColumnStore paymentColumnStore(ApplicationConfiguration config,
+      PaymentEventLog eventLog, CurrencyRegistry currencyRegistry) throws IOException {
+    ApplicationConfiguration.Reporting reporting = config.getReporting();
+    String directory = reporting.getDirectory();
+    if (directory.isBlank() && !config.getLedger().getDirectory().isBlank()) {
+      directory = Path.of(config.getLedger().getDirectory(), "columns").toString();
+    }
+    PaymentColumnStore store = PaymentColumnStore.open(
+        directory.isBlank() ? null : Path.of(directory), reporting.getSegmentRows(),
+        reporting.getRollInterval(), currencyRegistry::canonical);
+    eventLog.replay(store.nextSequence(), store::onEvent);
+    return store;
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(prefix = "payment.gateway.retention", name = "enabled",
+      havingValue = "true")
+  public PaymentArchive paymentArchive(ApplicationConfiguration config,
+      CurrencyRegistry currencyRegistry) throws IOException {
+    String directory = config.getRetention().getDirectory();
+    if (directory.isBlank()) {
+      if (config.getLedger().getDirectory().isBlank()) {
+        throw new IllegalStateException("payment.gateway.retention.directory must be set when "
+            + "payment.gateway.ledger.directory is not");
+      }
+      directory = Path.of(config.getLedger().getDirectory(), "archive").toString();
+    }
+    return PaymentArchive.open(Path.of(directory), currencyRegistry::canonical);
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(prefix = "payment.gateway.retention", name = "enabled",
+      havingValue = "true")
+  public RetentionEngine retentionEngine(ApplicationConfiguration config,
+      PaymentLedger paymentLedger, PaymentArchive paymentArchive) {
+    return new RetentionEngine(config.getRetention(), paymentLedger, paymentArchive,
+        System::currentTimeMillis);
+  }
+}
@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.instrumentation.FileSpanExporter;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.otlp.http.metrics.OtlpHttpMetricExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Builds the OpenTelemetry SDK used for tracing and metrics.
+ *
+ * <p>
+ * Spans are handed to a {@link BatchSpanProcessor}, which exports from its own thread. When its
+ * bounded queue is full new spans are dropped rather than blocking the request thread, so a slow
+ * or unreachable collector cannot add latency to payments. The sampler respects the caller's
+ * sampling decision and otherwise samples {@code payment.gateway.tracing.sampling-ratio} of new
+ * traces. With the {@code none} exporter nothing is recorded, but trace context is still
+ * propagated to the acquiring bank.
+ *
+ * <p>
+ * Metrics are only collected with the {@code otlp} exporter, which pushes them to
+ * {@code payment.gateway.tracing.otlp-metrics-endpoint} every {@code .metrics-interval}.
+ */
+@Configuration
+public class TracingConfiguration {
+
+  private static final String SERVICE_NAME = "payment-gateway";
+
+  @Bean(destroyMethod = "close")
+  public OpenTelemetrySdk openTelemetry(ApplicationConfiguration config) {
+    ApplicationConfiguration.Tracing tracing = config.getTracing();
+    Resource resource = Resource.getDefault().merge(
+        Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), SERVICE_NAME)));
+    SdkTracerProviderBuilder tracerProvider = SdkTracerProvider.builder().setResource(resource);
+
+    SpanExporter exporter = createExporter(tracing);
+    if (exporter == null) {
+      tracerProvider.setSampler(Sampler.alwaysOff());
+    } else {
+      tracerProvider
+          .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(tracing.getSamplingRatio())))
+          .addSpanProcessor(BatchSpanProcessor.builder(exporter)
+              .setMaxQueueSize(tracing.getMaxQueueSize())
+              .setMaxExportBatchSize(Math.min(512, tracing.getMaxQueueSize()))
+              .setScheduleDelay(Duration.ofMillis(500))
+              .build());
+    }
+
+    SdkMeterProviderBuilder meterProvider = SdkMeterProvider.builder().setResource(resource);
+    if ("otlp".equals(tracing.getExporter())) {
+      meterProvider.registerMetricReader(PeriodicMetricReader.builder(
+              OtlpHttpMetricExporter.builder()
+                  .setEndpoint(tracing.getOtlpMetricsEndpoint())
+                  .setTimeout(Duration.ofSeconds(2))
+                  .build())
+          .setInterval(tracing.getMetricsInterval())
+          .build());
+    }
+
+    return OpenTelemetrySdk.builder()
+        .setTracerProvider(tracerProvider.build())
+        .setMeterProvider(meterProvider.build())
+        .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+        .build();
+  }
+
+  private static SpanExporter createExporter(ApplicationConfiguration.Tracing tracing) {
+    switch (tracing.getExporter()) {
+      case "none":
+        return null;
+      case "file":
+        try {
+          return new FileSpanExporter(Path.of(tracing.getFile()));
+        } catch (IOException ex) {
+          throw new UncheckedIOException("Cannot open span file " + tracing.getFile(), ex);
+        }
+      case "otlp":
+        return OtlpHttpSpanExporter.builder()
+            .setEndpoint(tracing.getOtlpEndpoint())
+            .setTimeout(Duration.ofSeconds(2))
+            .build();
+      default:
+        throw new IllegalArgumentException("Unknown tracing exporter: " + tracing.getExporter());
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.controller.AdminInterceptor;
+import com.checkout.payment.gateway.controller.PaymentRequestConverter;
+import com.checkout.payment.gateway.instrumentation.ParseTracingAdvice;
+import com.checkout.payment.gateway.instrumentation.SerializeTracingAdvice;
+import com.checkout.payment.gateway.service.PaymentRequestReader;
+import com.checkout.payment.gateway.tenant.TenantInterceptor;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC set-up: payment requests are read by {@link PaymentRequestConverter}, ahead of the
+ * Jackson converter that reads every other body, {@link ParseTracingAdvice} and
+ * {@link SerializeTracingAdvice} see each request complete, {@link TenantInterceptor}
+ * authenticates payment API requests and {@link AdminInterceptor} operator requests.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+  private final PaymentRequestConverter paymentRequestConverter;
+  private final ParseTracingAdvice parseTracingAdvice;
+  private final SerializeTracingAdvice serializeTracingAdvice;
+  private final TenantInterceptor tenantInterceptor;
+  private final AdminInterceptor adminInterceptor;
+
+  public WebConfiguration(PaymentRequestReader reader, ApplicationConfiguration config,
+      ParseTracingAdvice parseTracingAdvice, SerializeTracingAdvice serializeTracingAdvice,
+      TenantInterceptor tenantInterceptor, AdminInterceptor adminInterceptor) {
+    this.paymentRequestConverter =
+        new PaymentRequestConverter(reader, config.getMaxPaymentRequestSize());
+    this.parseTracingAdvice = parseTracingAdvice;
+    this.serializeTracingAdvice = serializeTracingAdvice;
+    this.tenantInterceptor = tenantInterceptor;
+    this.adminInterceptor = adminInterceptor;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(0, paymentRequestConverter);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(parseTracingAdvice);
+    registry.addInterceptor(serializeTracingAdvice);
+    registry.addInterceptor(tenantInterceptor)
+        .addPathPatterns("/api/v1/**");
+    registry.addInterceptor(adminInterceptor)
+        .addPathPatterns("/admin", "/admin/**");
+  }
+}
@@ -0,0 +1,60 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.webhook.WebhookDispatcher;
+import com.checkout.payment.gateway.webhook.WebhookRetryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Enables webhooks when {@code payment.gateway.webhooks.url} or any merchant's
+ * {@code webhook-url} is set. The dispatcher is a
+ * {@link com.checkout.payment.gateway.ledger.PaymentEventListener}, so the ledger passes it every
+ * recorded event.
+ */
+@Configuration
+public class WebhookConfiguration {
+
+  @Bean(destroyMethod = "close")
+  @Conditional(WebhookUrlConfigured.class)
+  public WebhookDispatcher webhookDispatcher(ApplicationConfiguration config,
+      ObjectMapper objectMapper) throws IOException {
+    ApplicationConfiguration.Webhooks webhooks = config.getWebhooks();
+    WebhookRetryStore retryStore = webhooks.getRetryDirectory().isBlank()
+        ? null : new WebhookRetryStore(Path.of(webhooks.getRetryDirectory()));
+    Map<String, URI> merchantDestinations = new LinkedHashMap<>();
+    config.getTenants().getMerchants().forEach((merchantId, merchant) -> {
+      if (hasUrl(merchant)) {
+        merchantDestinations.put(merchantId, URI.create(merchant.getWebhookUrl()));
+      }
+    });
+    return new WebhookDispatcher(webhooks, merchantDestinations, objectMapper, retryStore);
+  }
+
+  private static boolean hasUrl(ApplicationConfiguration.Merchant merchant) {
+    return merchant.getWebhookUrl() != null && !merchant.getWebhookUrl().isBlank();
+  }
+
+  static class WebhookUrlConfigured implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+      Binder binder = Binder.get(context.getEnvironment());
+      return !binder.bind("payment.gateway.webhooks.url", String.class).orElse("").isBlank()
+          || binder.bind("payment.gateway.tenants.merchants",
+                  Bindable.mapOf(String.class, ApplicationConfiguration.Merchant.class))
+              .orElse(Map.of()).values().stream().anyMatch(WebhookConfiguration::hasUrl);
+    }
+  }
+}
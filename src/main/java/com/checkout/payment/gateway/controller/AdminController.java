@@ -0,0 +1,125 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.latency.StageLatencyTracker;
+import com.checkout.payment.gateway.model.LatencyReport;
+import com.checkout.payment.gateway.model.TenantReport;
+import com.checkout.payment.gateway.profiling.GatewayFlightRecorder;
+import com.checkout.payment.gateway.tenant.TenantRegistry;
+import com.checkout.payment.gateway.tuning.GatewayTuner;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operator endpoints. They change how the gateway runs, so {@link AdminInterceptor} only lets
+ * requests carrying the operators' key through, and they should only be reachable from the
+ * operators' network as well.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  private final GatewayTuner tuner;
+  private final StageLatencyTracker latencyTracker;
+  private final GatewayFlightRecorder flightRecorder;
+  private final TenantRegistry tenantRegistry;
+  private final ObjectMapper mapper;
+
+  public AdminController(GatewayTuner tuner, StageLatencyTracker latencyTracker,
+      GatewayFlightRecorder flightRecorder, TenantRegistry tenantRegistry, ObjectMapper mapper) {
+    this.tuner = tuner;
+    this.latencyTracker = latencyTracker;
+    this.flightRecorder = flightRecorder;
+    this.tenantRegistry = tenantRegistry;
+    this.mapper = mapper;
+  }
+
+  @GetMapping("/tuning")
+  public ResponseEntity<ApplicationConfiguration.Tuning> getTuning() {
+    return new ResponseEntity<>(tuner.current(), HttpStatus.OK);
+  }
+
+  /**
+   * Changes the settings named in the body and leaves the others as they are, for example
+   * {@code {"maxThreads": 50, "bankReadTimeout": "PT5S"}}.
+   */
+  @PatchMapping("/tuning")
+  public ResponseEntity<ApplicationConfiguration.Tuning> updateTuning(
+      @RequestBody JsonNode changes) {
+    return new ResponseEntity<>(tuner.update(tuning -> {
+      try {
+        mapper.readerForUpdating(tuning)
+            .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readValue(changes);
+      } catch (JsonProcessingException ex) {
+        throw new ValidationException("Invalid tuning: " + ex.getOriginalMessage());
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }), HttpStatus.OK);
+  }
+
+  /**
+   * Latency percentiles per stage and per payment status over the configured window, and the
+   * burn rates of the payment latency SLO.
+   */
+  @GetMapping("/latency")
+  public ResponseEntity<LatencyReport> getLatency() {
+    return new ResponseEntity<>(latencyTracker.report(), HttpStatus.OK);
+  }
+
+  /**
+   * Each configured merchant's requests, refusals, payments, queued bank calls and latency.
+   */
+  @GetMapping("/tenants")
+  public ResponseEntity<List<TenantReport>> getTenants() {
+    return new ResponseEntity<>(tenantRegistry.report(), HttpStatus.OK);
+  }
+
+  /**
+   * The flight recording of the last {@code minutes}, as a {@code .jfr} file for JDK Mission
+   * Control or {@code jfr print}.
+   */
+  @GetMapping("/flight-recording")
+  public ResponseEntity<Resource> getFlightRecording(
+      @RequestParam(defaultValue = "10") long minutes) {
+    Path file = flightRecorder.dump(Duration.ofMinutes(minutes));
+    try {
+      // The file is deleted once the response has been written
+      Resource body = new InputStreamResource(
+          Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+      headers.setContentLength(Files.size(file));
+      headers.setContentDisposition(ContentDisposition.attachment()
+          .filename(file.getFileName().toString())
+          .build());
+      return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
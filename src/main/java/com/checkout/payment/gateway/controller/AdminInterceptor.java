@@ -0,0 +1,53 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.AuthenticationException;
+import com.checkout.payment.gateway.tenant.ApiKeyDigest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Lets {@link AdminController} requests through only with the operators' key from
+ * {@code payment.gateway.admin.api-key} in the {@link #ADMIN_KEY_HEADER} header. Without a
+ * configured key every operator request is refused, so the endpoints are never left open.
+ */
+@Component
+public class AdminInterceptor implements HandlerInterceptor {
+
+  public static final String ADMIN_KEY_HEADER = "X-Admin-Key";
+
+  // Null when no key is configured
+  private final ApiKeyDigest apiKeyDigest;
+
+  public AdminInterceptor(ApplicationConfiguration config) {
+    String apiKey = config.getAdmin().getApiKey();
+    this.apiKeyDigest = apiKey == null || apiKey.isBlank() ? null : new ApiKeyDigest(apiKey);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    // Paths no controller serves are left to end in 404
+    if (handler instanceof HandlerMethod) {
+      authenticate(request.getHeader(ADMIN_KEY_HEADER));
+    }
+    return true;
+  }
+
+  /**
+   * Checks an operator request's key.
+   *
+   * @throws AuthenticationException if no key is configured or the key is missing or wrong
+   */
+  public void authenticate(String apiKey) {
+    if (apiKeyDigest == null) {
+      throw new AuthenticationException("No admin key configured");
+    }
+    if (!apiKeyDigest.matches(apiKey)) {
+      throw new AuthenticationException("Admin key missing or wrong");
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.model.HealthResponse;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Kubernetes-style probes backed by Spring Boot's application availability state. Readiness goes
+ * down as soon as shutdown starts, before new payments are refused.
+ */
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+  private final ApplicationAvailability availability;
+
+  public HealthController(ApplicationAvailability availability) {
+    this.availability = availability;
+  }
+
+  @GetMapping("/readiness")
+  public ResponseEntity<HealthResponse> readiness() {
+    return respond(availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC);
+  }
+
+  @GetMapping("/liveness")
+  public ResponseEntity<HealthResponse> liveness() {
+    return respond(availability.getLivenessState() == LivenessState.CORRECT);
+  }
+
+  private static ResponseEntity<HealthResponse> respond(boolean up) {
+    return up
+        ? ResponseEntity.ok(HealthResponse.UP)
+        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(HealthResponse.DOWN);
+  }
+}
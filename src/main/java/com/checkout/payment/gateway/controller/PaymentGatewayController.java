@@ -1,22 +1,38 @@
 package com.checkout.payment.gateway.controller;
 
+import com.checkout.payment.gateway.model.PaymentAmountRequest;
+import com.checkout.payment.gateway.model.PaymentEventResponse;
+import com.checkout.payment.gateway.model.PaymentOrigin;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.tenant.TenantInterceptor;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+/**
+ * The payment API. When merchants are authenticated, every request acts for the merchant that
+ * {@link TenantInterceptor} authenticated, passed in as {@code tenantId}, and only sees that
+ * merchant's payments.
+ */
 @RestController
 @RequestMapping("/api/v1")
 public class PaymentGatewayController {
 
+  public static final String MERCHANT_ID_HEADER = "X-Merchant-Id";
+
   private final PaymentGatewayService paymentGatewayService;
 
   public PaymentGatewayController(PaymentGatewayService paymentGatewayService) {
@@ -24,12 +40,80 @@ public class PaymentGatewayController {
   }
 
   @GetMapping("/payments/{id}")
-  public ResponseEntity<PostPaymentResponse> getPostPaymentEventById(@PathVariable UUID id) {
-    return new ResponseEntity<>(paymentGatewayService.getPaymentById(id), HttpStatus.OK);
+  public ResponseEntity<PostPaymentResponse> getPostPaymentEventById(@PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(paymentGatewayService.getPaymentById(tenantId, id),
+        HttpStatus.OK);
+  }
+
+  /**
+   * Finds payments by {@code reference}, by {@code card_number_last_four} with {@code amount}, or
+   * by {@code status}, most recent first.
+   */
+  @GetMapping("/payments")
+  public ResponseEntity<List<PostPaymentResponse>> searchPayments(
+      @RequestParam(required = false) String reference,
+      @RequestParam(name = "card_number_last_four", required = false) Integer cardNumberLastFour,
+      @RequestParam(required = false) Integer amount,
+      @RequestParam(required = false) String status,
+      @RequestParam(defaultValue = "100") int limit,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(paymentGatewayService.searchPayments(tenantId, reference,
+        cardNumberLastFour, amount, status, limit), HttpStatus.OK);
+  }
+
+  @GetMapping("/payments/{id}/events")
+  public ResponseEntity<List<PaymentEventResponse>> getPaymentHistory(@PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(paymentGatewayService.getPaymentHistory(tenantId, id),
+        HttpStatus.OK);
   }
 
   @PostMapping("/payments")
-  public ResponseEntity<PostPaymentResponse> processPayment(@RequestBody PostPaymentRequest paymentRequest) {
-    return new ResponseEntity<>(paymentGatewayService.processPayment(paymentRequest), HttpStatus.CREATED);
+  public ResponseEntity<PostPaymentResponse> processPayment(
+      @RequestBody PostPaymentRequest paymentRequest,
+      @RequestHeader(name = MERCHANT_ID_HEADER, required = false) String merchantId,
+      HttpServletRequest request,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    PaymentOrigin origin = tenantId != null
+        ? new PaymentOrigin(tenantId, request.getRemoteAddr(), true)
+        : new PaymentOrigin(merchantId, request.getRemoteAddr());
+    return new ResponseEntity<>(paymentGatewayService.processPayment(paymentRequest, origin),
+        HttpStatus.CREATED);
+  }
+
+  @PostMapping("/payments/{id}/captures")
+  public ResponseEntity<PostPaymentResponse> capturePayment(@PathVariable UUID id,
+      @RequestBody(required = false) PaymentAmountRequest captureRequest,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(
+        paymentGatewayService.capturePayment(tenantId, id, amountOf(captureRequest)),
+        HttpStatus.OK);
+  }
+
+  @PostMapping("/payments/{id}/voids")
+  public ResponseEntity<PostPaymentResponse> voidPayment(@PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(paymentGatewayService.voidPayment(tenantId, id), HttpStatus.OK);
+  }
+
+  @PostMapping("/payments/{id}/refunds")
+  public ResponseEntity<PostPaymentResponse> refundPayment(@PathVariable UUID id,
+      @RequestBody(required = false) PaymentAmountRequest refundRequest,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return new ResponseEntity<>(
+        paymentGatewayService.refundPayment(tenantId, id, amountOf(refundRequest)),
+        HttpStatus.OK);
+  }
+
+  private static Integer amountOf(PaymentAmountRequest request) {
+    return request == null ? null : request.getAmount();
   }
 }
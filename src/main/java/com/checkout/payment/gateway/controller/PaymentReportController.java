@@ -0,0 +1,42 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.model.AuthorizationRate;
+import com.checkout.payment.gateway.model.PaymentVolume;
+import com.checkout.payment.gateway.service.PaymentReportService;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reports across every merchant's payments, so operator endpoints under {@code /admin}.
+ */
+@RestController
+@RequestMapping("/admin/reports")
+public class PaymentReportController {
+
+  private final PaymentReportService reportService;
+
+  public PaymentReportController(PaymentReportService reportService) {
+    this.reportService = reportService;
+  }
+
+  /**
+   * Payments authorized per currency per day, {@code from} to {@code to} inclusive.
+   */
+  @GetMapping("/volume")
+  public ResponseEntity<List<PaymentVolume>> getVolume(@RequestParam String from,
+      @RequestParam String to) {
+    return new ResponseEntity<>(reportService.dailyVolume(from, to), HttpStatus.OK);
+  }
+
+  @GetMapping("/authorization-rate")
+  public ResponseEntity<AuthorizationRate> getAuthorizationRate(@RequestParam String from,
+      @RequestParam String to, @RequestParam(required = false) String currency) {
+    return new ResponseEntity<>(reportService.authorizationRate(from, to, currency),
+        HttpStatus.OK);
+  }
+}
@@ -0,0 +1,125 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.exception.PayloadTooLargeException;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.service.PaymentRequestReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Reads payment request bodies with {@link PaymentRequestReader} instead of Jackson's data
+ * binding, so invalid payments are rejected as soon as an invalid field is read.
+ *
+ * <p>
+ * Bodies larger than {@code payment.gateway.max-payment-request-size} are refused: up front when
+ * their {@code Content-Length} says so, otherwise as soon as that many bytes have been read.
+ * Nothing beyond the parser's read buffer is held in memory either way. Only reads; responses are
+ * written by the Jackson converter.
+ */
+public class PaymentRequestConverter implements HttpMessageConverter<PostPaymentRequest> {
+
+  private static final List<MediaType> MEDIA_TYPES =
+      List.of(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+
+  private final PaymentRequestReader reader;
+  private final long maxSize;
+
+  public PaymentRequestConverter(PaymentRequestReader reader, DataSize maxSize) {
+    this.reader = reader;
+    this.maxSize = maxSize.toBytes();
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return PostPaymentRequest.class == clazz && (mediaType == null
+        || MEDIA_TYPES.stream().anyMatch(supported -> supported.includes(mediaType)));
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public List<MediaType> getSupportedMediaTypes() {
+    return MEDIA_TYPES;
+  }
+
+  @Override
+  public PostPaymentRequest read(Class<? extends PostPaymentRequest> clazz,
+      HttpInputMessage inputMessage) throws IOException {
+    if (inputMessage.getHeaders().getContentLength() > maxSize) {
+      throw tooLarge();
+    }
+    try {
+      return reader.read(
+          new CappedInputStream(StreamUtils.nonClosing(inputMessage.getBody()), maxSize));
+    } catch (JsonProcessingException ex) {
+      throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(),
+          ex, inputMessage);
+    }
+  }
+
+  /**
+   * Never called, as {@link #canWrite} is always false.
+   */
+  @Override
+  public void write(PostPaymentRequest request, MediaType contentType,
+      HttpOutputMessage outputMessage) {
+    throw new HttpMessageNotWritableException("Payment requests are only read");
+  }
+
+  private PayloadTooLargeException tooLarge() {
+    return new PayloadTooLargeException("Payment request is larger than " + maxSize + " bytes");
+  }
+
+  /**
+   * Fails the read once more than the limit has been read.
+   */
+  private final class CappedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long read;
+
+    CappedInputStream(InputStream in, long limit) {
+      super(in);
+      this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    private void count(int n) {
+      read += n;
+      if (read > limit) {
+        throw tooLarge();
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.model.PaymentStats;
+import com.checkout.payment.gateway.stats.PaymentStatistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Live figures across every merchant's payments, so an operator endpoint under {@code /admin}.
+ */
+@RestController
+@RequestMapping("/admin")
+public class PaymentStatsController {
+
+  private final PaymentStatistics statistics;
+
+  public PaymentStatsController(PaymentStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * Payment outcomes per second over the configured window, and totals since startup.
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<PaymentStats> getStats() {
+    return new ResponseEntity<>(statistics.report(), HttpStatus.OK);
+  }
+}
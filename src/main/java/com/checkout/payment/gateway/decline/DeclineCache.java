@@ -0,0 +1,120 @@
+package com.checkout.payment.gateway.decline;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.screening.SlidingWindowSketch;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers payments the bank has just declined, so identical retries within the TTL are declined
+ * again without a bank round trip.
+ *
+ * <p>
+ * A payment is identified by a 64-bit hash of its card number, expiry date, amount and currency,
+ * salted with a random seed chosen at startup; card numbers are never stored, and the CVV is not
+ * part of the key at all. A retry with a corrected expiry date is therefore a different payment
+ * and goes to the bank, while one that only changes the CVV is declined again.
+ * Entries live in a fixed table of {@value #WAYS}-slot buckets; a new decline takes an expired
+ * slot in its bucket or else the one expiring soonest, so memory stays fixed. Lookups and inserts
+ * never lock. A slot's key is cleared before its expiry is replaced and checked again after the
+ * expiry is read, so a lookup racing with an insert can miss but never pairs a key with another
+ * payment's expiry.
+ */
+@Component
+public class DeclineCache {
+
+  static final int WAYS = 4;
+  private static final long EMPTY = 0;
+
+  private final boolean enabled;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final long seed;
+  private final int bucketMask;
+  private final AtomicLongArray keys;
+  private final AtomicLongArray expiries;
+
+  @Autowired
+  public DeclineCache(ApplicationConfiguration config) {
+    this(config.getDeclineCache(), System::currentTimeMillis);
+  }
+
+  public DeclineCache(ApplicationConfiguration.DeclineCache settings, LongSupplier clock) {
+    this.enabled = settings.isEnabled();
+    this.ttlMillis = settings.getTtl().toMillis();
+    this.clock = clock;
+    this.seed = new SecureRandom().nextLong();
+    int capacity = Math.max(settings.getCapacity(), WAYS);
+    capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.bucketMask = enabled ? capacity / WAYS - 1 : 0;
+    this.keys = enabled ? new AtomicLongArray(capacity) : null;
+    this.expiries = enabled ? new AtomicLongArray(capacity) : null;
+  }
+
+  /**
+   * Returns true if the bank declined the same payment within the TTL.
+   */
+  public boolean isDeclined(PostPaymentRequest request, String currency) {
+    if (!enabled) {
+      return false;
+    }
+    long key = key(request, currency);
+    long now = clock.getAsLong();
+    int base = bucket(key);
+    for (int slot = base; slot < base + WAYS; slot++) {
+      if (keys.get(slot) == key) {
+        return expiries.get(slot) > now && keys.get(slot) == key;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remembers that the bank declined the payment.
+   */
+  public void recordDecline(PostPaymentRequest request, String currency) {
+    if (!enabled) {
+      return;
+    }
+    long key = key(request, currency);
+    long now = clock.getAsLong();
+    int base = bucket(key);
+    int victim = base;
+    long victimExpiry = Long.MAX_VALUE;
+    for (int slot = base; slot < base + WAYS; slot++) {
+      if (keys.get(slot) == key) {
+        victim = slot;
+        break;
+      }
+      long expiry = expiries.get(slot);
+      if (expiry < victimExpiry) {
+        victim = slot;
+        victimExpiry = expiry;
+      }
+    }
+    keys.set(victim, EMPTY);
+    expiries.set(victim, now + ttlMillis);
+    keys.set(victim, key);
+  }
+
+  private int bucket(long key) {
+    return ((int) (key >>> 32) & bucketMask) * WAYS;
+  }
+
+  private long key(PostPaymentRequest request, String currency) {
+    long hash = SlidingWindowSketch.hash(nullToEmpty(request.getCardNumber()), seed);
+    long fields = ((long) request.getExpiryMonth() << 48)
+        ^ ((long) request.getExpiryYear() << 32)
+        ^ (request.getAmount() & 0xffffffffL);
+    hash = SlidingWindowSketch.hash(nullToEmpty(currency), hash ^ fields);
+    return hash == EMPTY ? 1 : hash;
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+}
@@ -0,0 +1,16 @@
+package com.checkout.payment.gateway.enums;
+
+/**
+ * Card network, as detected from the card number's BIN.
+ */
+public enum CardScheme {
+  UNKNOWN,
+  VISA,
+  MASTERCARD,
+  AMEX,
+  DISCOVER,
+  DINERS,
+  JCB,
+  UNIONPAY,
+  MAESTRO
+}
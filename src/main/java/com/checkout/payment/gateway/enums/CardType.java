@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.enums;
+
+/**
+ * Funding type of a card, as recorded in the BIN table.
+ */
+public enum CardType {
+  UNKNOWN,
+  CREDIT,
+  DEBIT,
+  PREPAID
+}
@@ -0,0 +1,20 @@
+package com.checkout.payment.gateway.enums;
+
+/**
+ * Events appended to the payment ledger. Each event carries the payment's full state at the time
+ * it was recorded, so replaying any event on its own is enough to rebuild the payment.
+ * The log stores the ordinal, so new types are only ever added at the end.
+ */
+public enum PaymentEventType {
+  CREATED,
+  VALIDATED,
+  BANK_RESPONDED,
+  CAPTURED,
+  VOIDED,
+  REFUNDED,
+  SCREENED,
+  /** The bank call was still running when the gateway shut down, so the outcome is unknown. */
+  BANK_PENDING,
+  /** Declined without a bank call because the bank just declined the same payment. */
+  DECLINE_REPEATED
+}
@@ -0,0 +1,25 @@
+package com.checkout.payment.gateway.enums;
+
+/**
+ * Stages a payment request passes through, each recorded as its own span so latency can be
+ * attributed to JSON parsing, validation, velocity screening, the acquiring bank call,
+ * persistence or writing the response.
+ */
+public enum PaymentStage {
+  PARSE("payment.parse"),
+  VALIDATE("payment.validate"),
+  SCREEN("payment.screen"),
+  BANK("payment.bank"),
+  STORE("payment.store"),
+  SERIALIZE("payment.serialize");
+
+  private final String spanName;
+
+  PaymentStage(String spanName) {
+    this.spanName = spanName;
+  }
+
+  public String getSpanName() {
+    return this.spanName;
+  }
+}
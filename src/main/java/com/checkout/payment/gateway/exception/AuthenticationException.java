@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when a request does not name a configured merchant with its API key, or an
+ * operator request lacks the admin key. Thrown for every bad guess, so it carries no stack trace.
+ */
+public class AuthenticationException extends RuntimeException {
+  public AuthenticationException(String message) {
+    super(message, null, false, false);
+  }
+}
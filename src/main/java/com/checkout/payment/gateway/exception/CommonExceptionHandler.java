@@ -3,11 +3,14 @@ package com.checkout.payment.gateway.exception;
 import com.checkout.payment.gateway.model.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 @ControllerAdvice
 public class CommonExceptionHandler {
 
@@ -15,8 +18,53 @@ public class CommonExceptionHandler {
 
   @ExceptionHandler(EventProcessingException.class)
   public ResponseEntity<ErrorResponse> handleException(EventProcessingException ex) {
-    LOG.error("Exception happened", ex);
+    // Expected for unknown IDs: no stack trace, so a burst of misses stays cheap to log
+    LOG.warn("Payment lookup failed {}", kv("reason", ex.getMessage()));
     return new ResponseEntity<>(new ErrorResponse("Page not found"),
         HttpStatus.NOT_FOUND);
   }
+
+  @ExceptionHandler(ValidationException.class)
+  public ResponseEntity<ErrorResponse> handleException(ValidationException ex) {
+    LOG.warn("Payment request invalid {}", kv("reason", ex.getMessage()));
+    return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(PaymentStateException.class)
+  public ResponseEntity<ErrorResponse> handleException(PaymentStateException ex) {
+    LOG.warn("Payment transition refused {}", kv("reason", ex.getMessage()));
+    return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.CONFLICT);
+  }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ErrorResponse> handleException(ServiceUnavailableException ex) {
+    LOG.warn("Payment refused {}", kv("reason", ex.getMessage()));
+    // Closing the connection sends the client's retry to another instance
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.CONNECTION, "close")
+        .body(new ErrorResponse(ex.getMessage()));
+  }
+
+  @ExceptionHandler(AuthenticationException.class)
+  public ResponseEntity<ErrorResponse> handleException(AuthenticationException ex) {
+    LOG.warn("Authentication failed {}", kv("reason", ex.getMessage()));
+    return new ResponseEntity<>(new ErrorResponse("Unauthorized"), HttpStatus.UNAUTHORIZED);
+  }
+
+  @ExceptionHandler(QuotaExceededException.class)
+  public ResponseEntity<ErrorResponse> handleException(QuotaExceededException ex) {
+    LOG.warn("Merchant request refused {}", kv("reason", ex.getMessage()));
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(new ErrorResponse(ex.getMessage()));
+  }
+
+  @ExceptionHandler(PayloadTooLargeException.class)
+  public ResponseEntity<ErrorResponse> handleException(PayloadTooLargeException ex) {
+    LOG.warn("Payment request refused {}", kv("reason", ex.getMessage()));
+    // Closing the connection spares the server reading the rest of the body
+    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+        .header(HttpHeaders.CONNECTION, "close")
+        .body(new ErrorResponse(ex.getMessage()));
+  }
 }
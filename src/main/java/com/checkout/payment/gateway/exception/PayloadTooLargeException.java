@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when a request body is larger than the gateway accepts. Thrown before the body
+ * is read in full, so the rest of it is not buffered.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+  public PayloadTooLargeException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when a capture, void or refund is not allowed in the payment's current state.
+ * Refusals are an expected outcome of racing lifecycle calls, so no stack trace is captured.
+ */
+public class PaymentStateException extends RuntimeException {
+  public PaymentStateException(String message) {
+    super(message, null, false, false);
+  }
+}
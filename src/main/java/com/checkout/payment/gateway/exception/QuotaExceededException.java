@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when a merchant has used up one of its quotas. The merchant should retry
+ * later; its requests do not count against other merchants'.
+ */
+public class QuotaExceededException extends RuntimeException {
+  public QuotaExceededException(String message) {
+    super(message, null, false, false);
+  }
+}
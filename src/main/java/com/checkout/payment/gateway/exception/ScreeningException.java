@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when a payment is refused by velocity screening. Refusals are expected under
+ * attack traffic, so no stack trace is captured.
+ */
+public class ScreeningException extends RuntimeException {
+  public ScreeningException(String message) {
+    super(message, null, false, false);
+  }
+}
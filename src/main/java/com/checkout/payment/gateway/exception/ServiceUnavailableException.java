@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.exception;
+
+/**
+ * Exception thrown when the gateway cannot take a payment right now, for example while shutting
+ * down. The client should retry, ideally against another instance.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+  public ServiceUnavailableException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,99 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends finished spans to a file, one JSON object per line. Only ever called from the batch
+ * span processor's worker thread, so a slow disk delays export but never a request.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileSpanExporter.class);
+
+  private final JsonGenerator generator;
+  private final OutputStream out;
+
+  public FileSpanExporter(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    this.out = new BufferedOutputStream(Files.newOutputStream(file,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+    this.generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+    this.generator.setRootValueSeparator(null);
+  }
+
+  @Override
+  public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+    try {
+      for (SpanData span : spans) {
+        write(span);
+      }
+      generator.flush();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException ex) {
+      LOG.warn("Failed to export {} spans", spans.size(), ex);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  private void write(SpanData span) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("traceId", span.getTraceId());
+    generator.writeStringField("spanId", span.getSpanId());
+    if (span.getParentSpanContext().isValid()) {
+      generator.writeStringField("parentSpanId", span.getParentSpanId());
+    }
+    generator.writeStringField("name", span.getName());
+    generator.writeStringField("kind", span.getKind().name());
+    generator.writeNumberField("startEpochNanos", span.getStartEpochNanos());
+    generator.writeNumberField("durationNanos",
+        span.getEndEpochNanos() - span.getStartEpochNanos());
+    generator.writeStringField("status", span.getStatus().getStatusCode().name());
+    generator.writeObjectFieldStart("attributes");
+    for (Map.Entry<AttributeKey<?>, Object> attribute : span.getAttributes().asMap().entrySet()) {
+      generator.writeStringField(attribute.getKey().getKey(), String.valueOf(attribute.getValue()));
+    }
+    generator.writeEndObject();
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+  }
+
+  @Override
+  public synchronized CompletableResultCode flush() {
+    try {
+      generator.flush();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException ex) {
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public synchronized CompletableResultCode shutdown() {
+    try {
+      generator.close();
+      out.close();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException ex) {
+      return CompletableResultCode.ofFailure();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import io.opentelemetry.api.trace.Span;
+import jdk.jfr.Event;
+
+/**
+ * A payment, or one of its stages, started by {@link PaymentInstrumentation} and to be ended by
+ * it: its span, when it started and its flight recorder event.
+ */
+public final class InstrumentedStep {
+
+  final PaymentStage stage;
+  final Span span;
+  final long startNanos;
+  final Event event;
+
+  InstrumentedStep(PaymentStage stage, Span span, Event event) {
+    this.stage = stage;
+    this.span = span;
+    this.event = event;
+    event.begin();
+    this.startNanos = System.nanoTime();
+  }
+
+  public Span getSpan() {
+    return span;
+  }
+}
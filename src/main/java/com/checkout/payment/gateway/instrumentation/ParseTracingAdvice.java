@@ -0,0 +1,119 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.lang.reflect.Type;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+/**
+ * Records deserialization of request bodies as a {@link PaymentStage#PARSE} span. The span is
+ * opened just before the message converter reads the body and closed right after. A body that
+ * fails to parse, or is refused as too large, never reaches {@code afterBodyRead}; its span is
+ * ended with the error once the request completes, so rejected bodies are traced and timed like
+ * the rest. It must therefore also be registered as an interceptor, as {@code WebConfiguration}
+ * does. Only payment requests count towards the parse stage's latency, and only they are followed
+ * by a {@link PaymentStage#SERIALIZE} span from {@link SerializeTracingAdvice}.
+ */
+@ControllerAdvice
+public class ParseTracingAdvice extends RequestBodyAdviceAdapter implements HandlerInterceptor {
+
+  private static final String SPAN_ATTRIBUTE = ParseTracingAdvice.class.getName() + ".span";
+  /** Set on payment requests, whose parse and serialize stages are recorded. */
+  static final String PAYMENT_ATTRIBUTE = ParseTracingAdvice.class.getName() + ".payment";
+
+  private final PaymentInstrumentation instrumentation;
+
+  public ParseTracingAdvice(PaymentInstrumentation instrumentation) {
+    this.instrumentation = instrumentation;
+  }
+
+  @Override
+  public boolean supports(MethodParameter methodParameter, Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+      Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      if (targetType == PostPaymentRequest.class) {
+        attributes.setAttribute(PAYMENT_ATTRIBUTE, Boolean.TRUE,
+            RequestAttributes.SCOPE_REQUEST);
+      }
+      attributes.setAttribute(SPAN_ATTRIBUTE, instrumentation.startStage(PaymentStage.PARSE),
+          RequestAttributes.SCOPE_REQUEST);
+    }
+    return inputMessage;
+  }
+
+  @Override
+  public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+      Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+    endSpan();
+    return body;
+  }
+
+  @Override
+  public Object handleEmptyBody(Object body, HttpInputMessage inputMessage,
+      MethodParameter parameter, Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    endSpan();
+    return body;
+  }
+
+  /**
+   * Ends the span of a body whose read failed; by then the exception has usually been handled,
+   * and is found in the request instead of {@code ex}.
+   */
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Object step = request.getAttribute(SPAN_ATTRIBUTE);
+    if (step instanceof InstrumentedStep) {
+      request.removeAttribute(SPAN_ATTRIBUTE);
+      Throwable error = ex != null
+          ? ex : (Throwable) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+      end((InstrumentedStep) step, request.getAttribute(PAYMENT_ATTRIBUTE) != null, error);
+    }
+  }
+
+  private void endSpan() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return;
+    }
+    Object step = attributes.getAttribute(SPAN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (step instanceof InstrumentedStep) {
+      attributes.removeAttribute(SPAN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      end((InstrumentedStep) step, attributes.getAttribute(PAYMENT_ATTRIBUTE,
+          RequestAttributes.SCOPE_REQUEST) != null, null);
+    }
+  }
+
+  private void end(InstrumentedStep step, boolean payment, Throwable error) {
+    if (payment) {
+      instrumentation.endStage(step, error);
+    } else {
+      Span span = step.getSpan();
+      if (error != null) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR);
+      }
+      span.end();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.latency.StageLatencyTracker;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.profiling.BankCallEvent;
+import com.checkout.payment.gateway.profiling.PaymentProcessedEvent;
+import com.checkout.payment.gateway.profiling.PaymentStageEvent;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the stages of payment processing in spans. Each stage span is a child of whatever span is
+ * current on the calling thread, so the bank call made inside {@link PaymentStage#BANK} carries
+ * the bank stage span as its parent in the outbound {@code traceparent} header. With a
+ * {@link StageLatencyTracker}, the duration of every stage and payment is also recorded there,
+ * whether or not the span is sampled. Stages and payments are also flight recorder events, which
+ * cost next to nothing unless a recording has them enabled.
+ */
+@Component
+public class PaymentInstrumentation {
+
+  static final String INSTRUMENTATION_NAME = "com.checkout.payment.gateway";
+  static final String PAYMENT_SPAN_NAME = "payment.process";
+  static final String PAYMENT_ID_ATTRIBUTE = "payment.id";
+  static final String PAYMENT_STATUS_ATTRIBUTE = "payment.status";
+
+  private final Tracer tracer;
+  private final StageLatencyTracker latencyTracker;
+
+  public PaymentInstrumentation(OpenTelemetry openTelemetry) {
+    this(openTelemetry, null);
+  }
+
+  /**
+   * @param latencyTracker where stage and payment durations are recorded, or null for spans only
+   */
+  @Autowired
+  public PaymentInstrumentation(OpenTelemetry openTelemetry, StageLatencyTracker latencyTracker) {
+    this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    this.latencyTracker = latencyTracker;
+  }
+
+  /**
+   * Runs the whole payment in a span tagged with the payment ID and its resulting status.
+   */
+  public PostPaymentResponse inPayment(UUID paymentId, Supplier<PostPaymentResponse> work) {
+    InstrumentedStep payment = startPayment(paymentId);
+    try (Scope ignored = payment.span.makeCurrent()) {
+      PostPaymentResponse response = work.get();
+      endPayment(payment, response, null);
+      return response;
+    } catch (RuntimeException ex) {
+      endPayment(payment, null, ex);
+      throw ex;
+    }
+  }
+
+  /**
+   * Starts a payment span without making it current, for payments processed across callbacks.
+   * The caller must end it with {@link #endPayment}.
+   */
+  public InstrumentedStep startPayment(UUID paymentId) {
+    Span span = tracer.spanBuilder(PAYMENT_SPAN_NAME).startSpan();
+    if (span.isRecording()) {
+      span.setAttribute(PAYMENT_ID_ATTRIBUTE, paymentId.toString());
+    }
+    PaymentProcessedEvent event = new PaymentProcessedEvent();
+    if (event.isEnabled()) {
+      event.paymentId = paymentId.toString();
+    }
+    return new InstrumentedStep(null, span, event);
+  }
+
+  /**
+   * Ends a payment started by {@link #startPayment} with its resulting status, or with the error
+   * that ended it. The payment's duration is recorded by status if it has one.
+   */
+  public void endPayment(InstrumentedStep payment, PostPaymentResponse response,
+      Throwable error) {
+    long nanos = System.nanoTime() - payment.startNanos;
+    Span span = payment.span;
+    PaymentStatus status = response == null ? null : response.getStatus();
+    if (error != null) {
+      span.recordException(error);
+      span.setStatus(StatusCode.ERROR);
+    } else if (span.isRecording() && status != null) {
+      span.setAttribute(PAYMENT_STATUS_ATTRIBUTE, status.getName());
+    }
+    span.end();
+    PaymentProcessedEvent event = (PaymentProcessedEvent) payment.event;
+    event.end();
+    if (event.shouldCommit()) {
+      event.status = status == null ? null : status.getName();
+      event.failed = error != null;
+      event.commit();
+    }
+    if (latencyTracker != null && status != null) {
+      latencyTracker.recordPayment(status, nanos);
+    }
+  }
+
+  /**
+   * Runs one stage of the payment in a child span of the current span.
+   */
+  public <T> T inStage(PaymentStage stage, Supplier<T> work) {
+    InstrumentedStep step = startStage(stage);
+    Throwable error = null;
+    try (Scope ignored = step.span.makeCurrent()) {
+      return work.get();
+    } catch (RuntimeException ex) {
+      error = ex;
+      throw ex;
+    } finally {
+      endStage(step, error);
+    }
+  }
+
+  /**
+   * Runs one stage of the payment in a child span of the current span.
+   */
+  public void inStage(PaymentStage stage, Runnable work) {
+    inStage(stage, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /**
+   * Starts a stage span without making it current, for stages whose start and end happen in
+   * separate callbacks. The caller must end it with {@link #endStage}.
+   */
+  public InstrumentedStep startStage(PaymentStage stage) {
+    Span span = tracer.spanBuilder(stage.getSpanName()).startSpan();
+    PaymentStageEvent event = new PaymentStageEvent();
+    if (event.isEnabled()) {
+      event.stage = stage.name();
+      event.paymentId = BankCallEvent.currentPaymentId();
+    }
+    return new InstrumentedStep(stage, span, event);
+  }
+
+  /**
+   * Ends a stage from {@link #startStage}, with the error that ended it if any, and records the
+   * stage's duration.
+   */
+  public void endStage(InstrumentedStep step, Throwable error) {
+    long nanos = System.nanoTime() - step.startNanos;
+    Span span = step.span;
+    if (error != null) {
+      span.recordException(error);
+      span.setStatus(StatusCode.ERROR);
+    }
+    span.end();
+    PaymentStageEvent event = (PaymentStageEvent) step.event;
+    event.end();
+    if (event.shouldCommit()) {
+      event.failed = error != null;
+      event.commit();
+    }
+    if (latencyTracker != null) {
+      latencyTracker.recordStage(step.stage, nanos);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Records writing the response to a payment request as a {@link PaymentStage#SERIALIZE} span. The
+ * span is opened just before the message converter writes the payment and closed once the handler
+ * has completed, which is after the body has been written to the response buffer. It must also be
+ * registered as an interceptor, as {@code WebConfiguration} does.
+ */
+@ControllerAdvice
+public class SerializeTracingAdvice implements ResponseBodyAdvice<Object>, HandlerInterceptor {
+
+  private static final String SPAN_ATTRIBUTE = SerializeTracingAdvice.class.getName() + ".span";
+
+  private final PaymentInstrumentation instrumentation;
+
+  public SerializeTracingAdvice(PaymentInstrumentation instrumentation) {
+    this.instrumentation = instrumentation;
+  }
+
+  @Override
+  public boolean supports(MethodParameter returnType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType,
+      MediaType selectedContentType, Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request, ServerHttpResponse response) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (body instanceof PostPaymentResponse && attributes != null && attributes.getAttribute(
+        ParseTracingAdvice.PAYMENT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+      attributes.setAttribute(SPAN_ATTRIBUTE, instrumentation.startStage(PaymentStage.SERIALIZE),
+          RequestAttributes.SCOPE_REQUEST);
+    }
+    return body;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Object step = request.getAttribute(SPAN_ATTRIBUTE);
+    if (step instanceof InstrumentedStep) {
+      request.removeAttribute(SPAN_ATTRIBUTE);
+      instrumentation.endStage((InstrumentedStep) step, null);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Opens a server span for every request, continuing the caller's trace when a W3C
+ * {@code traceparent} header is present. The span is named after the matched route template
+ * (for example {@code GET /api/v1/payments/{id}}) rather than the raw path, so payment IDs do not
+ * explode the number of distinct span names. The trace ID is added to the logging MDC while the request runs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+  public static final String MDC_KEY = "traceId";
+
+  private static final TextMapGetter<HttpServletRequest> GETTER =
+      new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(HttpServletRequest carrier) {
+          return Collections.list(carrier.getHeaderNames());
+        }
+
+        @Override
+        public String get(HttpServletRequest carrier, String key) {
+          return carrier == null ? null : carrier.getHeader(key);
+        }
+      };
+
+  private final Tracer tracer;
+  private final TextMapPropagator propagator;
+
+  public TracingFilter(OpenTelemetry openTelemetry) {
+    this.tracer = openTelemetry.getTracer(PaymentInstrumentation.INSTRUMENTATION_NAME);
+    this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    Context parent = propagator.extract(Context.current(), request, GETTER);
+    Span span = tracer.spanBuilder(request.getMethod())
+        .setParent(parent)
+        .setSpanKind(SpanKind.SERVER)
+        .startSpan();
+    boolean sampled = span.getSpanContext().isSampled();
+    if (sampled) {
+      MDC.put(MDC_KEY, span.getSpanContext().getTraceId());
+    }
+    try (Scope ignored = span.makeCurrent()) {
+      filterChain.doFilter(request, response);
+    } catch (IOException | ServletException | RuntimeException ex) {
+      span.recordException(ex);
+      span.setStatus(StatusCode.ERROR);
+      throw ex;
+    } finally {
+      if (span.isRecording()) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+          span.updateName(request.getMethod() + " " + route);
+          span.setAttribute("http.route", route.toString());
+        }
+        span.setAttribute("http.request.method", request.getMethod());
+        span.setAttribute("http.response.status_code", response.getStatus());
+        if (response.getStatus() >= 500) {
+          span.setStatus(StatusCode.ERROR);
+        }
+      }
+      span.end();
+      if (sampled) {
+        MDC.remove(MDC_KEY);
+      }
+    }
+  }
+}
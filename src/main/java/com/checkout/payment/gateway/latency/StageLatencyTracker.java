@@ -0,0 +1,304 @@
+package com.checkout.payment.gateway.latency;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.LatencyReport;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of each {@link PaymentStage}, and of whole payments by the {@link PaymentStatus} they
+ * end with, as HdrHistograms, with the burn rate of the payment latency SLO.
+ *
+ * <p>
+ * Each recording thread has its own {@link SingleWriterRecorder} per stage and status, so
+ * recording never waits for or contends with another thread: a thread-local lookup, two
+ * uncontended atomic increments and a counter update. Every {@code interval} a background thread
+ * swaps out each thread's histograms and adds them to the current slot of a ring covering
+ * {@code window}, and a report adds up the ring. Threads that have ended are drained one last
+ * time and forgotten.
+ *
+ * <p>
+ * Values are kept to 2 significant digits from 1 µs to 1 minute; longer ones count as 1 minute.
+ * A thread holds about 40 KB for each stage and status it has recorded.
+ */
+@Component
+public class StageLatencyTracker implements AutoCloseable {
+
+  private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+  private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final int SIGNIFICANT_DIGITS = 2;
+  private static final PaymentStage[] STAGES = PaymentStage.values();
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+  private static final int SERIES = STAGES.length + STATUSES.length;
+
+  private final ThreadLocal<ThreadRecorders> recorders = ThreadLocal.withInitial(this::register);
+  private final Queue<ThreadRecorders> threads = new ConcurrentLinkedQueue<>();
+  private final Duration window;
+  private final long sloThresholdNanos;
+  private final double sloObjective;
+  private final List<Duration> burnRateWindows;
+  private final int[] burnRateIntervals;
+  private final ScheduledExecutorService scheduler;
+  // Guarded by this: histograms of each interval in the window, by series, null until recorded
+  private final Histogram[][] slots;
+  // Guarded by this: payments and slow payments of each completed interval, oldest overwritten
+  private final long[] intervalPayments;
+  private final long[] intervalSlowPayments;
+  private long completedIntervals;
+  private long payments;
+  private long slowPayments;
+
+  @Autowired
+  public StageLatencyTracker(ApplicationConfiguration config) {
+    this(config.getLatency());
+  }
+
+  public StageLatencyTracker(ApplicationConfiguration.Latency settings) {
+    long intervalNanos = settings.getInterval().toNanos();
+    this.window = settings.getWindow();
+    this.sloThresholdNanos = Math.min(settings.getSloThreshold().toNanos(), HIGHEST_NANOS);
+    this.sloObjective = settings.getSloObjective();
+    this.burnRateWindows = List.copyOf(settings.getBurnRateWindows());
+    this.burnRateIntervals = new int[burnRateWindows.size()];
+    int longest = 1;
+    for (int i = 0; i < burnRateIntervals.length; i++) {
+      burnRateIntervals[i] = intervals(burnRateWindows.get(i), intervalNanos);
+      longest = Math.max(longest, burnRateIntervals[i]);
+    }
+    this.slots = new Histogram[intervals(window, intervalNanos)][SERIES];
+    this.intervalPayments = new long[longest];
+    this.intervalSlowPayments = new long[longest];
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "latency-merge");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(this::rotate, intervalNanos, intervalNanos,
+        TimeUnit.NANOSECONDS);
+  }
+
+  private static int intervals(Duration span, long intervalNanos) {
+    return (int) Math.max(1, (span.toNanos() + intervalNanos - 1) / intervalNanos);
+  }
+
+  /**
+   * Records how long one stage of a payment took.
+   */
+  public void recordStage(PaymentStage stage, long nanos) {
+    recorders.get().record(stage.ordinal(), nanos);
+  }
+
+  /**
+   * Records how long a whole payment took, by the status it ended with.
+   */
+  public void recordPayment(PaymentStatus status, long nanos) {
+    recorders.get().record(STAGES.length + status.ordinal(), nanos);
+  }
+
+  /**
+   * Percentiles over the window, including what was recorded since the last interval ended, and
+   * burn rates over each burn-rate window.
+   */
+  public synchronized LatencyReport report() {
+    drain();
+    Map<String, LatencyReport.Percentiles> stages = new LinkedHashMap<>();
+    for (PaymentStage stage : STAGES) {
+      stages.put(stage.name(), percentiles(sum(stage.ordinal())));
+    }
+    Map<String, LatencyReport.Percentiles> statuses = new LinkedHashMap<>();
+    for (PaymentStatus status : STATUSES) {
+      Histogram histogram = sum(STAGES.length + status.ordinal());
+      if (histogram.getTotalCount() > 0) {
+        statuses.put(status.getName(), percentiles(histogram));
+      }
+    }
+
+    // The interval in progress counts towards every burn-rate window
+    long currentPayments = paymentsIn(currentSlot());
+    long currentSlow = slowPaymentsIn(currentSlot());
+    List<LatencyReport.BurnRate> burnRates = new ArrayList<>();
+    for (int i = 0; i < burnRateIntervals.length; i++) {
+      long windowPayments = currentPayments;
+      long windowSlow = currentSlow;
+      long counted = Math.min(burnRateIntervals[i], completedIntervals);
+      for (long n = completedIntervals - counted; n < completedIntervals; n++) {
+        windowPayments += intervalPayments[(int) (n % intervalPayments.length)];
+        windowSlow += intervalSlowPayments[(int) (n % intervalPayments.length)];
+      }
+      burnRates.add(new LatencyReport.BurnRate(burnRateWindows.get(i).toString(),
+          windowPayments, windowSlow, burnRate(windowPayments, windowSlow)));
+    }
+    LatencyReport.Slo slo = new LatencyReport.Slo(Duration.ofNanos(sloThresholdNanos).toString(),
+        sloObjective, payments + currentPayments, slowPayments + currentSlow, burnRates);
+    return new LatencyReport(window.toString(), stages, statuses, slo);
+  }
+
+  /**
+   * Stops merging. Recording still works but is no longer reported.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Ends the current interval: merges what the threads recorded into it, counts its payments
+   * towards the SLO and starts the next one in the oldest slot.
+   */
+  synchronized void rotate() {
+    drain();
+    long intervalTotal = paymentsIn(currentSlot());
+    long intervalSlow = slowPaymentsIn(currentSlot());
+    int index = (int) (completedIntervals % intervalPayments.length);
+    intervalPayments[index] = intervalTotal;
+    intervalSlowPayments[index] = intervalSlow;
+    payments += intervalTotal;
+    slowPayments += intervalSlow;
+    completedIntervals++;
+    for (Histogram histogram : currentSlot()) {
+      if (histogram != null) {
+        histogram.reset();
+      }
+    }
+  }
+
+  private Histogram[] currentSlot() {
+    return slots[(int) (completedIntervals % slots.length)];
+  }
+
+  private void drain() {
+    Histogram[] slot = currentSlot();
+    for (Iterator<ThreadRecorders> it = threads.iterator(); it.hasNext(); ) {
+      ThreadRecorders thread = it.next();
+      // Checked before draining, so nothing the thread recorded last is lost
+      boolean ended = !thread.owner.isAlive();
+      thread.drainInto(slot);
+      if (ended) {
+        it.remove();
+      }
+    }
+  }
+
+  private Histogram sum(int series) {
+    Histogram sum = newHistogram();
+    for (Histogram[] slot : slots) {
+      if (slot[series] != null) {
+        sum.add(slot[series]);
+      }
+    }
+    return sum;
+  }
+
+  private static long paymentsIn(Histogram[] slot) {
+    long total = 0;
+    for (int series = STAGES.length; series < SERIES; series++) {
+      if (slot[series] != null) {
+        total += slot[series].getTotalCount();
+      }
+    }
+    return total;
+  }
+
+  private long slowPaymentsIn(Histogram[] slot) {
+    long slow = 0;
+    for (int series = STAGES.length; series < SERIES; series++) {
+      if (slot[series] != null) {
+        slow += slot[series].getTotalCount()
+            - slot[series].getCountBetweenValues(0, sloThresholdNanos);
+      }
+    }
+    return slow;
+  }
+
+  private double burnRate(long total, long slow) {
+    double budget = 1 - sloObjective;
+    if (total == 0 || budget <= 0) {
+      return 0;
+    }
+    return (double) slow / total / budget;
+  }
+
+  private static LatencyReport.Percentiles percentiles(Histogram histogram) {
+    if (histogram.getTotalCount() == 0) {
+      return new LatencyReport.Percentiles(0, 0, 0, 0, 0);
+    }
+    return new LatencyReport.Percentiles(histogram.getTotalCount(),
+        micros(histogram.getValueAtPercentile(50)),
+        micros(histogram.getValueAtPercentile(99)),
+        micros(histogram.getValueAtPercentile(99.9)),
+        micros(histogram.getMaxValue()));
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  private static Histogram newHistogram() {
+    return new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+  }
+
+  private ThreadRecorders register() {
+    ThreadRecorders thread = new ThreadRecorders(Thread.currentThread());
+    threads.add(thread);
+    return thread;
+  }
+
+  /**
+   * One thread's recorders, created on its first value for each series. Only the owner records;
+   * only the merging thread, holding the tracker's lock, drains.
+   */
+  private static final class ThreadRecorders {
+
+    private final Thread owner;
+    private final AtomicReferenceArray<SingleWriterRecorder> recorders =
+        new AtomicReferenceArray<>(SERIES);
+    // Histograms handed back by the recorders, swapped in again on the next drain
+    private final Histogram[] spares = new Histogram[SERIES];
+
+    ThreadRecorders(Thread owner) {
+      this.owner = owner;
+    }
+
+    void record(int series, long nanos) {
+      SingleWriterRecorder recorder = recorders.get(series);
+      if (recorder == null) {
+        recorder = new SingleWriterRecorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+        recorders.set(series, recorder);
+      }
+      recorder.recordValue(Math.max(0, Math.min(nanos, HIGHEST_NANOS)));
+    }
+
+    void drainInto(Histogram[] slot) {
+      for (int series = 0; series < SERIES; series++) {
+        SingleWriterRecorder recorder = recorders.get(series);
+        if (recorder == null) {
+          continue;
+        }
+        Histogram interval = recorder.getIntervalHistogram(spares[series]);
+        spares[series] = interval;
+        if (interval.getTotalCount() > 0) {
+          if (slot[series] == null) {
+            slot[series] = newHistogram();
+          }
+          slot[series].add(interval);
+        }
+      }
+    }
+  }
+}
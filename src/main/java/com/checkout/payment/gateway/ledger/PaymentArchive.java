@@ -0,0 +1,393 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed cold storage for payments that have left the live read model. Every
+ * {@link #write} creates one immutable file: a header, the payments sorted by ID as
+ * {@link PaymentEventCodec} records deflated in blocks of 256, then a block index and a Bloom
+ * filter of the IDs. The header goes in last and the file is renamed into place, so a crash never
+ * leaves a partial file behind.
+ *
+ * <p>
+ * Each file's index and filter stay on the heap, about 1.3 bytes per payment. A lookup checks the
+ * filters newest file first, and only inflates the one block that can hold the ID.
+ */
+public class PaymentArchive implements AutoCloseable {
+
+  private static final long MAGIC = 0x5047415243483031L; // "PGARCH01"
+  private static final int HEADER_SIZE = 40;
+  private static final int BLOCK_RECORDS = 256;
+  private static final int INDEX_ENTRY_SIZE = 28;
+  private static final int BLOOM_BITS_PER_PAYMENT = 10;
+  private static final int BLOOM_HASHES = 7;
+  private static final String PREFIX = "archive-";
+  private static final String SUFFIX = ".bin";
+
+  private final Path directory;
+  private final UnaryOperator<String> canonicalCurrency;
+  // Oldest first, replaced as a whole so lookups never lock
+  private volatile ArchiveFile[] files = new ArchiveFile[0];
+  private long nextFileNumber;
+
+  private PaymentArchive(Path directory, UnaryOperator<String> canonicalCurrency) {
+    this.directory = directory;
+    this.canonicalCurrency = canonicalCurrency;
+  }
+
+  /**
+   * Opens, or creates, the archive in {@code directory}.
+   */
+  public static PaymentArchive open(Path directory, UnaryOperator<String> canonicalCurrency)
+      throws IOException {
+    PaymentArchive archive = new PaymentArchive(directory, canonicalCurrency);
+    Files.createDirectories(directory);
+    List<Path> paths;
+    try (Stream<Path> listing = Files.list(directory)) {
+      paths = listing
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+    List<ArchiveFile> files = new ArrayList<>();
+    for (Path path : paths) {
+      ArchiveFile file = ArchiveFile.open(path);
+      files.add(file);
+      archive.nextFileNumber = file.number + 1;
+    }
+    archive.files = files.toArray(new ArchiveFile[0]);
+    return archive;
+  }
+
+  /**
+   * Writes payments to a new archive file and makes them readable.
+   *
+   * @param entries snapshot entries, one per payment, whose timestamp is when the payment was
+   *     created
+   */
+  public synchronized void write(List<PaymentEvent> entries) throws IOException {
+    if (entries.isEmpty()) {
+      return;
+    }
+    List<PaymentEvent> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(PaymentEvent::paymentId));
+    int blocks = (sorted.size() + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+    long[] bloom = new long[Math.max(1, (sorted.size() * BLOOM_BITS_PER_PAYMENT + 63) / 64)];
+    ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_SIZE);
+    ByteBuffer raw = ByteBuffer.allocate(BLOCK_RECORDS * PaymentEventCodec.RECORD_SIZE);
+    byte[] compressed = new byte[raw.capacity() + 64];
+    long newestCreated = Long.MIN_VALUE;
+    Path target = directory.resolve(String.format("%s%016d%s", PREFIX, nextFileNumber, SUFFIX));
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    Deflater deflater = new Deflater();
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      long offset = HEADER_SIZE;
+      for (int block = 0; block < blocks; block++) {
+        int first = block * BLOCK_RECORDS;
+        int records = Math.min(BLOCK_RECORDS, sorted.size() - first);
+        for (int i = 0; i < records; i++) {
+          PaymentEvent entry = sorted.get(first + i);
+          PaymentEventCodec.encode(raw, i * PaymentEventCodec.RECORD_SIZE, entry);
+          addToBloom(bloom, entry.paymentId());
+          newestCreated = Math.max(newestCreated, entry.timestampMillis());
+        }
+        deflater.reset();
+        deflater.setInput(raw.array(), 0, records * PaymentEventCodec.RECORD_SIZE);
+        deflater.finish();
+        int length = deflater.deflate(compressed);
+        if (!deflater.finished()) {
+          throw new IOException("Archive block did not fit its buffer");
+        }
+        writeFully(channel, ByteBuffer.wrap(compressed, 0, length), offset);
+        UUID firstId = sorted.get(first).paymentId();
+        index.putLong(firstId.getMostSignificantBits()).putLong(firstId.getLeastSignificantBits())
+            .putLong(offset).putInt(length);
+        offset += length;
+      }
+      long indexOffset = offset;
+      writeFully(channel, index.flip(), offset);
+      offset += index.capacity();
+      ByteBuffer bloomBytes = ByteBuffer.allocate(bloom.length * 8);
+      bloomBytes.asLongBuffer().put(bloom);
+      writeFully(channel, bloomBytes, offset);
+      // The index offset is only known at the end, so the header goes in last
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+          .putLong(MAGIC).putLong(sorted.size()).putLong(newestCreated).putLong(indexOffset)
+          .putInt(blocks).putInt(bloom.length).flip();
+      writeFully(channel, header, 0);
+      channel.force(true);
+    } finally {
+      deflater.end();
+    }
+    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    ArchiveFile[] current = files;
+    ArchiveFile[] updated = Arrays.copyOf(current, current.length + 1);
+    updated[current.length] = ArchiveFile.open(target);
+    files = updated;
+    nextFileNumber++;
+  }
+
+  /**
+   * Looks up an archived payment. Where a payment was archived more than once, the latest copy
+   * wins.
+   */
+  public Optional<PostPaymentResponse> find(UUID id) {
+    ArchiveFile[] current = files;
+    for (int i = current.length - 1; i >= 0; i--) {
+      ArchiveFile file = current[i];
+      if (!file.mightContain(id)) {
+        continue;
+      }
+      try {
+        PaymentEvent entry = file.find(id, canonicalCurrency);
+        if (entry != null) {
+          return Optional.of(entry.toPayment());
+        }
+      } catch (ClosedChannelException ex) {
+        // Deleted by retention while we were reading
+      } catch (IOException ex) {
+        throw new UncheckedIOException("Cannot read payment archive " + file.path, ex);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Deletes the archive files whose payments were all created before {@code cutoffMillis}.
+   *
+   * @return the number of payments deleted
+   */
+  public synchronized long deleteCreatedBefore(long cutoffMillis) throws IOException {
+    ArchiveFile[] current = files;
+    files = Arrays.stream(current)
+        .filter(file -> file.newestCreated >= cutoffMillis)
+        .toArray(ArchiveFile[]::new);
+    long deleted = 0;
+    for (ArchiveFile file : current) {
+      if (file.newestCreated < cutoffMillis) {
+        file.channel.close();
+        Files.deleteIfExists(file.path);
+        deleted += file.payments;
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Payments held across all archive files.
+   */
+  public long size() {
+    return Arrays.stream(files).mapToLong(file -> file.payments).sum();
+  }
+
+  @Override
+  public void close() {
+    for (ArchiveFile file : files) {
+      try {
+        file.channel.close();
+      } catch (IOException ex) {
+        // Read-only, nothing to lose
+      }
+    }
+  }
+
+  private static void addToBloom(long[] bloom, UUID id) {
+    long hash = bloomHash(id);
+    long bits = bloom.length * 64L;
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      long bit = Math.floorMod((int) hash + i * (int) (hash >>> 32), bits);
+      bloom[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  private static long bloomHash(UUID id) {
+    // MurmurHash3 finalizer over both halves
+    long key = id.getMostSignificantBits() * 0x9e3779b97f4a7c15L ^ id.getLeastSignificantBits();
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    return key ^ (key >>> 33);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Truncated payment archive");
+      }
+      position += read;
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * One archive file with its index and Bloom filter loaded.
+   */
+  private static final class ArchiveFile {
+
+    final Path path;
+    final long number;
+    final long payments;
+    final long newestCreated;
+    final FileChannel channel;
+    // First ID and compressed extent of each block
+    final long[] firstMsb;
+    final long[] firstLsb;
+    final long[] offsets;
+    final int[] lengths;
+    final long[] bloom;
+
+    private ArchiveFile(Path path, long number, long payments, long newestCreated,
+        FileChannel channel, int blocks, int bloomWords) {
+      this.path = path;
+      this.number = number;
+      this.payments = payments;
+      this.newestCreated = newestCreated;
+      this.channel = channel;
+      this.firstMsb = new long[blocks];
+      this.firstLsb = new long[blocks];
+      this.offsets = new long[blocks];
+      this.lengths = new int[blocks];
+      this.bloom = new long[bloomWords];
+    }
+
+    static ArchiveFile open(Path path) throws IOException {
+      String name = path.getFileName().toString();
+      long number = Long.parseLong(
+          name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        if (header.getLong(0) != MAGIC) {
+          throw new IOException("Not a payment archive: " + path);
+        }
+        long indexOffset = header.getLong(24);
+        int blocks = header.getInt(32);
+        ArchiveFile file = new ArchiveFile(path, number, header.getLong(8), header.getLong(16),
+            channel, blocks, header.getInt(36));
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_SIZE);
+        readFully(channel, index, indexOffset);
+        index.flip();
+        for (int block = 0; block < blocks; block++) {
+          file.firstMsb[block] = index.getLong();
+          file.firstLsb[block] = index.getLong();
+          file.offsets[block] = index.getLong();
+          file.lengths[block] = index.getInt();
+        }
+        ByteBuffer bloomBytes = ByteBuffer.allocate(file.bloom.length * 8);
+        readFully(channel, bloomBytes, indexOffset + index.capacity());
+        bloomBytes.flip().asLongBuffer().get(file.bloom);
+        return file;
+      } catch (IOException | RuntimeException ex) {
+        channel.close();
+        throw ex;
+      }
+    }
+
+    boolean mightContain(UUID id) {
+      long hash = bloomHash(id);
+      long bits = bloom.length * 64L;
+      for (int i = 0; i < BLOOM_HASHES; i++) {
+        long bit = Math.floorMod((int) hash + i * (int) (hash >>> 32), bits);
+        if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    PaymentEvent find(UUID id, UnaryOperator<String> canonicalCurrency) throws IOException {
+      long msb = id.getMostSignificantBits();
+      long lsb = id.getLeastSignificantBits();
+      // Last block whose first ID is not above the one we want
+      int low = 0;
+      int high = offsets.length - 1;
+      int block = -1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (compare(firstMsb[middle], firstLsb[middle], msb, lsb) <= 0) {
+          block = middle;
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      if (block < 0) {
+        return null;
+      }
+      int records = (int) Math.min(BLOCK_RECORDS, payments - (long) block * BLOCK_RECORDS);
+      ByteBuffer compressed = ByteBuffer.allocate(lengths[block]);
+      readFully(channel, compressed, offsets[block]);
+      ByteBuffer raw = ByteBuffer.allocate(records * PaymentEventCodec.RECORD_SIZE);
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(compressed.array());
+        if (inflater.inflate(raw.array()) != raw.capacity()) {
+          throw new IOException("Corrupt block in payment archive " + path);
+        }
+      } catch (DataFormatException ex) {
+        throw new IOException("Corrupt block in payment archive " + path, ex);
+      } finally {
+        inflater.end();
+      }
+      low = 0;
+      high = records - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int offset = middle * PaymentEventCodec.RECORD_SIZE;
+        int order = compare(raw.getLong(offset + 16), raw.getLong(offset + 24), msb, lsb);
+        if (order == 0) {
+          return PaymentEventCodec.decode(raw, offset, PaymentEvent.NONE, canonicalCurrency);
+        }
+        if (order < 0) {
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Orders IDs as {@link UUID#compareTo} does.
+     */
+    private static int compare(long msb, long lsb, long otherMsb, long otherLsb) {
+      int order = Long.compare(msb, otherMsb);
+      return order != 0 ? order : Long.compare(lsb, otherLsb);
+    }
+  }
+}
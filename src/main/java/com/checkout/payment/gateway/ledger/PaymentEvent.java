@@ -0,0 +1,79 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * One entry of the payment event log.
+ *
+ * @param sequence position in the log, assigned on append
+ * @param previousSequence position of the previous event for the same payment, or -1
+ * @param type what happened; null for snapshot entries
+ * @param outcome authorization outcome, or null while the payment has none yet
+ * @param stateWord the payment's lifecycle state word after the event
+ * @param reference the merchant's reference for the payment, or null
+ * @param merchantId the authenticated merchant the payment belongs to, or null
+ */
+public record PaymentEvent(
+    long sequence,
+    long previousSequence,
+    long timestampMillis,
+    PaymentEventType type,
+    UUID paymentId,
+    PaymentStatus outcome,
+    long stateWord,
+    int cardNumberLastFour,
+    int expiryMonth,
+    int expiryYear,
+    String currency,
+    int amount,
+    String reference,
+    String merchantId
+) {
+
+  public static final long NONE = -1L;
+
+  private static final Set<PaymentEventType> OUTCOME_TYPES = EnumSet.of(
+      PaymentEventType.VALIDATED, PaymentEventType.SCREENED, PaymentEventType.DECLINE_REPEATED,
+      PaymentEventType.BANK_RESPONDED);
+
+  /**
+   * Captures the current state of a payment as an event that has not been appended yet.
+   */
+  public static PaymentEvent of(PaymentEventType type, PostPaymentResponse payment) {
+    return new PaymentEvent(NONE, NONE, System.currentTimeMillis(), type, payment.getId(),
+        payment.authorizationOutcome(), payment.stateWord(), payment.getCardNumberLastFour(),
+        payment.getExpiryMonth(), payment.getExpiryYear(), payment.getCurrency(),
+        payment.getAmount(), payment.getReference(), payment.getMerchantId());
+  }
+
+  /**
+   * Whether this is the event that gave the payment its authorization outcome. A payment has at
+   * most one.
+   */
+  public boolean setsOutcome() {
+    return outcome != null && OUTCOME_TYPES.contains(type);
+  }
+
+  public PaymentEvent withPosition(long sequence, long previousSequence) {
+    return new PaymentEvent(sequence, previousSequence, timestampMillis, type, paymentId, outcome,
+        stateWord, cardNumberLastFour, expiryMonth, expiryYear, currency, amount, reference,
+        merchantId);
+  }
+
+  /**
+   * Rebuilds the payment this event describes. Only valid for events with an outcome.
+   */
+  public PostPaymentResponse toPayment() {
+    PostPaymentResponse payment = new PostPaymentResponse(paymentId, outcome, cardNumberLastFour,
+        expiryMonth, expiryYear, currency, amount);
+    payment.setReference(reference);
+    payment.setMerchantId(merchantId);
+    payment.advanceState(stateWord);
+    return payment;
+  }
+}
@@ -0,0 +1,157 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size binary encoding of {@link PaymentEvent}, shared by the event log and snapshots.
+ * Fixed-size records mean an event's position in the log is simply {@code sequence * 128}, and a
+ * per-payment back pointer is enough to walk its history without an index.
+ *
+ * <pre>
+ *   0  previous sequence   long      40  amount         int
+ *   8  timestamp millis    long      44  expiry year    int
+ *  16  payment id (msb)    long      48  expiry month   int
+ *  24  payment id (lsb)    long      52  last four      short
+ *  32  state word          long      54  type, outcome  byte, byte
+ *  56  currency            3 ASCII   59  reference length  byte
+ *  60  reference           50 ASCII 110  merchant id length  byte
+ * 111  merchant id         13 ASCII 124  CRC32C of bytes 0-123
+ * </pre>
+ *
+ * A type byte of 0 marks an unwritten slot. Currencies that are not 3 ASCII characters (only
+ * possible on rejected payments) are stored as null, and so are references that are not at most
+ * 50 printable ASCII characters. Merchant IDs are checked against the same rule, with at most
+ * {@link #MAX_MERCHANT_ID_LENGTH} characters, when merchants are configured. Records written
+ * before merchant IDs were stored have zeros there and decode with none.
+ */
+public final class PaymentEventCodec {
+
+  public static final int RECORD_SIZE = 128;
+  public static final int MAX_MERCHANT_ID_LENGTH = 13;
+
+  private static final int CHECKSUMMED_BYTES = 124;
+  private static final int REFERENCE_OFFSET = 60;
+  private static final int MAX_REFERENCE_LENGTH = 50;
+  private static final int MERCHANT_ID_OFFSET = 111;
+  private static final byte EMPTY = 0;
+  private static final byte SNAPSHOT_ENTRY = 0x7F;
+  private static final PaymentEventType[] TYPES = PaymentEventType.values();
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private PaymentEventCodec() {
+  }
+
+  /**
+   * Writes the event at {@code offset} using absolute puts, leaving the buffer position alone.
+   */
+  public static void encode(ByteBuffer buffer, int offset, PaymentEvent event) {
+    buffer.putLong(offset, event.previousSequence());
+    buffer.putLong(offset + 8, event.timestampMillis());
+    buffer.putLong(offset + 16, event.paymentId().getMostSignificantBits());
+    buffer.putLong(offset + 24, event.paymentId().getLeastSignificantBits());
+    buffer.putLong(offset + 32, event.stateWord());
+    buffer.putInt(offset + 40, event.amount());
+    buffer.putInt(offset + 44, event.expiryYear());
+    buffer.putInt(offset + 48, event.expiryMonth());
+    buffer.putShort(offset + 52, (short) event.cardNumberLastFour());
+    buffer.put(offset + 54, event.type() == null
+        ? SNAPSHOT_ENTRY : (byte) (event.type().ordinal() + 1));
+    buffer.put(offset + 55, event.outcome() == null ? 0 : (byte) (event.outcome().ordinal() + 1));
+    String currency = event.currency();
+    boolean storable = currency != null && currency.length() == 3
+        && currency.chars().allMatch(c -> c > 0 && c < 0x80);
+    for (int i = 0; i < 3; i++) {
+      buffer.put(offset + 56 + i, storable ? (byte) currency.charAt(i) : 0);
+    }
+    putText(buffer, offset + 59, offset + REFERENCE_OFFSET, MAX_REFERENCE_LENGTH,
+        event.reference());
+    putText(buffer, offset + 110, offset + MERCHANT_ID_OFFSET, MAX_MERCHANT_ID_LENGTH,
+        event.merchantId());
+    buffer.putInt(offset + CHECKSUMMED_BYTES, checksum(buffer, offset));
+  }
+
+  /**
+   * Reads the record at {@code offset}.
+   *
+   * @param canonicalCurrency maps decoded currency codes to shared instances
+   * @return the event, or null if the slot is unwritten or fails its checksum
+   */
+  public static PaymentEvent decode(ByteBuffer buffer, int offset, long sequence,
+      UnaryOperator<String> canonicalCurrency) {
+    byte type = buffer.get(offset + 54);
+    if (type == EMPTY || buffer.getInt(offset + CHECKSUMMED_BYTES) != checksum(buffer, offset)) {
+      return null;
+    }
+    byte outcome = buffer.get(offset + 55);
+    String currency = null;
+    if (buffer.get(offset + 56) != 0) {
+      byte[] letters = new byte[3];
+      buffer.get(offset + 56, letters);
+      currency = canonicalCurrency.apply(new String(letters, StandardCharsets.US_ASCII));
+    }
+    return new PaymentEvent(
+        sequence,
+        buffer.getLong(offset),
+        buffer.getLong(offset + 8),
+        type == SNAPSHOT_ENTRY ? null : TYPES[type - 1],
+        new UUID(buffer.getLong(offset + 16), buffer.getLong(offset + 24)),
+        outcome == 0 ? null : STATUSES[outcome - 1],
+        buffer.getLong(offset + 32),
+        buffer.getShort(offset + 52),
+        buffer.getInt(offset + 48),
+        buffer.getInt(offset + 44),
+        currency,
+        buffer.getInt(offset + 40),
+        getText(buffer, offset + 59, offset + REFERENCE_OFFSET),
+        getText(buffer, offset + 110, offset + MERCHANT_ID_OFFSET));
+  }
+
+  /**
+   * Whether the slot at {@code offset} has been written, checksum aside.
+   */
+  public static boolean isWritten(ByteBuffer buffer, int offset) {
+    return buffer.get(offset + 54) != EMPTY;
+  }
+
+  /**
+   * Whether {@code text} can be stored in a field of {@code maxLength}: printable ASCII that fits.
+   */
+  public static boolean isStorable(String text, int maxLength) {
+    return text.length() <= maxLength && text.chars().allMatch(c -> c >= 0x20 && c < 0x7F);
+  }
+
+  /**
+   * Writes the length of {@code text} at {@code lengthAt} and its characters, zero-padded to
+   * {@code maxLength}, from {@code textAt}. Text that cannot be stored is written as null.
+   */
+  private static void putText(ByteBuffer buffer, int lengthAt, int textAt, int maxLength,
+      String text) {
+    int length = text != null && isStorable(text, maxLength) ? text.length() : 0;
+    buffer.put(lengthAt, (byte) length);
+    for (int i = 0; i < maxLength; i++) {
+      buffer.put(textAt + i, i < length ? (byte) text.charAt(i) : 0);
+    }
+  }
+
+  private static String getText(ByteBuffer buffer, int lengthAt, int textAt) {
+    int length = buffer.get(lengthAt);
+    if (length <= 0) {
+      return null;
+    }
+    byte[] characters = new byte[length];
+    buffer.get(textAt, characters);
+    return new String(characters, StandardCharsets.US_ASCII);
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset) {
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.slice(offset, CHECKSUMMED_BYTES));
+    return (int) crc.getValue();
+  }
+}
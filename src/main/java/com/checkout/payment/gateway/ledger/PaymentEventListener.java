@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.ledger;
+
+/**
+ * Notified of every event after it has been appended to the log. Called on the thread that
+ * recorded the event, so implementations must not block.
+ */
+@FunctionalInterface
+public interface PaymentEventListener {
+
+  void onEvent(PaymentEvent event);
+}
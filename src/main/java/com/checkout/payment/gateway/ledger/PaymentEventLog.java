@@ -0,0 +1,53 @@
+package com.checkout.payment.gateway.ledger;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of payment events, the source of truth for payment state. Events are
+ * addressed by their sequence number, which is assigned on append and never reused.
+ */
+public interface PaymentEventLog extends Closeable {
+
+  /**
+   * Appends an event, ignoring its sequence, and returns the sequence it was stored at.
+   */
+  long append(PaymentEvent event);
+
+  /**
+   * Reads the event at a sequence previously returned by {@link #append}, or null if the slot
+   * was never completely written.
+   */
+  PaymentEvent read(long sequence);
+
+  /**
+   * Passes every readable event from {@code fromSequence} onwards to {@code consumer}, in order.
+   *
+   * @return the number of events replayed
+   */
+  long replay(long fromSequence, Consumer<PaymentEvent> consumer);
+
+  /**
+   * Sequence the next append will get; every lower sequence has been appended.
+   */
+  long nextSequence();
+
+  /**
+   * Lowest sequence still stored; lower ones were dropped by {@link #truncateBefore}.
+   */
+  long firstSequence();
+
+  /**
+   * Drops stored events below {@code sequence}, possibly keeping some of them when storage is
+   * only released in larger units. Dropped events read as null.
+   */
+  void truncateBefore(long sequence);
+
+  /**
+   * Makes every appended event durable. A no-op for logs without backing storage.
+   */
+  void force();
+
+  @Override
+  void close();
+}
@@ -0,0 +1,377 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Records payment events in the {@link PaymentEventLog} and projects them into the
+ * {@link PaymentsRepository} read model.
+ *
+ * <p>
+ * Each payment's events are chained through a back pointer to its previous event, so its full
+ * history can be read without an index. Appends for the same payment are ordered by
+ * {@link ConcurrentHashMap#compute} on the payment's last sequence; appends for different
+ * payments only share the log's short append lock.
+ *
+ * <p>
+ * With a {@link PaymentSnapshotStore}, the projection is written out every
+ * {@code snapshotInterval} events on a background thread and on shutdown. Startup then loads the
+ * latest snapshot and replays only the events after it. Every event carries absolute state, and
+ * replay only ever moves a payment forward ({@link PostPaymentResponse#advanceState}), so
+ * snapshots can be taken while appends continue.
+ *
+ * <p>
+ * With a {@link PaymentArchive}, {@link #archiveCreatedBefore} moves old payments out of the read
+ * model and drops the log segments only they used. Archived payments are read-only: recording
+ * another event for one fails as if it did not exist.
+ */
+public class PaymentLedger implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentLedger.class);
+
+  private final PaymentEventLog log;
+  private final PaymentSnapshotStore snapshots;
+  private final PaymentArchive archive;
+  private final PaymentsRepository repository;
+  private final long snapshotInterval;
+  private final ConcurrentHashMap<UUID, Long> lastSequences = new ConcurrentHashMap<>();
+  // Shared by appends; taken exclusively only to read a sequence every projected event is below
+  private final ReadWriteLock snapshotBarrier = new ReentrantReadWriteLock();
+  private final ReentrantLock snapshotLock = new ReentrantLock();
+  private final ExecutorService snapshotExecutor;
+  private final List<PaymentEventListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param snapshots where to keep snapshots, or null to always replay the whole log
+   * @param snapshotInterval events between snapshots
+   */
+  public PaymentLedger(PaymentEventLog log, PaymentSnapshotStore snapshots,
+      PaymentsRepository repository, long snapshotInterval) {
+    this(log, snapshots, null, repository, snapshotInterval);
+  }
+
+  /**
+   * @param archive where to move old payments, or null to keep every payment live
+   */
+  public PaymentLedger(PaymentEventLog log, PaymentSnapshotStore snapshots, PaymentArchive archive,
+      PaymentsRepository repository, long snapshotInterval) {
+    this.log = log;
+    this.snapshots = snapshots;
+    this.archive = archive;
+    this.repository = repository;
+    this.snapshotInterval = snapshotInterval;
+    this.snapshotExecutor = snapshots == null ? null : Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "payment-ledger-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Appends an event describing the payment's current state and updates the read model.
+   * The payment becomes visible in the repository once it has an authorization outcome.
+   *
+   * @throws EventProcessingException if the payment has been archived
+   */
+  public void record(PaymentEventType type, PostPaymentResponse payment) {
+    PaymentEvent[] recorded = new PaymentEvent[1];
+    long sequence;
+    snapshotBarrier.readLock().lock();
+    try {
+      sequence = lastSequences.compute(payment.getId(), (id, previous) -> {
+        if (previous == null && archive != null && type != PaymentEventType.CREATED) {
+          throw new EventProcessingException("Payment has been archived");
+        }
+        // Read the state while holding the payment's place in the log, so that of two concurrent
+        // changes the later state is also the later event
+        recorded[0] = PaymentEvent.of(type, payment);
+        return log.append(recorded[0].withPosition(PaymentEvent.NONE,
+            previous == null ? PaymentEvent.NONE : previous));
+      });
+      if (payment.authorizationOutcome() != null) {
+        // Adds the payment, or reindexes it under its new status
+        repository.add(payment);
+      }
+    } finally {
+      snapshotBarrier.readLock().unlock();
+    }
+    if (snapshots != null && (sequence + 1) % snapshotInterval == 0) {
+      snapshotExecutor.execute(this::snapshotQuietly);
+    }
+    if (!listeners.isEmpty()) {
+      PaymentEvent appended = recorded[0].withPosition(sequence, PaymentEvent.NONE);
+      for (PaymentEventListener listener : listeners) {
+        listener.onEvent(appended);
+      }
+    }
+  }
+
+  /**
+   * Registers a listener for events recorded from now on. Events replayed by {@link #restore()}
+   * are not passed to listeners.
+   */
+  public void addListener(PaymentEventListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Returns every event recorded for a payment, oldest first.
+   */
+  public List<PaymentEvent> history(UUID paymentId) {
+    List<PaymentEvent> events = new ArrayList<>();
+    Long sequence = lastSequences.get(paymentId);
+    long next = sequence == null ? PaymentEvent.NONE : sequence;
+    while (next != PaymentEvent.NONE) {
+      PaymentEvent event = log.read(next);
+      if (event == null) {
+        break;
+      }
+      events.add(event);
+      next = event.previousSequence();
+    }
+    Collections.reverse(events);
+    return events;
+  }
+
+  /**
+   * Looks up a payment that has been moved to the archive.
+   */
+  public Optional<PostPaymentResponse> findArchived(UUID paymentId) {
+    return archive == null ? Optional.empty() : archive.find(paymentId);
+  }
+
+  /**
+   * Moves the payments created before {@code cutoffMillis} to the archive, in files of at most
+   * {@code filePayments}, then releases what only they used: their log segments and their
+   * storage in the repository. A payment that changes while it is being archived stays live
+   * until the next call. Request threads only ever wait for one payment's removal.
+   *
+   * <p>
+   * Events are in time order, so the log is read from its first stored event up to the first
+   * one at or after the cutoff. Each payment's first event names it; payments that never got an
+   * outcome are simply forgotten. With snapshots, one is written before any segment is dropped,
+   * so a restart never needs the dropped events.
+   *
+   * @return the number of payments archived
+   */
+  public long archiveCreatedBefore(long cutoffMillis, int filePayments) throws IOException {
+    if (archive == null) {
+      throw new IllegalStateException("Payment archive is not configured");
+    }
+    long archived = 0;
+    // First event of the oldest payment kept live, whose segment must stay
+    long retainFrom = Long.MAX_VALUE;
+    List<PaymentEvent> batch = new ArrayList<>();
+    long end = log.nextSequence();
+    long sequence = log.firstSequence();
+    for (; sequence < end; sequence++) {
+      PaymentEvent event = log.read(sequence);
+      if (event == null || event.previousSequence() != PaymentEvent.NONE) {
+        continue;
+      }
+      if (event.timestampMillis() >= cutoffMillis) {
+        break;
+      }
+      PostPaymentResponse payment =
+          repository.get(event.merchantId(), event.paymentId()).orElse(null);
+      if (payment == null) {
+        forgetIfIdle(event.paymentId(), cutoffMillis);
+        continue;
+      }
+      batch.add(archiveEntry(event, payment));
+      if (batch.size() == filePayments) {
+        retainFrom = Math.min(retainFrom, moveToArchive(batch));
+        archived += batch.size();
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      retainFrom = Math.min(retainFrom, moveToArchive(batch));
+      archived += batch.size();
+    }
+    if (archived > 0) {
+      if (snapshots != null) {
+        snapshotLock.lock();
+        try {
+          writeSnapshot();
+        } finally {
+          snapshotLock.unlock();
+        }
+      }
+      log.truncateBefore(Math.min(sequence, retainFrom));
+      repository.compact();
+    }
+    return archived;
+  }
+
+  /**
+   * Rebuilds the read model from the latest snapshot and the events appended after it.
+   */
+  public void restore() throws IOException {
+    long started = System.nanoTime();
+    long fromSequence = snapshots == null
+        ? 0 : snapshots.readLatest(this::applySnapshotEntry).orElse(0L);
+    long replayed = log.replay(fromSequence, this::apply);
+    LOG.info("Payment ledger restored {} {} {} {}",
+        kv("snapshotSequence", fromSequence),
+        kv("replayedEvents", replayed),
+        kv("payments", repository.size()),
+        kv("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+  }
+
+  /**
+   * Writes a snapshot of the read model now. Concurrent calls are skipped.
+   */
+  public void snapshot() throws IOException {
+    if (snapshots == null || !snapshotLock.tryLock()) {
+      return;
+    }
+    try {
+      writeSnapshot();
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  /**
+   * Stops background snapshots and writes a final one, so the next start replays nothing.
+   */
+  @Override
+  public void close() {
+    if (snapshotExecutor == null) {
+      return;
+    }
+    snapshotExecutor.shutdown();
+    try {
+      snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    snapshotQuietly();
+  }
+
+  /**
+   * Writes a snapshot; the caller holds {@code snapshotLock}.
+   */
+  private void writeSnapshot() throws IOException {
+    long coveredSequence;
+    snapshotBarrier.writeLock().lock();
+    try {
+      coveredSequence = log.nextSequence();
+    } finally {
+      snapshotBarrier.writeLock().unlock();
+    }
+    log.force();
+    snapshots.write(coveredSequence, () -> repository.findAll().stream()
+        .map(payment -> PaymentEvent.of(null, payment).withPosition(PaymentEvent.NONE,
+            lastSequences.getOrDefault(payment.getId(), PaymentEvent.NONE)))
+        .iterator());
+    LOG.info("Payment ledger snapshot written {}", kv("snapshotSequence", coveredSequence));
+  }
+
+  /**
+   * Writes the batch to the archive, then removes each payment from the read model unless it
+   * changed meanwhile. Leaves only the removed payments in {@code batch}.
+   *
+   * @return the sequence of the first event of the earliest payment left live, or
+   *     {@link Long#MAX_VALUE}
+   */
+  private long moveToArchive(List<PaymentEvent> batch) throws IOException {
+    archive.write(batch);
+    long firstKeptLive = Long.MAX_VALUE;
+    for (Iterator<PaymentEvent> entries = batch.iterator(); entries.hasNext(); ) {
+      PaymentEvent entry = entries.next();
+      boolean[] removed = new boolean[1];
+      // Serialized with record(), so an event is either in the archived state or refused
+      lastSequences.compute(entry.paymentId(), (id, last) -> {
+        PostPaymentResponse current = repository.get(entry.merchantId(), id).orElse(null);
+        if (current != null && current.stateWord() != entry.stateWord()) {
+          return last;
+        }
+        repository.remove(entry.merchantId(), id);
+        removed[0] = true;
+        return null;
+      });
+      if (!removed[0]) {
+        firstKeptLive = Math.min(firstKeptLive, entry.sequence());
+        entries.remove();
+      }
+    }
+    return firstKeptLive;
+  }
+
+  /**
+   * Forgets a payment with no outcome once its last event is older than the cutoff.
+   */
+  private void forgetIfIdle(UUID paymentId, long cutoffMillis) {
+    lastSequences.computeIfPresent(paymentId, (id, last) -> {
+      PaymentEvent lastEvent = log.read(last);
+      return lastEvent == null || lastEvent.timestampMillis() < cutoffMillis ? null : last;
+    });
+  }
+
+  /**
+   * The payment as it is now, stamped with when it was created and its first event's sequence.
+   */
+  private static PaymentEvent archiveEntry(PaymentEvent created, PostPaymentResponse payment) {
+    return new PaymentEvent(created.sequence(), PaymentEvent.NONE, created.timestampMillis(),
+        null, payment.getId(), payment.authorizationOutcome(), payment.stateWord(),
+        payment.getCardNumberLastFour(), payment.getExpiryMonth(), payment.getExpiryYear(),
+        payment.getCurrency(), payment.getAmount(), payment.getReference(),
+        payment.getMerchantId());
+  }
+
+  private void apply(PaymentEvent event) {
+    lastSequences.merge(event.paymentId(), event.sequence(), Math::max);
+    project(event);
+  }
+
+  private void applySnapshotEntry(PaymentEvent entry) {
+    if (entry.previousSequence() != PaymentEvent.NONE) {
+      lastSequences.merge(entry.paymentId(), entry.previousSequence(), Math::max);
+    }
+    project(entry);
+  }
+
+  private void project(PaymentEvent event) {
+    if (event.outcome() == null) {
+      return;
+    }
+    PostPaymentResponse existing =
+        repository.get(event.merchantId(), event.paymentId()).orElse(null);
+    if (existing == null) {
+      repository.add(event.toPayment());
+    } else if (existing.advanceState(event.stateWord())) {
+      repository.add(existing);
+    }
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Payment ledger snapshot failed {}", kv("error", ex.getMessage()));
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.checkout.payment.gateway.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Writes and reads snapshots of the projected payments, so startup only replays the events
+ * appended after the latest snapshot. A snapshot file holds a header (magic, covered sequence,
+ * entry count) followed by one {@link PaymentEventCodec} record per payment. Files are written
+ * under a temporary name and renamed, so a crash never leaves a partial snapshot behind.
+ */
+public class PaymentSnapshotStore {
+
+  private static final long MAGIC = 0x5047534e41503032L; // "PGSNAP02"
+  private static final int HEADER_SIZE = 24;
+  private static final int BATCH_RECORDS = 1024;
+  private static final String PREFIX = "snapshot-";
+  private static final String SUFFIX = ".bin";
+
+  private final Path directory;
+  private final UnaryOperator<String> canonicalCurrency;
+
+  public PaymentSnapshotStore(Path directory, UnaryOperator<String> canonicalCurrency) {
+    this.directory = directory;
+    this.canonicalCurrency = canonicalCurrency;
+  }
+
+  /**
+   * Writes a snapshot and removes older ones.
+   *
+   * @param coveredSequence every event below this sequence is reflected in {@code entries}
+   */
+  public void write(long coveredSequence, Iterable<PaymentEvent> entries) throws IOException {
+    Files.createDirectories(directory);
+    Path target = directory.resolve(String.format("%s%016d%s", PREFIX, coveredSequence, SUFFIX));
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      channel.position(HEADER_SIZE);
+      ByteBuffer batch = ByteBuffer.allocate(BATCH_RECORDS * PaymentEventCodec.RECORD_SIZE);
+      long count = 0;
+      int inBatch = 0;
+      for (PaymentEvent entry : entries) {
+        PaymentEventCodec.encode(batch, inBatch * PaymentEventCodec.RECORD_SIZE, entry);
+        count++;
+        if (++inBatch == BATCH_RECORDS) {
+          writeFully(channel, batch.limit(inBatch * PaymentEventCodec.RECORD_SIZE).position(0));
+          batch.clear();
+          inBatch = 0;
+        }
+      }
+      writeFully(channel, batch.limit(inBatch * PaymentEventCodec.RECORD_SIZE).position(0));
+      // The count is only known at the end, so the header goes in last
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+          .putLong(MAGIC).putLong(coveredSequence).putLong(count).flip();
+      channel.position(0);
+      writeFully(channel, header);
+      channel.force(true);
+    }
+    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    for (Path old : snapshots()) {
+      if (!old.equals(target)) {
+        Files.deleteIfExists(old);
+      }
+    }
+  }
+
+  /**
+   * Passes every entry of the latest snapshot to {@code consumer}.
+   *
+   * @return the sequence the snapshot covers, or empty if there is none
+   */
+  public Optional<Long> readLatest(Consumer<PaymentEvent> consumer) throws IOException {
+    List<Path> snapshots = snapshots();
+    if (snapshots.isEmpty()) {
+      return Optional.empty();
+    }
+    Path latest = snapshots.get(snapshots.size() - 1);
+    try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header);
+      if (header.getLong(0) != MAGIC) {
+        throw new IOException("Not a payment snapshot: " + latest);
+      }
+      long coveredSequence = header.getLong(8);
+      long remaining = header.getLong(16);
+      ByteBuffer batch = ByteBuffer.allocate(BATCH_RECORDS * PaymentEventCodec.RECORD_SIZE);
+      while (remaining > 0) {
+        int records = (int) Math.min(BATCH_RECORDS, remaining);
+        batch.clear().limit(records * PaymentEventCodec.RECORD_SIZE);
+        readFully(channel, batch);
+        for (int i = 0; i < records; i++) {
+          PaymentEvent entry = PaymentEventCodec.decode(batch, i * PaymentEventCodec.RECORD_SIZE,
+              PaymentEvent.NONE, canonicalCurrency);
+          if (entry == null) {
+            throw new IOException("Corrupt entry in snapshot " + latest);
+          }
+          consumer.accept(entry);
+        }
+        remaining -= records;
+      }
+      return Optional.of(coveredSequence);
+    }
+  }
+
+  private List<Path> snapshots() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> listing = Files.list(directory)) {
+      return listing
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Truncated payment snapshot");
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.checkout.payment.gateway.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * {@link PaymentEventLog} made of fixed-size segments of 128-byte records
+ * ({@link PaymentEventCodec}). Segments are either heap buffers or memory-mapped files named
+ * {@code segment-<first sequence>.log}; with files, the OS page cache absorbs writes and
+ * {@link #force()} flushes them.
+ *
+ * <p>
+ * Appends are serialized by a short lock that only copies 128 bytes. Readers go through the
+ * volatile {@code committed} counter, so any sequence below it is fully written and visible
+ * without locking. On reopening, the end of the log is found by scanning the last segment for
+ * its last written slot.
+ *
+ * <p>
+ * {@link #truncateBefore} drops whole segments, deleting their files; the list keeps a null in
+ * their place so segment indexes never shift under readers. The last segment is always kept, so
+ * a reopened log knows where it ended.
+ */
+public final class SegmentedPaymentEventLog implements PaymentEventLog {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path directory;
+  private final int recordsPerSegment;
+  private final UnaryOperator<String> canonicalCurrency;
+  private final List<ByteBuffer> segments = new CopyOnWriteArrayList<>();
+  private final Object appendLock = new Object();
+  private volatile long committed;
+  private volatile int firstSegment;
+
+  private SegmentedPaymentEventLog(Path directory, int recordsPerSegment,
+      UnaryOperator<String> canonicalCurrency) {
+    if (recordsPerSegment <= 0
+        || (long) recordsPerSegment * PaymentEventCodec.RECORD_SIZE > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid segment size: " + recordsPerSegment);
+    }
+    this.directory = directory;
+    this.recordsPerSegment = recordsPerSegment;
+    this.canonicalCurrency = canonicalCurrency;
+  }
+
+  /**
+   * Creates a log held in heap segments, lost on restart.
+   */
+  public static SegmentedPaymentEventLog inMemory(int recordsPerSegment,
+      UnaryOperator<String> canonicalCurrency) {
+    return new SegmentedPaymentEventLog(null, recordsPerSegment, canonicalCurrency);
+  }
+
+  /**
+   * Opens, or creates, a log stored as memory-mapped segment files in {@code directory}.
+   */
+  public static SegmentedPaymentEventLog open(Path directory, int recordsPerSegment,
+      UnaryOperator<String> canonicalCurrency) throws IOException {
+    SegmentedPaymentEventLog log =
+        new SegmentedPaymentEventLog(directory, recordsPerSegment, canonicalCurrency);
+    Files.createDirectories(directory);
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files = listing
+          .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .sorted()
+          .toList();
+    }
+    // Segments before the first file were truncated
+    int first = files.isEmpty() ? 0 : log.segmentIndex(files.get(0));
+    for (int i = 0; i < first; i++) {
+      log.segments.add(null);
+    }
+    for (int i = first; i < first + files.size(); i++) {
+      if (!files.get(i - first).equals(log.segmentPath(i))) {
+        throw new IOException("Missing or misnamed log segment, expected " + log.segmentPath(i));
+      }
+      log.segments.add(log.mapSegment(i));
+    }
+    log.firstSegment = first;
+    log.committed = log.findEnd();
+    return log;
+  }
+
+  @Override
+  public long append(PaymentEvent event) {
+    synchronized (appendLock) {
+      long sequence = committed;
+      int segment = (int) (sequence / recordsPerSegment);
+      if (segment == segments.size()) {
+        segments.add(newSegment(segment));
+      }
+      PaymentEventCodec.encode(segments.get(segment), offsetOf(sequence), event);
+      committed = sequence + 1;
+      return sequence;
+    }
+  }
+
+  @Override
+  public PaymentEvent read(long sequence) {
+    if (sequence < 0 || sequence >= committed) {
+      return null;
+    }
+    ByteBuffer segment = segments.get((int) (sequence / recordsPerSegment));
+    if (segment == null) {
+      return null;
+    }
+    return PaymentEventCodec.decode(segment, offsetOf(sequence), sequence, canonicalCurrency);
+  }
+
+  @Override
+  public long replay(long fromSequence, Consumer<PaymentEvent> consumer) {
+    long end = committed;
+    long replayed = 0;
+    for (long sequence = Math.max(firstSequence(), fromSequence); sequence < end; sequence++) {
+      PaymentEvent event = read(sequence);
+      if (event != null) {
+        consumer.accept(event);
+        replayed++;
+      }
+    }
+    return replayed;
+  }
+
+  @Override
+  public long nextSequence() {
+    return committed;
+  }
+
+  @Override
+  public long firstSequence() {
+    return (long) firstSegment * recordsPerSegment;
+  }
+
+  /**
+   * Drops the segments that only hold events below {@code sequence}, except the last one.
+   * Readers holding a dropped segment can finish with it: a deleted file stays mapped until the
+   * buffer is collected.
+   */
+  @Override
+  public synchronized void truncateBefore(long sequence) {
+    int first = firstSegment;
+    int end = (int) Math.min(sequence / recordsPerSegment, segments.size() - 1L);
+    for (int index = first; index < end; index++) {
+      segments.set(index, null);
+      firstSegment = index + 1;
+      if (directory != null) {
+        try {
+          Files.deleteIfExists(segmentPath(index));
+        } catch (IOException ex) {
+          throw new UncheckedIOException("Cannot delete log segment " + segmentPath(index), ex);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void force() {
+    for (ByteBuffer segment : segments) {
+      if (segment instanceof MappedByteBuffer) {
+        ((MappedByteBuffer) segment).force();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    force();
+  }
+
+  private int offsetOf(long sequence) {
+    return (int) (sequence % recordsPerSegment) * PaymentEventCodec.RECORD_SIZE;
+  }
+
+  private ByteBuffer newSegment(int index) {
+    if (directory == null) {
+      return ByteBuffer.allocate(recordsPerSegment * PaymentEventCodec.RECORD_SIZE);
+    }
+    try {
+      return mapSegment(index);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot create log segment " + segmentPath(index), ex);
+    }
+  }
+
+  private MappedByteBuffer mapSegment(int index) throws IOException {
+    try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          (long) recordsPerSegment * PaymentEventCodec.RECORD_SIZE);
+    }
+  }
+
+  private int segmentIndex(Path file) throws IOException {
+    String name = file.getFileName().toString();
+    try {
+      long firstSequence = Long.parseLong(
+          name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+      if (firstSequence % recordsPerSegment == 0) {
+        return (int) (firstSequence / recordsPerSegment);
+      }
+    } catch (RuntimeException ex) {
+      // Reported below
+    }
+    throw new IOException("Misnamed log segment " + file);
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX,
+        (long) index * recordsPerSegment, SEGMENT_SUFFIX));
+  }
+
+  private long findEnd() {
+    if (segments.isEmpty()) {
+      return 0;
+    }
+    int last = segments.size() - 1;
+    ByteBuffer segment = segments.get(last);
+    for (int slot = recordsPerSegment - 1; slot >= 0; slot--) {
+      if (PaymentEventCodec.isWritten(segment, slot * PaymentEventCodec.RECORD_SIZE)) {
+        return (long) last * recordsPerSegment + slot + 1;
+      }
+    }
+    return (long) last * recordsPerSegment;
+  }
+}
@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.logging;
+
+/**
+ * Masks primary account numbers before they reach a log event or a {@code toString()}.
+ * Only the last 4 digits are kept, in line with PCI-DSS display rules.
+ */
+public final class CardDataMasker {
+
+  private static final int VISIBLE_DIGITS = 4;
+
+  private CardDataMasker() {
+  }
+
+  /**
+   * Returns the card number with every character except the last 4 replaced by {@code *}.
+   * Values of 4 characters or fewer are fully masked, since they may be a truncated PAN.
+   *
+   * @param cardNumber the raw card number, may be null
+   * @return the masked value, or null if the input was null
+   */
+  public static String maskPan(CharSequence cardNumber) {
+    if (cardNumber == null) {
+      return null;
+    }
+    int length = cardNumber.length();
+    char[] masked = new char[length];
+    int firstVisible = length > VISIBLE_DIGITS ? length - VISIBLE_DIGITS : length;
+    for (int i = 0; i < length; i++) {
+      masked[i] = i < firstVisible ? '*' : cardNumber.charAt(i);
+    }
+    return new String(masked);
+  }
+
+  /**
+   * Returns a fixed placeholder for security codes, which must never be logged in any form.
+   */
+  public static String maskCvv(CharSequence cvv) {
+    return cvv == null ? null : "***";
+  }
+}
@@ -0,0 +1,66 @@
+package com.checkout.payment.gateway.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.UUID;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Tags every log event written while handling a request with a correlation ID.
+ * The ID is taken from the {@code X-Correlation-Id} request header when it is well formed,
+ * generated otherwise, and echoed back on the response so merchants can quote it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-Correlation-Id";
+  public static final String MDC_KEY = "correlationId";
+  private static final int MAX_LENGTH = 64;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String correlationId = resolve(request.getHeader(HEADER));
+    response.setHeader(HEADER, correlationId);
+    MDC.put(MDC_KEY, correlationId);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      MDC.remove(MDC_KEY);
+    }
+  }
+
+  /**
+   * Returns the caller's correlation ID if it is well formed, or a new one.
+   */
+  public static String resolve(String header) {
+    return isWellFormed(header) ? header : UUID.randomUUID().toString();
+  }
+
+  /**
+   * Accepts only short IDs made of letters, digits, '-', '_' and '.', so a caller cannot inject
+   * arbitrary content (or card data) into every log line.
+   */
+  private static boolean isWellFormed(String value) {
+    if (value == null || value.isEmpty() || value.length() > MAX_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.';
+      if (!allowed) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Body of {@code GET /admin/reports/authorization-rate}: how payments that got an outcome from
+ * {@code from} to {@code to} (inclusive, UTC) ended up. Rejected payments never reached the bank,
+ * so the rate is {@code authorized / (authorized + declined)}, or 0 without either.
+ *
+ * @param currency the currency counted, or null for all
+ */
+public record AuthorizationRate(String from, String to,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String currency, long authorized, long declined,
+    long rejected, double rate) {
+}
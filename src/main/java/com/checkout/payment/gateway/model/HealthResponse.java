@@ -0,0 +1,10 @@
+package com.checkout.payment.gateway.model;
+
+/**
+ * Body of the health probes: {@code {"status":"UP"}} or {@code {"status":"DOWN"}}.
+ */
+public record HealthResponse(String status) {
+
+  public static final HealthResponse UP = new HealthResponse("UP");
+  public static final HealthResponse DOWN = new HealthResponse("DOWN");
+}
@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of {@code GET /admin/latency}: latency percentiles per payment stage and per resulting
+ * status over the last {@code window}, and how fast payments are using up the latency SLO.
+ *
+ * @param window ISO-8601 duration the percentiles cover
+ * @param stages percentiles of each stage, by stage name
+ * @param statuses percentiles of whole payments, by the status they ended with
+ */
+public record LatencyReport(String window, Map<String, Percentiles> stages,
+    Map<String, Percentiles> statuses, Slo slo) {
+
+  /**
+   * Latency percentiles in microseconds, accurate to 1%.
+   */
+  public record Percentiles(long count, long p50Micros, long p99Micros, long p999Micros,
+      long maxMicros) {
+  }
+
+  /**
+   * Payments within and over the SLO threshold since startup, and burn rates over recent windows.
+   *
+   * @param threshold ISO-8601 duration over which a payment is slow
+   * @param objective share of payments that must be within the threshold
+   */
+  public record Slo(String threshold, double objective, long payments, long slowPayments,
+      List<BurnRate> burnRates) {
+  }
+
+  /**
+   * Share of slow payments over a window divided by the error budget, {@code 1 - objective}. At
+   * 1 the budget lasts exactly as long as the SLO period.
+   */
+  public record BurnRate(String window, long payments, long slowPayments, double burnRate) {
+  }
+}
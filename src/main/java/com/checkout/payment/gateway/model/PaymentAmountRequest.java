@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.model;
+
+/**
+ * Optional body for capture and refund requests. When the amount is omitted the whole remaining
+ * amount is captured or refunded.
+ */
+public class PaymentAmountRequest {
+
+  private Integer amount;
+
+  public PaymentAmountRequest(Integer amount) {
+    this.amount = amount;
+  }
+
+  public PaymentAmountRequest() {}
+
+  public Integer getAmount() {
+    return amount;
+  }
+
+  public void setAmount(Integer amount) {
+    this.amount = amount;
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentAmountRequest{" +
+        "amount=" + amount +
+        '}';
+  }
+}
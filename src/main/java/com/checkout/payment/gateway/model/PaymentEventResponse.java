@@ -0,0 +1,64 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.time.Instant;
+
+/**
+ * One entry of a payment's history, as returned by {@code GET /payments/{id}/events}.
+ * The status is absent for events recorded before the payment had an outcome.
+ */
+public class PaymentEventResponse {
+  private final long sequence;
+  private final PaymentEventType type;
+  private final PaymentStatus status;
+  private final int capturedAmount;
+  private final int refundedAmount;
+  private final Instant timestamp;
+
+  public PaymentEventResponse(long sequence, PaymentEventType type, PaymentStatus status,
+      int capturedAmount, int refundedAmount, Instant timestamp) {
+    this.sequence = sequence;
+    this.type = type;
+    this.status = status;
+    this.capturedAmount = capturedAmount;
+    this.refundedAmount = refundedAmount;
+    this.timestamp = timestamp;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public PaymentEventType getType() {
+    return type;
+  }
+
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  public int getCapturedAmount() {
+    return capturedAmount;
+  }
+
+  public int getRefundedAmount() {
+    return refundedAmount;
+  }
+
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentEventResponse{" +
+        "sequence=" + sequence +
+        ", type=" + type +
+        ", status=" + status +
+        ", capturedAmount=" + capturedAmount +
+        ", refundedAmount=" + refundedAmount +
+        ", timestamp=" + timestamp +
+        '}';
+  }
+}
@@ -0,0 +1,82 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Status change pushed to the merchant's webhook URL. Webhook requests carry a JSON array of
+ * these, oldest first; {@code id} increases with every event, so receivers can drop duplicates
+ * left by a retried delivery.
+ */
+public class PaymentNotification {
+  private final long id;
+  private final UUID paymentId;
+  private final PaymentEventType type;
+  private final PaymentStatus status;
+  private final int amount;
+  private final String currency;
+  private final int capturedAmount;
+  private final int refundedAmount;
+  private final Instant timestamp;
+
+  public PaymentNotification(long id, PostPaymentResponse payment, PaymentEventType type,
+      Instant timestamp) {
+    this.id = id;
+    this.paymentId = payment.getId();
+    this.type = type;
+    this.status = payment.getStatus();
+    this.amount = payment.getAmount();
+    this.currency = payment.getCurrency();
+    this.capturedAmount = payment.getCapturedAmount();
+    this.refundedAmount = payment.getRefundedAmount();
+    this.timestamp = timestamp;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public UUID getPaymentId() {
+    return paymentId;
+  }
+
+  public PaymentEventType getType() {
+    return type;
+  }
+
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  public int getAmount() {
+    return amount;
+  }
+
+  public String getCurrency() {
+    return currency;
+  }
+
+  public int getCapturedAmount() {
+    return capturedAmount;
+  }
+
+  public int getRefundedAmount() {
+    return refundedAmount;
+  }
+
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "PaymentNotification{" +
+        "id=" + id +
+        ", paymentId=" + paymentId +
+        ", type=" + type +
+        ", status=" + status +
+        '}';
+  }
+}
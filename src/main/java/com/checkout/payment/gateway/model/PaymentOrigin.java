@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.model;
+
+/**
+ * Where a payment request came from, used by velocity screening and to decide which merchant the
+ * payment belongs to.
+ *
+ * @param merchantId the calling merchant, or null if not known
+ * @param clientIp the client address, or null if not known
+ * @param authenticated whether the merchant ID was authenticated rather than just claimed
+ */
+public record PaymentOrigin(String merchantId, String clientIp, boolean authenticated) {
+
+  public static final PaymentOrigin UNKNOWN = new PaymentOrigin(null, null);
+
+  /**
+   * An origin whose merchant ID is only claimed by the request.
+   */
+  public PaymentOrigin(String merchantId, String clientIp) {
+    this(merchantId, clientIp, false);
+  }
+
+  /**
+   * The merchant the payment belongs to: the caller if it was authenticated, otherwise none.
+   */
+  public String owner() {
+    return authenticated ? merchantId : null;
+  }
+}
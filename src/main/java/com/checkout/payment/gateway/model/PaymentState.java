@@ -0,0 +1,188 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentStateException;
+
+/**
+ * Encoding and transition rules for the payment lifecycle state word held by
+ * {@link PostPaymentResponse}.
+ *
+ * <p>
+ * The whole lifecycle state fits in one {@code long} so a transition is a single compare-and-set:
+ * </p>
+ * <pre>
+ *   bits 62-63  phase     OPEN (authorized), VOIDED, CLOSED (declined/rejected) or UNSET
+ *   bits 31-61  refunded  total refunded, in minor units
+ *   bits  0-30  captured  total captured, in minor units
+ * </pre>
+ *
+ * <p>
+ * Rules: an authorized payment can be captured in one or more parts up to the authorized amount,
+ * or voided while nothing has been captured. Captured funds can be refunded in one or more parts
+ * up to the captured amount; once a refund has been made no further captures are accepted.
+ * The status is derived from the phase and the two totals.
+ * </p>
+ */
+final class PaymentState {
+
+  static final long OPEN = 0L;
+  static final long VOIDED = 1L;
+  static final long CLOSED = 2L;
+  static final long UNSET = 3L;
+
+  /** Pass as the requested amount to capture or refund everything that is left. */
+  static final int REMAINING = 0;
+
+  static final long UNSET_WORD = UNSET << 62;
+
+  private static final int AMOUNT_BITS = 31;
+  private static final long AMOUNT_MASK = (1L << AMOUNT_BITS) - 1;
+
+  private PaymentState() {
+  }
+
+  static long of(long phase, int captured, int refunded) {
+    return (phase << 62) | ((long) refunded << AMOUNT_BITS) | captured;
+  }
+
+  static long phase(long word) {
+    return word >>> 62;
+  }
+
+  static int captured(long word) {
+    return (int) (word & AMOUNT_MASK);
+  }
+
+  static int refunded(long word) {
+    return (int) ((word >>> AMOUNT_BITS) & AMOUNT_MASK);
+  }
+
+  /**
+   * Initial word for a payment created with the given outcome.
+   */
+  static long initial(PaymentStatus outcome) {
+    switch (outcome) {
+      case AUTHORIZED:
+        return of(OPEN, 0, 0);
+      case DECLINED:
+      case REJECTED:
+        return of(CLOSED, 0, 0);
+      default:
+        throw new IllegalArgumentException("Payments cannot be created as " + outcome.getName());
+    }
+  }
+
+  static PaymentStatus status(long word, PaymentStatus outcome, int authorizedAmount) {
+    long phase = phase(word);
+    if (phase == UNSET) {
+      return null;
+    }
+    if (phase == CLOSED) {
+      return outcome;
+    }
+    if (phase == VOIDED) {
+      return PaymentStatus.VOIDED;
+    }
+    int captured = captured(word);
+    int refunded = refunded(word);
+    if (refunded > 0) {
+      return refunded == captured ? PaymentStatus.REFUNDED : PaymentStatus.PARTIALLY_REFUNDED;
+    }
+    if (captured > 0) {
+      return captured == authorizedAmount
+          ? PaymentStatus.CAPTURED : PaymentStatus.PARTIALLY_CAPTURED;
+    }
+    return PaymentStatus.AUTHORIZED;
+  }
+
+  /**
+   * Returns the word after capturing {@code requested} (or everything left for
+   * {@link #REMAINING}).
+   *
+   * @throws PaymentStateException if the payment cannot be captured or the amount is too large
+   */
+  static long capture(long word, int requested, PaymentStatus outcome, int authorizedAmount) {
+    requireOpen(word, outcome, authorizedAmount, "captured");
+    int captured = captured(word);
+    if (refunded(word) > 0) {
+      throw new PaymentStateException("Payment cannot be captured after a refund");
+    }
+    int remaining = authorizedAmount - captured;
+    int amount = requested == REMAINING ? remaining : requested;
+    if (remaining == 0) {
+      throw new PaymentStateException("Payment is already fully captured");
+    }
+    if (amount > remaining) {
+      throw new PaymentStateException("Capture exceeds the remaining authorized amount");
+    }
+    return of(OPEN, captured + amount, 0);
+  }
+
+  /**
+   * @throws PaymentStateException if the payment is not authorized or has captures
+   */
+  static long voidAuthorization(long word, PaymentStatus outcome, int authorizedAmount) {
+    requireOpen(word, outcome, authorizedAmount, "voided");
+    if (captured(word) > 0) {
+      throw new PaymentStateException("Payment cannot be voided after a capture");
+    }
+    return of(VOIDED, 0, 0);
+  }
+
+  /**
+   * Returns the word after refunding {@code requested} (or everything left for
+   * {@link #REMAINING}).
+   *
+   * @throws PaymentStateException if nothing was captured or the amount is too large
+   */
+  static long refund(long word, int requested, PaymentStatus outcome, int authorizedAmount) {
+    requireOpen(word, outcome, authorizedAmount, "refunded");
+    int captured = captured(word);
+    int refunded = refunded(word);
+    if (captured == 0) {
+      throw new PaymentStateException("Payment cannot be refunded before it is captured");
+    }
+    int remaining = captured - refunded;
+    int amount = requested == REMAINING ? remaining : requested;
+    if (remaining == 0) {
+      throw new PaymentStateException("Payment is already fully refunded");
+    }
+    if (amount > remaining) {
+      throw new PaymentStateException("Refund exceeds the remaining captured amount");
+    }
+    return of(OPEN, captured, refunded + amount);
+  }
+
+  /**
+   * Whether {@code candidate} is a later state of the same payment than {@code current}. Every
+   * transition strictly increases the captured plus refunded total or ends the payment, so
+   * states of one payment are totally ordered and replaying events in any order converges.
+   */
+  static boolean isAfter(long candidate, long current) {
+    long currentPhase = phase(current);
+    long candidatePhase = phase(candidate);
+    if (currentPhase == UNSET) {
+      return candidatePhase != UNSET;
+    }
+    if (currentPhase != OPEN) {
+      return false;
+    }
+    if (candidatePhase == VOIDED) {
+      return captured(current) == 0;
+    }
+    if (candidatePhase != OPEN) {
+      return false;
+    }
+    return (long) captured(candidate) + refunded(candidate)
+        > (long) captured(current) + refunded(current);
+  }
+
+  private static void requireOpen(long word, PaymentStatus outcome, int authorizedAmount,
+      String action) {
+    if (phase(word) != OPEN) {
+      PaymentStatus status = status(word, outcome, authorizedAmount);
+      throw new PaymentStateException("Payment cannot be " + action + " when "
+          + (status == null ? "it has no status" : status.getName()));
+    }
+  }
+}
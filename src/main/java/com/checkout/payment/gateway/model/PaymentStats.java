@@ -0,0 +1,33 @@
+package com.checkout.payment.gateway.model;
+
+import java.util.List;
+
+/**
+ * Body of {@code GET /admin/stats}: live figures for payments that got an outcome, over the
+ * last {@code window} of completed seconds and since startup.
+ *
+ * @param window ISO-8601 duration the series and {@code lastWindow} cover
+ * @param paymentsPerSecond payments in each second of the window, oldest first
+ */
+public record PaymentStats(String window, long[] paymentsPerSecond, Figures lastWindow,
+    Figures sinceStart) {
+
+  /**
+   * @param paymentsPerSecond average over the period
+   * @param authorizationRate {@code authorized / (authorized + declined)}, or 0 without either
+   * @param currencies figures by currency, for currencies with payments
+   */
+  public record Figures(long payments, double paymentsPerSecond, double authorizationRate,
+      List<CurrencyFigures> currencies) {
+  }
+
+  /**
+   * Payments in one currency by outcome. Payments in unsupported currencies, which are always
+   * rejected, are counted together under {@code XXX}.
+   *
+   * @param authorizedAmount total authorized, in minor units
+   */
+  public record CurrencyFigures(String currency, long authorized, long declined, long rejected,
+      long authorizedAmount, double authorizationRate) {
+  }
+}
@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.model;
+
+/**
+ * One row of {@code GET /admin/reports/volume}: payments authorized in one currency on one day.
+ *
+ * @param date ISO-8601 day, UTC
+ * @param payments number of payments authorized
+ * @param amount their total amount in minor units
+ */
+public record PaymentVolume(String date, String currency, long payments, long amount) {
+}
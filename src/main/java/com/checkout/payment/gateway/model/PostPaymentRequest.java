@@ -1,5 +1,7 @@
 package com.checkout.payment.gateway.model;
 
+import com.checkout.payment.gateway.logging.CardDataMasker;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 
@@ -19,6 +21,11 @@ public class PostPaymentRequest implements Serializable {
   private String currency;
   private int amount;
   private String cvv;
+  private String reference;
+  @JsonIgnore
+  private transient boolean validated;
+  @JsonIgnore
+  private transient String validationFailure;
 
   public PostPaymentRequest(String cardNumber, int expiryMonth, int expiryYear, String currency,
       int amount, String cvv) {
@@ -80,6 +87,38 @@ public class PostPaymentRequest implements Serializable {
     this.cvv = cvv;
   }
 
+  /**
+   * The merchant's own reference for the payment, such as an order number. Optional.
+   */
+  public String getReference() {
+    return reference;
+  }
+
+  public void setReference(String reference) {
+    this.reference = reference;
+  }
+
+  /**
+   * Whether the request was validated while it was read, so {@code PaymentValidator} need not
+   * check it again. Setters do not reset this.
+   */
+  public boolean isValidated() {
+    return validated;
+  }
+
+  /**
+   * Why the request was found invalid while it was read, or null if it is valid. Reading stops at
+   * the first invalid field, so fields after it are left unset.
+   */
+  public String getValidationFailure() {
+    return validationFailure;
+  }
+
+  public void markValidated(String validationFailure) {
+    this.validated = true;
+    this.validationFailure = validationFailure;
+  }
+
   /**
    * Returns formatted expiry date as MM/YYYY.
    */
@@ -91,12 +130,13 @@ public class PostPaymentRequest implements Serializable {
   @Override
   public String toString() {
     return "PostPaymentRequest{" +
-        "cardNumber=" + cardNumber +
+        "cardNumber=" + CardDataMasker.maskPan(cardNumber) +
         ", expiryMonth=" + expiryMonth +
         ", expiryYear=" + expiryYear +
         ", currency='" + currency + '\'' +
         ", amount=" + amount +
-        ", cvv=" + cvv +
+        ", cvv=" + CardDataMasker.maskCvv(cvv) +
+        ", reference='" + reference + '\'' +
         '}';
   }
 }
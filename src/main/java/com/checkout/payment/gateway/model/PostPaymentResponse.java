@@ -1,25 +1,52 @@
 package com.checkout.payment.gateway.model;
 
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentStateException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.UUID;
 
 /**
  * Response returned after processing a payment request.
  * Contains the payment identifier, authorization status, and masked card details.
  * Card numbers are masked to show only the last 4 digits for PCI-DSS compliance.
+ *
+ * <p>
+ * Capture, void and refund update a single state word with compare-and-set (see
+ * {@link PaymentState}), so concurrent lifecycle calls on the same payment never block each
+ * other and exactly one of two conflicting transitions wins.
  */
 public class PostPaymentResponse {
+
+  private static final VarHandle STATE;
+
+  static {
+    try {
+      STATE = MethodHandles.lookup()
+          .findVarHandle(PostPaymentResponse.class, "state", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private UUID id;
-  private PaymentStatus status;
+  private PaymentStatus outcome;
+  private volatile long state = PaymentState.UNSET_WORD;
   private int cardNumberLastFour;
   private int expiryMonth;
   private int expiryYear;
   private String currency;
   private int amount;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String reference;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String merchantId;
 
   public PostPaymentResponse(UUID id, PaymentStatus status, int cardNumberLastFour, int expiryMonth, int expiryYear, String currency, int amount) {
     this.id = id;
-    this.status = status;
+    this.outcome = status;
+    this.state = status == null ? PaymentState.UNSET_WORD : PaymentState.initial(status);
     this.cardNumberLastFour = cardNumberLastFour;
     this.expiryMonth = expiryMonth;
     this.expiryYear = expiryYear;
@@ -39,14 +66,126 @@ public class PostPaymentResponse {
   }
 
   public PaymentStatus getStatus() {
-    return status;
+    return PaymentState.status(state, outcome, amount);
   }
 
+  /**
+   * Sets the outcome of authorization. Later changes go through {@link #capture},
+   * {@link #voidAuthorization} and {@link #refund}.
+   */
   public void setStatus(PaymentStatus status) {
-    if (this.status != null) {
+    if (state != PaymentState.UNSET_WORD) {
       throw new IllegalStateException("Payment status cannot be changed once set");
     }
-    this.status = status;
+    long initial = PaymentState.initial(status);
+    this.outcome = status;
+    if (!STATE.compareAndSet(this, PaymentState.UNSET_WORD, initial)) {
+      throw new IllegalStateException("Payment status cannot be changed once set");
+    }
+  }
+
+  public int getCapturedAmount() {
+    return PaymentState.captured(state);
+  }
+
+  public int getRefundedAmount() {
+    return PaymentState.refunded(state);
+  }
+
+  /**
+   * Captures part of the authorized amount, or all that is left when {@code amount} is 0.
+   *
+   * @return the amount captured by this call
+   * @throws PaymentStateException if the payment is not in a capturable state
+   */
+  public int capture(int amount) {
+    long current;
+    long next;
+    do {
+      current = state;
+      next = PaymentState.capture(current, amount, outcome, this.amount);
+    } while (!STATE.compareAndSet(this, current, next));
+    return PaymentState.captured(next) - PaymentState.captured(current);
+  }
+
+  /**
+   * Releases an authorization that has not been captured.
+   *
+   * @throws PaymentStateException if the payment is not authorized or has been captured
+   */
+  public void voidAuthorization() {
+    long current;
+    long next;
+    do {
+      current = state;
+      next = PaymentState.voidAuthorization(current, outcome, this.amount);
+    } while (!STATE.compareAndSet(this, current, next));
+  }
+
+  /**
+   * Refunds part of the captured amount, or all that is left when {@code amount} is 0.
+   *
+   * @return the amount refunded by this call
+   * @throws PaymentStateException if nothing refundable has been captured
+   */
+  public int refund(int amount) {
+    long current;
+    long next;
+    do {
+      current = state;
+      next = PaymentState.refund(current, amount, outcome, this.amount);
+    } while (!STATE.compareAndSet(this, current, next));
+    return PaymentState.refunded(next) - PaymentState.refunded(current);
+  }
+
+  /**
+   * Outcome of authorization this payment was created with, before any lifecycle change.
+   */
+  public PaymentStatus authorizationOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Raw lifecycle state word, for persisting payments in the event log.
+   */
+  public long stateWord() {
+    return state;
+  }
+
+  /**
+   * Moves to a persisted state word if it is later than the current one. Used when replaying the
+   * event log, where it makes applying the same or an older event a no-op.
+   *
+   * @return true if the state changed
+   */
+  public boolean advanceState(long word) {
+    long current;
+    do {
+      current = state;
+      if (!PaymentState.isAfter(word, current)) {
+        return false;
+      }
+    } while (!STATE.compareAndSet(this, current, word));
+    return true;
+  }
+
+  /**
+   * Returns a copy taken from a single read of the state word, so the status and amounts in a
+   * response are consistent with each other even while other requests change the payment.
+   */
+  public PostPaymentResponse snapshot() {
+    PostPaymentResponse copy = new PostPaymentResponse();
+    copy.id = id;
+    copy.outcome = outcome;
+    copy.state = state;
+    copy.cardNumberLastFour = cardNumberLastFour;
+    copy.expiryMonth = expiryMonth;
+    copy.expiryYear = expiryYear;
+    copy.currency = currency;
+    copy.amount = amount;
+    copy.reference = reference;
+    copy.merchantId = merchantId;
+    return copy;
   }
 
   /**
@@ -93,16 +232,41 @@ public class PostPaymentResponse {
     this.amount = amount;
   }
 
+  /**
+   * The merchant's reference from the payment request, or null if it had none.
+   */
+  public String getReference() {
+    return reference;
+  }
+
+  public void setReference(String reference) {
+    this.reference = reference;
+  }
+
+  /**
+   * The authenticated merchant that made the payment, or null when merchants are not
+   * authenticated.
+   */
+  public String getMerchantId() {
+    return merchantId;
+  }
+
+  public void setMerchantId(String merchantId) {
+    this.merchantId = merchantId;
+  }
+
   @Override
   public String toString() {
     return "GetPaymentResponse{" +
         "id=" + id +
-        ", status=" + status +
+        ", status=" + getStatus() +
         ", cardNumberLastFour=" + cardNumberLastFour +
         ", expiryMonth=" + expiryMonth +
         ", expiryYear=" + expiryYear +
         ", currency='" + currency + '\'' +
         ", amount=" + amount +
+        ", reference='" + reference + '\'' +
+        ", merchantId='" + merchantId + '\'' +
         '}';
   }
 }
@@ -0,0 +1,19 @@
+package com.checkout.payment.gateway.model;
+
+/**
+ * One merchant's figures in {@code GET /admin/tenants}, since startup unless noted.
+ *
+ * @param weight the merchant's share of bank calls when they queue
+ * @param requests payment API requests, admitted or refused
+ * @param activeRequests requests in progress now
+ * @param refusedForConcurrency requests refused with 429 for too many in progress
+ * @param refusedForRate requests refused with 429 for exceeding the request rate
+ * @param payments the merchant's payments in memory now
+ * @param bankCallsQueued the merchant's payments waiting for a bank call slot now
+ * @param bankCallsRejected the merchant's payments rejected for want of a bank call slot
+ * @param latency latency of admitted requests
+ */
+public record TenantReport(String merchantId, int weight, long requests, int activeRequests,
+    long refusedForConcurrency, long refusedForRate, int payments, int bankCallsQueued,
+    long bankCallsRejected, LatencyReport.Percentiles latency) {
+}
@@ -0,0 +1,87 @@
+package com.checkout.payment.gateway.profiling;
+
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * Flight recorder event spanning one call to an acquiring bank. A payment that fails over has
+ * one event per acquirer tried.
+ */
+@Name("com.checkout.payment.gateway.BankCall")
+@Label("Bank Call")
+@Category("Payment Gateway")
+@Description("One request to an acquiring bank")
+@StackTrace(false)
+public class BankCallEvent extends jdk.jfr.Event {
+
+  public static final String AUTHORIZED = "Authorized";
+  public static final String DECLINED = "Declined";
+  public static final String NO_RESPONSE = "No response";
+  public static final String BAD_REQUEST = "Bad request";
+  public static final String UNAVAILABLE = "Unavailable";
+  public static final String UNREACHABLE = "Unreachable";
+  public static final String FAILED = "Failed";
+  public static final String CANCELLED = "Cancelled";
+  public static final String NO_SLOT = "No slot";
+
+  // Set by the payment services while they work on a payment
+  private static final String PAYMENT_ID_MDC_KEY = "paymentId";
+
+  @Label("Payment ID")
+  public String paymentId;
+
+  @Label("Acquirer")
+  @Description("Absent if the call never left the gateway")
+  public String acquirer;
+
+  @Label("Status")
+  @Description("How the bank answered, or why it did not")
+  public String status;
+
+  /**
+   * Starts timing a call for the payment being processed on this thread.
+   */
+  public static BankCallEvent start(String acquirer) {
+    return start(currentPaymentId(), acquirer);
+  }
+
+  public static BankCallEvent start(String paymentId, String acquirer) {
+    BankCallEvent event = new BankCallEvent();
+    if (event.isEnabled()) {
+      event.paymentId = paymentId;
+      event.acquirer = acquirer;
+      event.begin();
+    }
+    return event;
+  }
+
+  /**
+   * The ID of the payment being processed on this thread, or null.
+   */
+  public static String currentPaymentId() {
+    return MDC.get(PAYMENT_ID_MDC_KEY);
+  }
+
+  /**
+   * Ends the call with the given status and records it if it is long enough.
+   */
+  public void finish(String status) {
+    end();
+    if (shouldCommit()) {
+      this.status = status;
+      commit();
+    }
+  }
+
+  /**
+   * Ends the call with the bank's answer, which may have had no body.
+   */
+  public void finish(GetAcquiringBankResponse response) {
+    finish(response == null ? NO_RESPONSE : response.isAuthorized() ? AUTHORIZED : DECLINED);
+  }
+}
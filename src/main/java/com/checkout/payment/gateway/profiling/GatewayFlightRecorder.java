@@ -0,0 +1,114 @@
+package com.checkout.payment.gateway.profiling;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ValidationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Keeps a Java Flight Recorder recording running for the life of the gateway, so the minutes
+ * before a problem can be dumped and looked at in JDK Mission Control instead of reproduced.
+ *
+ * <p>
+ * The recording uses the JDK's {@code default} or {@code profile} event settings, which include
+ * CPU sampling and allocation samples for flame graphs, plus the gateway's own
+ * {@link PaymentProcessedEvent}, {@link PaymentStageEvent} and {@link BankCallEvent}. It is kept
+ * on disk in the JFR repository and trimmed to {@code max-age} and {@code max-size}.
+ */
+@Component
+public class GatewayFlightRecorder implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GatewayFlightRecorder.class);
+  private static final String RECORDING_NAME = "payment-gateway";
+  private static final List<Class<? extends Event>> EVENTS =
+      List.of(PaymentProcessedEvent.class, PaymentStageEvent.class, BankCallEvent.class);
+
+  private final Recording recording;
+  private final Duration maxAge;
+
+  @Autowired
+  public GatewayFlightRecorder(ApplicationConfiguration config) throws IOException,
+      ParseException {
+    this(config.getProfiling());
+  }
+
+  public GatewayFlightRecorder(ApplicationConfiguration.Profiling settings) throws IOException,
+      ParseException {
+    this.maxAge = settings.getMaxAge();
+    if (!settings.isEnabled()) {
+      this.recording = null;
+      return;
+    }
+    recording = new Recording(Configuration.getConfiguration(settings.getSettings()));
+    recording.setName(RECORDING_NAME);
+    recording.setToDisk(true);
+    recording.setMaxAge(settings.getMaxAge());
+    recording.setMaxSize(settings.getMaxSize().toBytes());
+    for (Class<? extends Event> type : EVENTS) {
+      recording.enable(type).withThreshold(settings.getEventThreshold());
+    }
+    recording.start();
+    LOG.info("Flight recording started {} {}", kv("settings", settings.getSettings()),
+        kv("maxAge", settings.getMaxAge()));
+  }
+
+  public boolean isRecording() {
+    return recording != null;
+  }
+
+  /**
+   * Writes what was recorded over the last {@code last} to a temporary file. The file may start
+   * somewhat earlier, as the recording is kept in chunks. The caller must delete it.
+   *
+   * @throws ValidationException if nothing is being recorded or {@code last} is not positive
+   */
+  public Path dump(Duration last) {
+    if (recording == null) {
+      throw new ValidationException("Flight recording is not enabled");
+    }
+    if (last.isNegative() || last.isZero()) {
+      throw new ValidationException("Duration to dump must be positive");
+    }
+    Instant end = Instant.now();
+    Instant start = end.minus(last.compareTo(maxAge) > 0 ? maxAge : last);
+    try {
+      Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+      // A stopped copy includes the chunk still being written
+      try (Recording copy = recording.copy(true);
+          InputStream data = copy.getStream(start, end)) {
+        if (data == null) {
+          Files.delete(file);
+          throw new ValidationException("Nothing was recorded in the last " + last);
+        }
+        Files.copy(data, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return file;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (recording != null) {
+      recording.close();
+    }
+  }
+}
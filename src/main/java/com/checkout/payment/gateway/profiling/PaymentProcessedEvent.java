@@ -0,0 +1,29 @@
+package com.checkout.payment.gateway.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the processing of one payment, from the first stage to its
+ * status.
+ */
+@Name("com.checkout.payment.gateway.Payment")
+@Label("Payment")
+@Category("Payment Gateway")
+@Description("Processing of one payment request")
+@StackTrace(false)
+public class PaymentProcessedEvent extends jdk.jfr.Event {
+
+  @Label("Payment ID")
+  public String paymentId;
+
+  @Label("Status")
+  @Description("Status the payment ended with, absent if processing failed")
+  public String status;
+
+  @Label("Failed")
+  public boolean failed;
+}
@@ -0,0 +1,29 @@
+package com.checkout.payment.gateway.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one stage of a payment, as in
+ * {@link com.checkout.payment.gateway.enums.PaymentStage}.
+ */
+@Name("com.checkout.payment.gateway.PaymentStage")
+@Label("Payment Stage")
+@Category("Payment Gateway")
+@Description("One stage of processing a payment request")
+@StackTrace(false)
+public class PaymentStageEvent extends jdk.jfr.Event {
+
+  @Label("Stage")
+  public String stage;
+
+  @Label("Payment ID")
+  @Description("Absent for stages outside the service, such as parsing the request")
+  public String paymentId;
+
+  @Label("Failed")
+  public boolean failed;
+}
@@ -0,0 +1,53 @@
+package com.checkout.payment.gateway.reporting;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-currency, per-day counts and amounts, filled in by scans over a range of whole days.
+ */
+final class DailyTotals {
+
+  private final long firstDay;
+  private final int days;
+  private final Map<String, long[]> counts = new TreeMap<>();
+  private final Map<String, long[]> amounts = new TreeMap<>();
+
+  DailyTotals(long fromMillis, long toMillis) {
+    this.firstDay = Math.floorDiv(fromMillis, PaymentColumns.DAY_MILLIS);
+    this.days = (int) (Math.floorDiv(toMillis, PaymentColumns.DAY_MILLIS) - firstDay);
+  }
+
+  int dayIndex(long timestampMillis) {
+    return (int) (Math.floorDiv(timestampMillis, PaymentColumns.DAY_MILLIS) - firstDay);
+  }
+
+  long[] counts(String currency) {
+    return counts.computeIfAbsent(currency, c -> new long[days]);
+  }
+
+  long[] amounts(String currency) {
+    return amounts.computeIfAbsent(currency, c -> new long[days]);
+  }
+
+  void add(long timestampMillis, String currency, long amount) {
+    int index = dayIndex(timestampMillis);
+    counts(currency)[index]++;
+    amounts(currency)[index] += amount;
+  }
+
+  long firstDay() {
+    return firstDay;
+  }
+
+  int days() {
+    return days;
+  }
+
+  /**
+   * Currencies seen, in order.
+   */
+  Iterable<String> currencies() {
+    return counts.keySet();
+  }
+}
@@ -0,0 +1,164 @@
+package com.checkout.payment.gateway.reporting;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A column of non-negative longs, bit-packed in blocks of {@link #BLOCK} values. Each block
+ * stores its values as offsets from its own minimum, in just enough bits for the largest offset,
+ * so a block of equal values takes no space and one of sorted timestamps only needs the bits for
+ * the time it spans. Blocks start on a word boundary and keep their minimum and maximum, which
+ * lets scans skip blocks or treat a whole block as one value.
+ */
+final class PackedColumn {
+
+  static final int BLOCK = 128;
+
+  private final int size;
+  private final long[] mins;
+  private final long[] maxs;
+  private final byte[] widths;
+  private final int[] offsets;
+  private final long[] words;
+
+  private PackedColumn(int size, long[] mins, long[] maxs, byte[] widths, int[] offsets,
+      long[] words) {
+    this.size = size;
+    this.mins = mins;
+    this.maxs = maxs;
+    this.widths = widths;
+    this.offsets = offsets;
+    this.words = words;
+  }
+
+  static PackedColumn pack(long[] values, int size) {
+    int blocks = (size + BLOCK - 1) / BLOCK;
+    long[] mins = new long[blocks];
+    long[] maxs = new long[blocks];
+    byte[] widths = new byte[blocks];
+    int[] offsets = new int[blocks];
+    int wordCount = 0;
+    for (int b = 0; b < blocks; b++) {
+      int start = b * BLOCK;
+      int end = Math.min(size, start + BLOCK);
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int i = start; i < end; i++) {
+        min = Math.min(min, values[i]);
+        max = Math.max(max, values[i]);
+      }
+      mins[b] = min;
+      maxs[b] = max;
+      widths[b] = (byte) (64 - Long.numberOfLeadingZeros(max - min));
+      offsets[b] = wordCount;
+      wordCount += (widths[b] * (end - start) + 63) >>> 6;
+    }
+    // One spare word lets decode always read two words without a bounds branch
+    long[] words = new long[wordCount + 1];
+    for (int b = 0; b < blocks; b++) {
+      int width = widths[b];
+      long bit = (long) offsets[b] << 6;
+      for (int i = b * BLOCK, end = Math.min(size, i + BLOCK); i < end && width > 0; i++) {
+        long offset = values[i] - mins[b];
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        words[word] |= offset << shift;
+        if (shift + width > 64) {
+          words[word + 1] |= offset >>> (64 - shift);
+        }
+        bit += width;
+      }
+    }
+    return new PackedColumn(size, mins, maxs, widths, offsets, words);
+  }
+
+  int size() {
+    return size;
+  }
+
+  int blocks() {
+    return mins.length;
+  }
+
+  long min(int block) {
+    return mins[block];
+  }
+
+  long max(int block) {
+    return maxs[block];
+  }
+
+  /**
+   * Unpacks one block into {@code out}, which must hold {@link #BLOCK} values.
+   *
+   * @return how many values the block holds
+   */
+  int decode(int block, long[] out) {
+    int count = Math.min(BLOCK, size - block * BLOCK);
+    int width = widths[block];
+    long min = mins[block];
+    if (width == 0) {
+      Arrays.fill(out, 0, count, min);
+      return count;
+    }
+    long mask = (1L << width) - 1;
+    int bit = offsets[block] << 6;
+    for (int i = 0; i < count; i++) {
+      int word = bit >>> 6;
+      int shift = bit & 63;
+      // The second shift is split so that a shift of 0 takes nothing from the next word
+      long offset = (words[word] >>> shift) | ((words[word + 1] << 1) << (63 - shift));
+      out[i] = min + (offset & mask);
+      bit += width;
+    }
+    return count;
+  }
+
+  /**
+   * Heap taken by the packed values and block headers.
+   */
+  long sizeInBytes() {
+    return 8L * words.length + (8 + 8 + 1 + 4) * (long) mins.length;
+  }
+
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(size);
+    out.writeInt(words.length - 1);
+    for (int b = 0; b < mins.length; b++) {
+      out.writeLong(mins[b]);
+      out.writeLong(maxs[b]);
+      out.writeByte(widths[b]);
+    }
+    for (int i = 0; i < words.length - 1; i++) {
+      out.writeLong(words[i]);
+    }
+  }
+
+  static PackedColumn readFrom(DataInput in) throws IOException {
+    int size = in.readInt();
+    int wordCount = in.readInt();
+    int blocks = (size + BLOCK - 1) / BLOCK;
+    long[] mins = new long[blocks];
+    long[] maxs = new long[blocks];
+    byte[] widths = new byte[blocks];
+    int[] offsets = new int[blocks];
+    int offset = 0;
+    for (int b = 0; b < blocks; b++) {
+      mins[b] = in.readLong();
+      maxs[b] = in.readLong();
+      widths[b] = in.readByte();
+      offsets[b] = offset;
+      offset += (widths[b] * Math.min(BLOCK, size - b * BLOCK) + 63) >>> 6;
+    }
+    if (offset != wordCount) {
+      throw new IOException("Packed column is corrupt");
+    }
+    long[] words = new long[wordCount + 1];
+    for (int i = 0; i < wordCount; i++) {
+      words[i] = in.readLong();
+    }
+    return new PackedColumn(size, mins, maxs, widths, offsets, words);
+  }
+}
@@ -0,0 +1,369 @@
+package com.checkout.payment.gateway.reporting;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.PaymentEventListener;
+import com.checkout.payment.gateway.model.AuthorizationRate;
+import com.checkout.payment.gateway.model.PaymentVolume;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Reporting store of payment outcomes, rolled from the ledger into immutable
+ * {@link PaymentColumns} segments. Each payment contributes one row, from the event that gave it
+ * its authorization outcome; later captures, voids and refunds do not change it, so a sealed
+ * segment never needs rewriting.
+ *
+ * <p>
+ * Recording a row only appends to an open buffer. A buffer is sealed on the {@code
+ * payment-columns} thread once it holds {@code segmentRows} rows, or every {@code rollInterval},
+ * and with a directory each segment is written to its own file. Queries scan the sealed segments
+ * and the rows still waiting in buffers, so they always include every recorded payment. Rows
+ * are not removed by retention: they hold no card data.
+ */
+public class PaymentColumnStore implements PaymentEventListener, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentColumnStore.class);
+
+  private static final long MAGIC = 0x5047434F4C303031L; // "PGCOL001"
+  // Keeps every packed bit position within an int
+  private static final int MAX_SEGMENT_ROWS = 1 << 24;
+  private static final String PREFIX = "columns-";
+  private static final String SUFFIX = ".col";
+
+  private final Path directory;
+  private final int segmentRows;
+  private final ScheduledExecutorService roller;
+  // Oldest first, replaced as a whole so queries never lock while scanning them
+  private volatile PaymentColumns[] segments = new PaymentColumns[0];
+  // Guarded by this: the buffer taking rows, and full ones waiting to be sealed
+  private Rows open;
+  private final List<Rows> sealing = new ArrayList<>();
+
+  private PaymentColumnStore(Path directory, int segmentRows) {
+    this.directory = directory;
+    this.segmentRows = segmentRows;
+    this.open = new Rows(segmentRows);
+    this.roller = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "payment-columns");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Opens the store, loading the segments already in {@code directory}.
+   *
+   * @param directory where to keep segments, or null to keep them on the heap only
+   */
+  public static PaymentColumnStore open(Path directory, int segmentRows, Duration rollInterval,
+      UnaryOperator<String> canonicalCurrency) throws IOException {
+    if (segmentRows < 1 || segmentRows > MAX_SEGMENT_ROWS) {
+      throw new IllegalArgumentException("Segment rows must be between 1 and " + MAX_SEGMENT_ROWS);
+    }
+    PaymentColumnStore store = new PaymentColumnStore(directory, segmentRows);
+    if (directory != null) {
+      Files.createDirectories(directory);
+      List<Path> paths;
+      try (Stream<Path> listing = Files.list(directory)) {
+        paths = listing
+            .filter(path -> {
+              String name = path.getFileName().toString();
+              return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            })
+            .sorted()
+            .toList();
+      }
+      List<PaymentColumns> loaded = new ArrayList<>();
+      for (Path path : paths) {
+        loaded.add(read(path, canonicalCurrency));
+      }
+      store.segments = loaded.toArray(new PaymentColumns[0]);
+    }
+    long intervalMillis = rollInterval.toMillis();
+    store.roller.scheduleWithFixedDelay(store::rollQuietly, intervalMillis, intervalMillis,
+        TimeUnit.MILLISECONDS);
+    return store;
+  }
+
+  @Override
+  public void onEvent(PaymentEvent event) {
+    if (!event.setsOutcome()) {
+      return;
+    }
+    Rows full;
+    synchronized (this) {
+      open.add(event);
+      if (open.size < segmentRows) {
+        return;
+      }
+      full = open;
+      sealing.add(full);
+      open = new Rows(segmentRows);
+    }
+    try {
+      roller.execute(() -> sealQuietly(full));
+    } catch (RejectedExecutionException ex) {
+      // Closing; close() seals whatever is left
+    }
+  }
+
+  /**
+   * The log sequence to replay from on startup: one past the latest event in a sealed segment.
+   */
+  public long nextSequence() {
+    PaymentColumns[] current = segments;
+    long next = 0;
+    for (PaymentColumns segment : current) {
+      next = Math.max(next, segment.lastSequence() + 1);
+    }
+    return next;
+  }
+
+  /**
+   * Count and amount of payments authorized on each day from {@code from} to {@code to}
+   * inclusive (UTC), by currency. Days and currencies without payments are left out.
+   */
+  public List<PaymentVolume> dailyVolume(LocalDate from, LocalDate to) {
+    long fromMillis = from.toEpochDay() * PaymentColumns.DAY_MILLIS;
+    long toMillis = (to.toEpochDay() + 1) * PaymentColumns.DAY_MILLIS;
+    DailyTotals totals = new DailyTotals(fromMillis, toMillis);
+    for (PaymentColumns segment : scan(rows -> rows.addDailyVolume(fromMillis, toMillis,
+        totals))) {
+      segment.addDailyVolume(fromMillis, toMillis, totals);
+    }
+    List<PaymentVolume> volumes = new ArrayList<>();
+    for (int day = 0; day < totals.days(); day++) {
+      String date = LocalDate.ofEpochDay(totals.firstDay() + day).toString();
+      for (String currency : totals.currencies()) {
+        long payments = totals.counts(currency)[day];
+        if (payments > 0) {
+          volumes.add(new PaymentVolume(date, currency, payments,
+              totals.amounts(currency)[day]));
+        }
+      }
+    }
+    return volumes;
+  }
+
+  /**
+   * Share of payments sent to the bank from {@code from} to {@code to} inclusive (UTC) that
+   * were authorized.
+   *
+   * @param currency only count payments in this currency, or null for all
+   */
+  public AuthorizationRate authorizationRate(LocalDate from, LocalDate to, String currency) {
+    long fromMillis = from.toEpochDay() * PaymentColumns.DAY_MILLIS;
+    long toMillis = (to.toEpochDay() + 1) * PaymentColumns.DAY_MILLIS;
+    long[] counts = new long[PaymentStatus.values().length];
+    for (PaymentColumns segment : scan(rows -> rows.addOutcomes(fromMillis, toMillis, currency,
+        counts))) {
+      segment.addOutcomes(fromMillis, toMillis, currency, counts);
+    }
+    long authorized = counts[PaymentStatus.AUTHORIZED.ordinal()];
+    long declined = counts[PaymentStatus.DECLINED.ordinal()];
+    return new AuthorizationRate(from.toString(), to.toString(), currency, authorized, declined,
+        counts[PaymentStatus.REJECTED.ordinal()],
+        authorized + declined == 0 ? 0 : (double) authorized / (authorized + declined));
+  }
+
+  /**
+   * Payments held, sealed or not.
+   */
+  public synchronized long size() {
+    long rows = open.size;
+    for (Rows waiting : sealing) {
+      rows += waiting.size;
+    }
+    for (PaymentColumns segment : segments) {
+      rows += segment.rows();
+    }
+    return rows;
+  }
+
+  /**
+   * Heap taken by the sealed segments' columns.
+   */
+  public long sealedSizeInBytes() {
+    return Arrays.stream(segments).mapToLong(PaymentColumns::sizeInBytes).sum();
+  }
+
+  /**
+   * Seals the open buffer now, if it has any rows.
+   */
+  public void roll() throws IOException {
+    Rows rows;
+    synchronized (this) {
+      if (open.size == 0) {
+        return;
+      }
+      rows = open;
+      sealing.add(rows);
+      open = new Rows(segmentRows);
+    }
+    seal(rows);
+  }
+
+  /**
+   * Stops the roller and seals every buffered row, so nothing needs replaying on the next start.
+   */
+  @Override
+  public void close() {
+    roller.shutdown();
+    try {
+      roller.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    List<Rows> waiting;
+    synchronized (this) {
+      waiting = new ArrayList<>(sealing);
+    }
+    for (Rows rows : waiting) {
+      sealQuietly(rows);
+    }
+    rollQuietly();
+  }
+
+  /**
+   * Applies {@code unsealed} to the buffered rows and returns the sealed segments, both taken
+   * together so a buffer being sealed is counted exactly once.
+   */
+  private synchronized PaymentColumns[] scan(Consumer<Rows> unsealed) {
+    unsealed.accept(open);
+    sealing.forEach(unsealed);
+    return segments;
+  }
+
+  /**
+   * Encodes and writes a full buffer without holding the store's lock, so recording never waits
+   * for it, then swaps the buffer for the segment.
+   */
+  private void seal(Rows rows) throws IOException {
+    PaymentColumns segment = PaymentColumns.of(rows.timestamps, rows.currencies, rows.outcomes,
+        rows.amounts, rows.size, rows.lastSequence);
+    if (directory != null) {
+      write(segment);
+    }
+    synchronized (this) {
+      PaymentColumns[] current = segments;
+      PaymentColumns[] next = Arrays.copyOf(current, current.length + 1);
+      next[current.length] = segment;
+      segments = next;
+      sealing.remove(rows);
+    }
+    LOG.info("Payment columns sealed {} {} {}",
+        kv("rows", segment.rows()),
+        kv("bytes", segment.sizeInBytes()),
+        kv("lastSequence", segment.lastSequence()));
+  }
+
+  private void sealQuietly(Rows rows) {
+    try {
+      seal(rows);
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Payment columns seal failed {}", kv("error", ex.getMessage()));
+    }
+  }
+
+  private void rollQuietly() {
+    try {
+      roll();
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Payment columns seal failed {}", kv("error", ex.getMessage()));
+    }
+  }
+
+  private void write(PaymentColumns segment) throws IOException {
+    Path path = directory.resolve(String.format("%s%016d%s", PREFIX, segment.lastSequence(),
+        SUFFIX));
+    Path temporary = directory.resolve(path.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeLong(MAGIC);
+      segment.writeTo(out);
+    }
+    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static PaymentColumns read(Path path, UnaryOperator<String> canonicalCurrency)
+      throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readLong() != MAGIC) {
+        throw new IOException("Not a payment column segment: " + path);
+      }
+      return PaymentColumns.readFrom(in, canonicalCurrency);
+    }
+  }
+
+  /**
+   * Rows not yet sealed, in arrival order. Guarded by the store.
+   */
+  private static final class Rows {
+
+    final long[] timestamps;
+    final String[] currencies;
+    final PaymentStatus[] outcomes;
+    final long[] amounts;
+    int size;
+    long lastSequence = PaymentEvent.NONE;
+
+    Rows(int capacity) {
+      timestamps = new long[capacity];
+      currencies = new String[capacity];
+      outcomes = new PaymentStatus[capacity];
+      amounts = new long[capacity];
+    }
+
+    void add(PaymentEvent event) {
+      timestamps[size] = event.timestampMillis();
+      currencies[size] = event.currency();
+      outcomes[size] = event.outcome();
+      amounts[size] = event.amount();
+      lastSequence = Math.max(lastSequence, event.sequence());
+      size++;
+    }
+
+    void addDailyVolume(long fromMillis, long toMillis, DailyTotals totals) {
+      for (int i = 0; i < size; i++) {
+        if (outcomes[i] == PaymentStatus.AUTHORIZED && timestamps[i] >= fromMillis
+            && timestamps[i] < toMillis) {
+          totals.add(timestamps[i], currencies[i], amounts[i]);
+        }
+      }
+    }
+
+    void addOutcomes(long fromMillis, long toMillis, String currency, long[] counts) {
+      for (int i = 0; i < size; i++) {
+        if (timestamps[i] >= fromMillis && timestamps[i] < toMillis
+            && (currency == null || currency.equals(currencies[i]))) {
+          counts[outcomes[i].ordinal()]++;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.checkout.payment.gateway.reporting;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable columnar segment of payment outcomes: when each payment got its authorization
+ * outcome, its currency, the outcome and the amount. Rows are sorted by time. Currency and outcome
+ * are dictionary-encoded, and every column is a {@link PackedColumn}, so timestamps are stored as
+ * offsets from the start of their block and amounts in the bits their block needs.
+ *
+ * <p>
+ * Scans work a block at a time: blocks outside the time range are skipped from their bounds, and
+ * a block inside one day is aggregated in a tight loop over the decoded codes and amounts, or from
+ * its bounds alone when all its rows share a currency and outcome.
+ */
+public final class PaymentColumns {
+
+  static final long DAY_MILLIS = 86_400_000L;
+
+  private final long lastSequence;
+  private final String[] currencies;
+  private final PaymentStatus[] outcomes;
+  private final PackedColumn timestamps;
+  private final PackedColumn currencyCodes;
+  private final PackedColumn outcomeCodes;
+  private final PackedColumn amounts;
+
+  private PaymentColumns(long lastSequence, String[] currencies, PaymentStatus[] outcomes,
+      PackedColumn timestamps, PackedColumn currencyCodes, PackedColumn outcomeCodes,
+      PackedColumn amounts) {
+    this.lastSequence = lastSequence;
+    this.currencies = currencies;
+    this.outcomes = outcomes;
+    this.timestamps = timestamps;
+    this.currencyCodes = currencyCodes;
+    this.outcomeCodes = outcomeCodes;
+    this.amounts = amounts;
+  }
+
+  /**
+   * Encodes the first {@code rows} entries of the arrays, which are left unchanged.
+   *
+   * @param lastSequence log sequence of the latest event the rows came from
+   */
+  static PaymentColumns of(long[] timestampMillis, String[] currency, PaymentStatus[] outcome,
+      long[] amount, int rows, long lastSequence) {
+    int[] order = IntStream.range(0, rows).boxed()
+        .sorted(Comparator.comparingLong(row -> timestampMillis[row]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+    String[] currencyDictionary = Arrays.stream(currency, 0, rows).distinct()
+        .toArray(String[]::new);
+    PaymentStatus[] outcomeDictionary = Arrays.stream(outcome, 0, rows).distinct()
+        .toArray(PaymentStatus[]::new);
+    long[] sortedTimestamps = new long[rows];
+    long[] currencyColumn = new long[rows];
+    long[] outcomeColumn = new long[rows];
+    long[] amountColumn = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      int row = order[i];
+      sortedTimestamps[i] = timestampMillis[row];
+      currencyColumn[i] = indexOf(currencyDictionary, currency[row]);
+      outcomeColumn[i] = indexOf(outcomeDictionary, outcome[row]);
+      amountColumn[i] = amount[row];
+    }
+    return new PaymentColumns(lastSequence, currencyDictionary, outcomeDictionary,
+        PackedColumn.pack(sortedTimestamps, rows), PackedColumn.pack(currencyColumn, rows),
+        PackedColumn.pack(outcomeColumn, rows), PackedColumn.pack(amountColumn, rows));
+  }
+
+  public int rows() {
+    return timestamps.size();
+  }
+
+  /**
+   * Log sequence of the latest event the rows came from.
+   */
+  public long lastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Heap taken by the columns, dictionaries aside.
+   */
+  public long sizeInBytes() {
+    return timestamps.sizeInBytes() + currencyCodes.sizeInBytes() + outcomeCodes.sizeInBytes()
+        + amounts.sizeInBytes();
+  }
+
+  /**
+   * Adds the count and amount of payments authorized in {@code [fromMillis, toMillis)} to
+   * {@code totals}, by currency and day. Both bounds must be at the start of a day.
+   */
+  void addDailyVolume(long fromMillis, long toMillis, DailyTotals totals) {
+    int authorized = indexOf(outcomes, PaymentStatus.AUTHORIZED);
+    if (authorized < 0 || !overlaps(fromMillis, toMillis)) {
+      return;
+    }
+    long[][] counts = new long[currencies.length][];
+    long[][] sums = new long[currencies.length][];
+    for (int c = 0; c < currencies.length; c++) {
+      counts[c] = totals.counts(currencies[c]);
+      sums[c] = totals.amounts(currencies[c]);
+    }
+    long[] time = new long[PackedColumn.BLOCK];
+    long[] currency = new long[PackedColumn.BLOCK];
+    long[] outcome = new long[PackedColumn.BLOCK];
+    long[] amount = new long[PackedColumn.BLOCK];
+    for (int b = 0; b < timestamps.blocks(); b++) {
+      long first = timestamps.min(b);
+      long last = timestamps.max(b);
+      if (first >= toMillis) {
+        break;
+      }
+      if (last < fromMillis) {
+        continue;
+      }
+      int rows = amounts.decode(b, amount);
+      long day = Math.floorDiv(first, DAY_MILLIS);
+      if (first >= fromMillis && last < toMillis && day == Math.floorDiv(last, DAY_MILLIS)) {
+        int index = totals.dayIndex(first);
+        if (currencyCodes.min(b) == currencyCodes.max(b)
+            && outcomeCodes.min(b) == outcomeCodes.max(b)) {
+          if (outcomeCodes.min(b) == authorized) {
+            int c = (int) currencyCodes.min(b);
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+              sum += amount[i];
+            }
+            counts[c][index] += rows;
+            sums[c][index] += sum;
+          }
+          continue;
+        }
+        outcomeCodes.decode(b, outcome);
+        currencyCodes.decode(b, currency);
+        for (int i = 0; i < rows; i++) {
+          if (outcome[i] == authorized) {
+            int c = (int) currency[i];
+            counts[c][index]++;
+            sums[c][index] += amount[i];
+          }
+        }
+        continue;
+      }
+      timestamps.decode(b, time);
+      outcomeCodes.decode(b, outcome);
+      currencyCodes.decode(b, currency);
+      for (int i = 0; i < rows; i++) {
+        if (outcome[i] == authorized && time[i] >= fromMillis && time[i] < toMillis) {
+          int c = (int) currency[i];
+          int index = totals.dayIndex(time[i]);
+          counts[c][index]++;
+          sums[c][index] += amount[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts payments that got each outcome in {@code [fromMillis, toMillis)}.
+   *
+   * @param currency only count payments in this currency, or null for all
+   * @param counts incremented by outcome ordinal
+   */
+  void addOutcomes(long fromMillis, long toMillis, String currency, long[] counts) {
+    int wanted = currency == null ? -1 : indexOf(currencies, currency);
+    if ((currency != null && wanted < 0) || !overlaps(fromMillis, toMillis)) {
+      return;
+    }
+    long[] local = new long[outcomes.length];
+    long[] time = new long[PackedColumn.BLOCK];
+    long[] currencyCode = new long[PackedColumn.BLOCK];
+    long[] outcome = new long[PackedColumn.BLOCK];
+    for (int b = 0; b < timestamps.blocks(); b++) {
+      long first = timestamps.min(b);
+      long last = timestamps.max(b);
+      if (first >= toMillis) {
+        break;
+      }
+      if (last < fromMillis) {
+        continue;
+      }
+      boolean inRange = first >= fromMillis && last < toMillis;
+      boolean anyCurrency = wanted < 0
+          || currencyCodes.min(b) == wanted && currencyCodes.max(b) == wanted;
+      if (inRange && anyCurrency && outcomeCodes.min(b) == outcomeCodes.max(b)) {
+        local[(int) outcomeCodes.min(b)] += Math.min(PackedColumn.BLOCK,
+            timestamps.size() - b * PackedColumn.BLOCK);
+        continue;
+      }
+      int rows = outcomeCodes.decode(b, outcome);
+      if (inRange && anyCurrency) {
+        for (int i = 0; i < rows; i++) {
+          local[(int) outcome[i]]++;
+        }
+        continue;
+      }
+      currencyCodes.decode(b, currencyCode);
+      if (inRange) {
+        for (int i = 0; i < rows; i++) {
+          if (currencyCode[i] == wanted) {
+            local[(int) outcome[i]]++;
+          }
+        }
+        continue;
+      }
+      timestamps.decode(b, time);
+      for (int i = 0; i < rows; i++) {
+        if (time[i] >= fromMillis && time[i] < toMillis
+            && (wanted < 0 || currencyCode[i] == wanted)) {
+          local[(int) outcome[i]]++;
+        }
+      }
+    }
+    for (int o = 0; o < outcomes.length; o++) {
+      counts[outcomes[o].ordinal()] += local[o];
+    }
+  }
+
+  void writeTo(DataOutput out) throws IOException {
+    out.writeLong(lastSequence);
+    out.writeShort(currencies.length);
+    for (String currency : currencies) {
+      out.writeUTF(currency);
+    }
+    out.writeShort(outcomes.length);
+    for (PaymentStatus outcome : outcomes) {
+      out.writeByte(outcome.ordinal());
+    }
+    timestamps.writeTo(out);
+    currencyCodes.writeTo(out);
+    outcomeCodes.writeTo(out);
+    amounts.writeTo(out);
+  }
+
+  static PaymentColumns readFrom(DataInput in, UnaryOperator<String> canonicalCurrency)
+      throws IOException {
+    long lastSequence = in.readLong();
+    String[] currencies = new String[in.readUnsignedShort()];
+    for (int c = 0; c < currencies.length; c++) {
+      currencies[c] = canonicalCurrency.apply(in.readUTF());
+    }
+    PaymentStatus[] outcomes = new PaymentStatus[in.readUnsignedShort()];
+    for (int o = 0; o < outcomes.length; o++) {
+      outcomes[o] = PaymentStatus.values()[in.readUnsignedByte()];
+    }
+    return new PaymentColumns(lastSequence, currencies, outcomes, PackedColumn.readFrom(in),
+        PackedColumn.readFrom(in), PackedColumn.readFrom(in), PackedColumn.readFrom(in));
+  }
+
+  private boolean overlaps(long fromMillis, long toMillis) {
+    int blocks = timestamps.blocks();
+    return blocks > 0 && timestamps.min(0) < toMillis
+        && timestamps.max(blocks - 1) >= fromMillis;
+  }
+
+  private static <T> int indexOf(T[] dictionary, T value) {
+    for (int i = 0; i < dictionary.length; i++) {
+      if (dictionary[i].equals(value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,295 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Latest state of the payments in one partition of {@link PaymentsRepository}.
+ *
+ * <p>
+ * Each payment gets an {@code int} ordinal in the order it was added, and secondary indexes hold
+ * ordinals rather than references: by merchant reference and by card last four with amount in
+ * {@link PostingIndex}es, and by status in a {@link StatusIndex}. {@link #add} keeps them up to
+ * date, so it must be called again whenever a payment's status changes. Lookups check every
+ * candidate against the payment itself, so hash collisions and payments caught moving between
+ * statuses are never returned wrongly. Results come most recent first.
+ *
+ * <p>
+ * {@link #remove} only clears a payment's slot; {@link #compact} then releases the oldest chunks
+ * of the table and the indexes once every payment in them has been removed. It claims a chunk's
+ * empty slots with a tombstone first, so an add that took an ordinal in it moves to a new one.
+ */
+final class PaymentPartition {
+
+  private static final int CHUNK_BITS = 16;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final PostPaymentResponse TOMBSTONE = new PostPaymentResponse();
+  private static final AtomicReferenceArray<PostPaymentResponse> RELEASED =
+      new AtomicReferenceArray<>(0);
+
+  private final ConcurrentHashMap<UUID, Integer> ordinals = new ConcurrentHashMap<>();
+  private final AtomicReferenceArray<AtomicReferenceArray<PostPaymentResponse>> payments =
+      new AtomicReferenceArray<>(Integer.MAX_VALUE / CHUNK_SIZE + 1);
+  private final AtomicInteger nextOrdinal = new AtomicInteger();
+  private final PostingIndex byReference = new PostingIndex();
+  private final PostingIndex byCardAndAmount = new PostingIndex();
+  private final StatusIndex byStatus = new StatusIndex();
+  // Chunks below this one have been released
+  private volatile int firstChunk;
+
+  /**
+   * Stores the payment, replacing any with the same ID, and indexes it under its current status.
+   */
+  void add(PostPaymentResponse payment) {
+    // Serializes updates to the same payment, so the last one indexes its latest status
+    ordinals.compute(payment.getId(), (id, existing) -> {
+      int ordinal;
+      if (existing != null && sameKeys(paymentAt(existing), payment)) {
+        ordinal = existing;
+        paymentSlot(ordinal).set(ordinal & (CHUNK_SIZE - 1), payment);
+      } else {
+        if (existing != null) {
+          // Its old keys stay in the posting lists and are filtered out by lookups
+          paymentSlot(existing).set(existing & (CHUNK_SIZE - 1), null);
+          byStatus.update(existing, null);
+        }
+        do {
+          ordinal = nextOrdinal.getAndIncrement();
+        } while (!claimSlot(ordinal, payment));
+        if (payment.getReference() != null) {
+          byReference.add(referenceKey(payment.getReference()), ordinal);
+        }
+        byCardAndAmount.add(
+            cardAndAmountKey(payment.getCardNumberLastFour(), payment.getAmount()), ordinal);
+      }
+      byStatus.update(ordinal, payment.getStatus());
+      return ordinal;
+    });
+  }
+
+  /**
+   * Removes the payment with this ID, if there is one.
+   */
+  void remove(UUID id) {
+    ordinals.computeIfPresent(id, (key, ordinal) -> {
+      paymentSlot(ordinal).set(ordinal & (CHUNK_SIZE - 1), null);
+      byStatus.update(ordinal, null);
+      return null;
+    });
+  }
+
+  /**
+   * Releases the oldest chunks of storage whose payments have all been removed, stopping at the
+   * first chunk that still holds one. Runs alongside adds and lookups without blocking them.
+   *
+   * @return the number of payment slots released
+   */
+  int compact() {
+    int released = 0;
+    int chunkIndex = firstChunk;
+    while (((long) chunkIndex + 1) * CHUNK_SIZE <= nextOrdinal.get() && claimEmpty(chunkIndex)) {
+      int floor = (chunkIndex + 1) << CHUNK_BITS;
+      byReference.releaseBelow(floor);
+      byCardAndAmount.releaseBelow(floor);
+      byStatus.releaseBelow(floor);
+      payments.set(chunkIndex, RELEASED);
+      firstChunk = ++chunkIndex;
+      released += CHUNK_SIZE;
+    }
+    return released;
+  }
+
+  Optional<PostPaymentResponse> get(UUID id) {
+    Integer ordinal = ordinals.get(id);
+    return ordinal == null ? Optional.empty() : Optional.ofNullable(paymentAt(ordinal));
+  }
+
+  /**
+   * All payments, in the order they were added. The view is live, and payments added while it
+   * is iterated may or may not be included.
+   */
+  Collection<PostPaymentResponse> findAll() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<PostPaymentResponse> iterator() {
+        return new PaymentIterator(nextOrdinal.get());
+      }
+
+      @Override
+      public Spliterator<PostPaymentResponse> spliterator() {
+        // Not SIZED: the count may change while iterating
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL);
+      }
+
+      @Override
+      public int size() {
+        return ordinals.size();
+      }
+    };
+  }
+
+  int size() {
+    return ordinals.size();
+  }
+
+  /**
+   * Payments the merchant gave this reference, most recent first.
+   */
+  List<PostPaymentResponse> findByReference(String reference, int limit) {
+    List<PostPaymentResponse> found = new ArrayList<>();
+    byReference.forEach(referenceKey(reference),
+        collect(found, limit, payment -> reference.equals(payment.getReference())));
+    return found;
+  }
+
+  /**
+   * Payments of this amount on cards ending in these four digits, most recent first.
+   */
+  List<PostPaymentResponse> findByCardAndAmount(int cardNumberLastFour, int amount,
+      int limit) {
+    List<PostPaymentResponse> found = new ArrayList<>();
+    byCardAndAmount.forEach(cardAndAmountKey(cardNumberLastFour, amount),
+        collect(found, limit, payment -> payment.getCardNumberLastFour() == cardNumberLastFour
+            && payment.getAmount() == amount));
+    return found;
+  }
+
+  /**
+   * Payments currently in this status, most recent first.
+   */
+  List<PostPaymentResponse> findByStatus(PaymentStatus status, int limit) {
+    List<PostPaymentResponse> found = new ArrayList<>();
+    byStatus.forEach(status, nextOrdinal.get(),
+        collect(found, limit, payment -> payment.getStatus() == status));
+    return found;
+  }
+
+  private IntPredicate collect(List<PostPaymentResponse> found, int limit,
+      Predicate<PostPaymentResponse> matches) {
+    return ordinal -> {
+      if (found.size() >= limit) {
+        return false;
+      }
+      PostPaymentResponse payment = paymentAt(ordinal);
+      if (payment != null && matches.test(payment)) {
+        found.add(payment);
+      }
+      return found.size() < limit;
+    };
+  }
+
+  private PostPaymentResponse paymentAt(int ordinal) {
+    AtomicReferenceArray<PostPaymentResponse> chunk = payments.get(ordinal >>> CHUNK_BITS);
+    if (chunk == null || chunk == RELEASED) {
+      return null;
+    }
+    PostPaymentResponse payment = chunk.get(ordinal & (CHUNK_SIZE - 1));
+    return payment == TOMBSTONE ? null : payment;
+  }
+
+  /**
+   * Stores a payment at a new ordinal, unless compaction has claimed the slot first.
+   */
+  private boolean claimSlot(int ordinal, PostPaymentResponse payment) {
+    AtomicReferenceArray<PostPaymentResponse> chunk = paymentSlot(ordinal);
+    return chunk != RELEASED && chunk.compareAndSet(ordinal & (CHUNK_SIZE - 1), null, payment);
+  }
+
+  /**
+   * Tombstones every empty slot of the chunk.
+   *
+   * @return whether the chunk holds no payment
+   */
+  private boolean claimEmpty(int chunkIndex) {
+    AtomicReferenceArray<PostPaymentResponse> chunk = paymentSlot(chunkIndex << CHUNK_BITS);
+    for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+      PostPaymentResponse payment = chunk.get(slot);
+      if (payment != TOMBSTONE && !chunk.compareAndSet(slot, null, TOMBSTONE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private AtomicReferenceArray<PostPaymentResponse> paymentSlot(int ordinal) {
+    int index = ordinal >>> CHUNK_BITS;
+    AtomicReferenceArray<PostPaymentResponse> chunk = payments.get(index);
+    if (chunk == null) {
+      payments.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+      chunk = payments.get(index);
+    }
+    return chunk;
+  }
+
+  private static boolean sameKeys(PostPaymentResponse indexed, PostPaymentResponse payment) {
+    return indexed == payment
+        || indexed != null
+        && indexed.getCardNumberLastFour() == payment.getCardNumberLastFour()
+        && indexed.getAmount() == payment.getAmount()
+        && Objects.equals(indexed.getReference(), payment.getReference());
+  }
+
+  private static long referenceKey(String reference) {
+    // 64-bit FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < reference.length(); i++) {
+      hash ^= reference.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static long cardAndAmountKey(int cardNumberLastFour, int amount) {
+    return (long) cardNumberLastFour << 32 | (amount & 0xFFFFFFFFL);
+  }
+
+  private final class PaymentIterator implements Iterator<PostPaymentResponse> {
+
+    private final int end;
+    private int ordinal;
+    private PostPaymentResponse next;
+
+    PaymentIterator(int end) {
+      this.end = end;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public PostPaymentResponse next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      PostPaymentResponse current = next;
+      advance();
+      return current;
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null && ordinal < end) {
+        next = paymentAt(ordinal++);
+      }
+    }
+  }
+}
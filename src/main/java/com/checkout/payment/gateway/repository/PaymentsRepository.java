@@ -1,22 +1,179 @@
 package com.checkout.payment.gateway.repository;
 
+import com.checkout.payment.gateway.enums.PaymentStatus;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
-import java.util.HashMap;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Latest state of every payment. This is a read model: it is written by
+ * {@link com.checkout.payment.gateway.ledger.PaymentLedger} as events are appended to, or
+ * replayed from, the payment event log.
+ *
+ * <p>
+ * Payments are partitioned by {@link PostPaymentResponse#getMerchantId() merchant}, and each
+ * merchant's payments live in their own {@link PaymentPartition}, with its own table, indexes and
+ * compaction. A merchant can only find its own payments, and one merchant's volume neither slows
+ * down another's lookups nor keeps another's old storage from being released. Payments without a
+ * merchant, all of them when merchants are not authenticated, share one partition; the methods
+ * that take no merchant work on that one.
+ *
+ * <p>
+ * {@link #add} must be called again whenever a payment's status changes, so its indexes stay up
+ * to date. {@link #remove} only clears a payment's slot; {@link #compact} then releases storage
+ * that only removed payments used. Results come most recent first.
+ */
 @Repository
 public class PaymentsRepository {
 
-  private final HashMap<UUID, PostPaymentResponse> payments = new HashMap<>();
+  // Key of the partition for payments without a merchant; merchant IDs are never empty
+  private static final String NO_MERCHANT = "";
 
+  private final Map<String, PaymentPartition> partitions = new ConcurrentHashMap<>();
+
+  /**
+   * Stores the payment in its merchant's partition, replacing any with the same ID, and indexes
+   * it under its current status.
+   */
   public void add(PostPaymentResponse payment) {
-    payments.put(payment.getId(), payment);
+    partitions.computeIfAbsent(key(payment.getMerchantId()), merchant -> new PaymentPartition())
+        .add(payment);
+  }
+
+  /**
+   * Removes the merchant's payment with this ID, if there is one.
+   */
+  public void remove(String merchantId, UUID id) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    if (partition != null) {
+      partition.remove(id);
+    }
+  }
+
+  public void remove(UUID id) {
+    remove(null, id);
+  }
+
+  /**
+   * Releases the oldest chunks of storage whose payments have all been removed, in every
+   * partition. Runs alongside adds and lookups without blocking them.
+   *
+   * @return the number of payment slots released
+   */
+  public int compact() {
+    int released = 0;
+    for (PaymentPartition partition : partitions.values()) {
+      released += partition.compact();
+    }
+    return released;
+  }
+
+  public Optional<PostPaymentResponse> get(String merchantId, UUID id) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    return partition == null ? Optional.empty() : partition.get(id);
   }
 
   public Optional<PostPaymentResponse> get(UUID id) {
-    return Optional.ofNullable(payments.get(id));
+    return get(null, id);
+  }
+
+  /**
+   * All payments of every merchant, each merchant's in the order they were added. The view is
+   * live, and payments added while it is iterated may or may not be included.
+   */
+  public Collection<PostPaymentResponse> findAll() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<PostPaymentResponse> iterator() {
+        return partitions.values().stream()
+            .flatMap(partition -> StreamSupport.stream(partition.findAll().spliterator(), false))
+            .iterator();
+      }
+
+      @Override
+      public Spliterator<PostPaymentResponse> spliterator() {
+        // Not SIZED: the count may change while iterating
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL);
+      }
+
+      @Override
+      public int size() {
+        return PaymentsRepository.this.size();
+      }
+    };
+  }
+
+  public int size() {
+    int size = 0;
+    for (PaymentPartition partition : partitions.values()) {
+      size += partition.size();
+    }
+    return size;
   }
 
+  /**
+   * Number of payments the merchant has in the repository.
+   */
+  public int size(String merchantId) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    return partition == null ? 0 : partition.size();
+  }
+
+  /**
+   * The merchant's payments with this reference, most recent first.
+   */
+  public List<PostPaymentResponse> findByReference(String merchantId, String reference,
+      int limit) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    return partition == null ? Collections.emptyList()
+        : partition.findByReference(reference, limit);
+  }
+
+  public List<PostPaymentResponse> findByReference(String reference, int limit) {
+    return findByReference(null, reference, limit);
+  }
+
+  /**
+   * The merchant's payments of this amount on cards ending in these four digits, most recent
+   * first.
+   */
+  public List<PostPaymentResponse> findByCardAndAmount(String merchantId, int cardNumberLastFour,
+      int amount, int limit) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    return partition == null ? Collections.emptyList()
+        : partition.findByCardAndAmount(cardNumberLastFour, amount, limit);
+  }
+
+  public List<PostPaymentResponse> findByCardAndAmount(int cardNumberLastFour, int amount,
+      int limit) {
+    return findByCardAndAmount(null, cardNumberLastFour, amount, limit);
+  }
+
+  /**
+   * The merchant's payments currently in this status, most recent first.
+   */
+  public List<PostPaymentResponse> findByStatus(String merchantId, PaymentStatus status,
+      int limit) {
+    PaymentPartition partition = partitions.get(key(merchantId));
+    return partition == null ? Collections.emptyList() : partition.findByStatus(status, limit);
+  }
+
+  public List<PostPaymentResponse> findByStatus(PaymentStatus status, int limit) {
+    return findByStatus(null, status, limit);
+  }
+
+  private static String key(String merchantId) {
+    return merchantId == null ? NO_MERCHANT : merchantId;
+  }
 }
@@ -0,0 +1,183 @@
+package com.checkout.payment.gateway.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Maps {@code long} keys to the ordinals of the payments that have them, without boxing. Each
+ * key's posting list is a chain through a shared {@code int} array indexed by ordinal: the key
+ * points at its most recently added ordinal, and each ordinal at the one added before it. A
+ * payment therefore costs 4 bytes in the chain, plus a table slot if its key is new.
+ *
+ * <p>
+ * Keys are spread over lock stripes, each an open-addressing table. Adding an ordinal and
+ * reading a key's head both take the key's stripe lock, which also makes the chain behind the
+ * head visible to the reader. Every ordinal must be added at most once.
+ *
+ * <p>
+ * {@link #releaseBelow} drops the chain below an ordinal, ending every list there. Keys left with
+ * no ordinal above it are dropped from a stripe's table the next time it is rebuilt.
+ */
+final class PostingIndex {
+
+  static final int END = -1;
+
+  private static final int STRIPE_BITS = 6;
+  private static final int CHUNK_BITS = 16;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+  // Previous ordinal with the same key, by ordinal
+  private final AtomicReferenceArray<int[]> next =
+      new AtomicReferenceArray<>(Integer.MAX_VALUE / CHUNK_SIZE + 1);
+  // Ordinals below this one have been released
+  private volatile int floor;
+
+  PostingIndex() {
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  void add(long key, int ordinal) {
+    long hash = mix(key);
+    Stripe stripe = stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    int[] chunk = chunk(ordinal);
+    synchronized (stripe) {
+      chunk[ordinal & (CHUNK_SIZE - 1)] = stripe.put(key, hash, ordinal, floor);
+    }
+  }
+
+  /**
+   * Passes the ordinals with the key to {@code visitor}, most recently added first, until it
+   * returns false.
+   */
+  void forEach(long key, IntPredicate visitor) {
+    long hash = mix(key);
+    Stripe stripe = stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    int ordinal;
+    synchronized (stripe) {
+      ordinal = stripe.get(key, hash);
+    }
+    while (ordinal != END && ordinal >= floor && visitor.test(ordinal)) {
+      int[] chunk = next.get(ordinal >>> CHUNK_BITS);
+      if (chunk == null) {
+        return;
+      }
+      ordinal = chunk[ordinal & (CHUNK_SIZE - 1)];
+    }
+  }
+
+  /**
+   * Forgets every ordinal below {@code ordinal}, which must be a multiple of 65,536.
+   */
+  void releaseBelow(int ordinal) {
+    floor = ordinal;
+    for (int index = (ordinal >>> CHUNK_BITS) - 1; index >= 0 && next.get(index) != null;
+        index--) {
+      next.set(index, null);
+    }
+  }
+
+  private int[] chunk(int ordinal) {
+    int index = ordinal >>> CHUNK_BITS;
+    int[] chunk = next.get(index);
+    if (chunk == null) {
+      next.compareAndSet(index, null, new int[CHUNK_SIZE]);
+      chunk = next.get(index);
+    }
+    return chunk;
+  }
+
+  private static long mix(long key) {
+    // MurmurHash3 finalizer, so nearby keys land in different stripes and slots
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    return key ^ (key >>> 33);
+  }
+
+  /**
+   * Open-addressing table from key to the head of its chain, guarded by its own monitor.
+   */
+  private static final class Stripe {
+
+    private long[] keys = new long[16];
+    private int[] heads = newHeads(16);
+    private int size;
+
+    int get(long key, long hash) {
+      int mask = keys.length - 1;
+      for (int slot = (int) hash & mask; heads[slot] != END; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return heads[slot];
+        }
+      }
+      return END;
+    }
+
+    /**
+     * Makes {@code ordinal} the key's head.
+     *
+     * @param floor keys whose head is below it may be dropped
+     * @return the previous head, or {@link #END}
+     */
+    int put(long key, long hash, int ordinal, int floor) {
+      int mask = keys.length - 1;
+      int slot = (int) hash & mask;
+      for (; heads[slot] != END; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          int previous = heads[slot];
+          heads[slot] = ordinal;
+          return previous;
+        }
+      }
+      keys[slot] = key;
+      heads[slot] = ordinal;
+      if (++size * 3 > keys.length * 2) {
+        rebuild(floor);
+      }
+      return END;
+    }
+
+    /**
+     * Rehashes the keys whose head is at or above {@code floor} into a table at most a third
+     * full.
+     */
+    private void rebuild(int floor) {
+      long[] oldKeys = keys;
+      int[] oldHeads = heads;
+      size = 0;
+      for (int head : oldHeads) {
+        if (head != END && head >= floor) {
+          size++;
+        }
+      }
+      int capacity = 16;
+      while (capacity < size * 3) {
+        capacity <<= 1;
+      }
+      keys = new long[capacity];
+      heads = newHeads(capacity);
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldHeads[i] != END && oldHeads[i] >= floor) {
+          int slot = (int) mix(oldKeys[i]) & mask;
+          while (heads[slot] != END) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = oldKeys[i];
+          heads[slot] = oldHeads[i];
+        }
+      }
+    }
+
+    private static int[] newHeads(int length) {
+      int[] heads = new int[length];
+      Arrays.fill(heads, END);
+      return heads;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.retention;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.ledger.PaymentArchive;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Applies the payment retention policy on a background thread. Each pass moves payments created
+ * more than {@code archive-after} ago from the live read model to the archive, which also
+ * drops the log segments and repository storage they used, then deletes archive files whose
+ * payments were all created more than {@code delete-after} ago.
+ *
+ * <p>
+ * Request threads never wait for a pass; see {@link PaymentLedger#archiveCreatedBefore}.
+ */
+public class RetentionEngine implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RetentionEngine.class);
+
+  private final PaymentLedger ledger;
+  private final PaymentArchive archive;
+  private final long archiveAfterMillis;
+  private final long deleteAfterMillis;
+  private final int filePayments;
+  private final LongSupplier clock;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * What one pass did.
+   *
+   * @param archived payments moved to the archive
+   * @param deleted archived payments deleted
+   */
+  public record Pass(long archived, long deleted) {
+  }
+
+  public RetentionEngine(ApplicationConfiguration.Retention settings, PaymentLedger ledger,
+      PaymentArchive archive, LongSupplier clock) {
+    if (settings.getDeleteAfter().compareTo(settings.getArchiveAfter()) < 0) {
+      throw new IllegalArgumentException("Retention delete-after must be at least archive-after");
+    }
+    this.ledger = ledger;
+    this.archive = archive;
+    this.archiveAfterMillis = settings.getArchiveAfter().toMillis();
+    this.deleteAfterMillis = settings.getDeleteAfter().toMillis();
+    this.filePayments = settings.getFilePayments();
+    this.clock = clock;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "payment-retention");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    long intervalMillis = settings.getInterval().toMillis();
+    scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMillis, intervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs a pass now, after any pass in progress.
+   */
+  public synchronized Pass runOnce() throws IOException {
+    long started = System.nanoTime();
+    long now = clock.getAsLong();
+    long archived = ledger.archiveCreatedBefore(now - archiveAfterMillis, filePayments);
+    long deleted = archive.deleteCreatedBefore(now - deleteAfterMillis);
+    LOG.info("Payment retention pass finished {} {} {} {}",
+        kv("archived", archived),
+        kv("deleted", deleted),
+        kv("archivedPayments", archive.size()),
+        kv("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+    return new Pass(archived, deleted);
+  }
+
+  /**
+   * Stops scheduling passes, letting one in progress finish.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runQuietly() {
+    try {
+      runOnce();
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Payment retention pass failed {}", kv("error", ex.getMessage()));
+    }
+  }
+}
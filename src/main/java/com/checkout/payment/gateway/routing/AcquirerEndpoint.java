@@ -0,0 +1,154 @@
+package com.checkout.payment.gateway.routing;
+
+import com.checkout.payment.gateway.enums.CardScheme;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * One acquiring bank the gateway can route to, with its live load: requests in flight and a
+ * peak-sensitive moving average of response times.
+ *
+ * <p>
+ * A response slower than the average replaces it at once, while faster ones pull it down
+ * gradually, so a struggling acquirer is avoided immediately and trusted again over time. Failures
+ * are blended in rather than replacing the average, because a 503 is also how the bank answers
+ * some cards: every acquirer sees those, and one would otherwise look as bad as one that is down.
+ * The average also fades towards zero while the acquirer gets no traffic, so an acquirer that was
+ * avoided is eventually tried again.
+ */
+public final class AcquirerEndpoint {
+
+  /** Smallest share of the average each new sample gets, however close together samples are. */
+  private static final double MIN_SAMPLE_WEIGHT = 0.1;
+
+  private final String name;
+  private final String url;
+  private final int weight;
+  private final Set<String> currencies;
+  private final Set<CardScheme> schemes;
+  private final List<String> binPrefixes;
+  private final double decayNanos;
+  private final long failurePenaltyNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private double latencyNanos;
+  private long observedAt;
+
+  AcquirerEndpoint(String name, String url, int weight, Set<String> currencies,
+      Set<CardScheme> schemes, List<String> binPrefixes, long decayNanos,
+      long failurePenaltyNanos, LongSupplier nanoClock) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("Acquirer weight must be positive: " + name);
+    }
+    this.name = name;
+    this.url = url;
+    this.weight = weight;
+    this.currencies = currencies;
+    this.schemes = schemes;
+    this.binPrefixes = binPrefixes;
+    this.decayNanos = decayNanos;
+    this.failurePenaltyNanos = failurePenaltyNanos;
+    this.nanoClock = nanoClock;
+    this.observedAt = nanoClock.getAsLong();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  public int getOutstanding() {
+    return outstanding.get();
+  }
+
+  /**
+   * Current moving average of response times, in nanoseconds.
+   */
+  public synchronized double getLatencyNanos() {
+    return decayed(nanoClock.getAsLong());
+  }
+
+  /**
+   * Marks a request as sent and returns its start time for {@link #succeeded} or
+   * {@link #failed}.
+   */
+  public long begin() {
+    outstanding.incrementAndGet();
+    return nanoClock.getAsLong();
+  }
+
+  /**
+   * Records a request the acquirer answered, whatever the answer.
+   */
+  public void succeeded(long startNanos) {
+    long now = nanoClock.getAsLong();
+    outstanding.decrementAndGet();
+    observe(now - startNanos, now, true);
+  }
+
+  /**
+   * Records a request the acquirer could not serve, charged at least the failure penalty.
+   */
+  public void failed(long startNanos) {
+    long now = nanoClock.getAsLong();
+    outstanding.decrementAndGet();
+    observe(Math.max(now - startNanos, failurePenaltyNanos), now, false);
+  }
+
+  boolean accepts(String currency, CardScheme scheme) {
+    return (currencies.isEmpty() || (currency != null && currencies.contains(currency)))
+        && (schemes.isEmpty() || schemes.contains(scheme));
+  }
+
+  boolean hasSchemeRestriction() {
+    return !schemes.isEmpty();
+  }
+
+  boolean hasBinPreference() {
+    return !binPrefixes.isEmpty();
+  }
+
+  boolean matchesBin(String cardNumber) {
+    if (cardNumber == null) {
+      return false;
+    }
+    for (String prefix : binPrefixes) {
+      if (cardNumber.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Expected cost of sending one more request here: the latency it would wait behind the
+   * requests already in flight, scaled down by weight.
+   */
+  double cost() {
+    return (getLatencyNanos() + 1) * (outstanding.get() + 1) / weight;
+  }
+
+  private synchronized void observe(long sampleNanos, long now, boolean peak) {
+    double weightOfPast = Math.min(fade(now), 1 - MIN_SAMPLE_WEIGHT);
+    double average = latencyNanos * weightOfPast + sampleNanos * (1 - weightOfPast);
+    latencyNanos = peak ? Math.max(sampleNanos, average) : average;
+    observedAt = now;
+  }
+
+  private double decayed(long now) {
+    return latencyNanos * fade(now);
+  }
+
+  private double fade(long now) {
+    return Math.exp(-Math.max(0, now - observedAt) / decayNanos);
+  }
+}
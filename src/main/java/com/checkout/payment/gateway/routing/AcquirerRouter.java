@@ -0,0 +1,135 @@
+package com.checkout.payment.gateway.routing;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.CardScheme;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses the acquiring bank for each payment.
+ *
+ * <p>
+ * Only acquirers accepting the payment's currency and card scheme (from the {@link BinTable}) are
+ * considered, and of those, acquirers with a BIN prefix matching the card are preferred. Among
+ * the rest, the {@code least-latency} strategy
+ * picks the lowest {@link AcquirerEndpoint#cost()}, so traffic shifts away from slow or failing
+ * acquirers as soon as they slow down, while {@code weighted} splits traffic by weight alone.
+ * Ties are broken at random. Callers fail over by asking again with the acquirers already tried.
+ */
+public class AcquirerRouter {
+
+  public static final String LEAST_LATENCY = "least-latency";
+  public static final String WEIGHTED = "weighted";
+
+  private final List<AcquirerEndpoint> endpoints;
+  private final boolean leastLatency;
+  private final BinTable binTable;
+  private final boolean routesByScheme;
+
+  AcquirerRouter(List<AcquirerEndpoint> endpoints, String strategy, BinTable binTable) {
+    if (endpoints.isEmpty()) {
+      throw new IllegalArgumentException("At least one acquirer is required");
+    }
+    if (!LEAST_LATENCY.equals(strategy) && !WEIGHTED.equals(strategy)) {
+      throw new IllegalArgumentException("Unknown routing strategy: " + strategy);
+    }
+    this.endpoints = List.copyOf(endpoints);
+    this.leastLatency = LEAST_LATENCY.equals(strategy);
+    this.binTable = binTable;
+    this.routesByScheme = endpoints.stream().anyMatch(AcquirerEndpoint::hasSchemeRestriction);
+  }
+
+  /**
+   * Builds the router from {@code payment.gateway.acquirers}, or a single acquirer at
+   * {@code payment.gateway.bank-url} when none are configured.
+   */
+  public static AcquirerRouter fromConfig(ApplicationConfiguration config, BinTable binTable) {
+    return fromConfig(config, binTable, System::nanoTime);
+  }
+
+  static AcquirerRouter fromConfig(ApplicationConfiguration config, BinTable binTable,
+      LongSupplier nanoClock) {
+    ApplicationConfiguration.Routing routing = config.getRouting();
+    long decayNanos = routing.getLatencyDecay().toNanos();
+    long penaltyNanos = routing.getFailurePenalty().toNanos();
+    List<AcquirerEndpoint> endpoints = new ArrayList<>();
+    if (config.getAcquirers().isEmpty()) {
+      endpoints.add(new AcquirerEndpoint("default", config.getBankUrl(), 1, Set.of(), Set.of(),
+          List.of(), decayNanos, penaltyNanos, nanoClock));
+    }
+    for (ApplicationConfiguration.Acquirer acquirer : config.getAcquirers()) {
+      Set<String> currencies = acquirer.getCurrencies().stream()
+          .map(currency -> currency.trim().toUpperCase(Locale.ROOT))
+          .collect(Collectors.toUnmodifiableSet());
+      Set<CardScheme> schemes = EnumSet.noneOf(CardScheme.class);
+      for (String scheme : acquirer.getSchemes()) {
+        schemes.add(CardScheme.valueOf(scheme.trim().toUpperCase(Locale.ROOT)));
+      }
+      String name = acquirer.getName() == null ? acquirer.getUrl() : acquirer.getName();
+      endpoints.add(new AcquirerEndpoint(name, acquirer.getUrl(), acquirer.getWeight(),
+          currencies, schemes, List.copyOf(acquirer.getBinPrefixes()), decayNanos, penaltyNanos,
+          nanoClock));
+    }
+    return new AcquirerRouter(endpoints, routing.getStrategy(), binTable);
+  }
+
+  public List<AcquirerEndpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  /**
+   * Returns the acquirer for a payment, or null when no acquirer outside {@code tried} can take
+   * it.
+   *
+   * @param currency canonical currency code of the payment
+   * @param cardNumber full card number, used for BIN preferences
+   * @param tried acquirers already attempted for this payment
+   */
+  public AcquirerEndpoint select(String currency, String cardNumber,
+      Collection<AcquirerEndpoint> tried) {
+    CardScheme scheme = routesByScheme ? binTable.schemeOf(cardNumber) : CardScheme.UNKNOWN;
+    boolean binMatched = false;
+    for (AcquirerEndpoint endpoint : endpoints) {
+      if (endpoint.hasBinPreference() && endpoint.accepts(currency, scheme)
+          && endpoint.matchesBin(cardNumber) && !tried.contains(endpoint)) {
+        binMatched = true;
+        break;
+      }
+    }
+
+    int size = endpoints.size();
+    int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+    AcquirerEndpoint best = null;
+    double bestScore = Double.MAX_VALUE;
+    int totalWeight = 0;
+    for (int i = 0; i < size; i++) {
+      AcquirerEndpoint endpoint = endpoints.get((start + i) % size);
+      if (!endpoint.accepts(currency, scheme) || tried.contains(endpoint)
+          || (binMatched && !endpoint.matchesBin(cardNumber))) {
+        continue;
+      }
+      if (leastLatency) {
+        double cost = endpoint.cost();
+        if (cost < bestScore) {
+          best = endpoint;
+          bestScore = cost;
+        }
+      } else {
+        // Weighted reservoir sampling: keeps each candidate with probability weight / total
+        totalWeight += endpoint.getWeight();
+        if (ThreadLocalRandom.current().nextInt(totalWeight) < endpoint.getWeight()) {
+          best = endpoint;
+        }
+      }
+    }
+    return best;
+  }
+}
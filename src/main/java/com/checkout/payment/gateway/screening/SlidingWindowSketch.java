@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.screening;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-key counts over a sliding time window, in fixed memory and without locks.
+ *
+ * <p>
+ * The window is split into {@code buckets} slices, each holding a count-min sketch of
+ * {@value #DEPTH} rows. A count is the smallest, over the rows, of the key's counters summed over
+ * the slices still inside the window, so it can overcount on hash collisions but never
+ * undercounts. Counters for the same row and column are adjacent across slices, so summing a row
+ * reads one cache line. Each counter carries the slice epoch it counts for in its upper half.
+ * Slices are never cleared: a counter of an older epoch reads as zero and starts again at one
+ * when next incremented, in the same compare-and-set as the increment, so time moving on costs
+ * no request anything extra and no increment is lost.
+ */
+public final class SlidingWindowSketch {
+
+  static final int DEPTH = 4;
+
+  private static final long COUNT_MASK = 0xffffffffL;
+
+  private final int buckets;
+  private final long bucketMillis;
+  private final int width;
+  // Epoch in the upper 32 bits, count in the lower 32
+  private final AtomicLongArray counters;
+
+  /**
+   * @param windowMillis length of the window
+   * @param buckets slices the window is divided into
+   * @param width counters per row, rounded up to a power of two
+   */
+  public SlidingWindowSketch(long windowMillis, int buckets, int width) {
+    if (buckets <= 0 || width <= 0 || windowMillis < buckets) {
+      throw new IllegalArgumentException("Invalid sketch dimensions");
+    }
+    this.buckets = buckets;
+    this.bucketMillis = windowMillis / buckets;
+    this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+    this.counters = new AtomicLongArray(DEPTH * this.width * buckets);
+  }
+
+  /**
+   * Counts one occurrence of the key and returns its estimated count within the window,
+   * including this one.
+   */
+  public int incrementAndEstimate(long keyHash, long nowMillis) {
+    long epoch = nowMillis / bucketMillis;
+    int current = (int) Math.floorMod(epoch, (long) buckets);
+    int h1 = (int) keyHash;
+    int h2 = (int) (keyHash >>> 32) | 1;
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      int base = (row * width + ((h1 + row * h2) & (width - 1))) * buckets;
+      int sum = increment(base + current, (int) epoch);
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        if (bucket != current) {
+          long counter = counters.get(base + bucket);
+          // Epochs are compared by difference, so they may wrap around 32 bits
+          int age = (int) epoch - (int) (counter >>> 32);
+          if (age > 0 && age < buckets) {
+            sum += (int) (counter & COUNT_MASK);
+          }
+        }
+      }
+      estimate = Math.min(estimate, sum);
+    }
+    return estimate;
+  }
+
+  /**
+   * Hashes a key with a seed, without allocating. Seeds should be random per process so
+   * colliding keys cannot be chosen in advance.
+   */
+  public static long hash(CharSequence key, long seed) {
+    long hash = seed ^ 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+    }
+    // MurmurHash3 finalizer, so every input bit affects both halves
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Adds one to a counter for the epoch, restarting it if it still holds an older epoch's count.
+   * A thread late enough to see a newer epoch adds to that one, which can only overcount.
+   */
+  private int increment(int index, int epoch) {
+    while (true) {
+      long counter = counters.get(index);
+      int counted = (int) (counter >>> 32);
+      long next = epoch - counted > 0
+          ? (long) epoch << 32 | 1
+          : counter + 1;
+      if (counters.compareAndSet(index, counter, next)) {
+        return (int) (next & COUNT_MASK);
+      }
+    }
+  }
+}
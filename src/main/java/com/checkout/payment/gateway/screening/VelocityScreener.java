@@ -0,0 +1,94 @@
+package com.checkout.payment.gateway.screening;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ScreeningException;
+import com.checkout.payment.gateway.model.PaymentOrigin;
+import java.security.SecureRandom;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pre-authorization screening that refuses a payment when its card, client IP or authenticated
+ * merchant has made too many attempts within the configured window. Every screened attempt is counted, whether
+ * or not it is refused, so a card being tested keeps getting refused until it slows down.
+ *
+ * <p>
+ * Counts come from one {@link SlidingWindowSketch} per dimension, so memory stays fixed however
+ * many distinct cards or addresses are seen, and screening never takes a lock. Keys are hashed
+ * with a random seed chosen at startup; card numbers are never stored.
+ */
+@Component
+public class VelocityScreener {
+
+  private final ApplicationConfiguration.Screening settings;
+  private final LongSupplier clock;
+  private final SlidingWindowSketch cards;
+  private final SlidingWindowSketch clientIps;
+  private final SlidingWindowSketch merchants;
+  private final long cardSeed;
+  private final long clientIpSeed;
+  private final long merchantSeed;
+
+  @Autowired
+  public VelocityScreener(ApplicationConfiguration config) {
+    this(config.getScreening(), System::currentTimeMillis);
+  }
+
+  public VelocityScreener(ApplicationConfiguration.Screening settings, LongSupplier clock) {
+    this.settings = settings;
+    this.clock = clock;
+    this.cards = sketch(settings, settings.getCardLimit());
+    this.clientIps = sketch(settings, settings.getIpLimit());
+    this.merchants = sketch(settings, settings.getMerchantLimit());
+    SecureRandom random = new SecureRandom();
+    this.cardSeed = random.nextLong();
+    this.clientIpSeed = random.nextLong();
+    this.merchantSeed = random.nextLong();
+  }
+
+  /**
+   * Counts the attempt and checks it against the limits.
+   *
+   * @throws ScreeningException if a limit is exceeded
+   */
+  public void screen(String cardNumber, PaymentOrigin origin) {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    long now = clock.getAsLong();
+    boolean cardExceeded = exceeds(cards, cardNumber, cardSeed, settings.getCardLimit(), now);
+    boolean ipExceeded = exceeds(clientIps, origin.clientIp(), clientIpSeed,
+        settings.getIpLimit(), now);
+    // Only an authenticated merchant is counted: a claimed ID could be rotated to dodge the
+    // limit, or borrowed to use up another merchant's
+    boolean merchantExceeded = exceeds(merchants, origin.owner(), merchantSeed,
+        settings.getMerchantLimit(), now);
+    if (cardExceeded) {
+      throw new ScreeningException("Too many attempts for this card");
+    }
+    if (ipExceeded) {
+      throw new ScreeningException("Too many attempts from this client");
+    }
+    if (merchantExceeded) {
+      throw new ScreeningException("Too many attempts for this merchant");
+    }
+  }
+
+  private static boolean exceeds(SlidingWindowSketch sketch, String key, long seed, int limit,
+      long now) {
+    if (sketch == null || key == null) {
+      return false;
+    }
+    return sketch.incrementAndEstimate(SlidingWindowSketch.hash(key, seed), now) > limit;
+  }
+
+  private static SlidingWindowSketch sketch(ApplicationConfiguration.Screening settings,
+      int limit) {
+    if (!settings.isEnabled() || limit <= 0) {
+      return null;
+    }
+    return new SlidingWindowSketch(settings.getWindow().toMillis(), settings.getBuckets(),
+        settings.getSketchWidth());
+  }
+}
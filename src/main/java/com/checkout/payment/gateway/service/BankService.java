@@ -1,7 +1,20 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
 import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
 import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.profiling.BankCallEvent;
+import com.checkout.payment.gateway.routing.AcquirerEndpoint;
+import com.checkout.payment.gateway.routing.AcquirerRouter;
+import com.checkout.payment.gateway.tuning.BankCallLimiter;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -13,60 +26,143 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 /**
  * Service for communicating with the acquiring bank API.
+ *
+ * <p>
+ * Each payment goes to the acquirer chosen by {@link AcquirerRouter}. When that acquirer answers
+ * 503 or refuses the connection, the payment has not been processed there and is retried on the
+ * next best acquirer. Other failures, such as read timeouts, are not retried because the bank
+ * may already have authorized the payment.
+ *
+ * <p>
+ * {@link BankCallLimiter} bounds the calls in progress and shares them fairly between merchants.
+ * A payment that gets no slot is not sent to any acquirer and is rejected like one the banks
+ * turned away.
  */
 @Service
 public class BankService {
 
-  private static final String ACQUIRING_BANK_URL = "http://localhost:8080/payments";
   private static final Logger LOG = LoggerFactory.getLogger(BankService.class);
 
   private final RestTemplate restTemplate;
+  private final AcquirerRouter router;
+  private final BankCallLimiter callLimiter;
+  private final TextMapPropagator propagator;
 
-  public BankService(final RestTemplate restTemplate) {
+  public BankService(final RestTemplate restTemplate, final ApplicationConfiguration config,
+      final OpenTelemetry openTelemetry, final BinTable binTable) {
     this.restTemplate = restTemplate;
+    this.router = AcquirerRouter.fromConfig(config, binTable);
+    this.callLimiter = BankCallLimiter.fromConfig(config.getTuning(), config.getTenants());
+    this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+  }
+
+  /**
+   * Submits the request of a payment without a merchant; see
+   * {@link #submitBankRequest(GetAcquiringBankRequest, String)}.
+   */
+  public GetAcquiringBankResponse submitBankRequest(GetAcquiringBankRequest request) {
+    return submitBankRequest(request, null);
   }
 
   /**
    * Submits a payment request to the acquiring bank.
    *
    * @param request the payment request to submit
+   * @param merchantId the merchant whose payment it is, which decides its share of bank calls
    * @return the bank's response if successful, null if an error occurs
    */
-  public GetAcquiringBankResponse submitBankRequest(GetAcquiringBankRequest request) {
+  public GetAcquiringBankResponse submitBankRequest(GetAcquiringBankRequest request,
+      String merchantId) {
+    if (!callLimiter.tryAcquire(merchantId)) {
+      LOG.warn("Too many bank calls in progress {} {}",
+          kv("maxConcurrentCalls", callLimiter.getMaxConcurrent()), kv("merchantId", merchantId));
+      BankCallEvent.start(null).finish(BankCallEvent.NO_SLOT);
+      return null;
+    }
+    try {
+      return submit(request);
+    } finally {
+      callLimiter.release();
+    }
+  }
+
+  private GetAcquiringBankResponse submit(GetAcquiringBankRequest request) {
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
+    // Pass the current trace on so the bank's spans join the payment's trace
+    propagator.inject(Context.current(), headers, HttpHeaders::set);
     HttpEntity<GetAcquiringBankRequest> entity = new HttpEntity<>(request, headers);
 
-    try {
-      // 200 OK -> authorized or unauthorized (based on card number)
-      ResponseEntity<GetAcquiringBankResponse> response =
-          restTemplate.exchange(
-              ACQUIRING_BANK_URL,
-              HttpMethod.POST,
-              entity,
-              GetAcquiringBankResponse.class
-          );
-
-      return response.getBody();
-
-    } catch (HttpClientErrorException.BadRequest ex) {
-      // 400 -> missing required fields
-      LOG.warn("Bad request from bank: {}", ex.getResponseBodyAsString());
-      return null;
+    List<AcquirerEndpoint> tried = new ArrayList<>(2);
+    AcquirerEndpoint acquirer;
+    while ((acquirer = router.select(request.getCurrency(), request.getCardNumber(), tried))
+        != null) {
+      tried.add(acquirer);
+      Span.current().setAttribute("payment.acquirer", acquirer.getName());
+      BankCallEvent event = BankCallEvent.start(acquirer.getName());
+      long started = acquirer.begin();
+      try {
+        // 200 OK -> authorized or unauthorized (based on card number)
+        ResponseEntity<GetAcquiringBankResponse> response =
+            restTemplate.exchange(
+                acquirer.getUrl(),
+                HttpMethod.POST,
+                entity,
+                GetAcquiringBankResponse.class
+            );
+        acquirer.succeeded(started);
+        event.finish(response.getBody());
+        return response.getBody();
 
-    } catch (HttpServerErrorException.ServiceUnavailable ex) {
-      // 503 -> card ends with 0
-      LOG.warn("Bank unavailable: {}", ex.getResponseBodyAsString());
-      return null;
+      } catch (HttpClientErrorException.BadRequest ex) {
+        // 400 -> missing required fields
+        acquirer.succeeded(started);
+        event.finish(BankCallEvent.BAD_REQUEST);
+        LOG.warn("Bad request from bank {} {}", kv("acquirer", acquirer.getName()),
+            kv("bankResponse", ex.getResponseBodyAsString()));
+        return null;
 
-    } catch (RestClientException ex) {
-      // Any other unexpected errors
-      LOG.warn("Unexpected error calling bank: {}", ex.getMessage());
-      return null;
+      } catch (HttpServerErrorException.ServiceUnavailable ex) {
+        // 503 -> card ends with 0, or the acquirer is overloaded; try the next one
+        acquirer.failed(started);
+        event.finish(BankCallEvent.UNAVAILABLE);
+        LOG.warn("Bank unavailable {} {}", kv("acquirer", acquirer.getName()),
+            kv("bankResponse", ex.getResponseBodyAsString()));
+
+      } catch (ResourceAccessException ex) {
+        acquirer.failed(started);
+        boolean refused = ex.getCause() instanceof ConnectException;
+        event.finish(refused ? BankCallEvent.UNREACHABLE : BankCallEvent.FAILED);
+        LOG.warn("Could not reach bank {} {}", kv("acquirer", acquirer.getName()),
+            kv("error", ex.getMessage()));
+        if (!refused) {
+          return null;
+        }
+
+      } catch (RestClientException ex) {
+        // Any other unexpected errors
+        acquirer.failed(started);
+        event.finish(BankCallEvent.FAILED);
+        LOG.warn("Unexpected error calling bank {} {}", kv("acquirer", acquirer.getName()),
+            kv("error", ex.getMessage()));
+        return null;
+      }
     }
+    return null;
+  }
+
+  public AcquirerRouter getRouter() {
+    return router;
+  }
+
+  public BankCallLimiter getCallLimiter() {
+    return callLimiter;
   }
 }
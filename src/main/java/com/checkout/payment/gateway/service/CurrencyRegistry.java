@@ -0,0 +1,141 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration.CurrencySettings;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Service;
+
+/**
+ * Table of the currencies the gateway accepts, built once from
+ * {@code payment.gateway.supported-currencies} and {@code payment.gateway.currency-settings}.
+ *
+ * <p>
+ * Each supported currency gets a small numeric code (1, 2, 3, ... in configuration order; 0 means
+ * unsupported). Lookups index a flat {@code short[26 * 26 * 26]} table with the three letters,
+ * folding case arithmetically, so resolving a code neither allocates nor hashes. Per-currency
+ * metadata lives in arrays indexed by that code, and the canonical upper-case code is a single
+ * shared {@code String} per currency, which is what stored payments and bank requests reference.
+ */
+@Service
+public class CurrencyRegistry {
+
+  public static final int UNKNOWN = 0;
+
+  private static final int LETTERS = 26;
+  private static final int CODE_LENGTH = 3;
+
+  private final short[] codesByLetters = new short[LETTERS * LETTERS * LETTERS];
+  private final String[] alphaCodes;
+  private final byte[] minorUnits;
+  private final int[] maxAmounts;
+
+  public CurrencyRegistry(ApplicationConfiguration config) {
+    List<String> supported = config.getSupportedCurrencies();
+    Map<String, CurrencySettings> settings = config.getCurrencySettings();
+    alphaCodes = new String[supported.size() + 1];
+    minorUnits = new byte[supported.size() + 1];
+    maxAmounts = new int[supported.size() + 1];
+
+    short next = 1;
+    for (String currency : supported) {
+      String alpha = currency.trim().toUpperCase();
+      int index = indexOf(alpha);
+      if (index < 0) {
+        throw new IllegalArgumentException("Invalid currency code: " + currency);
+      }
+      if (codesByLetters[index] != UNKNOWN) {
+        continue;
+      }
+      CurrencySettings currencySettings = settings.get(alpha);
+      codesByLetters[index] = next;
+      alphaCodes[next] = alpha;
+      minorUnits[next] = (byte) resolveMinorUnits(alpha, currencySettings);
+      maxAmounts[next] = resolveMaxAmount(minorUnits[next], currencySettings);
+      next++;
+    }
+  }
+
+  /**
+   * Returns the numeric code for a currency, ignoring case, or {@link #UNKNOWN}.
+   */
+  public int codeOf(CharSequence currency) {
+    if (currency == null || currency.length() != CODE_LENGTH) {
+      return UNKNOWN;
+    }
+    int index = indexOf(currency);
+    return index < 0 ? UNKNOWN : codesByLetters[index];
+  }
+
+  /**
+   * Number of supported currencies; their codes run from 1 to this.
+   */
+  public int size() {
+    return alphaCodes.length - 1;
+  }
+
+  /**
+   * Returns the shared upper-case ISO code for a numeric code.
+   */
+  public String alphaCode(int code) {
+    return alphaCodes[code];
+  }
+
+  public int minorUnits(int code) {
+    return minorUnits[code];
+  }
+
+  /**
+   * Returns the largest accepted amount in minor units.
+   */
+  public int maxAmount(int code) {
+    return maxAmounts[code];
+  }
+
+  /**
+   * Returns the shared upper-case instance for a supported currency, or the input unchanged.
+   */
+  public String canonical(String currency) {
+    int code = codeOf(currency);
+    return code == UNKNOWN ? currency : alphaCodes[code];
+  }
+
+  /**
+   * Maps three ASCII letters of either case to 0..17575, or -1 for anything else.
+   */
+  private static int indexOf(CharSequence currency) {
+    int index = 0;
+    for (int i = 0; i < CODE_LENGTH; i++) {
+      int letter = (currency.charAt(i) | 0x20) - 'a';
+      if (letter < 0 || letter >= LETTERS) {
+        return -1;
+      }
+      index = index * LETTERS + letter;
+    }
+    return index;
+  }
+
+  private static int resolveMinorUnits(String alpha, CurrencySettings settings) {
+    if (settings != null && settings.getMinorUnits() != null) {
+      return settings.getMinorUnits();
+    }
+    try {
+      return Math.max(0, Currency.getInstance(alpha).getDefaultFractionDigits());
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unknown currency " + alpha
+          + ", configure payment.gateway.currency-settings." + alpha + ".minor-units", ex);
+    }
+  }
+
+  private static int resolveMaxAmount(int minorUnits, CurrencySettings settings) {
+    if (settings == null || settings.getMaxAmount() == null) {
+      return Integer.MAX_VALUE;
+    }
+    long max = settings.getMaxAmount();
+    for (int i = 0; i < minorUnits && max <= Integer.MAX_VALUE; i++) {
+      max *= 10;
+    }
+    return (int) Math.min(max, Integer.MAX_VALUE);
+  }
+}
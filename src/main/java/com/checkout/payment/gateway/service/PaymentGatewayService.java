@@ -1,61 +1,292 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.decline.DeclineCache;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStage;
 import com.checkout.payment.gateway.enums.PaymentStatus;
 import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.exception.PaymentStateException;
+import com.checkout.payment.gateway.exception.ScreeningException;
+import com.checkout.payment.gateway.exception.ServiceUnavailableException;
 import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.logging.CardDataMasker;
 import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
 import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PaymentEventResponse;
+import com.checkout.payment.gateway.model.PaymentOrigin;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 /**
  * Service for processing payment transactions through the gateway.
- * Validates requests, communicates with acquiring banks, and persists payment records.
+ * Validates requests, communicates with acquiring banks, and records every step as an event in
+ * the payment ledger, which keeps {@link PaymentsRepository} up to date.
+ *
+ * <p>
+ * Payments belong to the merchant that made them when merchants are authenticated, and every
+ * lookup takes the calling merchant: another merchant's payment is not found. The methods
+ * without a merchant work on payments without one.
  */
 @Service
 public class PaymentGatewayService {
 
+  public static final int MAX_SEARCH_RESULTS = 1000;
+
   private static final Logger LOG = LoggerFactory.getLogger(PaymentGatewayService.class);
   private static final int LAST_FOUR_DIGITS_LENGTH = 4;
+  private static final String PAYMENT_ID_MDC_KEY = "paymentId";
 
   private final PaymentsRepository paymentsRepository;
   private final PaymentValidator paymentValidator;
   private final BankService bankService;
+  private final PaymentInstrumentation instrumentation;
+  private final CurrencyRegistry currencyRegistry;
+  private final PaymentLedger paymentLedger;
+  private final VelocityScreener velocityScreener;
+  private final PaymentDrain paymentDrain;
+  private final DeclineCache declineCache;
 
   public PaymentGatewayService(
       PaymentsRepository paymentsRepository,
       PaymentValidator paymentValidator,
-      BankService bankService
+      BankService bankService,
+      PaymentInstrumentation instrumentation,
+      CurrencyRegistry currencyRegistry,
+      PaymentLedger paymentLedger,
+      VelocityScreener velocityScreener,
+      PaymentDrain paymentDrain,
+      DeclineCache declineCache
   ) {
     this.paymentsRepository = paymentsRepository;
     this.paymentValidator = paymentValidator;
     this.bankService = bankService;
+    this.instrumentation = instrumentation;
+    this.currencyRegistry = currencyRegistry;
+    this.paymentLedger = paymentLedger;
+    this.velocityScreener = velocityScreener;
+    this.paymentDrain = paymentDrain;
+    this.declineCache = declineCache;
+  }
+
+  public PostPaymentResponse getPaymentById(UUID id) {
+    return getPaymentById(null, id);
   }
 
   /**
-   * Retrieves a payment by its unique identifier.
+   * Retrieves a payment by its unique identifier, from the archive if it has been moved there.
    *
+   * @param merchantId the calling merchant, or null
    * @param id the payment UUID
    * @return the payment response
    * @throws EventProcessingException if payment not found
    */
-  public PostPaymentResponse getPaymentById(UUID id) {
-    LOG.debug("Requesting access to to payment with ID {}", id);
-    return paymentsRepository.get(id).orElseThrow(() -> new EventProcessingException("Invalid ID"));
+  public PostPaymentResponse getPaymentById(String merchantId, UUID id) {
+    LOG.debug("Requesting access to payment {}", kv(PAYMENT_ID_MDC_KEY, id));
+    return paymentsRepository.get(merchantId, id)
+        .or(() -> paymentLedger.findArchived(id)
+            .filter(payment -> Objects.equals(payment.getMerchantId(), merchantId)))
+        .orElseThrow(() -> new EventProcessingException("Invalid ID"))
+        .snapshot();
+  }
+
+  public List<PaymentEventResponse> getPaymentHistory(UUID id) {
+    return getPaymentHistory(null, id);
+  }
+
+  /**
+   * Returns every recorded event of a payment, oldest first.
+   *
+   * @param merchantId the calling merchant, or null
+   * @param id the payment UUID
+   * @return the payment's history
+   * @throws EventProcessingException if payment not found
+   */
+  public List<PaymentEventResponse> getPaymentHistory(String merchantId, UUID id) {
+    List<PaymentEvent> events = paymentLedger.history(id);
+    if (events.isEmpty() || !Objects.equals(events.get(0).merchantId(), merchantId)) {
+      throw new EventProcessingException("Invalid ID");
+    }
+    return events.stream().map(PaymentGatewayService::toEventResponse).toList();
+  }
+
+  public List<PostPaymentResponse> searchPayments(String reference, Integer cardNumberLastFour,
+      Integer amount, String status, int limit) {
+    return searchPayments(null, reference, cardNumberLastFour, amount, status, limit);
+  }
+
+  /**
+   * Finds the merchant's payments by one criterion: its reference, the card's last four digits
+   * together with the amount, or the current status.
+   *
+   * @param merchantId the calling merchant, or null
+   * @param status a status as it appears in responses, such as {@code Partially Captured}
+   * @param limit the most payments to return, from 1 to {@link #MAX_SEARCH_RESULTS}
+   * @return matching payments, most recent first
+   * @throws ValidationException if not exactly one criterion is given, or it is invalid
+   */
+  public List<PostPaymentResponse> searchPayments(String merchantId, String reference,
+      Integer cardNumberLastFour, Integer amount, String status, int limit) {
+    if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+      throw new ValidationException("Limit must be between 1 and " + MAX_SEARCH_RESULTS);
+    }
+    boolean byCard = cardNumberLastFour != null || amount != null;
+    if ((reference != null ? 1 : 0) + (byCard ? 1 : 0) + (status != null ? 1 : 0) != 1) {
+      throw new ValidationException(
+          "Search by one of reference, card_number_last_four with amount, or status");
+    }
+    List<PostPaymentResponse> found;
+    if (reference != null) {
+      found = paymentsRepository.findByReference(merchantId, reference, limit);
+    } else if (byCard) {
+      if (cardNumberLastFour == null || amount == null) {
+        throw new ValidationException("card_number_last_four and amount must be given together");
+      }
+      found = paymentsRepository.findByCardAndAmount(merchantId, cardNumberLastFour, amount,
+          limit);
+    } else {
+      found = paymentsRepository.findByStatus(merchantId, statusNamed(status), limit);
+    }
+    return found.stream().map(PostPaymentResponse::snapshot).toList();
+  }
+
+  public PostPaymentResponse capturePayment(UUID id, Integer amount) {
+    return capturePayment(null, id, amount);
+  }
+
+  /**
+   * Captures an authorized payment, in full or in part. Partial captures can be repeated until the
+   * authorized amount is reached.
+   *
+   * @param merchantId the calling merchant, or null
+   * @param id the payment UUID
+   * @param amount amount to capture in minor units, or null for everything not yet captured
+   * @return the payment after the capture
+   * @throws EventProcessingException if payment not found
+   * @throws ValidationException if the amount is not positive
+   * @throws PaymentStateException if the payment cannot be captured
+   */
+  public PostPaymentResponse capturePayment(String merchantId, UUID id, Integer amount) {
+    PostPaymentResponse payment = findPayment(merchantId, id);
+    int captured = payment.capture(requestedAmount(amount));
+    paymentLedger.record(PaymentEventType.CAPTURED, payment);
+    LOG.info("Payment captured {} {}", kv(PAYMENT_ID_MDC_KEY, id), kv("amount", captured));
+    return payment.snapshot();
+  }
+
+  public PostPaymentResponse voidPayment(UUID id) {
+    return voidPayment(null, id);
+  }
+
+  /**
+   * Voids an authorized payment that has not been captured.
+   *
+   * @param merchantId the calling merchant, or null
+   * @param id the payment UUID
+   * @return the payment after the void
+   * @throws EventProcessingException if payment not found
+   * @throws PaymentStateException if the payment is not authorized or was captured
+   */
+  public PostPaymentResponse voidPayment(String merchantId, UUID id) {
+    PostPaymentResponse payment = findPayment(merchantId, id);
+    payment.voidAuthorization();
+    paymentLedger.record(PaymentEventType.VOIDED, payment);
+    LOG.info("Payment voided {}", kv(PAYMENT_ID_MDC_KEY, id));
+    return payment.snapshot();
+  }
+
+  public PostPaymentResponse refundPayment(UUID id, Integer amount) {
+    return refundPayment(null, id, amount);
+  }
+
+  /**
+   * Refunds a captured payment, in full or in part.
+   *
+   * @param merchantId the calling merchant, or null
+   * @param id the payment UUID
+   * @param amount amount to refund in minor units, or null for everything not yet refunded
+   * @return the payment after the refund
+   * @throws EventProcessingException if payment not found
+   * @throws ValidationException if the amount is not positive
+   * @throws PaymentStateException if nothing refundable has been captured
+   */
+  public PostPaymentResponse refundPayment(String merchantId, UUID id, Integer amount) {
+    PostPaymentResponse payment = findPayment(merchantId, id);
+    int refunded = payment.refund(requestedAmount(amount));
+    paymentLedger.record(PaymentEventType.REFUNDED, payment);
+    LOG.info("Payment refunded {} {}", kv(PAYMENT_ID_MDC_KEY, id), kv("amount", refunded));
+    return payment.snapshot();
+  }
+
+  private PostPaymentResponse findPayment(String merchantId, UUID id) {
+    return paymentsRepository.get(merchantId, id)
+        .orElseThrow(() -> new EventProcessingException("Invalid ID"));
+  }
+
+  private static PaymentEventResponse toEventResponse(PaymentEvent event) {
+    PostPaymentResponse payment = event.outcome() == null ? null : event.toPayment();
+    return new PaymentEventResponse(
+        event.sequence(),
+        event.type(),
+        payment == null ? null : payment.getStatus(),
+        payment == null ? 0 : payment.getCapturedAmount(),
+        payment == null ? 0 : payment.getRefundedAmount(),
+        Instant.ofEpochMilli(event.timestampMillis())
+    );
+  }
+
+  private static PaymentStatus statusNamed(String name) {
+    for (PaymentStatus status : PaymentStatus.values()) {
+      if (status.getName().equalsIgnoreCase(name) || status.name().equalsIgnoreCase(name)) {
+        return status;
+      }
+    }
+    throw new ValidationException("Status is invalid");
+  }
+
+  private static int requestedAmount(Integer amount) {
+    if (amount == null) {
+      return 0;
+    }
+    if (amount <= 0) {
+      throw new ValidationException("Amount is invalid");
+    }
+    return amount;
   }
 
   /**
-   * Processes a payment request through validation and bank authorization.
+   * Processes a payment request of unknown origin; see
+   * {@link #processPayment(PostPaymentRequest, PaymentOrigin)}.
+   */
+  public PostPaymentResponse processPayment(PostPaymentRequest paymentRequest) {
+    return processPayment(paymentRequest, PaymentOrigin.UNKNOWN);
+  }
+
+  /**
+   * Processes a payment request through validation, velocity screening and bank authorization.
    *
    * <p>
    * This is a synchronous operation. If the bank service fails (e.g., 503),
    * the request is marked as REJECTED and stored. The merchant must retry
-   * the entire payment request.
+   * the entire payment request. Payments refused by screening are REJECTED without
+   * reaching the bank, and repeats of a payment the bank just declined are DECLINED without
+   * reaching it. The ledger receives CREATED, VALIDATED and then SCREENED,
+   * DECLINE_REPEATED or BANK_RESPONDED.
    *
    * <p>
    * Design trade-off: Synchronous processing keeps the implementation simple
@@ -63,58 +294,124 @@ public class PaymentGatewayService {
    * retries, timeouts), an async approach with a message queue would be needed.
    *
    * @param paymentRequest the payment details
+   * @param origin the merchant and client the request came from
    * @return the payment response with status
+   * @throws ServiceUnavailableException if the gateway is shutting down
    */
-  public PostPaymentResponse processPayment(PostPaymentRequest paymentRequest) {
+  public PostPaymentResponse processPayment(PostPaymentRequest paymentRequest,
+      PaymentOrigin origin) {
+    if (!paymentDrain.tryEnter()) {
+      throw new ServiceUnavailableException("Gateway is shutting down");
+    }
     UUID paymentId = UUID.randomUUID();
+    MDC.put(PAYMENT_ID_MDC_KEY, paymentId.toString());
+    try {
+      return instrumentation.inPayment(paymentId,
+          () -> processPayment(paymentId, paymentRequest, origin));
+    } finally {
+      MDC.remove(PAYMENT_ID_MDC_KEY);
+      paymentDrain.exit();
+    }
+  }
+
+  private PostPaymentResponse processPayment(UUID paymentId, PostPaymentRequest paymentRequest,
+      PaymentOrigin origin) {
+    PreparedPayment prepared = preparePayment(paymentId, paymentRequest, origin);
+    if (!prepared.needsBank()) {
+      return prepared.payment();
+    }
+    GetAcquiringBankResponse bankResponse = instrumentation.inStage(PaymentStage.BANK,
+        () -> paymentDrain.callBank(prepared.payment(),
+            () -> bankService.submitBankRequest(prepared.bankRequest(),
+                prepared.payment().getMerchantId())));
+    return completePayment(prepared, bankResponse);
+  }
+
+  /**
+   * Records a new payment and takes it through validation, screening and the decline cache, the
+   * steps before the bank call. Used by {@link #processPayment} and by callers that make the bank
+   * call themselves; they must hold a {@link PaymentDrain#tryEnter()} for the payment and run
+   * this in its span.
+   *
+   * @return the payment, with its bank request unless one of the steps already decided it
+   */
+  public PreparedPayment preparePayment(UUID paymentId, PostPaymentRequest paymentRequest,
+      PaymentOrigin origin) {
+    // Supported currencies resolve to the registry's shared upper-case instance
+    String currency = currencyRegistry.canonical(paymentRequest.getCurrency());
+    PostPaymentResponse payment = buildPaymentResponse(paymentId, paymentRequest, currency);
+    payment.setMerchantId(origin.owner());
+    paymentLedger.record(PaymentEventType.CREATED, payment);
 
     if (!isValidPayment(paymentRequest)) {
-      return createAndStoreRejectedPayment(paymentId, paymentRequest);
+      payment.setStatus(PaymentStatus.REJECTED);
+      instrumentation.inStage(PaymentStage.STORE,
+          () -> paymentLedger.record(PaymentEventType.VALIDATED, payment));
+      return new PreparedPayment(payment, paymentRequest, null);
     }
+    paymentLedger.record(PaymentEventType.VALIDATED, payment);
 
-    GetAcquiringBankResponse bankResponse = bankService.submitBankRequest(
-        new GetAcquiringBankRequest(
-            paymentRequest.getCardNumber(),
-            paymentRequest.getExpiryDate(),
-            paymentRequest.getCurrency(),
-            paymentRequest.getAmount(),
-            paymentRequest.getCvv()
-        )
-    );
+    if (!passesScreening(paymentRequest, origin)) {
+      payment.setStatus(PaymentStatus.REJECTED);
+      instrumentation.inStage(PaymentStage.STORE,
+          () -> paymentLedger.record(PaymentEventType.SCREENED, payment));
+      return new PreparedPayment(payment, paymentRequest, null);
+    }
 
-    PostPaymentResponse paymentResponse = createPaymentResponse(paymentId, paymentRequest, bankResponse);
+    if (declineCache.isDeclined(paymentRequest, currency)) {
+      LOG.info("Payment declined again without asking the bank");
+      payment.setStatus(PaymentStatus.DECLINED);
+      instrumentation.inStage(PaymentStage.STORE,
+          () -> paymentLedger.record(PaymentEventType.DECLINE_REPEATED, payment));
+      return new PreparedPayment(payment, paymentRequest, null);
+    }
 
-    paymentsRepository.add(paymentResponse);
-    return paymentResponse;
+    return new PreparedPayment(payment, paymentRequest, new GetAcquiringBankRequest(
+        paymentRequest.getCardNumber(),
+        paymentRequest.getExpiryDate(),
+        currency,
+        paymentRequest.getAmount(),
+        paymentRequest.getCvv()
+    ));
+  }
+
+  /**
+   * Sets the payment's status from the bank's answer and records it.
+   *
+   * @param bankResponse the bank's answer, or null if the bank could not be asked
+   */
+  public PostPaymentResponse completePayment(PreparedPayment prepared,
+      GetAcquiringBankResponse bankResponse) {
+    PostPaymentResponse payment = prepared.payment();
+    payment.setStatus(determinePaymentStatus(bankResponse));
+    if (payment.getStatus() == PaymentStatus.DECLINED) {
+      declineCache.recordDecline(prepared.request(), prepared.bankRequest().getCurrency());
+    }
+    instrumentation.inStage(PaymentStage.STORE,
+        () -> paymentLedger.record(PaymentEventType.BANK_RESPONDED, payment));
+    return payment;
   }
 
   private boolean isValidPayment(PostPaymentRequest request) {
     try {
-      paymentValidator.validate(request);
+      instrumentation.inStage(PaymentStage.VALIDATE, () -> paymentValidator.validate(request));
       return true;
     } catch (ValidationException e) {
-      LOG.warn("Payment validation failed: {}", e.getMessage());
+      LOG.warn("Payment validation failed {}", kv("reason", e.getMessage()));
       return false;
     }
   }
 
-  private PostPaymentResponse createAndStoreRejectedPayment(UUID paymentId, PostPaymentRequest request) {
-    PostPaymentResponse rejectedResponse = buildPaymentResponse(
-        paymentId,
-        PaymentStatus.REJECTED,
-        request
-    );
-    paymentsRepository.add(rejectedResponse);
-    return rejectedResponse;
-  }
-
-  private PostPaymentResponse createPaymentResponse(
-      UUID paymentId,
-      PostPaymentRequest request,
-      GetAcquiringBankResponse bankResponse
-  ) {
-    PaymentStatus status = determinePaymentStatus(bankResponse);
-    return buildPaymentResponse(paymentId, status, request);
+  private boolean passesScreening(PostPaymentRequest request, PaymentOrigin origin) {
+    try {
+      instrumentation.inStage(PaymentStage.SCREEN,
+          () -> velocityScreener.screen(request.getCardNumber(), origin));
+      return true;
+    } catch (ScreeningException e) {
+      LOG.warn("Payment refused by screening {} {} {}", kv("reason", e.getMessage()),
+          kv("merchantId", origin.merchantId()), kv("clientIp", origin.clientIp()));
+      return false;
+    }
   }
 
   private PaymentStatus determinePaymentStatus(GetAcquiringBankResponse bankResponse) {
@@ -124,20 +421,28 @@ public class PaymentGatewayService {
     return bankResponse.isAuthorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED;
   }
 
+  /**
+   * Builds the payment without a status; it is set once validation or the bank decides.
+   */
   private PostPaymentResponse buildPaymentResponse(
       UUID paymentId,
-      PaymentStatus status,
-      PostPaymentRequest request
+      PostPaymentRequest request,
+      String currency
   ) {
-    return new PostPaymentResponse(
+    PostPaymentResponse payment = new PostPaymentResponse(
         paymentId,
-        status,
+        null,
         extractLastFourDigits(request.getCardNumber()),
         request.getExpiryMonth(),
         request.getExpiryYear(),
-        request.getCurrency(),
+        currency,
         request.getAmount()
     );
+    // An invalid reference rejects the payment and is not kept with it
+    if (paymentValidator.checkReference(request.getReference()) == null) {
+      payment.setReference(request.getReference());
+    }
+    return payment;
   }
 
   private int extractLastFourDigits(String cardNumber) {
@@ -151,8 +456,24 @@ public class PaymentGatewayService {
     try {
       return Integer.parseInt(lastDigits);
     } catch (NumberFormatException e) {
-      LOG.warn("Invalid card number format: {}", cardNumber);
+      LOG.warn("Invalid card number format {}",
+          kv("cardNumber", CardDataMasker.maskPan(cardNumber)));
       return 0;
     }
   }
+
+  /**
+   * A payment after the steps before the bank call.
+   *
+   * @param payment the payment, with its status set if the steps decided it
+   * @param request the merchant's request
+   * @param bankRequest what to send the bank, or null if the payment needs no bank call
+   */
+  public record PreparedPayment(PostPaymentResponse payment, PostPaymentRequest request,
+      GetAcquiringBankRequest bankRequest) {
+
+    public boolean needsBank() {
+      return bankRequest != null;
+    }
+  }
 }
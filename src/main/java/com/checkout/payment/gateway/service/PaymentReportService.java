@@ -0,0 +1,73 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.model.AuthorizationRate;
+import com.checkout.payment.gateway.model.PaymentVolume;
+import com.checkout.payment.gateway.reporting.PaymentColumnStore;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+/**
+ * Aggregate reports over every payment that got an outcome, live or archived, answered from the
+ * columnar {@link PaymentColumnStore}.
+ */
+@Service
+public class PaymentReportService {
+
+  public static final int MAX_REPORT_DAYS = 400;
+
+  private final PaymentColumnStore columnStore;
+  private final CurrencyRegistry currencyRegistry;
+
+  public PaymentReportService(PaymentColumnStore columnStore, CurrencyRegistry currencyRegistry) {
+    this.columnStore = columnStore;
+    this.currencyRegistry = currencyRegistry;
+  }
+
+  /**
+   * Count and amount of payments authorized per currency per day.
+   *
+   * @param from first day, ISO-8601, UTC
+   * @param to last day, inclusive
+   * @throws ValidationException if the dates are malformed, reversed or too far apart
+   */
+  public List<PaymentVolume> dailyVolume(String from, String to) {
+    LocalDate first = day(from);
+    LocalDate last = day(to);
+    checkRange(first, last);
+    return columnStore.dailyVolume(first, last);
+  }
+
+  /**
+   * Share of payments sent to the bank that were authorized.
+   *
+   * @param currency only count payments in this currency, or null for all
+   * @throws ValidationException if the dates are malformed, reversed or too far apart
+   */
+  public AuthorizationRate authorizationRate(String from, String to, String currency) {
+    LocalDate first = day(from);
+    LocalDate last = day(to);
+    checkRange(first, last);
+    return columnStore.authorizationRate(first, last,
+        currency == null ? null : currencyRegistry.canonical(currency.toUpperCase()));
+  }
+
+  private static LocalDate day(String date) {
+    try {
+      return LocalDate.parse(date);
+    } catch (DateTimeParseException ex) {
+      throw new ValidationException("Dates must be ISO-8601 days such as 2024-01-31");
+    }
+  }
+
+  private static void checkRange(LocalDate from, LocalDate to) {
+    long days = ChronoUnit.DAYS.between(from, to) + 1;
+    if (days < 1 || days > MAX_REPORT_DAYS) {
+      throw new ValidationException(
+          "Reports cover from 1 to " + MAX_REPORT_DAYS + " days, from before to");
+    }
+  }
+}
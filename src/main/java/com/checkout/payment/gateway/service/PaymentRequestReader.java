@@ -0,0 +1,210 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a payment request from JSON token by token, validating each field with
+ * {@link PaymentValidator} as soon as it is read. The first invalid field decides the failure
+ * and nothing after it is checked, but the rest of the body is still read, so a rejected payment
+ * is stored with every field it was sent. The request comes back marked as validated, with the
+ * failure if there was one, and {@link PaymentValidator#validate} does not check it again.
+ *
+ * <p>
+ * Values are read as Jackson's data binding would read them: numbers and booleans are accepted
+ * as strings, numeric strings and floats as integers, and null as the field's default. Unknown
+ * fields are skipped. A field given twice makes the request invalid, and its first value is kept,
+ * rather than the last value silently winning.
+ */
+@Component
+public class PaymentRequestReader {
+
+  private static final int CARD_NUMBER = 1;
+  private static final int EXPIRY_MONTH = 1 << 1;
+  private static final int EXPIRY_YEAR = 1 << 2;
+  private static final int CURRENCY = 1 << 3;
+  private static final int AMOUNT = 1 << 4;
+  private static final int CVV = 1 << 5;
+  private static final int REFERENCE = 1 << 6;
+
+  private final JsonFactory jsonFactory;
+  private final PaymentValidator validator;
+
+  public PaymentRequestReader(ObjectMapper mapper, PaymentValidator validator) {
+    this.jsonFactory = mapper.getFactory();
+    this.validator = validator;
+  }
+
+  /**
+   * Reads and validates a payment request. The stream is closed if the mapper's factory closes
+   * its sources.
+   *
+   * @return the request, marked as validated
+   * @throws IOException if the body is not a JSON object, or a field has the wrong type
+   */
+  public PostPaymentRequest read(InputStream body) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Payment request must be a JSON object");
+      }
+      PostPaymentRequest request = new PostPaymentRequest();
+      int seen = 0;
+      String failure = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        int field = fieldOf(parser.currentName());
+        parser.nextToken();
+        if (field == 0) {
+          parser.skipChildren();
+        } else if ((seen & field) != 0) {
+          if (failure == null) {
+            failure = "Duplicate field " + parser.currentName();
+          }
+          parser.skipChildren();
+        } else {
+          seen |= field;
+          readField(parser, field, request);
+          if (failure == null) {
+            failure = checkField(field, seen, request);
+          }
+        }
+      }
+      if (failure == null) {
+        failure = checkMissing(seen, request);
+      }
+      request.markValidated(failure);
+      return request;
+    }
+  }
+
+  private static int fieldOf(String name) {
+    return switch (name) {
+      case "card_number" -> CARD_NUMBER;
+      case "expiry_month" -> EXPIRY_MONTH;
+      case "expiry_year" -> EXPIRY_YEAR;
+      case "currency" -> CURRENCY;
+      case "amount" -> AMOUNT;
+      case "cvv" -> CVV;
+      case "reference" -> REFERENCE;
+      default -> 0;
+    };
+  }
+
+  private static void readField(JsonParser parser, int field, PostPaymentRequest request)
+      throws IOException {
+    switch (field) {
+      case CARD_NUMBER -> request.setCardNumber(readString(parser));
+      case EXPIRY_MONTH -> request.setExpiryMonth(readInt(parser));
+      case EXPIRY_YEAR -> request.setExpiryYear(readInt(parser));
+      case CURRENCY -> request.setCurrency(readString(parser));
+      case AMOUNT -> request.setAmount(readInt(parser));
+      case CVV -> request.setCvv(readString(parser));
+      default -> request.setReference(readString(parser));
+    }
+  }
+
+  /**
+   * Checks a field just read, with the fields it depends on if they have been read already. Only
+   * called while every earlier field was valid, so those are known to be.
+   */
+  private String checkField(int field, int seen, PostPaymentRequest request) {
+    switch (field) {
+      case CARD_NUMBER -> {
+        return validator.checkCardNumber(request.getCardNumber());
+      }
+      case EXPIRY_MONTH -> {
+        String failure = validator.checkExpiryMonth(request.getExpiryMonth());
+        return failure == null && (seen & EXPIRY_YEAR) != 0
+            ? validator.checkExpiry(request.getExpiryMonth(), request.getExpiryYear())
+            : failure;
+      }
+      case EXPIRY_YEAR -> {
+        String failure = validator.checkExpiryYear(request.getExpiryYear());
+        return failure == null && (seen & EXPIRY_MONTH) != 0
+            ? validator.checkExpiry(request.getExpiryMonth(), request.getExpiryYear())
+            : failure;
+      }
+      case CURRENCY -> {
+        String failure = validator.checkCurrency(request.getCurrency());
+        return failure == null && (seen & AMOUNT) != 0
+            ? validator.checkAmountLimit(request.getAmount(), request.getCurrency())
+            : failure;
+      }
+      case AMOUNT -> {
+        String failure = validator.checkAmount(request.getAmount());
+        return failure == null && (seen & CURRENCY) != 0
+            ? validator.checkAmountLimit(request.getAmount(), request.getCurrency())
+            : failure;
+      }
+      case CVV -> {
+        return validator.checkCvv(request.getCvv());
+      }
+      default -> {
+        return validator.checkReference(request.getReference());
+      }
+    }
+  }
+
+  /**
+   * Every field was valid; fails on the first required one that was not given at all.
+   */
+  private String checkMissing(int seen, PostPaymentRequest request) {
+    if ((seen & CARD_NUMBER) == 0) {
+      return validator.checkCardNumber(null);
+    }
+    if ((seen & EXPIRY_MONTH) == 0) {
+      return validator.checkExpiryMonth(0);
+    }
+    if ((seen & EXPIRY_YEAR) == 0) {
+      return validator.checkExpiry(request.getExpiryMonth(), 0);
+    }
+    if ((seen & CURRENCY) == 0) {
+      return validator.checkCurrency(null);
+    }
+    if ((seen & AMOUNT) == 0) {
+      return validator.checkAmount(0);
+    }
+    if ((seen & CVV) == 0) {
+      return validator.checkCvv(null);
+    }
+    return null;
+  }
+
+  private static String readString(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (token.isScalarValue()) {
+      return parser.getText();
+    }
+    throw new JsonParseException(parser, "Expected a string for " + parser.currentName());
+  }
+
+  private static int readInt(JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+        return parser.getValueAsInt();
+      }
+      case VALUE_NULL -> {
+        return 0;
+      }
+      case VALUE_STRING -> {
+        String text = parser.getText().trim();
+        try {
+          return text.isEmpty() ? 0 : Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+          throw new JsonParseException(parser, "Expected a number for " + parser.currentName());
+        }
+      }
+      default -> throw new JsonParseException(parser,
+          "Expected a number for " + parser.currentName());
+    }
+  }
+}
@@ -1,11 +1,10 @@
 package com.checkout.payment.gateway.service;
 
-import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.bin.BinTable;
 import com.checkout.payment.gateway.exception.ValidationException;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
-import java.util.Set;
 
 /**
  * Service responsible for validating payment request data before processing.
@@ -15,10 +14,14 @@ import java.util.Set;
 @Service
 public class PaymentValidator {
 
-  private final Set<String> supportedCurrencies;
+  public static final int MAX_REFERENCE_LENGTH = 50;
 
-  public PaymentValidator(ApplicationConfiguration config) {
-    this.supportedCurrencies = Set.copyOf(config.getSupportedCurrencies());
+  private final CurrencyRegistry currencyRegistry;
+  private final BinTable binTable;
+
+  public PaymentValidator(CurrencyRegistry currencyRegistry, BinTable binTable) {
+    this.currencyRegistry = currencyRegistry;
+    this.binTable = binTable;
   }
 
   /**
@@ -27,56 +30,159 @@ public class PaymentValidator {
    * Performs the following validations:
    * </p>
    * <ul>
-   *   <li>Card number: must be 14-19 digits and numeric</li>
+   *   <li>Card number: must be 14-19 digits, pass the Luhn check and belong to an accepted
+   *   scheme</li>
    *   <li>Expiry month: must be between 1 and 12</li>
    *   <li>Expiry year: must be non-negative</li>
    *   <li>Expiry date: must be in the future</li>
    *   <li>Currency: must be a 3-letter code from the allowed set</li>
-   *   <li>Amount: must be positive</li>
+   *   <li>Amount: must be positive and within the currency's limit</li>
    *   <li>CVV: must be 3-4 digits and numeric</li>
+   *   <li>Reference: optional; at most 50 printable ASCII characters</li>
    * </ul>
    *
    * @param request the payment request to validate
    * @throws ValidationException if any validation rule fails
    */
   public void validate(PostPaymentRequest request) {
-    if (request.getCardNumber() == null ||
-        request.getCardNumber().length() < 14 ||
-        request.getCardNumber().length() > 19 ||
-        !request.getCardNumber().matches("\\d+")) {
-      throw new ValidationException("Invalid Card Number");
+    if (request.isValidated()) {
+      // Checked field by field while it was read
+      if (request.getValidationFailure() != null) {
+        throw new ValidationException(request.getValidationFailure());
+      }
+      return;
     }
-
-    if (request.getExpiryMonth() < 1 || request.getExpiryMonth() > 12) {
-      throw new ValidationException("Invalid expiry month");
+    String failure = checkCardNumber(request.getCardNumber());
+    if (failure == null) {
+      failure = checkExpiryMonth(request.getExpiryMonth());
+    }
+    if (failure == null) {
+      failure = checkExpiryYear(request.getExpiryYear());
+    }
+    if (failure == null) {
+      failure = checkExpiry(request.getExpiryMonth(), request.getExpiryYear());
+    }
+    if (failure == null) {
+      failure = checkCurrency(request.getCurrency());
+    }
+    if (failure == null) {
+      failure = checkAmount(request.getAmount());
+    }
+    if (failure == null) {
+      failure = checkAmountLimit(request.getAmount(), request.getCurrency());
+    }
+    if (failure == null) {
+      failure = checkCvv(request.getCvv());
+    }
+    if (failure == null) {
+      failure = checkReference(request.getReference());
+    }
+    if (failure != null) {
+      throw new ValidationException(failure);
     }
+  }
+
+  // The checks below return why a field is invalid, or null if it is valid. PaymentRequestReader
+  // runs them as each field is read.
 
-    if (request.getExpiryYear() < 0) {
-      throw new ValidationException("Invalid expiry year");
+  public String checkCardNumber(String cardNumber) {
+    if (cardNumber == null || cardNumber.length() < 14 || cardNumber.length() > 19
+        || !isDigits(cardNumber) || !passesLuhn(cardNumber)) {
+      return "Invalid Card Number";
+    }
+    if (!binTable.accepts(binTable.schemeOf(cardNumber))) {
+      return "Card scheme is not accepted";
     }
+    return null;
+  }
+
+  public String checkExpiryMonth(int expiryMonth) {
+    return expiryMonth < 1 || expiryMonth > 12 ? "Invalid expiry month" : null;
+  }
+
+  public String checkExpiryYear(int expiryYear) {
+    return expiryYear < 0 ? "Invalid expiry year" : null;
+  }
 
-    LocalDate today = LocalDate.now();
-    LocalDate expiry = LocalDate.of(request.getExpiryYear(), request.getExpiryMonth(), 1)
+  /**
+   * Checks that the card has not expired; the month and year must each be valid.
+   */
+  public String checkExpiry(int expiryMonth, int expiryYear) {
+    LocalDate expiry = LocalDate.of(expiryYear, expiryMonth, 1)
         .plusMonths(1)
         .minusDays(1);
+    return expiry.isBefore(LocalDate.now()) ? "Expiry is in the past" : null;
+  }
 
-    if (expiry.isBefore(today)) {
-      throw new ValidationException("Expiry is in the past");
-    }
+  public String checkCurrency(String currency) {
+    return currencyRegistry.codeOf(currency) == CurrencyRegistry.UNKNOWN
+        ? "Currency is invalid" : null;
+  }
+
+  public String checkAmount(int amount) {
+    return amount <= 0 ? "Amount is invalid" : null;
+  }
 
-    if (request.getCurrency() == null ||
-        request.getCurrency().length() != 3 ||
-        !supportedCurrencies.contains(request.getCurrency().toUpperCase())) {
-      throw new ValidationException("Currency is invalid");
+  /**
+   * Checks the amount against the currency's limit; the currency must be valid.
+   */
+  public String checkAmountLimit(int amount, String currency) {
+    return amount > currencyRegistry.maxAmount(currencyRegistry.codeOf(currency))
+        ? "Amount exceeds the limit for the currency" : null;
+  }
+
+  public String checkCvv(String cvv) {
+    return cvv == null || cvv.length() < 3 || cvv.length() > 4 || !isDigits(cvv)
+        ? "CVV is invalid" : null;
+  }
+
+  /**
+   * Checks the merchant reference, which is optional. It is stored with every ledger event, so it
+   * must fit {@link #MAX_REFERENCE_LENGTH} single bytes.
+   */
+  public String checkReference(String reference) {
+    if (reference == null) {
+      return null;
+    }
+    if (reference.isEmpty() || reference.length() > MAX_REFERENCE_LENGTH) {
+      return "Reference is invalid";
+    }
+    for (int i = 0; i < reference.length(); i++) {
+      char c = reference.charAt(i);
+      if (c < 0x20 || c > 0x7E) {
+        return "Reference is invalid";
+      }
     }
+    return null;
+  }
 
-    if (request.getAmount() <= 0) {
-      throw new ValidationException("Amount is invalid");
+  private static boolean isDigits(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
     }
+    return !value.isEmpty();
+  }
 
-    if (request.getCvv() == null || request.getCvv().length() < 3 || request.getCvv().length() > 4 ||
-        !request.getCvv().matches("\\d+")) {
-      throw new ValidationException("CVV is invalid");
+  /**
+   * Luhn (mod 10) check digit test, which catches every single-digit typo and most transpositions.
+   */
+  static boolean passesLuhn(CharSequence digits) {
+    int sum = 0;
+    boolean doubled = false;
+    for (int i = digits.length() - 1; i >= 0; i--) {
+      int digit = digits.charAt(i) - '0';
+      if (doubled) {
+        digit *= 2;
+        if (digit > 9) {
+          digit -= 9;
+        }
+      }
+      sum += digit;
+      doubled = !doubled;
     }
+    return sum % 10 == 0;
   }
 }
@@ -0,0 +1,150 @@
+package com.checkout.payment.gateway.shutdown;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Lets payments in progress finish before the gateway shuts down.
+ *
+ * <p>
+ * Draining runs when the context starts closing, before any bean is stopped and before the web
+ * server's own graceful shutdown closes its connector. By then Spring Boot has switched readiness
+ * to {@link ReadinessState#REFUSING_TRAFFIC}, so load balancers stop routing here. After
+ * {@code payment.gateway.shutdown.readiness-delay}, new payments are refused with 503. Payments
+ * already in progress, including their bank calls, then have until {@code .drain-timeout} to
+ * finish and record their outcome. A payment whose bank call is still running at the deadline is
+ * journaled as {@link PaymentEventType#BANK_PENDING}, so it can be reconciled with the bank.
+ * Otherwise the ledger would only show it as validated.
+ */
+@Component
+public class PaymentDrain implements ApplicationListener<ContextClosedEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentDrain.class);
+
+  private final ApplicationConfiguration.Shutdown settings;
+  private final PaymentLedger ledger;
+  private final AtomicInteger active = new AtomicInteger();
+  private final ConcurrentHashMap<UUID, PostPaymentResponse> atBank = new ConcurrentHashMap<>();
+  private volatile boolean draining;
+
+  public PaymentDrain(ApplicationConfiguration config, PaymentLedger ledger) {
+    this.settings = config.getShutdown();
+    this.ledger = ledger;
+  }
+
+  /**
+   * Registers a new payment, or returns false once draining has started. Every successful call
+   * must be paired with {@link #exit()}.
+   */
+  public boolean tryEnter() {
+    // Count first, then check: drain() either sees this payment or this payment sees draining
+    active.incrementAndGet();
+    if (draining) {
+      exit();
+      return false;
+    }
+    return true;
+  }
+
+  public void exit() {
+    if (active.decrementAndGet() == 0 && draining) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Runs the payment's bank call, keeping the payment on record as pending until it returns.
+   */
+  public <T> T callBank(PostPaymentResponse payment, Supplier<T> call) {
+    bankCallStarted(payment);
+    try {
+      return call.get();
+    } finally {
+      bankCallEnded(payment);
+    }
+  }
+
+  /**
+   * Keeps the payment on record as pending at the bank, for bank calls that do not block the
+   * calling thread. Must be paired with {@link #bankCallEnded}.
+   */
+  public void bankCallStarted(PostPaymentResponse payment) {
+    atBank.put(payment.getId(), payment);
+  }
+
+  public void bankCallEnded(PostPaymentResponse payment) {
+    atBank.remove(payment.getId());
+  }
+
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  public boolean isDraining() {
+    return draining;
+  }
+
+  @Override
+  public void onApplicationEvent(ContextClosedEvent event) {
+    drain();
+  }
+
+  /**
+   * Refuses new payments and waits for the ones in progress, journaling bank calls that are still
+   * running at the deadline.
+   */
+  public void drain() {
+    LOG.info("Shutdown started, readiness is down {}", kv("activePayments", active.get()));
+    sleep(settings.getReadinessDelay());
+
+    draining = true;
+    long deadline = System.nanoTime() + settings.getDrainTimeout().toNanos();
+    synchronized (this) {
+      long remaining;
+      while (active.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+        try {
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+
+    for (PostPaymentResponse payment : atBank.values()) {
+      LOG.warn("Bank call still running at shutdown {}", kv("paymentId", payment.getId()));
+      ledger.record(PaymentEventType.BANK_PENDING, payment);
+    }
+    LOG.info("Payments drained {} {}", kv("activePayments", active.get()),
+        kv("pendingBankCalls", atBank.size()));
+  }
+
+  private static void sleep(Duration duration) {
+    if (duration.isZero() || duration.isNegative()) {
+      return;
+    }
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.checkout.payment.gateway.stats;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.PaymentEventListener;
+import com.checkout.payment.gateway.model.PaymentStats;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Live counts and amounts of payment outcomes, by currency and {@link PaymentStatus}, since
+ * startup and for each of the last {@code window} seconds. Fed by the ledger with the event that
+ * gave each payment its outcome.
+ *
+ * <p>
+ * Every figure is a {@link LongAdder}, so concurrent payments add to separate cells instead of
+ * contending for one counter. The per-second series is a ring of slots, one per second, each
+ * tagged with the second it holds; the first payment of a new second resets the slot it reuses.
+ * A report sums a fixed number of adders whatever the traffic, and reads nothing the recording
+ * threads wait for.
+ */
+@Component
+public class PaymentStatistics implements PaymentEventListener {
+
+  static final String OTHER_CURRENCY = "XXX";
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+  private static final int AUTHORIZED = PaymentStatus.AUTHORIZED.ordinal();
+  private static final int DECLINED = PaymentStatus.DECLINED.ordinal();
+  private static final int REJECTED = PaymentStatus.REJECTED.ordinal();
+
+  private final CurrencyRegistry currencies;
+  private final Duration window;
+  private final int windowSeconds;
+  private final LongSupplier clock;
+  private final long startedMillis;
+  private final Counters totals;
+  // Two spare slots, so the second in progress and the next never reuse one being reported
+  private final Slot[] slots;
+
+  @Autowired
+  public PaymentStatistics(ApplicationConfiguration config, CurrencyRegistry currencies) {
+    this(config.getStats().getWindow(), currencies, System::currentTimeMillis);
+  }
+
+  /**
+   * @param clock current time in milliseconds; events are placed by their own timestamps
+   */
+  public PaymentStatistics(Duration window, CurrencyRegistry currencies, LongSupplier clock) {
+    this.currencies = currencies;
+    this.windowSeconds = (int) Math.max(1, window.toSeconds());
+    this.window = Duration.ofSeconds(windowSeconds);
+    this.clock = clock;
+    this.startedMillis = clock.getAsLong();
+    int keys = (currencies.size() + 1) * STATUSES.length;
+    this.totals = new Counters(keys);
+    this.slots = new Slot[windowSeconds + 2];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = new Slot(keys);
+    }
+  }
+
+  @Override
+  public void onEvent(PaymentEvent event) {
+    if (!event.setsOutcome()) {
+      return;
+    }
+    int key = currencies.codeOf(event.currency()) * STATUSES.length + event.outcome().ordinal();
+    totals.add(key, event.amount());
+    Slot slot = slotFor(Math.floorDiv(event.timestampMillis(), 1000));
+    if (slot != null) {
+      slot.counters.add(key, event.amount());
+    }
+  }
+
+  /**
+   * Figures over the last {@code window} of completed seconds and since startup.
+   */
+  public PaymentStats report() {
+    long now = clock.getAsLong();
+    long currentSecond = Math.floorDiv(now, 1000);
+    int keys = totals.counts.length;
+    long[] perSecond = new long[windowSeconds];
+    long[] windowCounts = new long[keys];
+    long[] windowAmounts = new long[keys];
+    long[] counts = new long[keys];
+    long[] amounts = new long[keys];
+    for (int i = 0; i < windowSeconds; i++) {
+      long second = currentSecond - windowSeconds + i;
+      Slot slot = slots[(int) Math.floorMod(second, slots.length)];
+      if (slot.second != second) {
+        continue;
+      }
+      slot.counters.sumInto(counts, amounts);
+      // A slot reused while it was read holds a later second; leave it out
+      if (slot.second != second) {
+        continue;
+      }
+      for (int key = 0; key < keys; key++) {
+        perSecond[i] += counts[key];
+        windowCounts[key] += counts[key];
+        windowAmounts[key] += amounts[key];
+      }
+    }
+    long[] totalCounts = new long[keys];
+    long[] totalAmounts = new long[keys];
+    totals.sumInto(totalCounts, totalAmounts);
+    double uptimeSeconds = Math.max(1, now - startedMillis) / 1000.0;
+    return new PaymentStats(window.toString(), perSecond,
+        figures(windowCounts, windowAmounts, Math.min(windowSeconds, uptimeSeconds)),
+        figures(totalCounts, totalAmounts, uptimeSeconds));
+  }
+
+  /**
+   * The slot for {@code second}, claiming and clearing it if it still holds an earlier second,
+   * or null if it has already moved on to a later one.
+   */
+  private Slot slotFor(long second) {
+    Slot slot = slots[(int) Math.floorMod(second, slots.length)];
+    long held = slot.second;
+    if (held == second) {
+      return slot;
+    }
+    if (held > second) {
+      return null;
+    }
+    synchronized (slot) {
+      if (slot.second < second) {
+        slot.counters.reset();
+        slot.second = second;
+      }
+      return slot.second == second ? slot : null;
+    }
+  }
+
+  private PaymentStats.Figures figures(long[] counts, long[] amounts, double seconds) {
+    List<PaymentStats.CurrencyFigures> byCurrency = new ArrayList<>();
+    long payments = 0;
+    long authorized = 0;
+    long declined = 0;
+    // Supported currencies in configuration order, then the rest together
+    for (int n = 1; n <= currencies.size() + 1; n++) {
+      int code = n % (currencies.size() + 1);
+      int base = code * STATUSES.length;
+      long currencyPayments = 0;
+      for (int status = 0; status < STATUSES.length; status++) {
+        currencyPayments += counts[base + status];
+      }
+      if (currencyPayments == 0) {
+        continue;
+      }
+      payments += currencyPayments;
+      authorized += counts[base + AUTHORIZED];
+      declined += counts[base + DECLINED];
+      byCurrency.add(new PaymentStats.CurrencyFigures(
+          code == CurrencyRegistry.UNKNOWN ? OTHER_CURRENCY : currencies.alphaCode(code),
+          counts[base + AUTHORIZED], counts[base + DECLINED], counts[base + REJECTED],
+          amounts[base + AUTHORIZED], rate(counts[base + AUTHORIZED], counts[base + DECLINED])));
+    }
+    return new PaymentStats.Figures(payments, payments / seconds, rate(authorized, declined),
+        byCurrency);
+  }
+
+  private static double rate(long authorized, long declined) {
+    return authorized + declined == 0 ? 0 : (double) authorized / (authorized + declined);
+  }
+
+  /**
+   * Payments and amounts by currency code and status, in {@code code * statuses + status}.
+   */
+  private static final class Counters {
+
+    final LongAdder[] counts;
+    final LongAdder[] amounts;
+
+    Counters(int keys) {
+      counts = new LongAdder[keys];
+      amounts = new LongAdder[keys];
+      for (int key = 0; key < keys; key++) {
+        counts[key] = new LongAdder();
+        amounts[key] = new LongAdder();
+      }
+    }
+
+    void add(int key, int amount) {
+      counts[key].increment();
+      amounts[key].add(amount);
+    }
+
+    void sumInto(long[] countSums, long[] amountSums) {
+      for (int key = 0; key < counts.length; key++) {
+        countSums[key] = counts[key].sum();
+        amountSums[key] = amounts[key].sum();
+      }
+    }
+
+    void reset() {
+      for (int key = 0; key < counts.length; key++) {
+        counts[key].reset();
+        amounts[key].reset();
+      }
+    }
+  }
+
+  private static final class Slot {
+
+    final Counters counters;
+    volatile long second = Long.MIN_VALUE;
+
+    Slot(int keys) {
+      counters = new Counters(keys);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.checkout.payment.gateway.tenant;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A secret key held only as its SHA-256 digest. Merchant and operator keys are both checked
+ * through it, comparing digests in constant time, so response times do not reveal how much of a
+ * guess was right.
+ */
+public final class ApiKeyDigest {
+
+  private final byte[] digest;
+
+  public ApiKeyDigest(String apiKey) {
+    this.digest = digest(apiKey);
+  }
+
+  /**
+   * Whether the key is this one; false for null.
+   */
+  public boolean matches(String apiKey) {
+    return apiKey != null && MessageDigest.isEqual(digest, digest(apiKey));
+  }
+
+  private static byte[] digest(String apiKey) {
+    try {
+      return MessageDigest.getInstance("SHA-256")
+          .digest(apiKey.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
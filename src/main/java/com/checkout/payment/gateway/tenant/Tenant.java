@@ -0,0 +1,139 @@
+package com.checkout.payment.gateway.tenant;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.QuotaExceededException;
+import com.checkout.payment.gateway.model.LatencyReport;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * One authenticated merchant: its API key, its quotas and its request figures.
+ *
+ * <p>
+ * Quotas are checked without locks. Concurrent requests are an atomic counter. The request rate
+ * is a generic cell rate algorithm: one atomic "theoretical arrival time" that each admitted
+ * request pushes {@code 1 / rate} seconds further, refusing requests that would push it more
+ * than a second past now. Request latency goes to an HdrHistogram {@link Recorder}, which
+ * concurrent requests write to without waiting.
+ */
+public final class Tenant {
+
+  private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+  private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final String merchantId;
+  private final ApiKeyDigest apiKeyDigest;
+  private final int weight;
+  private final int maxConcurrentRequests;
+  private final long intervalNanos;
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder refusedForConcurrency = new LongAdder();
+  private final LongAdder refusedForRate = new LongAdder();
+  private final Recorder latency = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, 2);
+  // Guarded by this: everything recorded since startup
+  private final Histogram totalLatency = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, 2);
+
+  Tenant(String merchantId, ApplicationConfiguration.Merchant settings) {
+    this.merchantId = merchantId;
+    this.apiKeyDigest = new ApiKeyDigest(settings.getApiKey());
+    this.weight = settings.getWeight();
+    this.maxConcurrentRequests = settings.getMaxConcurrentRequests();
+    this.intervalNanos = settings.getRequestsPerSecond() == 0
+        ? 0 : BURST_NANOS / settings.getRequestsPerSecond();
+  }
+
+  public String getMerchantId() {
+    return merchantId;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  boolean hasApiKey(String apiKey) {
+    return apiKeyDigest.matches(apiKey);
+  }
+
+  /**
+   * Admits one request, to be paired with {@link #exit}.
+   *
+   * @throws QuotaExceededException if the merchant is at its concurrency or rate limit
+   */
+  public void enter(long nowNanos) {
+    requests.increment();
+    if (activeRequests.incrementAndGet() > maxConcurrentRequests) {
+      activeRequests.decrementAndGet();
+      refusedForConcurrency.increment();
+      throw new QuotaExceededException("Too many requests in progress for this merchant");
+    }
+    if (intervalNanos > 0 && !takeRate(nowNanos)) {
+      activeRequests.decrementAndGet();
+      refusedForRate.increment();
+      throw new QuotaExceededException("Request rate exceeded for this merchant");
+    }
+  }
+
+  /**
+   * Ends a request admitted by {@link #enter} and records how long it took.
+   */
+  public void exit(long startedNanos, long nowNanos) {
+    activeRequests.decrementAndGet();
+    latency.recordValue(Math.max(LOWEST_NANOS, Math.min(HIGHEST_NANOS, nowNanos - startedNanos)));
+  }
+
+  public int getActiveRequests() {
+    return activeRequests.get();
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getRefusedForConcurrency() {
+    return refusedForConcurrency.sum();
+  }
+
+  public long getRefusedForRate() {
+    return refusedForRate.sum();
+  }
+
+  /**
+   * Latency of the merchant's admitted requests since startup.
+   */
+  public synchronized LatencyReport.Percentiles latency() {
+    totalLatency.add(latency.getIntervalHistogram());
+    if (totalLatency.getTotalCount() == 0) {
+      return new LatencyReport.Percentiles(0, 0, 0, 0, 0);
+    }
+    return new LatencyReport.Percentiles(totalLatency.getTotalCount(),
+        micros(totalLatency.getValueAtPercentile(50)),
+        micros(totalLatency.getValueAtPercentile(99)),
+        micros(totalLatency.getValueAtPercentile(99.9)),
+        micros(totalLatency.getMaxValue()));
+  }
+
+  private boolean takeRate(long nowNanos) {
+    long current;
+    long next;
+    do {
+      current = theoreticalArrival.get();
+      long start = current == Long.MIN_VALUE ? nowNanos : Math.max(current, nowNanos);
+      next = start + intervalNanos;
+      if (next - nowNanos > BURST_NANOS) {
+        return false;
+      }
+    } while (!theoreticalArrival.compareAndSet(current, next));
+    return true;
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -0,0 +1,58 @@
+package com.checkout.payment.gateway.tenant;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Authenticates every {@code /api/v1} request and holds each to its merchant's quotas while it
+ * runs, when {@code payment.gateway.tenants.enabled} is set. The merchant ID is then passed to the
+ * controller in the {@link #MERCHANT_ID_ATTRIBUTE} request attribute; without it, requests pass
+ * through untouched.
+ */
+@Component
+public class TenantInterceptor implements HandlerInterceptor {
+
+  public static final String API_KEY_HEADER = "X-Api-Key";
+  // A literal, so controllers can name it in @RequestAttribute
+  public static final String MERCHANT_ID_ATTRIBUTE =
+      "com.checkout.payment.gateway.tenant.TenantInterceptor.merchant";
+
+  private static final String TENANT_ATTRIBUTE = TenantInterceptor.class.getName() + ".tenant";
+  private static final String STARTED_ATTRIBUTE = TenantInterceptor.class.getName() + ".started";
+
+  private final TenantRegistry registry;
+
+  public TenantInterceptor(TenantRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    // Paths no controller serves are left to end in 404
+    if (!registry.isEnabled() || !(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    Tenant tenant = registry.authenticate(
+        request.getHeader(PaymentGatewayController.MERCHANT_ID_HEADER),
+        request.getHeader(API_KEY_HEADER));
+    long started = System.nanoTime();
+    tenant.enter(started);
+    request.setAttribute(TENANT_ATTRIBUTE, tenant);
+    request.setAttribute(STARTED_ATTRIBUTE, started);
+    request.setAttribute(MERCHANT_ID_ATTRIBUTE, tenant.getMerchantId());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    if (request.getAttribute(TENANT_ATTRIBUTE) instanceof Tenant tenant) {
+      tenant.exit((Long) request.getAttribute(STARTED_ATTRIBUTE), System.nanoTime());
+    }
+  }
+}
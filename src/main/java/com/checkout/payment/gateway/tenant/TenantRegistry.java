@@ -0,0 +1,129 @@
+package com.checkout.payment.gateway.tenant;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.AuthenticationException;
+import com.checkout.payment.gateway.ledger.PaymentEventCodec;
+import com.checkout.payment.gateway.model.TenantReport;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.tuning.BankCallLimiter;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * The merchants configured under {@code payment.gateway.tenants.merchants}, built once at
+ * startup. Authenticates payment API requests when {@code payment.gateway.tenants.enabled} is
+ * set, and reports each merchant's figures, also published as OpenTelemetry metrics with a
+ * {@code merchant} attribute.
+ *
+ * <p>
+ * Each merchant's resources are its own: its payments are a separate partition of
+ * {@link PaymentsRepository}, its requests hold at most its own share of request threads, and its
+ * bank calls queue separately and get slots by weight from {@link BankCallLimiter}.
+ */
+@Component
+public class TenantRegistry {
+
+  private static final AttributeKey<String> MERCHANT = AttributeKey.stringKey("merchant");
+
+  private final boolean enabled;
+  private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+  private final PaymentsRepository paymentsRepository;
+  private final BankCallLimiter callLimiter;
+
+  public TenantRegistry(ApplicationConfiguration config, PaymentsRepository paymentsRepository,
+      BankService bankService, OpenTelemetry openTelemetry) {
+    ApplicationConfiguration.Tenants settings = config.getTenants();
+    this.enabled = settings.isEnabled();
+    this.paymentsRepository = paymentsRepository;
+    this.callLimiter = bankService.getCallLimiter();
+    settings.getMerchants().forEach((merchantId, merchant) -> {
+      check(merchantId, merchant);
+      tenants.put(merchantId, new Tenant(merchantId, merchant));
+    });
+    registerMetrics(openTelemetry.getMeter("com.checkout.payment.gateway"));
+  }
+
+  /**
+   * Whether payment API requests must be authenticated.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Finds the merchant a request claims to be.
+   *
+   * @throws AuthenticationException if the merchant is unknown or the API key is not its own
+   */
+  public Tenant authenticate(String merchantId, String apiKey) {
+    if (merchantId == null || apiKey == null) {
+      throw new AuthenticationException("Merchant ID or API key missing");
+    }
+    Tenant tenant = tenants.get(merchantId);
+    if (tenant == null || !tenant.hasApiKey(apiKey)) {
+      throw new AuthenticationException("Unknown merchant or wrong API key");
+    }
+    return tenant;
+  }
+
+  public List<TenantReport> report() {
+    return tenants.values().stream()
+        .map(tenant -> new TenantReport(tenant.getMerchantId(), tenant.getWeight(),
+            tenant.getRequests(), tenant.getActiveRequests(), tenant.getRefusedForConcurrency(),
+            tenant.getRefusedForRate(), paymentsRepository.size(tenant.getMerchantId()),
+            callLimiter.getQueued(tenant.getMerchantId()),
+            callLimiter.getRejected(tenant.getMerchantId()), tenant.latency()))
+        .toList();
+  }
+
+  private static void check(String merchantId, ApplicationConfiguration.Merchant merchant) {
+    if (merchantId.isEmpty()
+        || !PaymentEventCodec.isStorable(merchantId, PaymentEventCodec.MAX_MERCHANT_ID_LENGTH)) {
+      throw new IllegalArgumentException("Invalid merchant ID: " + merchantId);
+    }
+    if (merchant.getApiKey() == null || merchant.getApiKey().isBlank()) {
+      throw new IllegalArgumentException("Merchant has no API key: " + merchantId);
+    }
+    if (merchant.getWeight() < 1 || merchant.getMaxConcurrentRequests() < 1
+        || merchant.getRequestsPerSecond() < 0) {
+      throw new IllegalArgumentException("Invalid limits for merchant: " + merchantId);
+    }
+  }
+
+  private void registerMetrics(Meter meter) {
+    meter.counterBuilder("gateway.tenant.requests")
+        .setDescription("Payment API requests by merchant, admitted or refused")
+        .buildWithCallback(measurement -> record(measurement, Tenant::getRequests));
+    meter.counterBuilder("gateway.tenant.requests.refused")
+        .setDescription("Requests refused with 429 by merchant quotas")
+        .buildWithCallback(measurement -> record(measurement,
+            tenant -> tenant.getRefusedForConcurrency() + tenant.getRefusedForRate()));
+    meter.gaugeBuilder("gateway.tenant.requests.active").ofLongs()
+        .setDescription("Requests in progress by merchant")
+        .buildWithCallback(measurement -> record(measurement, Tenant::getActiveRequests));
+    meter.gaugeBuilder("gateway.tenant.payments").ofLongs()
+        .setDescription("Payments in memory by merchant")
+        .buildWithCallback(measurement -> record(measurement,
+            tenant -> paymentsRepository.size(tenant.getMerchantId())));
+    meter.gaugeBuilder("gateway.tenant.bank.calls.queued").ofLongs()
+        .setDescription("Payments waiting for a bank call slot by merchant")
+        .buildWithCallback(measurement -> record(measurement,
+            tenant -> callLimiter.getQueued(tenant.getMerchantId())));
+  }
+
+  private void record(ObservableLongMeasurement measurement, ToLongFunction<Tenant> value) {
+    for (Tenant tenant : tenants.values()) {
+      measurement.record(value.applyAsLong(tenant),
+          Attributes.of(MERCHANT, tenant.getMerchantId()));
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.checkout.payment.gateway.transport;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * The connections to one acquirer origin. Each connection is its own {@link HttpClient}, since
+ * the JDK client keeps a single HTTP/2 connection per origin.
+ *
+ * <p>
+ * A request takes the connection with the fewest requests in flight that is below its stream
+ * limit, and waits when all are full. A new connection carries a single request until the
+ * protocol is settled, so the upgrade to HTTP/2 happens once rather than every concurrent
+ * payment opening an HTTP/1.1 connection of its own. After that the limit is
+ * {@code max-concurrent-streams} for HTTP/2 and none for HTTP/1.1, whose requests each take a
+ * connection from the client's keep-alive pool.
+ *
+ * <p>
+ * When the acquirer refuses a stream because it allows fewer concurrent streams, the limit of
+ * every connection to it drops to the streams then in flight. The JDK client refuses such a
+ * request before sending it, so it can be retried without risk of paying twice. A connection that
+ * fails a request, or sits idle for longer than {@code idle-timeout}, stops taking requests and is
+ * replaced by a new client once its last request has finished.
+ */
+final class ConnectionPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+  private final String origin;
+  private final Supplier<HttpClient> clients;
+  private final Connection[] connections;
+  private final long idleTimeoutNanos;
+  private int maxStreams;
+  private boolean streamsLowered;
+
+  ConnectionPool(String origin, ApplicationConfiguration.BankTransport settings,
+      Supplier<HttpClient> clients) {
+    this.origin = origin;
+    this.clients = clients;
+    this.connections = new Connection[Math.max(settings.getConnections(), 1)];
+    for (int i = 0; i < connections.length; i++) {
+      connections[i] = new Connection();
+    }
+    this.idleTimeoutNanos = settings.getIdleTimeout().toNanos();
+    this.maxStreams = Math.max(settings.getMaxConcurrentStreams(), 1);
+  }
+
+  /**
+   * Reserves a stream on the least busy connection, waiting until {@code deadlineNanos} (a
+   * {@link System#nanoTime()} value) for one to come free.
+   */
+  synchronized Connection acquire(long deadlineNanos)
+      throws HttpTimeoutException, InterruptedException {
+    while (true) {
+      long now = System.nanoTime();
+      Connection best = null;
+      for (Connection connection : connections) {
+        if (connection.active == 0 && (connection.client == null || connection.stale
+            || now - connection.lastUsed > idleTimeoutNanos)) {
+          connection.open(clients.get());
+        }
+        if (connection.active < connection.limit
+            && (best == null || connection.active < best.active)) {
+          best = connection;
+        }
+      }
+      if (best != null) {
+        best.active++;
+        return best;
+      }
+      if (deadlineNanos - now <= 0) {
+        throw new HttpTimeoutException("No free stream to " + origin);
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, deadlineNanos - now);
+    }
+  }
+
+  /**
+   * Returns a stream after a response, settling the connection's protocol on its first one.
+   */
+  synchronized void succeeded(Connection connection, HttpClient.Version version) {
+    if (!connection.negotiated) {
+      connection.negotiated = true;
+      connection.limit = version == HttpClient.Version.HTTP_2 ? maxStreams : Integer.MAX_VALUE;
+      LOG.info("Bank connection opened {} {}", kv("origin", origin), kv("protocol", version));
+    }
+    release(connection);
+  }
+
+  /**
+   * Returns a stream after a failed request; the connection is replaced once it is idle.
+   */
+  synchronized void failed(Connection connection) {
+    connection.stale = true;
+    connection.limit = 1;
+    release(connection);
+  }
+
+  /**
+   * Returns a stream the acquirer refused for exceeding its concurrent stream limit.
+   */
+  synchronized void refused(Connection connection) {
+    connection.active--;
+    int limit = Math.max(connection.active, 1);
+    if (limit < maxStreams) {
+      if (!streamsLowered) {
+        streamsLowered = true;
+        LOG.warn("Bank allows fewer concurrent streams than configured {} {}",
+            kv("origin", origin), kv("maxConcurrentStreams", maxStreams));
+      }
+      maxStreams = limit;
+    }
+    for (Connection other : connections) {
+      other.limit = Math.min(other.limit, maxStreams);
+    }
+    notifyAll();
+  }
+
+  private void release(Connection connection) {
+    connection.active--;
+    connection.lastUsed = System.nanoTime();
+    notifyAll();
+  }
+
+  /**
+   * One client and its connection to the origin. Guarded by the pool; {@link #client} only
+   * changes while no request is using it. A replaced client has no close method on JDK 17 and
+   * closes its connection once it is garbage collected.
+   */
+  static final class Connection {
+
+    private HttpClient client;
+    private int active;
+    private int limit;
+    private boolean negotiated;
+    private boolean stale;
+    private long lastUsed;
+
+    HttpClient client() {
+      return client;
+    }
+
+    private void open(HttpClient client) {
+      this.client = client;
+      this.limit = 1;
+      this.negotiated = false;
+      this.stale = false;
+      this.lastUsed = System.nanoTime();
+    }
+  }
+}
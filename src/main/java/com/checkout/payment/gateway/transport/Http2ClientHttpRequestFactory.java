@@ -0,0 +1,72 @@
+package com.checkout.payment.gateway.transport;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Sends bank requests with the JDK {@link HttpClient} over HTTP/2, so concurrent payments share a
+ * few long-lived connections per acquirer instead of taking a connection each.
+ *
+ * <p>
+ * {@code http} URLs are upgraded to HTTP/2 ({@code h2c}) on the first request of a connection and
+ * {@code https} URLs negotiate it with ALPN. An acquirer that takes up neither is spoken to over
+ * HTTP/1.1, with the JDK client's keep-alive pool. {@link ConnectionPool} spreads requests over
+ * the connections to each acquirer.
+ *
+ * <p>
+ * The flow-control windows are JVM-wide system properties of the JDK client, read whenever it
+ * opens an HTTP/2 connection; they are only set here when configured and not already set.
+ */
+public class Http2ClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+  private final ApplicationConfiguration.BankTransport settings;
+  private final ConcurrentHashMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+  private volatile Duration connectTimeout = Duration.ofSeconds(10);
+  private volatile Duration readTimeout = Duration.ofSeconds(10);
+
+  public Http2ClientHttpRequestFactory(ApplicationConfiguration.BankTransport settings) {
+    this.settings = settings;
+    setWindowSize("jdk.httpclient.windowsize", settings.getStreamWindowSize());
+    setWindowSize("jdk.httpclient.connectionWindowSize", settings.getConnectionWindowSize());
+  }
+
+  /**
+   * Connection timeout in milliseconds, for connections opened after the call.
+   */
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = Duration.ofMillis(connectTimeout);
+  }
+
+  /**
+   * Longest a request may take in milliseconds, including any wait for a free stream.
+   */
+  public void setReadTimeout(int readTimeout) {
+    this.readTimeout = Duration.ofMillis(readTimeout);
+  }
+
+  @Override
+  public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+    ConnectionPool pool = pools.computeIfAbsent(uri.getScheme() + "://" + uri.getRawAuthority(),
+        origin -> new ConnectionPool(origin, settings, this::newClient));
+    return new JdkClientHttpRequest(pool, uri, httpMethod, readTimeout);
+  }
+
+  private HttpClient newClient() {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(connectTimeout)
+        .build();
+  }
+
+  private static void setWindowSize(String property, int bytes) {
+    if (bytes > 0 && System.getProperty(property) == null) {
+      System.setProperty(property, Integer.toString(bytes));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.checkout.payment.gateway.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A buffered request sent on a stream from a {@link ConnectionPool}.
+ */
+final class JdkClientHttpRequest extends AbstractClientHttpRequest {
+
+  // Headers the JDK client sets itself and rejects from callers
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade");
+  // Message of the IOException the JDK client throws when the server's stream limit is reached
+  private static final String TOO_MANY_STREAMS = "too many concurrent streams";
+
+  private final ConnectionPool pool;
+  private final URI uri;
+  private final HttpMethod method;
+  private final Duration timeout;
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+
+  JdkClientHttpRequest(ConnectionPool pool, URI uri, HttpMethod method, Duration timeout) {
+    this.pool = pool;
+    this.uri = uri;
+    this.method = method;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  @Override
+  public URI getURI() {
+    return uri;
+  }
+
+  @Override
+  protected OutputStream getBodyInternal(HttpHeaders headers) {
+    return body;
+  }
+
+  @Override
+  protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    try {
+      while (true) {
+        ConnectionPool.Connection connection = pool.acquire(deadline);
+        try {
+          HttpResponse<byte[]> response = connection.client().send(
+              request(headers, deadline), HttpResponse.BodyHandlers.ofByteArray());
+          pool.succeeded(connection, response.version());
+          return new JdkClientHttpResponse(response);
+        } catch (IOException ex) {
+          if (TOO_MANY_STREAMS.equals(ex.getMessage())) {
+            pool.refused(connection);
+            continue;
+          }
+          pool.failed(connection);
+          throw ex;
+        } catch (InterruptedException | RuntimeException ex) {
+          pool.failed(connection);
+          throw ex;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted calling " + uri);
+    }
+  }
+
+  private HttpRequest request(HttpHeaders headers, long deadline) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+        .timeout(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 1)))
+        .method(method.name(), body.size() == 0
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+        for (String value : header.getValue()) {
+          builder.header(header.getKey(), value);
+        }
+      }
+    }
+    return builder.build();
+  }
+}
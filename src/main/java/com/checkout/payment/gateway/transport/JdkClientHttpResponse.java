@@ -0,0 +1,58 @@
+package com.checkout.payment.gateway.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A response read in full by the JDK client, so closing it has nothing to release.
+ */
+final class JdkClientHttpResponse implements ClientHttpResponse {
+
+  private final HttpResponse<byte[]> response;
+  private HttpHeaders headers;
+
+  JdkClientHttpResponse(HttpResponse<byte[]> response) {
+    this.response = response;
+  }
+
+  @Override
+  public HttpStatusCode getStatusCode() {
+    return HttpStatusCode.valueOf(response.statusCode());
+  }
+
+  @Override
+  @Deprecated
+  public int getRawStatusCode() {
+    return response.statusCode();
+  }
+
+  @Override
+  public String getStatusText() {
+    HttpStatus status = HttpStatus.resolve(response.statusCode());
+    return status != null ? status.getReasonPhrase() : "";
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    if (headers == null) {
+      HttpHeaders copy = new HttpHeaders();
+      response.headers().map().forEach(copy::addAll);
+      headers = HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+    return headers;
+  }
+
+  @Override
+  public InputStream getBody() {
+    return new ByteArrayInputStream(response.body());
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,273 @@
+package com.checkout.payment.gateway.tuning;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the bank calls in progress, so a slow bank holds at most that many request threads and
+ * the rest of the gateway keeps answering.
+ *
+ * <p>
+ * A call over the limit waits for a slot, up to the queue timeout, unless its merchant already
+ * has the maximum number of calls waiting. Freed slots go to waiting merchants in proportion to
+ * their weights (start-time fair queuing): each waiting call is tagged with a virtual finish time
+ * that grows by {@code 1 / weight} per call its merchant has queued, and the call with the
+ * earliest tag goes next. A merchant flooding the gateway therefore only lengthens its own queue,
+ * while a merchant with one call waiting gets one of the next slots. Calls without a merchant are
+ * one more queue, of weight 1.
+ *
+ * <p>
+ * Limits can be changed at any time: raising them lets waiting calls through at once, lowering
+ * them lets calls in progress finish and admits new ones as they drop below the new limit.
+ */
+public class BankCallLimiter {
+
+  // Virtual time a call of weight 1 takes; large enough that weights up to 1000 stay distinct
+  private static final long UNIT = 1 << 20;
+  private static final String NO_MERCHANT = "";
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LongAdder rejected = new LongAdder();
+  private final Map<String, Integer> weights;
+  // Guarded by lock
+  private final Map<String, Flow> flows = new HashMap<>();
+  private int maxConcurrent;
+  private int maxQueued;
+  private long queueTimeoutNanos;
+  private int active;
+  private int queued;
+  private long virtualTime;
+
+  public BankCallLimiter(int maxConcurrent, int maxQueued, Duration queueTimeout) {
+    this(maxConcurrent, maxQueued, queueTimeout, Map.of());
+  }
+
+  /**
+   * @param weights share of bank calls by merchant ID when calls queue; 1 for merchants not in it
+   */
+  public BankCallLimiter(int maxConcurrent, int maxQueued, Duration queueTimeout,
+      Map<String, Integer> weights) {
+    this.weights = Map.copyOf(weights);
+    resize(maxConcurrent, maxQueued, queueTimeout);
+  }
+
+  public static BankCallLimiter fromConfig(ApplicationConfiguration.Tuning tuning,
+      ApplicationConfiguration.Tenants tenants) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    tenants.getMerchants().forEach((id, merchant) -> weights.put(id, merchant.getWeight()));
+    return new BankCallLimiter(tuning.getBankMaxConcurrentCalls(),
+        tuning.getBankMaxQueuedCalls(), tuning.getBankQueueTimeout(), weights);
+  }
+
+  /**
+   * Takes a slot for one bank call of a payment without a merchant; see
+   * {@link #tryAcquire(String)}.
+   */
+  public boolean tryAcquire() {
+    return tryAcquire(null);
+  }
+
+  /**
+   * Takes a slot for one bank call, waiting if none is free. Every successful call must be paired
+   * with {@link #release()}.
+   *
+   * @param merchantId the merchant whose payment it is, or null
+   * @return false if the merchant's queue is full or no slot came free in time
+   */
+  public boolean tryAcquire(String merchantId) {
+    lock.lock();
+    try {
+      if (active < maxConcurrent) {
+        active++;
+        return true;
+      }
+      Flow flow = flows.computeIfAbsent(merchantId == null ? NO_MERCHANT : merchantId,
+          id -> new Flow(weights.getOrDefault(id, 1)));
+      if (flow.waiters.size() >= maxQueued) {
+        flow.rejected++;
+        rejected.increment();
+        return false;
+      }
+      Waiter waiter = new Waiter(lock.newCondition(),
+          Math.max(virtualTime, flow.lastFinish) + UNIT / flow.weight);
+      flow.lastFinish = waiter.finish;
+      flow.waiters.add(waiter);
+      queued++;
+      try {
+        long remaining = queueTimeoutNanos;
+        while (!waiter.granted) {
+          if (remaining <= 0) {
+            abandon(flow, waiter);
+            return false;
+          }
+          remaining = waiter.admitted.awaitNanos(remaining);
+        }
+        return true;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        if (waiter.granted) {
+          // The slot came with the interrupt; pass it on
+          active--;
+          admit();
+        } else {
+          queued--;
+          flow.waiters.remove(waiter);
+        }
+        flow.rejected++;
+        rejected.increment();
+        return false;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release() {
+    lock.lock();
+    try {
+      active--;
+      admit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Changes the limits; calls already holding a slot keep it. {@code maxQueued} applies to each
+   * merchant.
+   */
+  public void resize(int maxConcurrent, int maxQueued, Duration queueTimeout) {
+    lock.lock();
+    try {
+      this.maxConcurrent = maxConcurrent;
+      this.maxQueued = maxQueued;
+      this.queueTimeoutNanos = queueTimeout.toNanos();
+      admit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getMaxConcurrent() {
+    lock.lock();
+    try {
+      return maxConcurrent;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getActive() {
+    lock.lock();
+    try {
+      return active;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getQueued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Calls of the merchant's payments waiting for a slot.
+   */
+  public int getQueued(String merchantId) {
+    lock.lock();
+    try {
+      Flow flow = flows.get(merchantId == null ? NO_MERCHANT : merchantId);
+      return flow == null ? 0 : flow.waiters.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Calls turned away since startup, because the queue was full or the wait timed out.
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * Calls of the merchant's payments turned away since startup.
+   */
+  public long getRejected(String merchantId) {
+    lock.lock();
+    try {
+      Flow flow = flows.get(merchantId == null ? NO_MERCHANT : merchantId);
+      return flow == null ? 0 : flow.rejected;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Hands free slots to the waiting calls with the earliest finish tags; the caller holds the
+   * lock.
+   */
+  private void admit() {
+    while (active < maxConcurrent && queued > 0) {
+      Flow next = null;
+      for (Flow flow : flows.values()) {
+        Waiter head = flow.waiters.peek();
+        if (head != null && (next == null || head.finish < next.waiters.peek().finish)) {
+          next = flow;
+        }
+      }
+      Waiter waiter = next.waiters.poll();
+      queued--;
+      virtualTime = Math.max(virtualTime, waiter.finish - UNIT / next.weight);
+      waiter.granted = true;
+      active++;
+      waiter.admitted.signal();
+    }
+  }
+
+  private void abandon(Flow flow, Waiter waiter) {
+    flow.waiters.remove(waiter);
+    queued--;
+    flow.rejected++;
+    rejected.increment();
+  }
+
+  /**
+   * One merchant's waiting calls, in arrival order, which is also finish-tag order.
+   */
+  private static final class Flow {
+
+    final int weight;
+    final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    long lastFinish;
+    long rejected;
+
+    Flow(int weight) {
+      this.weight = Math.max(1, weight);
+    }
+  }
+
+  private static final class Waiter {
+
+    final Condition admitted;
+    final long finish;
+    boolean granted;
+
+    Waiter(Condition admitted, long finish) {
+      this.admitted = admitted;
+      this.finish = finish;
+    }
+  }
+}
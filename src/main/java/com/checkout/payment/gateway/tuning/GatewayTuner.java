@@ -0,0 +1,248 @@
+package com.checkout.payment.gateway.tuning;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.transport.Http2ClientHttpRequestFactory;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Applies {@code payment.gateway.tuning} to Tomcat, the bank call limiter and the bank's HTTP
+ * client, at startup and again whenever the settings are changed while running.
+ *
+ * <p>
+ * Thread pool sizes, keep-alive settings, bank call limits and bank timeouts take effect
+ * immediately. Requests already being served keep their thread when the pool shrinks, so none are
+ * dropped; idle threads beyond the new size are stopped. The accept queue is only read when Tomcat
+ * binds its port, so a new value is kept but has no effect until the connector restarts. Without
+ * an embedded Tomcat, as under MockMvc, only the bank settings apply. The reactive gateway calls
+ * the bank through its own client, which reads the bank timeouts at startup only.
+ *
+ * <p>
+ * The settings in effect, busy request threads and bank calls in progress, queued and rejected
+ * are published as OpenTelemetry metrics.
+ */
+@Component
+public class GatewayTuner implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GatewayTuner.class);
+  private static final AttributeKey<String> SETTING = AttributeKey.stringKey("setting");
+
+  private final ApplicationContext context;
+  private final RestTemplate restTemplate;
+  private final BankCallLimiter callLimiter;
+  private volatile ApplicationConfiguration.Tuning current;
+
+  public GatewayTuner(ApplicationConfiguration config, RestTemplate restTemplate,
+      BankService bankService, OpenTelemetry openTelemetry, ApplicationContext context) {
+    this.context = context;
+    this.restTemplate = restTemplate;
+    this.callLimiter = bankService.getCallLimiter();
+    this.current = new ApplicationConfiguration.Tuning(config.getTuning());
+    registerMetrics(openTelemetry.getMeter("com.checkout.payment.gateway"));
+  }
+
+  @Override
+  public void customize(TomcatServletWebServerFactory factory) {
+    factory.addConnectorCustomizers(connector -> {
+      ProtocolHandler handler = connector.getProtocolHandler();
+      if (handler instanceof AbstractProtocol<?> protocol) {
+        protocol.setAcceptCount(current.getAcceptCount());
+        applyTo(protocol, current);
+      }
+    });
+  }
+
+  /**
+   * Returns a copy of the settings in effect.
+   */
+  public ApplicationConfiguration.Tuning current() {
+    return new ApplicationConfiguration.Tuning(current);
+  }
+
+  /**
+   * Changes the settings in effect. Concurrent updates are applied one after the other, each on
+   * top of the previous one.
+   *
+   * @param changes edits a copy of the current settings
+   * @return the settings now in effect
+   * @throws ValidationException if the edited settings are invalid; nothing is changed then
+   */
+  public synchronized ApplicationConfiguration.Tuning update(
+      Consumer<ApplicationConfiguration.Tuning> changes) {
+    ApplicationConfiguration.Tuning next = current();
+    changes.accept(next);
+    validate(next);
+
+    AbstractProtocol<?> protocol = runningProtocol();
+    if (protocol != null) {
+      applyTo(protocol, next);
+    }
+    callLimiter.resize(next.getBankMaxConcurrentCalls(), next.getBankMaxQueuedCalls(),
+        next.getBankQueueTimeout());
+    applyBankTimeouts(restTemplate.getRequestFactory(), next);
+    current = next;
+
+    LOG.info("Tuning changed {} {} {} {}", kv("maxThreads", next.getMaxThreads()),
+        kv("minSpareThreads", next.getMinSpareThreads()),
+        kv("bankMaxConcurrentCalls", next.getBankMaxConcurrentCalls()),
+        kv("bankMaxQueuedCalls", next.getBankMaxQueuedCalls()));
+    return current();
+  }
+
+  private static void validate(ApplicationConfiguration.Tuning tuning) {
+    requirePositive("maxThreads", tuning.getMaxThreads());
+    requirePositive("minSpareThreads", tuning.getMinSpareThreads());
+    requirePositive("acceptCount", tuning.getAcceptCount());
+    requirePositive("maxKeepAliveRequests", tuning.getMaxKeepAliveRequests());
+    requirePositive("bankMaxConcurrentCalls", tuning.getBankMaxConcurrentCalls());
+    if (tuning.getBankMaxQueuedCalls() < 0) {
+      throw new ValidationException("bankMaxQueuedCalls must not be negative");
+    }
+    if (tuning.getMinSpareThreads() > tuning.getMaxThreads()) {
+      throw new ValidationException("minSpareThreads must not exceed maxThreads");
+    }
+    requirePositive("keepAliveTimeout", tuning.getKeepAliveTimeout());
+    requirePositive("bankConnectTimeout", tuning.getBankConnectTimeout());
+    requirePositive("bankReadTimeout", tuning.getBankReadTimeout());
+    if (tuning.getBankQueueTimeout() == null || tuning.getBankQueueTimeout().isNegative()) {
+      throw new ValidationException("bankQueueTimeout must not be negative");
+    }
+  }
+
+  private static void requirePositive(String setting, int value) {
+    if (value <= 0) {
+      throw new ValidationException(setting + " must be positive");
+    }
+  }
+
+  private static void requirePositive(String setting, Duration value) {
+    if (value == null || value.isNegative() || value.isZero()) {
+      throw new ValidationException(setting + " must be positive");
+    }
+  }
+
+  private static void applyTo(AbstractProtocol<?> protocol, ApplicationConfiguration.Tuning next) {
+    // The executor refuses a maximum below its core size, and a core size above its maximum
+    if (next.getMaxThreads() < protocol.getMinSpareThreads()) {
+      protocol.setMinSpareThreads(next.getMinSpareThreads());
+      protocol.setMaxThreads(next.getMaxThreads());
+    } else {
+      protocol.setMaxThreads(next.getMaxThreads());
+      protocol.setMinSpareThreads(next.getMinSpareThreads());
+    }
+    protocol.setKeepAliveTimeout((int) next.getKeepAliveTimeout().toMillis());
+    if (protocol instanceof AbstractHttp11Protocol<?> http11) {
+      http11.setMaxKeepAliveRequests(next.getMaxKeepAliveRequests());
+    }
+  }
+
+  private static void applyBankTimeouts(ClientHttpRequestFactory factory,
+      ApplicationConfiguration.Tuning next) {
+    int connectTimeout = (int) next.getBankConnectTimeout().toMillis();
+    int readTimeout = (int) next.getBankReadTimeout().toMillis();
+    if (factory instanceof Http2ClientHttpRequestFactory http2) {
+      http2.setConnectTimeout(connectTimeout);
+      http2.setReadTimeout(readTimeout);
+    } else if (factory instanceof OkHttp3ClientHttpRequestFactory okHttp) {
+      okHttp.setConnectTimeout(connectTimeout);
+      okHttp.setReadTimeout(readTimeout);
+    } else if (factory instanceof SimpleClientHttpRequestFactory simple) {
+      simple.setConnectTimeout(connectTimeout);
+      simple.setReadTimeout(readTimeout);
+    } else {
+      LOG.warn("Bank timeouts apply on the next start {}",
+          kv("requestFactory", factory.getClass().getName()));
+    }
+  }
+
+  private AbstractProtocol<?> runningProtocol() {
+    if (context instanceof WebServerApplicationContext web
+        && web.getWebServer() instanceof TomcatWebServer tomcat
+        && tomcat.getTomcat().getConnector().getProtocolHandler()
+        instanceof AbstractProtocol<?> protocol) {
+      return protocol;
+    }
+    return null;
+  }
+
+  private void registerMetrics(Meter meter) {
+    meter.gaugeBuilder("gateway.tuning.setting").ofLongs()
+        .setDescription("Tuning settings in effect; durations in milliseconds")
+        .buildWithCallback(this::recordSettings);
+    meter.gaugeBuilder("gateway.server.threads.busy").ofLongs()
+        .setDescription("Request threads serving a request")
+        .buildWithCallback(measurement -> {
+          ThreadPoolExecutor executor = requestExecutor();
+          if (executor != null) {
+            measurement.record(executor.getActiveCount());
+          }
+        });
+    meter.gaugeBuilder("gateway.server.threads").ofLongs()
+        .setDescription("Request threads started")
+        .buildWithCallback(measurement -> {
+          ThreadPoolExecutor executor = requestExecutor();
+          if (executor != null) {
+            measurement.record(executor.getPoolSize());
+          }
+        });
+    meter.gaugeBuilder("gateway.bank.calls.active").ofLongs()
+        .setDescription("Bank calls in progress")
+        .buildWithCallback(measurement -> measurement.record(callLimiter.getActive()));
+    meter.gaugeBuilder("gateway.bank.calls.queued").ofLongs()
+        .setDescription("Payments waiting for a bank call slot")
+        .buildWithCallback(measurement -> measurement.record(callLimiter.getQueued()));
+    meter.counterBuilder("gateway.bank.calls.rejected")
+        .setDescription("Payments rejected for want of a bank call slot")
+        .buildWithCallback(measurement -> measurement.record(callLimiter.getRejected()));
+  }
+
+  private void recordSettings(ObservableLongMeasurement measurement) {
+    ApplicationConfiguration.Tuning tuning = current;
+    record(measurement, "maxThreads", tuning.getMaxThreads());
+    record(measurement, "minSpareThreads", tuning.getMinSpareThreads());
+    record(measurement, "acceptCount", tuning.getAcceptCount());
+    record(measurement, "keepAliveTimeout", tuning.getKeepAliveTimeout().toMillis());
+    record(measurement, "maxKeepAliveRequests", tuning.getMaxKeepAliveRequests());
+    record(measurement, "bankMaxConcurrentCalls", tuning.getBankMaxConcurrentCalls());
+    record(measurement, "bankMaxQueuedCalls", tuning.getBankMaxQueuedCalls());
+    record(measurement, "bankQueueTimeout", tuning.getBankQueueTimeout().toMillis());
+    record(measurement, "bankConnectTimeout", tuning.getBankConnectTimeout().toMillis());
+    record(measurement, "bankReadTimeout", tuning.getBankReadTimeout().toMillis());
+  }
+
+  private static void record(ObservableLongMeasurement measurement, String setting, long value) {
+    measurement.record(value, Attributes.of(SETTING, setting));
+  }
+
+  private ThreadPoolExecutor requestExecutor() {
+    AbstractProtocol<?> protocol = runningProtocol();
+    Executor executor = protocol == null ? null : protocol.getExecutor();
+    return executor instanceof ThreadPoolExecutor pool ? pool : null;
+  }
+}
@@ -0,0 +1,350 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.PaymentEventListener;
+import com.checkout.payment.gateway.model.PaymentNotification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Pushes payment status changes to the webhook URL of the merchant the payment belongs to, or to
+ * the default URL for payments of no merchant. A merchant's notifications never go to another
+ * destination, so merchants without a URL get none.
+ *
+ * <p>
+ * Recording threads only add a notification to the destination's bounded queue; when the queue is
+ * full the notification is dropped rather than blocking the payment. Each destination has at most
+ * one request in flight, which keeps its notifications in order. Everything queued while a request
+ * is in flight goes out in the next request, up to {@code max-batch-size} notifications, so a busy
+ * destination gets fewer, larger requests. Requests share one {@link HttpClient}, which keeps
+ * connections to each destination open between requests.
+ *
+ * <p>
+ * A failed batch (error, timeout or non-2xx response) holds back its destination and is retried
+ * with exponential backoff and jitter, up to {@code max-attempts} times. With a
+ * {@link WebhookRetryStore}, failed batches and anything still queued on shutdown are written to
+ * disk and delivered after a restart. Delivery is at least once: receivers should use the
+ * notification id to drop duplicates.
+ */
+public class WebhookDispatcher implements PaymentEventListener, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+  private final ApplicationConfiguration.Webhooks settings;
+  private final ObjectMapper objectMapper;
+  private final WebhookRetryStore retryStore;
+  // Null when payments of no merchant are not notified
+  private final URI defaultDestination;
+  private final Map<String, URI> merchantDestinations;
+  private final HttpClient client;
+  private final ScheduledExecutorService scheduler;
+  private final ConcurrentHashMap<URI, Destination> destinations = new ConcurrentHashMap<>();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private volatile boolean closed;
+
+  /**
+   * A dispatcher for payments of no merchant only.
+   */
+  public WebhookDispatcher(ApplicationConfiguration.Webhooks settings, ObjectMapper objectMapper,
+      WebhookRetryStore retryStore) throws IOException {
+    this(settings, Map.of(), objectMapper, retryStore);
+  }
+
+  /**
+   * @param merchantDestinations each merchant's webhook URL, keyed by merchant ID
+   * @param retryStore where failed batches are kept, or null to keep them in memory only
+   */
+  public WebhookDispatcher(ApplicationConfiguration.Webhooks settings,
+      Map<String, URI> merchantDestinations, ObjectMapper objectMapper,
+      WebhookRetryStore retryStore) throws IOException {
+    this.settings = settings;
+    this.objectMapper = objectMapper;
+    this.retryStore = retryStore;
+    this.defaultDestination = settings.getUrl().isBlank() ? null : URI.create(settings.getUrl());
+    this.merchantDestinations = Map.copyOf(merchantDestinations);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "webhook-delivery");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.client = HttpClient.newBuilder()
+        .connectTimeout(settings.getTimeout())
+        .build();
+    if (retryStore != null) {
+      for (WebhookRetryStore.StoredBatch stored : retryStore.load()) {
+        destination(stored.destination()).retries.add(
+            new Batch(stored.body(), objectMapper.readTree(stored.body()).size(),
+                stored.attempts(), stored.file()));
+      }
+      destinations.values().forEach(Destination::trySend);
+    }
+  }
+
+  /**
+   * Queues a notification for events that carry a payment status, for the destination of the
+   * payment's merchant.
+   */
+  @Override
+  public void onEvent(PaymentEvent event) {
+    if (closed || event.outcome() == null) {
+      return;
+    }
+    URI uri = event.merchantId() == null
+        ? defaultDestination : merchantDestinations.get(event.merchantId());
+    if (uri == null) {
+      return;
+    }
+    destination(uri).offer(new PaymentNotification(event.sequence(),
+        event.toPayment(), event.type(), Instant.ofEpochMilli(event.timestampMillis())));
+  }
+
+  public long getDeliveredCount() {
+    return delivered.sum();
+  }
+
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * Stops delivery. Queued notifications and batches in flight are written to the retry store,
+   * or dropped without one.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    scheduler.shutdownNow();
+    for (Destination destination : destinations.values()) {
+      destination.persistRemaining();
+    }
+  }
+
+  private Destination destination(URI uri) {
+    return destinations.computeIfAbsent(uri, Destination::new);
+  }
+
+  private long backoffMillis(int attempts) {
+    long initial = settings.getInitialBackoff().toMillis();
+    long max = settings.getMaxBackoff().toMillis();
+    long backoff = attempts >= 32 ? max : Math.min(max, initial << (attempts - 1));
+    // Half fixed, half random, so destinations that failed together do not retry together
+    return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+  }
+
+  private static final class Batch {
+    final byte[] body;
+    final int count;
+    int attempts;
+    Path file;
+
+    Batch(byte[] body, int count, int attempts, Path file) {
+      this.body = body;
+      this.count = count;
+      this.attempts = attempts;
+      this.file = file;
+    }
+  }
+
+  private final class Destination {
+    final URI uri;
+    final Queue<PaymentNotification> queue = new ConcurrentLinkedQueue<>();
+    final AtomicInteger queued = new AtomicInteger();
+    final ConcurrentLinkedDeque<Batch> retries = new ConcurrentLinkedDeque<>();
+    final AtomicBoolean sending = new AtomicBoolean();
+    volatile Batch inFlight;
+
+    Destination(URI uri) {
+      this.uri = uri;
+    }
+
+    void offer(PaymentNotification notification) {
+      if (queued.incrementAndGet() > settings.getQueueCapacity()) {
+        queued.decrementAndGet();
+        dropped.increment();
+        LOG.warn("Webhook queue full, notification dropped {} {}",
+            kv("destination", uri), kv("paymentId", notification.getPaymentId()));
+        return;
+      }
+      queue.add(notification);
+      trySend();
+    }
+
+    void trySend() {
+      if (closed || (retries.isEmpty() && queue.isEmpty())
+          || !sending.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        scheduler.execute(this::sendNext);
+      } catch (RejectedExecutionException ex) {
+        sending.set(false);
+      }
+    }
+
+    private void sendNext() {
+      Batch batch = retries.poll();
+      if (batch == null) {
+        batch = drain();
+      }
+      if (batch == null) {
+        sending.set(false);
+        trySend();
+        return;
+      }
+      send(batch);
+    }
+
+    private Batch drain() {
+      List<PaymentNotification> notifications = new ArrayList<>();
+      PaymentNotification notification;
+      while (notifications.size() < settings.getMaxBatchSize()
+          && (notification = queue.poll()) != null) {
+        notifications.add(notification);
+      }
+      if (notifications.isEmpty()) {
+        return null;
+      }
+      queued.addAndGet(-notifications.size());
+      try {
+        return new Batch(objectMapper.writeValueAsBytes(notifications), notifications.size(), 0,
+            null);
+      } catch (JsonProcessingException ex) {
+        failed.add(notifications.size());
+        LOG.error("Webhook notifications could not be serialized {}",
+            kv("error", ex.getMessage()));
+        return null;
+      }
+    }
+
+    private void send(Batch batch) {
+      inFlight = batch;
+      if (closed) {
+        return;
+      }
+      try {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(settings.getTimeout())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(batch.body))
+            .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) ->
+                onResponse(batch, response == null ? -1 : response.statusCode(), error));
+      } catch (RuntimeException ex) {
+        onResponse(batch, -1, ex);
+      }
+    }
+
+    private void onResponse(Batch batch, int status, Throwable error) {
+      if (error == null && status >= 200 && status < 300) {
+        delivered.add(batch.count);
+        deleteStored(batch);
+        finish();
+        return;
+      }
+      batch.attempts++;
+      if (batch.attempts >= settings.getMaxAttempts()) {
+        failed.add(batch.count);
+        LOG.error("Webhook delivery given up {} {} {}", kv("destination", uri),
+            kv("notifications", batch.count), kv("attempts", batch.attempts));
+        deleteStored(batch);
+        finish();
+        return;
+      }
+      store(batch);
+      long delay = backoffMillis(batch.attempts);
+      LOG.warn("Webhook delivery failed, retrying {} {} {} {}", kv("destination", uri),
+          kv("status", status), kv("attempts", batch.attempts), kv("retryInMs", delay));
+      try {
+        scheduler.schedule(() -> send(batch), delay, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException ex) {
+        // Closed meanwhile; the batch is already in the retry store if there is one
+        inFlight = null;
+      }
+    }
+
+    private void finish() {
+      inFlight = null;
+      sending.set(false);
+      trySend();
+    }
+
+    void persistRemaining() {
+      List<Batch> remaining = new ArrayList<>();
+      Batch current = inFlight;
+      if (current != null) {
+        remaining.add(current);
+      }
+      remaining.addAll(retries);
+      if (retryStore == null) {
+        remaining.forEach(batch -> dropped.add(batch.count));
+        dropped.add(queued.get());
+        return;
+      }
+      Batch batch;
+      while ((batch = drain()) != null) {
+        remaining.add(batch);
+      }
+      remaining.forEach(this::store);
+    }
+
+    private void store(Batch batch) {
+      if (retryStore == null) {
+        return;
+      }
+      try {
+        batch.file = batch.file == null
+            ? retryStore.save(uri, batch.body, batch.attempts)
+            : retryStore.updateAttempts(batch.file, batch.attempts);
+      } catch (IOException ex) {
+        LOG.error("Webhook batch could not be stored {} {}", kv("destination", uri),
+            kv("error", ex.getMessage()));
+      }
+    }
+
+    private void deleteStored(Batch batch) {
+      if (retryStore == null || batch.file == null) {
+        return;
+      }
+      try {
+        retryStore.delete(batch.file);
+      } catch (IOException ex) {
+        LOG.warn("Delivered webhook batch could not be deleted {} {}",
+            kv("file", batch.file), kv("error", ex.getMessage()));
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.checkout.payment.gateway.webhook;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps webhook batches that could not be delivered yet on local disk, so they survive a restart.
+ * Each batch is one file named {@code <id>-<attempts>.batch} holding the destination URL on the
+ * first line and the request body after it. Ids increase across restarts, so loading in name order
+ * keeps each destination's batches in their original order. Files are written under a temporary
+ * name and renamed, and an attempt is recorded by renaming the file.
+ */
+public class WebhookRetryStore {
+
+  private static final String SUFFIX = ".batch";
+
+  private final Path directory;
+  private final AtomicLong nextId;
+
+  public WebhookRetryStore(Path directory) throws IOException {
+    this.directory = directory;
+    Files.createDirectories(directory);
+    long maxId = -1;
+    for (Path file : files()) {
+      maxId = Math.max(maxId, idOf(file));
+    }
+    this.nextId = new AtomicLong(maxId + 1);
+  }
+
+  /**
+   * Stores a batch and returns the file it was written to.
+   */
+  public Path save(URI destination, byte[] body, int attempts) throws IOException {
+    Path target = directory.resolve(fileName(nextId.getAndIncrement(), attempts));
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    byte[] header = (destination + "\n").getBytes(StandardCharsets.UTF_8);
+    byte[] content = Arrays.copyOf(header, header.length + body.length);
+    System.arraycopy(body, 0, content, header.length, body.length);
+    Files.write(temporary, content);
+    return Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Records the number of attempts made so far and returns the batch's new file.
+   */
+  public Path updateAttempts(Path file, int attempts) throws IOException {
+    return Files.move(file, file.resolveSibling(fileName(idOf(file), attempts)),
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public void delete(Path file) throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Reads every stored batch, oldest first.
+   */
+  public List<StoredBatch> load() throws IOException {
+    List<StoredBatch> batches = new ArrayList<>();
+    for (Path file : files()) {
+      byte[] content = Files.readAllBytes(file);
+      int newline = indexOf(content, (byte) '\n');
+      if (newline < 0) {
+        throw new IOException("Corrupt webhook batch " + file);
+      }
+      URI destination = URI.create(new String(content, 0, newline, StandardCharsets.UTF_8));
+      byte[] body = Arrays.copyOfRange(content, newline + 1, content.length);
+      batches.add(new StoredBatch(file, destination, body, attemptsOf(file)));
+    }
+    return batches;
+  }
+
+  private List<Path> files() throws IOException {
+    try (Stream<Path> listing = Files.list(directory)) {
+      return listing
+          .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static String fileName(long id, int attempts) {
+    return String.format("%016d-%d%s", id, attempts, SUFFIX);
+  }
+
+  private static long idOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.indexOf('-')));
+  }
+
+  private static int attemptsOf(Path file) {
+    String name = file.getFileName().toString();
+    return Integer.parseInt(name.substring(name.indexOf('-') + 1, name.length() - SUFFIX.length()));
+  }
+
+  private static int indexOf(byte[] content, byte value) {
+    for (int i = 0; i < content.length; i++) {
+      if (content[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A batch read back from disk.
+   */
+  public record StoredBatch(Path file, URI destination, byte[] body, int attempts) {
+  }
+}
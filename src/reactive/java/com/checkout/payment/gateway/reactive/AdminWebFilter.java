@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.controller.AdminInterceptor;
+import com.checkout.payment.gateway.exception.AuthenticationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive counterpart of registering {@link AdminInterceptor} on {@code /admin}: operator
+ * requests without the admin key are answered with 401 before they reach a controller.
+ */
+@Component
+public class AdminWebFilter implements WebFilter {
+
+  private final AdminInterceptor adminInterceptor;
+
+  public AdminWebFilter(AdminInterceptor adminInterceptor) {
+    this.adminInterceptor = adminInterceptor;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String path = exchange.getRequest().getPath().pathWithinApplication().value();
+    if (!path.equals("/admin") && !path.startsWith("/admin/")) {
+      return chain.filter(exchange);
+    }
+    try {
+      adminInterceptor.authenticate(
+          exchange.getRequest().getHeaders().getFirst(AdminInterceptor.ADMIN_KEY_HEADER));
+    } catch (AuthenticationException ex) {
+      exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+      return exchange.getResponse().setComplete();
+    }
+    return chain.filter(exchange);
+  }
+}
@@ -0,0 +1,30 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.logging.CorrelationIdFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * The reactive counterpart of {@link CorrelationIdFilter}. A request is not tied to a thread
+ * here, so the ID travels in the Reactor context under {@link CorrelationIdFilter#MDC_KEY} and
+ * is copied into the MDC by the steps that log.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdWebFilter implements WebFilter {
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String correlationId = CorrelationIdFilter.resolve(
+        exchange.getRequest().getHeaders().getFirst(CorrelationIdFilter.HEADER));
+    exchange.getResponse().getHeaders().set(CorrelationIdFilter.HEADER, correlationId);
+    return chain.filter(exchange)
+        .contextWrite(Context.of(CorrelationIdFilter.MDC_KEY, correlationId));
+  }
+}
@@ -0,0 +1,146 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.profiling.BankCallEvent;
+import com.checkout.payment.gateway.routing.AcquirerEndpoint;
+import com.checkout.payment.gateway.routing.AcquirerRouter;
+import com.checkout.payment.gateway.service.BankService;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Calls the acquiring bank with a non-blocking {@link WebClient}, following the same rules as
+ * {@link BankService}: a 503 or a refused connection moves the payment to the next best
+ * acquirer, and any other failure ends it. The router is shared with {@link BankService}, so
+ * both see the same acquirer load.
+ */
+@Service
+public class ReactiveBankService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReactiveBankService.class);
+
+  private final WebClient webClient;
+  private final AcquirerRouter router;
+  private final TextMapPropagator propagator;
+
+  public ReactiveBankService(WebClient bankWebClient, BankService bankService,
+      OpenTelemetry openTelemetry) {
+    this.webClient = bankWebClient;
+    this.router = bankService.getRouter();
+    this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+  }
+
+  /**
+   * Submits a payment request to the acquiring bank.
+   *
+   * @param request the payment request to submit
+   * @param context the trace context to pass on to the bank
+   * @return the bank's response, or empty if an error occurs
+   */
+  public Mono<GetAcquiringBankResponse> submitBankRequest(GetAcquiringBankRequest request,
+      Context context) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    // Pass the trace on so the bank's spans join the payment's trace
+    propagator.inject(context, headers, HttpHeaders::set);
+    return new Submission(request, headers, Span.fromContext(context)).next();
+  }
+
+  /**
+   * One payment's way through the acquirers.
+   */
+  private final class Submission {
+
+    private final GetAcquiringBankRequest request;
+    private final HttpHeaders headers;
+    private final Span span;
+    // Captured while the caller's MDC entries are set, as attempts run on other threads
+    private final String paymentId = BankCallEvent.currentPaymentId();
+    private final List<AcquirerEndpoint> tried = new ArrayList<>(2);
+
+    Submission(GetAcquiringBankRequest request, HttpHeaders headers, Span span) {
+      this.request = request;
+      this.headers = headers;
+      this.span = span;
+    }
+
+    Mono<GetAcquiringBankResponse> next() {
+      return Mono.defer(() -> {
+        AcquirerEndpoint acquirer =
+            router.select(request.getCurrency(), request.getCardNumber(), tried);
+        if (acquirer == null) {
+          return Mono.empty();
+        }
+        tried.add(acquirer);
+        span.setAttribute("payment.acquirer", acquirer.getName());
+        BankCallEvent event = BankCallEvent.start(paymentId, acquirer.getName());
+        long started = acquirer.begin();
+        // 200 OK -> authorized or unauthorized (based on card number)
+        return webClient.post()
+            .uri(acquirer.getUrl())
+            .headers(outbound -> outbound.addAll(headers))
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(GetAcquiringBankResponse.class)
+            .doOnSuccess(response -> {
+              acquirer.succeeded(started);
+              event.finish(response);
+            })
+            .doOnCancel(() -> {
+              acquirer.failed(started);
+              event.finish(BankCallEvent.CANCELLED);
+            })
+            .onErrorResume(ex -> recover(ex, acquirer, started, event));
+      });
+    }
+
+    private Mono<GetAcquiringBankResponse> recover(Throwable ex, AcquirerEndpoint acquirer,
+        long started, BankCallEvent event) {
+      if (ex instanceof WebClientResponseException.BadRequest badRequest) {
+        // 400 -> missing required fields
+        acquirer.succeeded(started);
+        event.finish(BankCallEvent.BAD_REQUEST);
+        LOG.warn("Bad request from bank {} {}", kv("acquirer", acquirer.getName()),
+            kv("bankResponse", badRequest.getResponseBodyAsString()));
+        return Mono.empty();
+      }
+      acquirer.failed(started);
+      if (ex instanceof WebClientResponseException.ServiceUnavailable unavailable) {
+        // 503 -> card ends with 0, or the acquirer is overloaded; try the next one
+        event.finish(BankCallEvent.UNAVAILABLE);
+        LOG.warn("Bank unavailable {} {}", kv("acquirer", acquirer.getName()),
+            kv("bankResponse", unavailable.getResponseBodyAsString()));
+        return next();
+      }
+      if (ex instanceof WebClientRequestException) {
+        boolean refused = ex.getCause() instanceof ConnectException;
+        event.finish(refused ? BankCallEvent.UNREACHABLE : BankCallEvent.FAILED);
+        LOG.warn("Could not reach bank {} {}", kv("acquirer", acquirer.getName()),
+            kv("error", ex.getMessage()));
+        return refused ? next() : Mono.empty();
+      }
+      // Any other unexpected errors
+      event.finish(BankCallEvent.FAILED);
+      LOG.warn("Unexpected error calling bank {} {}", kv("acquirer", acquirer.getName()),
+          kv("error", ex.getMessage()));
+      return Mono.empty();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Web server and bank client of the reactive gateway.
+ */
+@Configuration
+public class ReactiveConfiguration {
+
+  private static final Duration PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+  // Reactor Netty's default pool allows 16 connections and queues only 32 more requests, far
+  // fewer than the payments a single event loop can have waiting on the bank
+  private static final int BANK_CONNECTIONS = 500;
+
+  /**
+   * Netty, declared explicitly because Tomcat is on the classpath too and would otherwise be
+   * preferred.
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  /**
+   * Boot only provides a builder to servlet applications. The gateway's {@code RestTemplate} is
+   * still built from it for {@code BankService}, which holds the acquirer router; payments here go
+   * to the bank through {@link ReactiveBankService}.
+   */
+  @Bean
+  public RestTemplateBuilder restTemplateBuilder() {
+    return new RestTemplateBuilder();
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider bankConnectionProvider() {
+    return ConnectionProvider.builder("bank")
+        .maxConnections(BANK_CONNECTIONS)
+        .pendingAcquireMaxCount(-1)
+        .pendingAcquireTimeout(PENDING_ACQUIRE_TIMEOUT)
+        .build();
+  }
+
+  /**
+   * Uses the bank timeouts of {@code payment.gateway.tuning} as they are at startup; unlike the
+   * servlet gateway's, later changes through {@code /admin/tuning} do not reach this client.
+   */
+  @Bean
+  public WebClient bankWebClient(WebClient.Builder builder,
+      ConnectionProvider bankConnectionProvider, ApplicationConfiguration config) {
+    ApplicationConfiguration.Tuning tuning = config.getTuning();
+    HttpClient httpClient = HttpClient.create(bankConnectionProvider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+            (int) tuning.getBankConnectTimeout().toMillis())
+        .responseTimeout(tuning.getBankReadTimeout());
+    return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+  }
+}
@@ -0,0 +1,49 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.configuration.WebConfiguration;
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import com.checkout.payment.gateway.instrumentation.ParseTracingAdvice;
+import com.checkout.payment.gateway.instrumentation.SerializeTracingAdvice;
+import com.checkout.payment.gateway.instrumentation.TracingFilter;
+import com.checkout.payment.gateway.logging.CorrelationIdFilter;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * The gateway on WebFlux and Netty. It runs the same services, ledger and configuration as
+ * {@link PaymentGatewayApplication}, with the servlet controller, filters and Spring MVC set-up
+ * swapped for the reactive ones in this package.
+ *
+ * <p>
+ * Spring MVC stays on the classpath, so the web application type has to be set explicitly: with
+ * {@code spring.main.web-application-type=reactive} when this class is used as a configuration,
+ * as tests do. It is deliberately not a {@code @SpringBootConfiguration}, so tests that look one
+ * up still find only {@link PaymentGatewayApplication}.
+ */
+@EnableAutoConfiguration
+@ComponentScan(basePackageClasses = PaymentGatewayApplication.class, excludeFilters = {
+    @Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+    @Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+    @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+        PaymentGatewayApplication.class,
+        PaymentGatewayController.class,
+        CorrelationIdFilter.class,
+        TracingFilter.class,
+        ParseTracingAdvice.class,
+        SerializeTracingAdvice.class,
+        WebConfiguration.class})})
+public class ReactivePaymentGatewayApplication {
+
+  public static void main(String[] args) {
+    new SpringApplicationBuilder(ReactivePaymentGatewayApplication.class)
+        .web(WebApplicationType.REACTIVE)
+        .run(args);
+  }
+}
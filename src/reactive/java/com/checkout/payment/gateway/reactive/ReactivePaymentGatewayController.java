@@ -0,0 +1,124 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import com.checkout.payment.gateway.model.PaymentAmountRequest;
+import com.checkout.payment.gateway.model.PaymentEventResponse;
+import com.checkout.payment.gateway.model.PaymentOrigin;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.tenant.TenantInterceptor;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * The API of {@link PaymentGatewayController} on WebFlux. When merchants are authenticated,
+ * every request acts for the merchant that {@link TenantWebFilter} authenticated, passed in as
+ * {@code tenantId}, and only sees that merchant's payments.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ReactivePaymentGatewayController {
+
+  private final ReactivePaymentGatewayService paymentGatewayService;
+
+  public ReactivePaymentGatewayController(ReactivePaymentGatewayService paymentGatewayService) {
+    this.paymentGatewayService = paymentGatewayService;
+  }
+
+  @GetMapping("/payments/{id}")
+  public Mono<ResponseEntity<PostPaymentResponse>> getPostPaymentEventById(
+      @PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.getPaymentById(tenantId, id)
+        .map(payment -> new ResponseEntity<>(payment, HttpStatus.OK));
+  }
+
+  @GetMapping("/payments")
+  public Mono<ResponseEntity<List<PostPaymentResponse>>> searchPayments(
+      @RequestParam(required = false) String reference,
+      @RequestParam(name = "card_number_last_four", required = false) Integer cardNumberLastFour,
+      @RequestParam(required = false) Integer amount,
+      @RequestParam(required = false) String status,
+      @RequestParam(defaultValue = "100") int limit,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.searchPayments(tenantId, reference, cardNumberLastFour, amount,
+            status, limit)
+        .map(payments -> new ResponseEntity<>(payments, HttpStatus.OK));
+  }
+
+  @GetMapping("/payments/{id}/events")
+  public Mono<ResponseEntity<List<PaymentEventResponse>>> getPaymentHistory(
+      @PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.getPaymentHistory(tenantId, id)
+        .map(events -> new ResponseEntity<>(events, HttpStatus.OK));
+  }
+
+  @PostMapping("/payments")
+  public Mono<ResponseEntity<PostPaymentResponse>> processPayment(
+      @RequestBody PostPaymentRequest paymentRequest,
+      @RequestHeader(name = PaymentGatewayController.MERCHANT_ID_HEADER, required = false)
+      String merchantId,
+      ServerHttpRequest request,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    PaymentOrigin origin = tenantId != null
+        ? new PaymentOrigin(tenantId, clientIp(request), true)
+        : new PaymentOrigin(merchantId, clientIp(request));
+    return paymentGatewayService.processPayment(paymentRequest, origin)
+        .map(payment -> new ResponseEntity<>(payment, HttpStatus.CREATED));
+  }
+
+  @PostMapping("/payments/{id}/captures")
+  public Mono<ResponseEntity<PostPaymentResponse>> capturePayment(@PathVariable UUID id,
+      @RequestBody(required = false) PaymentAmountRequest captureRequest,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.capturePayment(tenantId, id, amountOf(captureRequest))
+        .map(payment -> new ResponseEntity<>(payment, HttpStatus.OK));
+  }
+
+  @PostMapping("/payments/{id}/voids")
+  public Mono<ResponseEntity<PostPaymentResponse>> voidPayment(@PathVariable UUID id,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.voidPayment(tenantId, id)
+        .map(payment -> new ResponseEntity<>(payment, HttpStatus.OK));
+  }
+
+  @PostMapping("/payments/{id}/refunds")
+  public Mono<ResponseEntity<PostPaymentResponse>> refundPayment(@PathVariable UUID id,
+      @RequestBody(required = false) PaymentAmountRequest refundRequest,
+      @RequestAttribute(name = TenantInterceptor.MERCHANT_ID_ATTRIBUTE, required = false)
+      String tenantId) {
+    return paymentGatewayService.refundPayment(tenantId, id, amountOf(refundRequest))
+        .map(payment -> new ResponseEntity<>(payment, HttpStatus.OK));
+  }
+
+  private static String clientIp(ServerHttpRequest request) {
+    InetSocketAddress address = request.getRemoteAddress();
+    return address == null || address.getAddress() == null
+        ? null : address.getAddress().getHostAddress();
+  }
+
+  private static Integer amountOf(PaymentAmountRequest request) {
+    return request == null ? null : request.getAmount();
+  }
+}
@@ -0,0 +1,194 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.exception.ServiceUnavailableException;
+import com.checkout.payment.gateway.instrumentation.InstrumentedStep;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.logging.CorrelationIdFilter;
+import com.checkout.payment.gateway.model.PaymentEventResponse;
+import com.checkout.payment.gateway.model.PaymentOrigin;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentGatewayService.PreparedPayment;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link PaymentGatewayService} as a {@link Mono} pipeline, for the reactive gateway.
+ *
+ * <p>
+ * Validation, screening, the ledger and the repository are in-memory work that never waits, so
+ * they run as they are on the event loop, wrapped in {@link Mono#fromCallable}: moving them to
+ * another scheduler would only add a thread hop. The bank call is the one step that waits, and
+ * it goes through {@link ReactiveBankService} without holding a thread. Payments are processed
+ * with the same steps, events and drain accounting as on the servlet stack.
+ */
+@Service
+public class ReactivePaymentGatewayService {
+
+  private static final String PAYMENT_ID_MDC_KEY = "paymentId";
+
+  private final PaymentGatewayService paymentGatewayService;
+  private final ReactiveBankService bankService;
+  private final PaymentInstrumentation instrumentation;
+  private final PaymentDrain paymentDrain;
+
+  public ReactivePaymentGatewayService(PaymentGatewayService paymentGatewayService,
+      ReactiveBankService bankService, PaymentInstrumentation instrumentation,
+      PaymentDrain paymentDrain) {
+    this.paymentGatewayService = paymentGatewayService;
+    this.bankService = bankService;
+    this.instrumentation = instrumentation;
+    this.paymentDrain = paymentDrain;
+  }
+
+  /**
+   * See {@link PaymentGatewayService#getPaymentById(String, UUID)}.
+   */
+  public Mono<PostPaymentResponse> getPaymentById(String merchantId, UUID id) {
+    return Mono.fromCallable(() -> paymentGatewayService.getPaymentById(merchantId, id));
+  }
+
+  /**
+   * See {@link PaymentGatewayService#getPaymentHistory(String, UUID)}.
+   */
+  public Mono<List<PaymentEventResponse>> getPaymentHistory(String merchantId, UUID id) {
+    return Mono.fromCallable(() -> paymentGatewayService.getPaymentHistory(merchantId, id));
+  }
+
+  /**
+   * See {@link PaymentGatewayService#searchPayments(String, String, Integer, Integer, String,
+   * int)}.
+   */
+  public Mono<List<PostPaymentResponse>> searchPayments(String merchantId, String reference,
+      Integer cardNumberLastFour, Integer amount, String status, int limit) {
+    return Mono.fromCallable(() -> paymentGatewayService.searchPayments(merchantId, reference,
+        cardNumberLastFour, amount, status, limit));
+  }
+
+  /**
+   * See {@link PaymentGatewayService#capturePayment(String, UUID, Integer)}.
+   */
+  public Mono<PostPaymentResponse> capturePayment(String merchantId, UUID id, Integer amount) {
+    return Mono.fromCallable(() -> paymentGatewayService.capturePayment(merchantId, id, amount));
+  }
+
+  /**
+   * See {@link PaymentGatewayService#voidPayment(String, UUID)}.
+   */
+  public Mono<PostPaymentResponse> voidPayment(String merchantId, UUID id) {
+    return Mono.fromCallable(() -> paymentGatewayService.voidPayment(merchantId, id));
+  }
+
+  /**
+   * See {@link PaymentGatewayService#refundPayment(String, UUID, Integer)}.
+   */
+  public Mono<PostPaymentResponse> refundPayment(String merchantId, UUID id, Integer amount) {
+    return Mono.fromCallable(() -> paymentGatewayService.refundPayment(merchantId, id, amount));
+  }
+
+  /**
+   * Processes a payment like {@link PaymentGatewayService#processPayment(PostPaymentRequest,
+   * PaymentOrigin)}, signalling {@link ServiceUnavailableException} if the gateway is shutting
+   * down. A payment cancelled during its bank call, because the client went away, keeps the
+   * ledger events recorded so far.
+   */
+  public Mono<PostPaymentResponse> processPayment(PostPaymentRequest paymentRequest,
+      PaymentOrigin origin) {
+    return Mono.deferContextual(context -> {
+      if (!paymentDrain.tryEnter()) {
+        return Mono.error(new ServiceUnavailableException("Gateway is shutting down"));
+      }
+      UUID paymentId = UUID.randomUUID();
+      InFlightPayment payment = new InFlightPayment(paymentId,
+          context.getOrDefault(CorrelationIdFilter.MDC_KEY, null),
+          instrumentation.startPayment(paymentId));
+      return Mono.fromCallable(() -> payment.run(
+              () -> paymentGatewayService.preparePayment(paymentId, paymentRequest, origin)))
+          .flatMap(prepared -> prepared.needsBank()
+              ? callBank(payment, prepared)
+              : Mono.just(prepared.payment()))
+          .doOnSuccess(response -> payment.finish(response, null))
+          .doOnError(ex -> payment.finish(null, ex))
+          .doOnCancel(() -> payment.finish(null, null))
+          .doFinally(signal -> paymentDrain.exit());
+    });
+  }
+
+  private Mono<PostPaymentResponse> callBank(InFlightPayment payment, PreparedPayment prepared) {
+    InstrumentedStep bankStage = payment.run(() -> instrumentation.startStage(PaymentStage.BANK));
+    Context bankContext = payment.run(() -> Context.current().with(bankStage.getSpan()));
+    AtomicReference<InstrumentedStep> bankStep = new AtomicReference<>(bankStage);
+    Runnable bankCallEnded = () -> {
+      InstrumentedStep step = bankStep.getAndSet(null);
+      if (step != null) {
+        instrumentation.endStage(step, null);
+        paymentDrain.bankCallEnded(prepared.payment());
+      }
+    };
+    paymentDrain.bankCallStarted(prepared.payment());
+    // Submitted with the payment's MDC entries so its bank call events carry the payment ID
+    return payment.run(
+            () -> bankService.submitBankRequest(prepared.bankRequest(), bankContext))
+        .singleOptional()
+        .doOnTerminate(bankCallEnded)
+        .doOnCancel(bankCallEnded)
+        .map(bankResponse -> payment.run(
+            () -> paymentGatewayService.completePayment(prepared, bankResponse.orElse(null))));
+  }
+
+  /**
+   * A payment between callbacks: what each step needs on its thread to log and trace as the
+   * servlet stack does.
+   */
+  private final class InFlightPayment {
+
+    private final UUID id;
+    private final String correlationId;
+    private final AtomicReference<InstrumentedStep> step;
+
+    InFlightPayment(UUID id, String correlationId, InstrumentedStep step) {
+      this.id = id;
+      this.correlationId = correlationId;
+      this.step = new AtomicReference<>(step);
+    }
+
+    /**
+     * Runs one synchronous step with the payment's MDC entries and span current.
+     */
+    <T> T run(Supplier<T> work) {
+      InstrumentedStep payment = step.get();
+      Span current = payment == null ? null : payment.getSpan();
+      MDC.put(PAYMENT_ID_MDC_KEY, id.toString());
+      if (correlationId != null) {
+        MDC.put(CorrelationIdFilter.MDC_KEY, correlationId);
+      }
+      try (Scope ignored = current == null ? Scope.noop() : current.makeCurrent()) {
+        return work.get();
+      } finally {
+        MDC.remove(PAYMENT_ID_MDC_KEY);
+        MDC.remove(CorrelationIdFilter.MDC_KEY);
+      }
+    }
+
+    /**
+     * Ends the payment span, once, whichever way the payment ends.
+     */
+    void finish(PostPaymentResponse response, Throwable error) {
+      InstrumentedStep ended = step.getAndSet(null);
+      if (ended != null) {
+        instrumentation.endPayment(ended, response, error);
+      }
+    }
+  }
+}
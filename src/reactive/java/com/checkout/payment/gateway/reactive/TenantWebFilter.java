@@ -0,0 +1,66 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import com.checkout.payment.gateway.exception.AuthenticationException;
+import com.checkout.payment.gateway.exception.QuotaExceededException;
+import com.checkout.payment.gateway.tenant.Tenant;
+import com.checkout.payment.gateway.tenant.TenantInterceptor;
+import com.checkout.payment.gateway.tenant.TenantRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * The reactive counterpart of {@link TenantInterceptor}: when
+ * {@code payment.gateway.tenants.enabled} is set, every {@code /api/v1} request must name a
+ * merchant with its API key and is held to that merchant's quotas until its response completes.
+ * The merchant ID is passed on in the {@link TenantInterceptor#MERCHANT_ID_ATTRIBUTE} exchange
+ * attribute.
+ */
+@Component
+public class TenantWebFilter implements WebFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TenantWebFilter.class);
+
+  private final TenantRegistry registry;
+
+  public TenantWebFilter(TenantRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String path = exchange.getRequest().getPath().pathWithinApplication().value();
+    if (!registry.isEnabled() || !path.equals("/api/v1") && !path.startsWith("/api/v1/")) {
+      return chain.filter(exchange);
+    }
+    HttpHeaders headers = exchange.getRequest().getHeaders();
+    long started = System.nanoTime();
+    Tenant tenant;
+    try {
+      tenant = registry.authenticate(headers.getFirst(PaymentGatewayController.MERCHANT_ID_HEADER),
+          headers.getFirst(TenantInterceptor.API_KEY_HEADER));
+      tenant.enter(started);
+    } catch (AuthenticationException ex) {
+      LOG.warn("Authentication failed {}", kv("reason", ex.getMessage()));
+      exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+      return exchange.getResponse().setComplete();
+    } catch (QuotaExceededException ex) {
+      LOG.warn("Merchant request refused {}", kv("reason", ex.getMessage()));
+      exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+      exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+      return exchange.getResponse().setComplete();
+    }
+    exchange.getAttributes().put(TenantInterceptor.MERCHANT_ID_ATTRIBUTE, tenant.getMerchantId());
+    return chain.filter(exchange)
+        .doFinally(signal -> tenant.exit(started, System.nanoTime()));
+  }
+}
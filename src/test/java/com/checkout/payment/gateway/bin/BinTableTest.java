@@ -0,0 +1,106 @@
+package com.checkout.payment.gateway.bin;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.CardScheme;
+import com.checkout.payment.gateway.enums.CardType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinTableTest {
+
+  @Test
+  @DisplayName("should detect the scheme of common test cards from the bundled table")
+  void shouldDetectSchemes() {
+    BinTable table = BinTable.defaults();
+
+    assertEquals(CardScheme.VISA, table.schemeOf("4111111111111111"));
+    assertEquals(CardScheme.MASTERCARD, table.schemeOf("5555555555554444"));
+    assertEquals(CardScheme.MASTERCARD, table.schemeOf("2223003122003222"));
+    assertEquals(CardScheme.AMEX, table.schemeOf("378282246310005"));
+    assertEquals(CardScheme.DISCOVER, table.schemeOf("6011111111111117"));
+    assertEquals(CardScheme.JCB, table.schemeOf("3530111333300000"));
+    assertEquals(CardScheme.UNKNOWN, table.schemeOf("9999999999999995"));
+    assertEquals(CardScheme.UNKNOWN, table.schemeOf("abc"));
+    assertEquals(CardScheme.UNKNOWN, table.schemeOf(null));
+  }
+
+  @Test
+  @DisplayName("should let narrower ranges override the ranges they are nested in")
+  void shouldResolveNestedRanges() throws IOException {
+    BinTable table = load("""
+        # low,high,scheme,country,type
+        4,,VISA,,
+        411111,411119,VISA,GB,DEBIT
+        4111115,,VISA,US,PREPAID
+        """);
+
+    int row = table.find("4111111111111111");
+    assertEquals(CardScheme.VISA, table.scheme(row));
+    assertEquals("GB", table.country(row));
+    assertEquals(CardType.DEBIT, table.cardType(row));
+
+    row = table.find("4111115000000000");
+    assertEquals("US", table.country(row));
+    assertEquals(CardType.PREPAID, table.cardType(row));
+
+    row = table.find("4111190000000000");
+    assertEquals("GB", table.country(row));
+
+    row = table.find("4111120000000000");
+    assertEquals("GB", table.country(row));
+
+    row = table.find("4000000000000002");
+    assertEquals(CardScheme.VISA, table.scheme(row));
+    assertNull(table.country(row));
+    assertEquals(CardType.UNKNOWN, table.cardType(row));
+
+    assertEquals(BinTable.NOT_FOUND, table.find("5111111111111118"));
+    assertEquals(5, table.size());
+  }
+
+  @Test
+  @DisplayName("should reject partially overlapping and malformed ranges")
+  void shouldRejectInvalidRanges() {
+    assertThrows(IllegalArgumentException.class, () -> load("""
+        41,43,VISA,,
+        42,44,VISA,,
+        """));
+    assertThrows(IllegalArgumentException.class, () -> load("4x,,VISA,,"));
+    assertThrows(IllegalArgumentException.class, () -> load("4,,SOLO,,"));
+    assertThrows(IllegalArgumentException.class, () -> load("4,,VISA,GBR,"));
+  }
+
+  @Test
+  @DisplayName("should load the configured file and accepted schemes")
+  void shouldLoadConfiguredFile(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("bins.csv");
+    Files.writeString(file, "4,,VISA,,\n5,,MASTERCARD,,\n");
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.getBins().setFile(file.toString());
+    config.getBins().setAcceptedSchemes(List.of("visa"));
+
+    BinTable table = new BinTable(config);
+
+    assertEquals(2, table.size());
+    assertTrue(table.accepts(CardScheme.VISA));
+    assertFalse(table.accepts(CardScheme.MASTERCARD));
+    assertFalse(table.accepts(CardScheme.UNKNOWN));
+  }
+
+  private static BinTable load(String csv) throws IOException {
+    return BinTable.load(new BufferedReader(new StringReader(csv)));
+  }
+}
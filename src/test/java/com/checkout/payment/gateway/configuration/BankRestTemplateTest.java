@@ -0,0 +1,147 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankRestTemplateTest {
+
+  private static final int CALLS = 20;
+
+  @Test
+  @DisplayName("should not resend a payment whose pooled connection the bank had closed")
+  void shouldNotRetryOnDeadConnection() throws Exception {
+    RestTemplate restTemplate = new ApplicationConfiguration().restTemplate(
+        new RestTemplateBuilder());
+    AtomicInteger requests = new AtomicInteger();
+    try (ServerSocket server = new ServerSocket(0)) {
+      String url = "http://localhost:" + server.getLocalPort() + "/payments";
+      Thread bank = new Thread(() -> closeAfterFirstResponse(server, requests));
+      bank.start();
+
+      restTemplate.postForObject(url, payment(), GetAcquiringBankResponse.class);
+      assertThrows(ResourceAccessException.class,
+          () -> restTemplate.postForObject(url, payment(), GetAcquiringBankResponse.class));
+      bank.join();
+    }
+
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  @DisplayName("should keep a connection per concurrent bank call between bursts")
+  void shouldPoolConnectionsForConcurrentCalls() throws Exception {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.getTuning().setBankMaxConcurrentCalls(CALLS);
+    RestTemplate restTemplate = config.restTemplate(new RestTemplateBuilder());
+    try (BankSimulator bank = BankSimulator.builder()
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(20))).start()) {
+      for (int burst = 0; burst < 3; burst++) {
+        payConcurrently(restTemplate, bank);
+      }
+
+      assertEquals(3 * CALLS, bank.getRequestCount());
+      assertTrue(bank.getConnectionCount() <= CALLS,
+          "connections: " + bank.getConnectionCount());
+    }
+  }
+
+  /**
+   * Answers the first request, then reads the second on the same connection and closes it, as a
+   * bank dropping an idle connection would; any retry would arrive on a new connection.
+   */
+  private static void closeAfterFirstResponse(ServerSocket server, AtomicInteger requests) {
+    try {
+      try (Socket connection = server.accept()) {
+        readRequest(connection.getInputStream());
+        requests.incrementAndGet();
+        byte[] body = "{\"authorized\":true}".getBytes(StandardCharsets.US_ASCII);
+        connection.getOutputStream().write(("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        connection.getOutputStream().write(body);
+        connection.getOutputStream().flush();
+        readRequest(connection.getInputStream());
+        requests.incrementAndGet();
+      }
+      server.setSoTimeout(500);
+      try (Socket retry = server.accept()) {
+        readRequest(retry.getInputStream());
+        requests.incrementAndGet();
+      }
+    } catch (SocketTimeoutException expected) {
+      // No retry came
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void readRequest(InputStream in) throws IOException {
+    ByteArrayOutputStream head = new ByteArrayOutputStream();
+    while (!head.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+      int b = in.read();
+      if (b < 0) {
+        throw new IOException("Connection closed mid-request");
+      }
+      head.write(b);
+    }
+    int length = 0;
+    for (String line : head.toString(StandardCharsets.US_ASCII).split("\r\n")) {
+      if (line.toLowerCase().startsWith("content-length:")) {
+        length = Integer.parseInt(line.substring("content-length:".length()).trim());
+      }
+    }
+    in.readNBytes(length);
+  }
+
+  private static void payConcurrently(RestTemplate restTemplate, BankSimulator bank)
+      throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(CALLS);
+    try {
+      List<Future<GetAcquiringBankResponse>> futures = new ArrayList<>();
+      for (int i = 0; i < CALLS; i++) {
+        futures.add(callers.submit(() -> restTemplate.postForObject(bank.getPaymentsUrl(),
+            payment(), GetAcquiringBankResponse.class)));
+      }
+      for (Future<GetAcquiringBankResponse> future : futures) {
+        assertTrue(future.get().isAuthorized());
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  private static GetAcquiringBankRequest payment() {
+    GetAcquiringBankRequest request = new GetAcquiringBankRequest();
+    request.setCardNumber("4111111111111111");
+    request.setExpiryDate("12/2030");
+    request.setCurrency("USD");
+    request.setAmount(100);
+    request.setCvv("123");
+    return request;
+  }
+}
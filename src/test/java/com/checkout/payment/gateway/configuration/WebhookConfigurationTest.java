@@ -0,0 +1,38 @@
+package com.checkout.payment.gateway.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+class WebhookConfigurationTest {
+
+  private final ApplicationContextRunner runner =
+      new ApplicationContextRunner().withUserConfiguration(Probe.class);
+
+  @Test
+  @DisplayName("should enable webhooks for the default URL or any merchant's URL")
+  void shouldEnableWebhooksForAnyUrl() {
+    runner.run(context -> assertThat(context).doesNotHaveBean("webhooks"));
+    runner.withPropertyValues("payment.gateway.webhooks.url=http://localhost/hooks")
+        .run(context -> assertThat(context).hasBean("webhooks"));
+    runner.withPropertyValues(
+            "payment.gateway.tenants.merchants.merchant-a.api-key=key-a",
+            "payment.gateway.tenants.merchants.merchant-a.webhook-url=http://localhost/a")
+        .run(context -> assertThat(context).hasBean("webhooks"));
+  }
+
+  @Configuration
+  static class Probe {
+
+    @Bean
+    @Conditional(WebhookConfiguration.WebhookUrlConfigured.class)
+    String webhooks() {
+      return "enabled";
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.checkout.payment.gateway.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.AuthenticationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class AdminInterceptorTest {
+
+  @Test
+  @DisplayName("should refuse every operator request when no admin key is configured")
+  void shouldRefuseWithoutConfiguredKey() {
+    AdminInterceptor interceptor = new AdminInterceptor(new ApplicationConfiguration());
+
+    assertThatThrownBy(() -> interceptor.authenticate(null))
+        .isInstanceOf(AuthenticationException.class);
+    assertThatThrownBy(() -> interceptor.authenticate(""))
+        .isInstanceOf(AuthenticationException.class);
+  }
+
+  @Test
+  @DisplayName("should only accept the configured admin key")
+  void shouldCheckAdminKey() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.getAdmin().setApiKey("secret");
+    AdminInterceptor interceptor = new AdminInterceptor(config);
+
+    interceptor.authenticate("secret");
+    assertThatThrownBy(() -> interceptor.authenticate("secret "))
+        .isInstanceOf(AuthenticationException.class);
+    assertThatThrownBy(() -> interceptor.authenticate(null))
+        .isInstanceOf(AuthenticationException.class);
+  }
+
+  @Test
+  @DisplayName("should leave paths no controller serves to end in 404")
+  void shouldPassRequestsWithoutController() {
+    AdminInterceptor interceptor = new AdminInterceptor(new ApplicationConfiguration());
+
+    assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/admin/unknown"),
+        new MockHttpServletResponse(), new Object())).isTrue();
+  }
+}
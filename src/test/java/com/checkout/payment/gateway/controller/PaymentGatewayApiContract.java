@@ -0,0 +1,606 @@
+package com.checkout.payment.gateway.controller;
+
+
+import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * The payment API as merchants see it, run against each web stack: Spring MVC in
+ * {@link PaymentGatewayControllerTest} and WebFlux in
+ * {@code ReactivePaymentGatewayControllerTest}. Subclasses start the application and supply a
+ * {@link WebTestClient} bound to it.
+ */
+public abstract class PaymentGatewayApiContract {
+
+  protected static final String ADMIN_KEY = "operator-key";
+
+  private static BankSimulator bankSimulator;
+
+  private WebTestClient client;
+  @Autowired
+  PaymentsRepository paymentsRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  protected abstract WebTestClient createClient();
+
+  /**
+   * The merchant the client authenticates as, or null if merchants are not authenticated.
+   */
+  protected String merchantId() {
+    return null;
+  }
+
+  @BeforeEach
+  void setUpClient() {
+    client = createClient();
+  }
+
+  @BeforeAll
+  static void startBankSimulator() throws IOException {
+    bankSimulator = BankSimulator.start(Duration.ZERO);
+  }
+
+  @AfterAll
+  static void stopBankSimulator() {
+    bankSimulator.close();
+  }
+
+  @DynamicPropertySource
+  static void bankProperties(DynamicPropertyRegistry registry) {
+    registry.add("payment.gateway.bank-url", () -> bankSimulator.getPaymentsUrl());
+    registry.add("payment.gateway.admin.api-key", () -> ADMIN_KEY);
+  }
+
+  @Test
+  void whenPaymentWithIdExistThenCorrectPaymentIsReturned() throws Exception {
+    PostPaymentResponse payment = new PostPaymentResponse();
+    payment.setId(UUID.randomUUID());
+    payment.setMerchantId(merchantId());
+    payment.setAmount(10);
+    payment.setCurrency("USD");
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2024);
+    payment.setCardNumberLastFour(4321);
+
+    paymentsRepository.add(payment);
+
+    client.get().uri("/api/v1/payments/" + payment.getId()).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(payment.getStatus().getName())
+        .jsonPath("$.cardNumberLastFour").isEqualTo(payment.getCardNumberLastFour())
+        .jsonPath("$.expiryMonth").isEqualTo(payment.getExpiryMonth())
+        .jsonPath("$.expiryYear").isEqualTo(payment.getExpiryYear())
+        .jsonPath("$.currency").isEqualTo(payment.getCurrency())
+        .jsonPath("$.amount").isEqualTo(payment.getAmount());
+  }
+
+  @Test
+  @DisplayName("should report ready and live while running")
+  void shouldReportReadyAndLive() throws Exception {
+    client.get().uri("/health/readiness").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo("UP");
+    client.get().uri("/health/liveness").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo("UP");
+  }
+
+  @Test
+  @DisplayName("should refuse operator requests without the admin key")
+  void shouldRequireAdminKey() {
+    client.get().uri("/admin/tuning").exchange()
+        .expectStatus().isUnauthorized();
+    client.patch().uri("/admin/tuning")
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, "merchant-key")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"maxThreads\": 1}")
+            .exchange()
+        .expectStatus().isUnauthorized();
+    client.get().uri("/admin/tuning")
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isOk();
+  }
+
+  @Test
+  void whenPaymentWithIdDoesNotExistThen404IsReturned() throws Exception {
+    client.get().uri("/api/v1/payments/" + UUID.randomUUID()).exchange()
+        .expectStatus().isNotFound()
+        .expectBody()
+        .jsonPath("$.message").isEqualTo("Page not found");
+  }
+
+  @Test
+  @DisplayName("should return masked card number (last 4 digits only) when retrieving payment by ID")
+  void shouldReturnMaskedCardNumberOnGetById() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111111");
+
+    PostPaymentResponse createdPayment = postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody(PostPaymentResponse.class)
+        .returnResult().getResponseBody();
+
+    client.get().uri("/api/v1/payments/" + createdPayment.getId()).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.cardNumberLastFour").isEqualTo(1111)
+        .jsonPath("$.cardNumber").doesNotExist();
+  }
+
+  @Test
+  @DisplayName("should fail when card number is too short (<14 chars)")
+  void shouldFailWhenPaymentWithShortCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("123");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when card number is too long (>19 chars)")
+  void shouldFailWhenPaymentWithLongCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111111111111111111111111");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when card number contains invalid character (non-numeric)")
+  void shouldFailWhenPaymentWithInvalidCharacterInCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111abc111");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when card number is missing")
+  void shouldFailWhenCardNumberIsMissing() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber(null);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when expiry month is zero")
+  void shouldFailWhenExpiryMonthIsZero() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setExpiryMonth(0);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when expiry month is >12")
+  void shouldFailWhenExpiryMonthIsGreaterThan12() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setExpiryMonth(13);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when expiry month is <0")
+  void shouldFailWhenExpiryMonthIsBelowZero() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setExpiryMonth(-1);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when expiry is in the past")
+  void shouldFailWhenExpiryIsInThePast() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setExpiryYear(1984);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when currency is not valid")
+  void shouldFailWhenCurrencyIsInvalid() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCurrency("NOT_REAL");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when currency is not present")
+  void shouldFailWhenCurrencyIsNotPresent() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCurrency(null);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when currency is not ISO Standard")
+  void shouldFailWhenCurrencyIsNotISOStandard() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCurrency("USDT");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when amount is negative")
+  void shouldFailWhenAmountIsNegative() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setAmount(-10000);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when amount is zero")
+  void shouldFailWhenAmountIsZero() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setAmount(0);
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when CVV is <3 characters")
+  void shouldFailWhenCVVIsShort() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCvv("1");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should fail when CVV is >4 characters")
+  void shouldFailWhenCVVIsLong() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCvv("11111");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should return Declined if card number ends in even")
+  void shouldFailWhenPaymentWithEvenCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111178");
+    assertPaymentResponseStatus(req, PaymentStatus.DECLINED);
+  }
+
+  @Test
+  @DisplayName("should return Authorized if card number ends in odd")
+  void shouldFailWhenPaymentWithOddCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111111");
+    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  @DisplayName("should return Rejected (503) if card number ends in 0")
+  void shouldFailWhenPaymentWithZeroCardNumber() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111160");
+    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  @DisplayName("should return valid payment ID in response")
+  void shouldReturnValidPaymentId() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.id").exists()
+        .jsonPath("$.id").isNotEmpty();
+  }
+
+  @Test
+  @DisplayName("should mask card number and return only last 4 digits")
+  void shouldReturnOnlyLastFourDigits() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111111");
+    postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.cardNumberLastFour").isEqualTo(1111);
+  }
+
+  @Test
+  @DisplayName("should return correct expiry month and year")
+  void shouldReturnCorrectExpiryData() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.expiryMonth").isEqualTo(req.getExpiryMonth())
+        .jsonPath("$.expiryYear").isEqualTo(req.getExpiryYear());
+  }
+
+  @Test
+  @DisplayName("should reject request with invalid content type")
+  void shouldRejectInvalidContentType() throws Exception {
+    client.post().uri("/api/v1/payments")
+            .contentType(MediaType.TEXT_PLAIN)
+            .bodyValue("invalid")
+            .exchange()
+        .expectStatus().isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+  }
+
+  @Test
+  @DisplayName("should reject malformed JSON")
+  void shouldRejectMalformedJson() throws Exception {
+    client.post().uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{invalid json")
+            .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  @DisplayName("should handle minimum valid card length (14 digits)")
+  void shouldHandleMinimumCardLength() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("41111111111171");
+    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  @DisplayName("should handle maximum valid card length (19 digits)")
+  void shouldHandleMaximumCardLength() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setCardNumber("4111111111111111151");
+    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  @DisplayName("should handle amount with maximum value")
+  void shouldHandleMaximumAmount() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setAmount(Integer.MAX_VALUE);
+    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  @DisplayName("should handle current month/year as valid expiry")
+  void shouldHandleCurrentMonthYearExpiry() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setExpiryMonth(java.time.LocalDate.now().getMonthValue());
+    req.setExpiryYear(java.time.LocalDate.now().getYear());
+    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  @DisplayName("should create unique payment IDs for identical requests")
+  void shouldCreateUniquePaymentIds() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+
+    PostPaymentResponse payment1 = postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody(PostPaymentResponse.class)
+        .returnResult().getResponseBody();
+
+    PostPaymentResponse payment2 = postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody(PostPaymentResponse.class)
+        .returnResult().getResponseBody();
+
+    assertThat(payment1.getId()).isNotEqualTo(payment2.getId());
+  }
+
+  @Test
+  @DisplayName("should echo a well-formed correlation ID and generate one otherwise")
+  void shouldPropagateCorrelationId() throws Exception {
+    client.get().uri("/api/v1/payments/" + UUID.randomUUID())
+        .header("X-Correlation-Id", "merchant-req-42")
+        .exchange()
+        .expectHeader().valueEquals("X-Correlation-Id", "merchant-req-42");
+
+    client.get().uri("/api/v1/payments/" + UUID.randomUUID())
+        .header("X-Correlation-Id", "4111111111111111 <script>")
+        .exchange()
+        .expectHeader().value("X-Correlation-Id",
+            org.hamcrest.Matchers.not("4111111111111111 <script>"));
+  }
+
+  @Test
+  @DisplayName("should capture in parts, then refund, and refuse a void after capture")
+  void shouldCaptureAndRefundPayment() throws Exception {
+    UUID id = createAuthorizedPayment();
+
+    client.post().uri("/api/v1/payments/" + id + "/captures")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"amount\":40}")
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.PARTIALLY_CAPTURED.getName())
+        .jsonPath("$.capturedAmount").isEqualTo(40);
+
+    client.post().uri("/api/v1/payments/" + id + "/captures").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.CAPTURED.getName())
+        .jsonPath("$.capturedAmount").isEqualTo(100);
+
+    client.post().uri("/api/v1/payments/" + id + "/voids").exchange()
+        .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+        .expectBody()
+        .jsonPath("$.message").isEqualTo("Payment cannot be voided after a capture");
+
+    client.post().uri("/api/v1/payments/" + id + "/refunds")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"amount\":10}")
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.PARTIALLY_REFUNDED.getName())
+        .jsonPath("$.refundedAmount").isEqualTo(10);
+
+    client.get().uri("/api/v1/payments/" + id).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.PARTIALLY_REFUNDED.getName());
+  }
+
+  @Test
+  @DisplayName("should void an authorized payment and refuse a later capture")
+  void shouldVoidPayment() throws Exception {
+    UUID id = createAuthorizedPayment();
+
+    client.post().uri("/api/v1/payments/" + id + "/voids").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.VOIDED.getName());
+
+    client.post().uri("/api/v1/payments/" + id + "/captures").exchange()
+        .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+  }
+
+  @Test
+  @DisplayName("should reject non-positive capture amounts and unknown payments")
+  void shouldRejectInvalidCaptures() throws Exception {
+    UUID id = createAuthorizedPayment();
+
+    client.post().uri("/api/v1/payments/" + id + "/captures")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"amount\":0}")
+            .exchange()
+        .expectStatus().isBadRequest()
+        .expectBody()
+        .jsonPath("$.message").isEqualTo("Amount is invalid");
+
+    client.post().uri("/api/v1/payments/" + UUID.randomUUID() + "/captures").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  @DisplayName("should return the event history of a payment")
+  void shouldReturnPaymentHistory() throws Exception {
+    UUID id = createAuthorizedPayment();
+    client.post().uri("/api/v1/payments/" + id + "/voids").exchange()
+        .expectStatus().isOk();
+
+    client.get().uri("/api/v1/payments/" + id + "/events").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.length()").isEqualTo(4)
+        .jsonPath("$[0].type").isEqualTo("CREATED")
+        .jsonPath("$[2].type").isEqualTo("BANK_RESPONDED")
+        .jsonPath("$[2].status").isEqualTo(PaymentStatus.AUTHORIZED.getName())
+        .jsonPath("$[3].type").isEqualTo("VOIDED")
+        .jsonPath("$[3].status").isEqualTo(PaymentStatus.VOIDED.getName());
+
+    client.get().uri("/api/v1/payments/" + UUID.randomUUID() + "/events").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  @DisplayName("should find payments by reference, by card and amount, and by status")
+  void shouldSearchPayments() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    String reference = "order-" + UUID.randomUUID();
+    req.setReference(reference);
+    req.setAmount(4321);
+    byte[] created = postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.reference").isEqualTo(reference)
+        .returnResult().getResponseBody();
+    String id = mapper.readValue(created, PostPaymentResponse.class).getId().toString();
+    client.post().uri("/api/v1/payments/" + id + "/captures").exchange()
+        .expectStatus().isOk();
+
+    client.get().uri("/api/v1/payments?reference=" + reference).exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.length()").isEqualTo(1)
+        .jsonPath("$[0].id").isEqualTo(id)
+        .jsonPath("$[0].status").isEqualTo(PaymentStatus.CAPTURED.getName());
+    client.get().uri("/api/v1/payments?card_number_last_four=1111&amount=4321").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[0].id").isEqualTo(id);
+    client.get().uri("/api/v1/payments?status=Captured&limit=1").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.length()").isEqualTo(1)
+        .jsonPath("$[0].id").isEqualTo(id);
+    client.get().uri("/api/v1/payments?status=Authorized&limit=1000").exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[?(@.id == '" + id + "')]").doesNotExist();
+  }
+
+  @Test
+  @DisplayName("should reject searches without exactly one valid criterion")
+  void shouldRejectInvalidSearches() throws Exception {
+    client.get().uri("/api/v1/payments").exchange()
+        .expectStatus().isBadRequest();
+    client.get().uri("/api/v1/payments?reference=a&status=Authorized").exchange()
+        .expectStatus().isBadRequest();
+    client.get().uri("/api/v1/payments?card_number_last_four=1111").exchange()
+        .expectStatus().isBadRequest();
+    client.get().uri("/api/v1/payments?status=Pending").exchange()
+        .expectStatus().isBadRequest()
+        .expectBody()
+        .jsonPath("$.message").isEqualTo("Status is invalid");
+    client.get().uri("/api/v1/payments?status=Authorized&limit=0").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  @DisplayName("should reject a reference that is too long")
+  void shouldFailWhenReferenceIsTooLong() throws Exception {
+    PostPaymentRequest req = createValidPaymentRequest();
+    req.setReference("r".repeat(51));
+    postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.REJECTED.getName())
+        .jsonPath("$.reference").doesNotExist();
+  }
+
+  private UUID createAuthorizedPayment() throws Exception {
+    byte[] response = postPayment(createValidPaymentRequest())
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.AUTHORIZED.getName())
+        .returnResult().getResponseBody();
+    return mapper.readValue(response, PostPaymentResponse.class).getId();
+  }
+
+  private void assertPaymentResponseStatus(PostPaymentRequest req, PaymentStatus status)
+      throws Exception {
+    postPayment(req)
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(status.getName());
+  }
+
+  private WebTestClient.ResponseSpec postPayment(PostPaymentRequest req) throws Exception {
+    return client.post().uri("/api/v1/payments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(paymentJson(req))
+        .exchange();
+  }
+
+  private String paymentJson(PostPaymentRequest req) throws Exception {
+    return mapper.writeValueAsString(req);
+  }
+}
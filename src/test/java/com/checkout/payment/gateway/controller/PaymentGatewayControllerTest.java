@@ -1,353 +1,172 @@
 package com.checkout.payment.gateway.controller;
 
-
-import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
-import static org.assertj.core.api.Assertions.assertThat;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-
+import com.checkout.payment.gateway.enums.PaymentStage;
 import com.checkout.payment.gateway.enums.PaymentStatus;
-import com.checkout.payment.gateway.model.PostPaymentRequest;
-import com.checkout.payment.gateway.model.PostPaymentResponse;
-import com.checkout.payment.gateway.repository.PaymentsRepository;
-import java.util.UUID;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.checkout.payment.gateway.latency.StageLatencyTracker;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
 
-import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 
 @SpringBootTest
 @AutoConfigureMockMvc
-class PaymentGatewayControllerTest {
+class PaymentGatewayControllerTest extends PaymentGatewayApiContract {
 
   @Autowired
   private MockMvc mvc;
-  @Autowired
-  PaymentsRepository paymentsRepository;
 
   @Autowired
-  ObjectMapper mapper;
+  private StageLatencyTracker latencyTracker;
 
-  @Test
-  void whenPaymentWithIdExistThenCorrectPaymentIsReturned() throws Exception {
-    PostPaymentResponse payment = new PostPaymentResponse();
-    payment.setId(UUID.randomUUID());
-    payment.setAmount(10);
-    payment.setCurrency("USD");
-    payment.setStatus(PaymentStatus.AUTHORIZED);
-    payment.setExpiryMonth(12);
-    payment.setExpiryYear(2024);
-    payment.setCardNumberLastFour(4321);
-
-    paymentsRepository.add(payment);
-
-    mvc.perform(MockMvcRequestBuilders.get("/api/v1/payments/" + payment.getId()))
-        .andExpect(status().isOk())
-        .andExpect(jsonPath("$.status").value(payment.getStatus().getName()))
-        .andExpect(jsonPath("$.cardNumberLastFour").value(payment.getCardNumberLastFour()))
-        .andExpect(jsonPath("$.expiryMonth").value(payment.getExpiryMonth()))
-        .andExpect(jsonPath("$.expiryYear").value(payment.getExpiryYear()))
-        .andExpect(jsonPath("$.currency").value(payment.getCurrency()))
-        .andExpect(jsonPath("$.amount").value(payment.getAmount()));
-  }
-
-  @Test
-  void whenPaymentWithIdDoesNotExistThen404IsReturned() throws Exception {
-    mvc.perform(MockMvcRequestBuilders.get("/api/v1/payments/" + UUID.randomUUID()))
-        .andExpect(status().isNotFound())
-        .andExpect(jsonPath("$.message").value("Page not found"));
+  @Override
+  protected WebTestClient createClient() {
+    return MockMvcWebTestClient.bindTo(mvc).build();
   }
 
   @Test
-  @DisplayName("should return masked card number (last 4 digits only) when retrieving payment by ID")
-  void shouldReturnMaskedCardNumberOnGetById() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111111");
-
-    String createResponse = mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+  @DisplayName("should store a rejected payment with every field it was sent")
+  void shouldStoreRejectedPaymentInFull() {
+    createClient().post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andReturn().getResponse().getContentAsString();
-
-    PostPaymentResponse createdPayment = mapper.readValue(createResponse, PostPaymentResponse.class);
-
-    mvc.perform(MockMvcRequestBuilders.get("/api/v1/payments/" + createdPayment.getId()))
-        .andExpect(status().isOk())
-        .andExpect(jsonPath("$.cardNumberLastFour").value(1111))
-        .andExpect(jsonPath("$.cardNumber").doesNotExist());
-  }
-
-  @Test
-  @DisplayName("should fail when card number is too short (<14 chars)")
-  void shouldFailWhenPaymentWithShortCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("123");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when card number is too long (>19 chars)")
-  void shouldFailWhenPaymentWithLongCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111111111111111111111111");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when card number contains invalid character (non-numeric)")
-  void shouldFailWhenPaymentWithInvalidCharacterInCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111abc111");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when card number is missing")
-  void shouldFailWhenCardNumberIsMissing() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber(null);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when expiry month is zero")
-  void shouldFailWhenExpiryMonthIsZero() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setExpiryMonth(0);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when expiry month is >12")
-  void shouldFailWhenExpiryMonthIsGreaterThan12() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setExpiryMonth(13);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when expiry month is <0")
-  void shouldFailWhenExpiryMonthIsBelowZero() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setExpiryMonth(-1);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when expiry is in the past")
-  void shouldFailWhenExpiryIsInThePast() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setExpiryYear(1984);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when currency is not valid")
-  void shouldFailWhenCurrencyIsInvalid() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCurrency("NOT_REAL");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when currency is not present")
-  void shouldFailWhenCurrencyIsNotPresent() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCurrency(null);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when currency is not ISO Standard")
-  void shouldFailWhenCurrencyIsNotISOStandard() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCurrency("USDT");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when amount is negative")
-  void shouldFailWhenAmountIsNegative() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setAmount(-10000);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when amount is zero")
-  void shouldFailWhenAmountIsZero() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setAmount(0);
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when CVV is <3 characters")
-  void shouldFailWhenCVVIsShort() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCvv("1");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should fail when CVV is >4 characters")
-  void shouldFailWhenCVVIsLong() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCvv("11111");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should return Declined if card number ends in even")
-  void shouldFailWhenPaymentWithEvenCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111118");
-    assertPaymentResponseStatus(req, PaymentStatus.DECLINED);
-  }
-
-  @Test
-  @DisplayName("should return Authorized if card number ends in odd")
-  void shouldFailWhenPaymentWithOddCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111111");
-    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
-  }
-
-  @Test
-  @DisplayName("should return Rejected (503) if card number ends in 0")
-  void shouldFailWhenPaymentWithZeroCardNumber() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111110");
-    assertPaymentResponseStatus(req, PaymentStatus.REJECTED);
-  }
-
-  @Test
-  @DisplayName("should return valid payment ID in response")
-  void shouldReturnValidPaymentId() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+            .bodyValue("{\"card_number\":\"4111111111111112\",\"expiry_month\":12,"
+                + "\"expiry_year\":2030,\"currency\":\"GBP\",\"amount\":250,\"cvv\":\"123\"}")
+            .exchange()
+        .expectStatus().isCreated()
+        .expectBody()
+        .jsonPath("$.status").isEqualTo(PaymentStatus.REJECTED.getName())
+        .jsonPath("$.expiryMonth").isEqualTo(12)
+        .jsonPath("$.expiryYear").isEqualTo(2030)
+        .jsonPath("$.currency").isEqualTo("GBP")
+        .jsonPath("$.amount").isEqualTo(250);
+  }
+
+  @Test
+  @DisplayName("should refuse payment requests over the size limit")
+  void shouldRefuseOversizedPaymentRequests() {
+    createClient().post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andExpect(jsonPath("$.id").exists())
-        .andExpect(jsonPath("$.id").isNotEmpty());
+            .bodyValue("{\"padding\":\"" + "a".repeat(8192) + "\"}")
+            .exchange()
+        .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE)
+        .expectHeader().valueEquals("Connection", "close");
   }
 
   @Test
-  @DisplayName("should mask card number and return only last 4 digits")
-  void shouldReturnOnlyLastFourDigits() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111111");
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andExpect(jsonPath("$.cardNumberLastFour").value(1111));
-  }
+  @DisplayName("should time the parse stage of bodies that fail to parse or are too large")
+  void shouldTimeFailedParses() {
+    long parsed = latencyTracker.report().stages().get(PaymentStage.PARSE.name()).count();
 
-  @Test
-  @DisplayName("should return correct expiry month and year")
-  void shouldReturnCorrectExpiryData() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+    createClient().post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andExpect(jsonPath("$.expiryMonth").value(req.getExpiryMonth()))
-        .andExpect(jsonPath("$.expiryYear").value(req.getExpiryYear()));
-  }
-
-  @Test
-  @DisplayName("should reject request with invalid content type")
-  void shouldRejectInvalidContentType() throws Exception {
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
-            .contentType(MediaType.TEXT_PLAIN)
-            .content("invalid"))
-        .andExpect(status().isUnsupportedMediaType());
-  }
-
-  @Test
-  @DisplayName("should reject malformed JSON")
-  void shouldRejectMalformedJson() throws Exception {
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+            .bodyValue("{\"amount\":")
+            .exchange()
+        .expectStatus().isBadRequest();
+    createClient().post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content("{invalid json"))
-        .andExpect(status().isBadRequest());
-  }
+            .bodyValue("{\"padding\":\"" + "a".repeat(8192) + "\"}")
+            .exchange()
+        .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
 
-  @Test
-  @DisplayName("should handle minimum valid card length (14 digits)")
-  void shouldHandleMinimumCardLength() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("41111111111111");
-    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
-  }
-
-  @Test
-  @DisplayName("should handle maximum valid card length (19 digits)")
-  void shouldHandleMaximumCardLength() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setCardNumber("4111111111111111111");
-    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
+    assertThat(latencyTracker.report().stages().get(PaymentStage.PARSE.name()).count())
+        .isEqualTo(parsed + 2);
   }
 
   @Test
-  @DisplayName("should handle amount with maximum value")
-  void shouldHandleMaximumAmount() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setAmount(Integer.MAX_VALUE);
-    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
-  }
-
-  @Test
-  @DisplayName("should handle current month/year as valid expiry")
-  void shouldHandleCurrentMonthYearExpiry() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-    req.setExpiryMonth(java.time.LocalDate.now().getMonthValue());
-    req.setExpiryYear(java.time.LocalDate.now().getYear());
-    assertPaymentResponseStatus(req, PaymentStatus.AUTHORIZED);
-  }
-
-  @Test
-  @DisplayName("should create unique payment IDs for identical requests")
-  void shouldCreateUniquePaymentIds() throws Exception {
-    PostPaymentRequest req = createValidPaymentRequest();
-
-    String response1 = mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+  @DisplayName("should report the latency of every stage of a payment")
+  void shouldReportStageLatency() {
+    WebTestClient client = createClient();
+    client.post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andReturn().getResponse().getContentAsString();
-
-    String response2 = mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isCreated();
+
+    WebTestClient.BodyContentSpec report = client.get().uri("/admin/latency")
+        .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody();
+    for (PaymentStage stage : PaymentStage.values()) {
+      report.jsonPath("$.stages.%s.count", stage.name()).value(greaterThan(0));
+    }
+    report.jsonPath("$.statuses.Authorized.count").value(greaterThan(0))
+        .jsonPath("$.statuses.Authorized.p50Micros").value(greaterThan(0))
+        .jsonPath("$.slo.payments").value(greaterThan(0))
+        .jsonPath("$.slo.burnRates.length()").isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should report today's authorized volume and authorization rate")
+  void shouldReportVolumeAndAuthorizationRate() {
+    WebTestClient client = createClient();
+    client.post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andReturn().getResponse().getContentAsString();
-
-    PostPaymentResponse payment1 = mapper.readValue(response1, PostPaymentResponse.class);
-    PostPaymentResponse payment2 = mapper.readValue(response2, PostPaymentResponse.class);
-
-    assertThat(payment1.getId()).isNotEqualTo(payment2.getId());
-  }
-
-  private void assertPaymentResponseStatus(PostPaymentRequest req, PaymentStatus status)
-      throws Exception {
-    mvc.perform(MockMvcRequestBuilders.post("/api/v1/payments")
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isCreated();
+    String today = LocalDate.now(ZoneOffset.UTC).toString();
+
+    client.get().uri("/admin/reports/volume?from={from}&to={to}", today, today)
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[?(@.currency == 'USD')].payments").value(hasItem(greaterThan(0)));
+    client.get().uri("/admin/reports/authorization-rate?from={from}&to={to}&currency=usd",
+                today, today)
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.currency").isEqualTo("USD")
+        .jsonPath("$.authorized").value(greaterThan(0));
+  }
+
+  @Test
+  @DisplayName("should count payments since startup in the live statistics")
+  void shouldReportLiveStatistics() {
+    WebTestClient client = createClient();
+    client.post().uri("/api/v1/payments")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(paymentJson(req)))
-        .andExpect(status().isCreated())
-        .andExpect(jsonPath("$.status").value(status.getName()));
-  }
-
-  private String paymentJson(PostPaymentRequest req) throws Exception {
-    return mapper.writeValueAsString(req);
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isCreated();
+
+    client.get().uri("/admin/stats")
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.window").isEqualTo("PT1M")
+        .jsonPath("$.paymentsPerSecond.length()").isEqualTo(60)
+        .jsonPath("$.sinceStart.payments").value(greaterThan(0))
+        .jsonPath("$.sinceStart.currencies[?(@.currency == 'USD')].authorized")
+        .value(hasItem(greaterThan(0)));
+  }
+
+  @Test
+  @DisplayName("should refuse reports over reversed or malformed dates")
+  void shouldRefuseInvalidReportRanges() {
+    createClient().get().uri("/admin/reports/volume?from=2026-03-02&to=2026-03-01")
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isBadRequest();
+    createClient().get().uri("/admin/reports/authorization-rate?from=March&to=2026-03-01")
+            .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+            .exchange()
+        .expectStatus().isBadRequest();
   }
 }
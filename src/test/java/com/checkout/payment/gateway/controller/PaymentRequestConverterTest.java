@@ -0,0 +1,122 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.PayloadTooLargeException;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import com.checkout.payment.gateway.service.PaymentRequestReader;
+import com.checkout.payment.gateway.service.PaymentValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentRequestConverterTest {
+
+  private static final String PAYMENT = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+
+  private PaymentRequestConverter converter;
+
+  @BeforeEach
+  void setUp() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD"));
+    PaymentValidator validator =
+        new PaymentValidator(new CurrencyRegistry(config), new BinTable(config));
+    converter = new PaymentRequestConverter(
+        new PaymentRequestReader(new ObjectMapper(), validator), DataSize.ofBytes(1024));
+  }
+
+  @Test
+  @DisplayName("should only read payment requests")
+  void shouldOnlyReadPaymentRequests() {
+    assertTrue(converter.canRead(PostPaymentRequest.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(Object.class, MediaType.APPLICATION_JSON));
+    assertTrue(converter.canRead(PostPaymentRequest.class,
+        MediaType.parseMediaType("application/vnd.payment+json")));
+    assertFalse(converter.canRead(PostPaymentRequest.class, MediaType.TEXT_PLAIN));
+    assertFalse(converter.canWrite(PostPaymentRequest.class, MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  @DisplayName("should refuse a body whose declared length is over the limit without reading it")
+  void shouldRefuseDeclaredLengthOverLimit() {
+    InputStream unread = new InputStream() {
+      @Override
+      public int read() {
+        throw new AssertionError("body was read");
+      }
+    };
+    MockHttpInputMessage message = new MockHttpInputMessage(unread);
+    message.getHeaders().setContentLength(1025);
+
+    assertThrows(PayloadTooLargeException.class,
+        () -> converter.read(PostPaymentRequest.class, message));
+  }
+
+  @Test
+  @DisplayName("should stop reading a body without a length once it passes the limit")
+  void shouldStopReadingPastLimit() {
+    // An unknown field the reader would otherwise skip to the end
+    String head = "{\"padding\":\"";
+    InputStream body = new SequenceInputStream(
+        new ByteArrayInputStream(head.getBytes(StandardCharsets.UTF_8)),
+        new EndlessInputStream());
+
+    assertThrows(PayloadTooLargeException.class,
+        () -> converter.read(PostPaymentRequest.class, new MockHttpInputMessage(body)));
+  }
+
+  @Test
+  @DisplayName("should report malformed JSON as unreadable")
+  void shouldReportMalformedJson() {
+    assertThrows(HttpMessageNotReadableException.class, () -> converter.read(
+        PostPaymentRequest.class, new MockHttpInputMessage("{invalid".getBytes())));
+  }
+
+  @Test
+  @DisplayName("should read a payment within the limit")
+  void shouldReadPaymentWithinLimit() throws IOException {
+    PostPaymentRequest request = converter.read(PostPaymentRequest.class,
+        new MockHttpInputMessage(PAYMENT.getBytes(StandardCharsets.UTF_8)));
+
+    assertTrue(request.isValidated());
+    assertEquals(100, request.getAmount());
+  }
+
+  /**
+   * Letters forever, as a client streaming an unbounded body would send.
+   */
+  private static final class EndlessInputStream extends InputStream {
+
+    @Override
+    public int read() {
+      return 'a';
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      Arrays.fill(buffer, offset, offset + length, (byte) 'a');
+      return length;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.checkout.payment.gateway.decline;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeclineCacheTest {
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+  private ApplicationConfiguration.DeclineCache settings;
+
+  @BeforeEach
+  void setUp() {
+    settings = new ApplicationConfiguration.DeclineCache();
+    settings.setEnabled(true);
+    settings.setTtl(Duration.ofSeconds(10));
+  }
+
+  @Test
+  @DisplayName("should remember a decline until its TTL passes")
+  void shouldRememberDeclineWithinTtl() {
+    DeclineCache cache = new DeclineCache(settings, clock::get);
+    PostPaymentRequest request = payment("4111111111111152", 100);
+
+    assertFalse(cache.isDeclined(request, "USD"));
+    cache.recordDecline(request, "USD");
+    assertTrue(cache.isDeclined(request, "USD"));
+
+    clock.addAndGet(Duration.ofSeconds(10).toMillis());
+    assertFalse(cache.isDeclined(request, "USD"));
+  }
+
+  @Test
+  @DisplayName("should treat a change of amount, currency or expiry as a new payment")
+  void shouldKeyOnEveryPaymentDetail() {
+    DeclineCache cache = new DeclineCache(settings, clock::get);
+    cache.recordDecline(payment("4111111111111152", 100), "USD");
+
+    assertFalse(cache.isDeclined(payment("4111111111111152", 101), "USD"));
+    assertFalse(cache.isDeclined(payment("4111111111111152", 100), "GBP"));
+    assertFalse(cache.isDeclined(payment("4111111111111111", 100), "USD"));
+    PostPaymentRequest newExpiry = payment("4111111111111152", 100);
+    newExpiry.setExpiryYear(2031);
+    assertFalse(cache.isDeclined(newExpiry, "USD"));
+  }
+
+  @Test
+  @DisplayName("should leave the CVV out of the key")
+  void shouldIgnoreCvv() {
+    DeclineCache cache = new DeclineCache(settings, clock::get);
+    cache.recordDecline(payment("4111111111111152", 100), "USD");
+
+    PostPaymentRequest newCvv = payment("4111111111111152", 100);
+    newCvv.setCvv("124");
+    assertTrue(cache.isDeclined(newCvv, "USD"));
+  }
+
+  @Test
+  @DisplayName("should overwrite the decline expiring soonest when full")
+  void shouldStayWithinCapacity() {
+    settings.setCapacity(DeclineCache.WAYS);
+    DeclineCache cache = new DeclineCache(settings, clock::get);
+
+    for (int amount = 1; amount <= DeclineCache.WAYS + 1; amount++) {
+      cache.recordDecline(payment("4111111111111152", amount), "USD");
+      clock.incrementAndGet();
+    }
+
+    assertFalse(cache.isDeclined(payment("4111111111111152", 1), "USD"));
+    for (int amount = 2; amount <= DeclineCache.WAYS + 1; amount++) {
+      assertTrue(cache.isDeclined(payment("4111111111111152", amount), "USD"));
+    }
+  }
+
+  @Test
+  @DisplayName("should never report a decline when disabled")
+  void shouldDoNothingWhenDisabled() {
+    settings.setEnabled(false);
+    DeclineCache cache = new DeclineCache(settings, clock::get);
+    PostPaymentRequest request = payment("4111111111111152", 100);
+
+    cache.recordDecline(request, "USD");
+
+    assertFalse(cache.isDeclined(request, "USD"));
+  }
+
+  private static PostPaymentRequest payment(String cardNumber, int amount) {
+    return new PostPaymentRequest(cardNumber, 12, 2030, "USD", amount, "123");
+  }
+}
@@ -0,0 +1,84 @@
+package com.checkout.payment.gateway.instrumentation;
+
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaymentInstrumentationTest {
+
+  private InMemorySpanExporter exporter;
+  private OpenTelemetrySdk openTelemetry;
+  private PaymentInstrumentation instrumentation;
+
+  @BeforeEach
+  void setUp() {
+    exporter = InMemorySpanExporter.create();
+    openTelemetry = OpenTelemetrySdk.builder()
+        .setTracerProvider(SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+            .build())
+        .build();
+    instrumentation = new PaymentInstrumentation(openTelemetry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    openTelemetry.close();
+  }
+
+  @Test
+  @DisplayName("should record stage spans as children of the payment span")
+  void shouldNestStageSpansUnderPaymentSpan() {
+    UUID paymentId = UUID.randomUUID();
+
+    instrumentation.inPayment(paymentId, () -> {
+      instrumentation.inStage(PaymentStage.VALIDATE, () -> { });
+      instrumentation.inStage(PaymentStage.BANK, () -> "bank");
+      instrumentation.inStage(PaymentStage.STORE, () -> { });
+      return new PostPaymentResponse(paymentId, PaymentStatus.AUTHORIZED, 1111, 12, 2030, "USD",
+          100);
+    });
+
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    assertEquals(4, spans.size());
+    SpanData payment = spans.get(3);
+    assertEquals("payment.process", payment.getName());
+    assertEquals(paymentId.toString(),
+        payment.getAttributes().get(AttributeKey.stringKey("payment.id")));
+    assertEquals("Authorized",
+        payment.getAttributes().get(AttributeKey.stringKey("payment.status")));
+    assertEquals(List.of("payment.validate", "payment.bank", "payment.store"),
+        spans.subList(0, 3).stream().map(SpanData::getName).toList());
+    spans.subList(0, 3).forEach(stage ->
+        assertEquals(payment.getSpanId(), stage.getParentSpanId()));
+  }
+
+  @Test
+  @DisplayName("should mark the stage span as failed when the stage throws")
+  void shouldRecordStageFailure() {
+    assertThrows(IllegalStateException.class, () ->
+        instrumentation.inStage(PaymentStage.BANK, () -> {
+          throw new IllegalStateException("boom");
+        }));
+
+    SpanData bank = exporter.getFinishedSpanItems().get(0);
+    assertEquals(StatusCode.ERROR, bank.getStatus().getStatusCode());
+    assertEquals(1, bank.getEvents().size());
+  }
+}
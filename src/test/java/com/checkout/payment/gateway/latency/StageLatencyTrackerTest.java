@@ -0,0 +1,112 @@
+package com.checkout.payment.gateway.latency;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.LatencyReport;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Intervals are an hour long, so the tracker only rotates when a test says so.
+ */
+class StageLatencyTrackerTest {
+
+  private StageLatencyTracker tracker;
+
+  @BeforeEach
+  void setUp() {
+    ApplicationConfiguration.Latency settings = new ApplicationConfiguration.Latency();
+    settings.setInterval(Duration.ofHours(1));
+    settings.setWindow(Duration.ofHours(2));
+    settings.setSloThreshold(Duration.ofMillis(100));
+    settings.setSloObjective(0.99);
+    settings.setBurnRateWindows(List.of(Duration.ofHours(1), Duration.ofHours(3)));
+    tracker = new StageLatencyTracker(settings);
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracker.close();
+  }
+
+  @Test
+  @DisplayName("should merge what each thread recorded, including threads that have ended")
+  void shouldMergeThreads() throws Exception {
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 1; i <= 1000; i++) {
+          tracker.recordStage(PaymentStage.BANK, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    tracker.recordStage(PaymentStage.BANK, TimeUnit.SECONDS.toNanos(2));
+
+    LatencyReport.Percentiles bank = tracker.report().stages().get("BANK");
+    assertThat(bank.count()).isEqualTo(4001);
+    assertThat(bank.p50Micros()).isCloseTo(500, within(5L));
+    assertThat(bank.p99Micros()).isCloseTo(990, within(10L));
+    assertThat(bank.maxMicros()).isCloseTo(2_000_000, within(20_000L));
+    assertThat(tracker.report().stages().get("PARSE").count()).isZero();
+  }
+
+  @Test
+  @DisplayName("should report payments by status and drop intervals older than the window")
+  void shouldRollWindow() {
+    tracker.recordPayment(PaymentStatus.AUTHORIZED, TimeUnit.MILLISECONDS.toNanos(5));
+    tracker.rotate();
+    tracker.recordPayment(PaymentStatus.DECLINED, TimeUnit.MILLISECONDS.toNanos(7));
+
+    LatencyReport report = tracker.report();
+    assertThat(report.statuses()).containsOnlyKeys("Authorized", "Declined");
+    assertThat(report.statuses().get("Declined").p50Micros()).isCloseTo(7000, within(70L));
+
+    tracker.rotate();
+    assertThat(tracker.report().statuses()).containsOnlyKeys("Declined");
+    tracker.rotate();
+    assertThat(tracker.report().statuses()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("should count slow payments against the SLO over each burn-rate window")
+  void shouldReportBurnRates() {
+    record(98, 10);
+    record(2, 500);
+    tracker.rotate();
+    record(100, 10);
+
+    LatencyReport.Slo slo = tracker.report().slo();
+    assertThat(slo.payments()).isEqualTo(200);
+    assertThat(slo.slowPayments()).isEqualTo(2);
+    // The interval in progress and the last completed one: 1% slow uses the budget exactly
+    assertThat(slo.burnRates().get(0).burnRate()).isCloseTo(1.0, within(1e-9));
+    assertThat(slo.burnRates().get(1).payments()).isEqualTo(200);
+
+    tracker.rotate();
+    tracker.rotate();
+    slo = tracker.report().slo();
+    assertThat(slo.burnRates().get(0).payments()).isZero();
+    assertThat(slo.burnRates().get(0).burnRate()).isZero();
+    assertThat(slo.burnRates().get(1).slowPayments()).isEqualTo(2);
+    assertThat(slo.slowPayments()).isEqualTo(2);
+  }
+
+  private void record(int payments, long millis) {
+    for (int i = 0; i < payments; i++) {
+      tracker.recordPayment(PaymentStatus.AUTHORIZED, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentLedgerTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("should add the payment to the repository once it has an outcome")
+  void shouldProjectPaymentOnceItHasOutcome() {
+    PaymentsRepository repository = new PaymentsRepository();
+    PaymentLedger ledger = new PaymentLedger(SegmentedPaymentEventLog.inMemory(16, s -> s), null,
+        repository, Long.MAX_VALUE);
+    PostPaymentResponse payment = pending();
+
+    ledger.record(PaymentEventType.CREATED, payment);
+    assertTrue(repository.get(payment.getId()).isEmpty());
+
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+    assertSame(payment, repository.get(payment.getId()).orElseThrow());
+  }
+
+  @Test
+  @DisplayName("should rebuild payments and history from a snapshot and the log")
+  void shouldRestoreFromSnapshotAndLog() throws IOException {
+    PostPaymentResponse payment = pending();
+    try (PaymentLedger ledger = fileLedger(new PaymentsRepository())) {
+      ledger.record(PaymentEventType.CREATED, payment);
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+      ledger.snapshot();
+      payment.capture(400);
+      ledger.record(PaymentEventType.CAPTURED, payment);
+    }
+
+    PaymentsRepository repository = new PaymentsRepository();
+    try (PaymentLedger ledger = fileLedger(repository)) {
+      ledger.restore();
+
+      PostPaymentResponse restored = repository.get(payment.getId()).orElseThrow();
+      assertEquals(PaymentStatus.PARTIALLY_CAPTURED, restored.getStatus());
+      assertEquals(400, restored.getCapturedAmount());
+      assertEquals("GBP", restored.getCurrency());
+      assertEquals("order-8877", restored.getReference());
+      List<PaymentEventType> types = ledger.history(payment.getId()).stream()
+          .map(PaymentEvent::type).toList();
+      assertEquals(List.of(PaymentEventType.CREATED, PaymentEventType.BANK_RESPONDED,
+          PaymentEventType.CAPTURED), types);
+    }
+  }
+
+  @Test
+  @DisplayName("should replay the whole log without a snapshot")
+  void shouldReplayWholeLogWithoutSnapshot() throws IOException {
+    SegmentedPaymentEventLog log = SegmentedPaymentEventLog.inMemory(16, s -> s);
+    PostPaymentResponse payment = pending();
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    new PaymentLedger(log, null, new PaymentsRepository(), Long.MAX_VALUE)
+        .record(PaymentEventType.BANK_RESPONDED, payment);
+    payment.voidAuthorization();
+    new PaymentLedger(log, null, new PaymentsRepository(), Long.MAX_VALUE)
+        .record(PaymentEventType.VOIDED, payment);
+
+    PaymentsRepository repository = new PaymentsRepository();
+    new PaymentLedger(log, null, repository, Long.MAX_VALUE).restore();
+
+    assertEquals(PaymentStatus.VOIDED, repository.get(payment.getId()).orElseThrow().getStatus());
+  }
+
+  @Test
+  @DisplayName("should restore a merchant's payment into that merchant's partition")
+  void shouldRestoreMerchantOfPayment() throws IOException {
+    PostPaymentResponse payment = pending();
+    payment.setMerchantId("merchant-a");
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    try (PaymentLedger ledger = fileLedger(new PaymentsRepository())) {
+      ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+    }
+
+    PaymentsRepository repository = new PaymentsRepository();
+    try (PaymentLedger ledger = fileLedger(repository)) {
+      ledger.restore();
+
+      PostPaymentResponse restored =
+          repository.get("merchant-a", payment.getId()).orElseThrow();
+      assertEquals("merchant-a", restored.getMerchantId());
+      assertEquals("order-8877", restored.getReference());
+      assertTrue(repository.get(payment.getId()).isEmpty());
+      assertEquals("merchant-a", ledger.history(payment.getId()).get(0).merchantId());
+    }
+  }
+
+  @Test
+  @DisplayName("should append concurrent changes to a payment in the order of its states")
+  void shouldKeepHistoryInStateOrder() throws Exception {
+    PaymentLedger ledger = new PaymentLedger(SegmentedPaymentEventLog.inMemory(16, s -> s), null,
+        new PaymentsRepository(), Long.MAX_VALUE);
+    PostPaymentResponse payment = pending();
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+    Thread[] capturers = new Thread[4];
+    for (int t = 0; t < capturers.length; t++) {
+      capturers[t] = new Thread(() -> {
+        for (int i = 0; i < 250; i++) {
+          payment.capture(1);
+          ledger.record(PaymentEventType.CAPTURED, payment);
+        }
+      });
+      capturers[t].start();
+    }
+    for (Thread capturer : capturers) {
+      capturer.join();
+    }
+
+    List<Integer> captured = ledger.history(payment.getId()).stream()
+        .map(event -> event.toPayment().getCapturedAmount()).toList();
+    assertEquals(1001, captured.size());
+    for (int i = 1; i < captured.size(); i++) {
+      assertTrue(captured.get(i - 1) <= captured.get(i), "captured: " + captured);
+    }
+    assertEquals(1000, captured.get(captured.size() - 1));
+  }
+
+  private PaymentLedger fileLedger(PaymentsRepository repository) throws IOException {
+    return new PaymentLedger(
+        SegmentedPaymentEventLog.open(directory.resolve("events"), 16, s -> s),
+        new PaymentSnapshotStore(directory.resolve("snapshots"), s -> s),
+        repository, Long.MAX_VALUE);
+  }
+
+  private static PostPaymentResponse pending() {
+    PostPaymentResponse payment =
+        new PostPaymentResponse(UUID.randomUUID(), null, 8877, 4, 2030, "GBP", 1000);
+    payment.setReference("order-8877");
+    return payment;
+  }
+}
@@ -0,0 +1,90 @@
+package com.checkout.payment.gateway.ledger;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SegmentedPaymentEventLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("should read back appended events across segments")
+  void shouldReadBackEventsAcrossSegments() {
+    SegmentedPaymentEventLog log = SegmentedPaymentEventLog.inMemory(4, s -> s);
+    PostPaymentResponse payment = authorized();
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, log.append(PaymentEvent.of(PaymentEventType.CREATED, payment)
+          .withPosition(PaymentEvent.NONE, i - 1)));
+    }
+
+    assertEquals(10, log.nextSequence());
+    PaymentEvent event = log.read(9);
+    assertEquals(9, event.sequence());
+    assertEquals(8, event.previousSequence());
+    assertEquals(PaymentEventType.CREATED, event.type());
+    assertEquals(payment.getId(), event.paymentId());
+    assertEquals(PaymentStatus.AUTHORIZED, event.outcome());
+    assertEquals("GBP", event.currency());
+    assertEquals(1050, event.amount());
+    assertNull(log.read(10));
+  }
+
+  @Test
+  @DisplayName("should continue after the last event when reopened")
+  void shouldContinueAfterLastEventWhenReopened() throws IOException {
+    PostPaymentResponse payment = authorized();
+    try (SegmentedPaymentEventLog log = SegmentedPaymentEventLog.open(directory, 4, s -> s)) {
+      for (int i = 0; i < 6; i++) {
+        log.append(PaymentEvent.of(PaymentEventType.CREATED, payment));
+      }
+    }
+
+    try (SegmentedPaymentEventLog log = SegmentedPaymentEventLog.open(directory, 4, s -> s)) {
+      assertEquals(6, log.nextSequence());
+      assertEquals(6, log.append(PaymentEvent.of(PaymentEventType.CAPTURED, payment)));
+      List<PaymentEvent> replayed = new ArrayList<>();
+      assertEquals(3, log.replay(4, replayed::add));
+      assertEquals(PaymentEventType.CAPTURED, replayed.get(2).type());
+    }
+  }
+
+  @Test
+  @DisplayName("should skip a corrupted record on replay")
+  void shouldSkipCorruptedRecord() throws IOException {
+    PostPaymentResponse payment = authorized();
+    try (SegmentedPaymentEventLog log = SegmentedPaymentEventLog.open(directory, 4, s -> s)) {
+      log.append(PaymentEvent.of(PaymentEventType.CREATED, payment));
+      log.append(PaymentEvent.of(PaymentEventType.VALIDATED, payment));
+    }
+    Path segment = directory.resolve("segment-0000000000000000.log");
+    byte[] bytes = Files.readAllBytes(segment);
+    bytes[40] ^= 1;
+    Files.write(segment, bytes);
+
+    try (SegmentedPaymentEventLog log = SegmentedPaymentEventLog.open(directory, 4, s -> s)) {
+      List<PaymentEvent> replayed = new ArrayList<>();
+      assertEquals(1, log.replay(0, replayed::add));
+      assertEquals(PaymentEventType.VALIDATED, replayed.get(0).type());
+    }
+  }
+
+  private static PostPaymentResponse authorized() {
+    return new PostPaymentResponse(UUID.randomUUID(), PaymentStatus.AUTHORIZED, 8877, 4, 2030,
+        "GBP", 1050);
+  }
+}
@@ -0,0 +1,48 @@
+package com.checkout.payment.gateway.logging;
+
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardDataMaskerTest {
+
+  @Test
+  @DisplayName("should keep only the last 4 digits of a card number")
+  void shouldKeepOnlyLastFourDigits() {
+    assertEquals("************1111", CardDataMasker.maskPan("4111111111111111"));
+  }
+
+  @Test
+  @DisplayName("should fully mask values of 4 characters or fewer")
+  void shouldFullyMaskShortValues() {
+    assertEquals("****", CardDataMasker.maskPan("4111"));
+    assertEquals("", CardDataMasker.maskPan(""));
+    assertNull(CardDataMasker.maskPan(null));
+  }
+
+  @Test
+  @DisplayName("should never expose the CVV")
+  void shouldMaskCvv() {
+    assertEquals("***", CardDataMasker.maskCvv("1234"));
+    assertNull(CardDataMasker.maskCvv(null));
+  }
+
+  @Test
+  @DisplayName("should not leak card number or CVV through request toString")
+  void shouldNotLeakCardDataInToString() {
+    PostPaymentRequest request = createValidPaymentRequest();
+    request.setCvv("987");
+
+    String value = request.toString();
+
+    assertFalse(value.contains(request.getCardNumber()));
+    assertFalse(value.contains("987"));
+    assertTrue(value.contains("************1111"));
+  }
+}
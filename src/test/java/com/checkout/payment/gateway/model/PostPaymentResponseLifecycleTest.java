@@ -0,0 +1,226 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentStateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostPaymentResponseLifecycleTest {
+
+  private static final int THREADS = 8;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Nested
+  @DisplayName("Transitions")
+  class Transitions {
+
+    @Test
+    @DisplayName("should move through partial capture, capture, partial refund and refund")
+    void shouldFollowCaptureAndRefundFlow() {
+      PostPaymentResponse payment = authorized(1000);
+
+      assertEquals(400, payment.capture(400));
+      assertEquals(PaymentStatus.PARTIALLY_CAPTURED, payment.getStatus());
+      assertEquals(600, payment.capture(0));
+      assertEquals(PaymentStatus.CAPTURED, payment.getStatus());
+      assertEquals(250, payment.refund(250));
+      assertEquals(PaymentStatus.PARTIALLY_REFUNDED, payment.getStatus());
+      assertEquals(750, payment.refund(0));
+      assertEquals(PaymentStatus.REFUNDED, payment.getStatus());
+      assertEquals(1000, payment.getCapturedAmount());
+      assertEquals(1000, payment.getRefundedAmount());
+    }
+
+    @Test
+    @DisplayName("should void an uncaptured authorization")
+    void shouldVoidAuthorization() {
+      PostPaymentResponse payment = authorized(1000);
+
+      payment.voidAuthorization();
+
+      assertEquals(PaymentStatus.VOIDED, payment.getStatus());
+      assertThrows(PaymentStateException.class, () -> payment.capture(0));
+      assertThrows(PaymentStateException.class, payment::voidAuthorization);
+    }
+
+    @Test
+    @DisplayName("should refuse void after capture and capture after refund")
+    void shouldRefuseConflictingTransitions() {
+      PostPaymentResponse payment = authorized(1000);
+      payment.capture(500);
+
+      assertThrows(PaymentStateException.class, payment::voidAuthorization);
+      payment.refund(100);
+      assertThrows(PaymentStateException.class, () -> payment.capture(100));
+      assertEquals(PaymentStatus.PARTIALLY_REFUNDED, payment.getStatus());
+    }
+
+    @Test
+    @DisplayName("should refuse amounts above what is left")
+    void shouldRefuseExcessAmounts() {
+      PostPaymentResponse payment = authorized(1000);
+
+      assertThrows(PaymentStateException.class, () -> payment.refund(0));
+      assertThrows(PaymentStateException.class, () -> payment.capture(1001));
+      payment.capture(300);
+      assertThrows(PaymentStateException.class, () -> payment.refund(301));
+      assertEquals(PaymentStatus.PARTIALLY_CAPTURED, payment.getStatus());
+    }
+
+    @Test
+    @DisplayName("should refuse lifecycle operations on declined and rejected payments")
+    void shouldRefuseOperationsOnClosedPayments() {
+      PostPaymentResponse declined = payment(PaymentStatus.DECLINED, 1000);
+      PostPaymentResponse rejected = payment(PaymentStatus.REJECTED, 1000);
+
+      assertThrows(PaymentStateException.class, () -> declined.capture(0));
+      assertThrows(PaymentStateException.class, rejected::voidAuthorization);
+      assertEquals(PaymentStatus.DECLINED, declined.getStatus());
+      assertEquals(PaymentStatus.REJECTED, rejected.getStatus());
+    }
+
+    @Test
+    @DisplayName("should handle the largest representable amount")
+    void shouldHandleMaximumAmount() {
+      PostPaymentResponse payment = authorized(Integer.MAX_VALUE);
+
+      payment.capture(0);
+      payment.refund(Integer.MAX_VALUE - 1);
+
+      assertEquals(Integer.MAX_VALUE, payment.getCapturedAmount());
+      assertEquals(Integer.MAX_VALUE - 1, payment.getRefundedAmount());
+      assertEquals(PaymentStatus.PARTIALLY_REFUNDED, payment.getStatus());
+    }
+  }
+
+  @Nested
+  @DisplayName("Concurrency")
+  class Concurrency {
+
+    @RepeatedTest(20)
+    @DisplayName("concurrent partial captures never exceed the authorized amount")
+    void shouldNeverOverCapture() throws Exception {
+      PostPaymentResponse payment = authorized(1000);
+
+      List<Integer> captured = runConcurrently(200, () -> {
+        try {
+          return payment.capture(7);
+        } catch (PaymentStateException e) {
+          return 0;
+        }
+      });
+
+      int total = captured.stream().mapToInt(Integer::intValue).sum();
+      assertEquals(payment.getCapturedAmount(), total);
+      assertEquals(994, total);
+      assertEquals(PaymentStatus.PARTIALLY_CAPTURED, payment.getStatus());
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("a void racing captures either wins alone or loses to a capture")
+    void shouldLetExactlyOneOfVoidOrCaptureWin() throws Exception {
+      PostPaymentResponse payment = authorized(1000);
+
+      List<Integer> outcomes = runConcurrently(THREADS, index -> () -> {
+        try {
+          if (index == 0) {
+            payment.voidAuthorization();
+            return -1;
+          }
+          return payment.capture(100);
+        } catch (PaymentStateException e) {
+          return 0;
+        }
+      });
+
+      boolean voided = outcomes.contains(-1);
+      int captured = outcomes.stream().filter(amount -> amount > 0).mapToInt(Integer::intValue)
+          .sum();
+      if (voided) {
+        assertEquals(PaymentStatus.VOIDED, payment.getStatus());
+        assertEquals(0, captured);
+      } else {
+        assertNotEquals(PaymentStatus.VOIDED, payment.getStatus());
+        assertEquals(payment.getCapturedAmount(), captured);
+        assertTrue(captured > 0);
+      }
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("concurrent refunds never exceed the captured amount")
+    void shouldNeverOverRefund() throws Exception {
+      PostPaymentResponse payment = authorized(1000);
+      payment.capture(600);
+
+      List<Integer> refunded = runConcurrently(200, () -> {
+        try {
+          return payment.refund(9);
+        } catch (PaymentStateException e) {
+          return 0;
+        }
+      });
+
+      assertEquals(594, refunded.stream().mapToInt(Integer::intValue).sum());
+      assertEquals(594, payment.getRefundedAmount());
+      assertEquals(600, payment.getCapturedAmount());
+    }
+  }
+
+  private List<Integer> runConcurrently(int tasks, Callable<Integer> task) throws Exception {
+    return runConcurrently(tasks, index -> task);
+  }
+
+  private List<Integer> runConcurrently(int tasks,
+      IntFunction<Callable<Integer>> taskFactory) throws Exception {
+    CyclicBarrier start = new CyclicBarrier(Math.min(tasks, THREADS));
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < tasks; i++) {
+      Callable<Integer> task = taskFactory.apply(i);
+      boolean waitAtBarrier = i < THREADS;
+      futures.add(executor.submit(() -> {
+        if (waitAtBarrier) {
+          start.await(5, TimeUnit.SECONDS);
+        }
+        return task.call();
+      }));
+    }
+    List<Integer> results = new ArrayList<>();
+    for (Future<Integer> future : futures) {
+      results.add(future.get(10, TimeUnit.SECONDS));
+    }
+    return results;
+  }
+
+  private static PostPaymentResponse authorized(int amount) {
+    return payment(PaymentStatus.AUTHORIZED, amount);
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status, int amount) {
+    return new PostPaymentResponse(UUID.randomUUID(), status, 1111, 12, 2030, "USD", amount);
+  }
+}
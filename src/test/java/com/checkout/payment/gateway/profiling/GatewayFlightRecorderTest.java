@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.profiling;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentStage;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.service.BankService;
+import io.opentelemetry.api.OpenTelemetry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GatewayFlightRecorderTest {
+
+  @Test
+  @DisplayName("should record payment, stage and bank call events with the payment ID")
+  void shouldRecordPaymentEvents() throws Exception {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setBankUrl("http://localhost:8080/payments");
+    config.getProfiling().setEnabled(true);
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    GetAcquiringBankResponse authorized = new GetAcquiringBankResponse();
+    authorized.setAuthorized(true);
+    when(restTemplate.exchange(anyString(), any(), any(), eq(GetAcquiringBankResponse.class)))
+        .thenReturn(new ResponseEntity<>(authorized, HttpStatus.OK));
+    BankService bankService =
+        new BankService(restTemplate, config, OpenTelemetry.noop(), BinTable.defaults());
+    PaymentInstrumentation instrumentation = new PaymentInstrumentation(OpenTelemetry.noop());
+    UUID paymentId = UUID.randomUUID();
+
+    Path file;
+    try (GatewayFlightRecorder recorder = new GatewayFlightRecorder(config)) {
+      MDC.put("paymentId", paymentId.toString());
+      try {
+        instrumentation.inPayment(paymentId, () -> {
+          instrumentation.inStage(PaymentStage.VALIDATE, () -> { });
+          instrumentation.inStage(PaymentStage.BANK,
+              () -> bankService.submitBankRequest(new GetAcquiringBankRequest()));
+          return new PostPaymentResponse(paymentId, PaymentStatus.AUTHORIZED, 1111, 12, 2030,
+              "USD", 100);
+        });
+      } finally {
+        MDC.remove("paymentId");
+      }
+      file = recorder.dump(Duration.ofMinutes(1));
+    }
+
+    List<RecordedEvent> events;
+    try {
+      events = RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().startsWith("com.checkout."))
+          .filter(event -> paymentId.toString().equals(event.getString("paymentId")))
+          .toList();
+    } finally {
+      Files.delete(file);
+    }
+    assertThat(events).extracting(event -> event.getEventType().getName()).containsOnly(
+        "com.checkout.payment.gateway.Payment", "com.checkout.payment.gateway.PaymentStage",
+        "com.checkout.payment.gateway.BankCall");
+    assertThat(events).filteredOn(event -> event.getEventType().getName().endsWith(".Payment"))
+        .singleElement()
+        .satisfies(event -> assertThat(event.getString("status")).isEqualTo("Authorized"));
+    assertThat(events).filteredOn(event -> event.getEventType().getName().endsWith("Stage"))
+        .extracting(event -> event.getString("stage"))
+        .containsExactlyInAnyOrder("VALIDATE", "BANK");
+    assertThat(events).filteredOn(event -> event.getEventType().getName().endsWith("BankCall"))
+        .singleElement()
+        .satisfies(event -> {
+          assertThat(event.getString("status")).isEqualTo(BankCallEvent.AUTHORIZED);
+          assertThat(event.getString("acquirer")).isNotNull();
+        });
+  }
+
+  @Test
+  @DisplayName("should refuse to dump when flight recording is disabled")
+  void shouldRefuseDumpWhenDisabled() throws Exception {
+    try (GatewayFlightRecorder recorder =
+        new GatewayFlightRecorder(new ApplicationConfiguration.Profiling())) {
+      assertThat(recorder.isRecording()).isFalse();
+      assertThatThrownBy(() -> recorder.dump(Duration.ofMinutes(1)))
+          .isInstanceOf(ValidationException.class);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.checkout.payment.gateway.reactive;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayApiContract;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the API contract over HTTP against the reactive gateway on Netty.
+ */
+@SpringBootTest(classes = ReactivePaymentGatewayApplication.class,
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = "spring.main.web-application-type=reactive")
+class ReactivePaymentGatewayControllerTest extends PaymentGatewayApiContract {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Override
+  protected WebTestClient createClient() {
+    return webTestClient;
+  }
+}
@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.reactive;
+
+import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayApiContract;
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.tenant.TenantInterceptor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the API contract over HTTP against the reactive gateway with merchants authenticated, as
+ * merchant A, and checks that merchants are kept apart as on the servlet stack.
+ */
+@SpringBootTest(classes = ReactivePaymentGatewayApplication.class,
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.main.web-application-type=reactive",
+        "payment.gateway.tenants.enabled=true",
+        "payment.gateway.tenants.merchants.merchant-a.api-key=key-a",
+        "payment.gateway.tenants.merchants.merchant-a.max-concurrent-requests=50",
+        "payment.gateway.tenants.merchants.merchant-b.api-key=key-b",
+        "payment.gateway.tenants.merchants.merchant-c.api-key=key-c",
+        "payment.gateway.tenants.merchants.merchant-c.requests-per-second=1"
+    })
+class ReactiveTenantGatewayTest extends PaymentGatewayApiContract {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Override
+  protected WebTestClient createClient() {
+    return client("merchant-a", "key-a");
+  }
+
+  @Override
+  protected String merchantId() {
+    return "merchant-a";
+  }
+
+  @Test
+  @DisplayName("should refuse payment requests without a merchant's own API key")
+  void shouldRequireApiKey() {
+    webTestClient.post().uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isUnauthorized();
+    client("merchant-a", "key-b").get().uri("/api/v1/payments?status=Authorized")
+            .exchange()
+        .expectStatus().isUnauthorized();
+  }
+
+  @Test
+  @DisplayName("should keep each merchant's payments out of other merchants' reach")
+  void shouldIsolatePayments() {
+    PostPaymentResponse payment = createClient().post().uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isCreated()
+        .expectBody(PostPaymentResponse.class)
+        .returnResult().getResponseBody();
+
+    WebTestClient other = client("merchant-b", "key-b");
+    other.get().uri("/api/v1/payments/" + payment.getId())
+            .exchange()
+        .expectStatus().isNotFound();
+    other.post().uri("/api/v1/payments/" + payment.getId() + "/voids")
+            .exchange()
+        .expectStatus().isNotFound();
+    other.get().uri("/api/v1/payments/" + payment.getId() + "/events")
+            .exchange()
+        .expectStatus().isNotFound();
+    other.get().uri("/api/v1/payments?status=Authorized")
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[?(@.id == '" + payment.getId() + "')]").doesNotExist();
+  }
+
+  @Test
+  @DisplayName("should refuse a merchant's requests over its rate with 429")
+  void shouldEnforceRate() {
+    WebTestClient client = client("merchant-c", "key-c");
+
+    client.get().uri("/api/v1/payments?status=Authorized").exchange()
+        .expectStatus().isOk();
+    client.get().uri("/api/v1/payments?status=Authorized").exchange()
+        .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+        .expectHeader().valueEquals("Retry-After", "1");
+  }
+
+  private WebTestClient client(String merchantId, String apiKey) {
+    return webTestClient.mutate()
+        .defaultHeader(PaymentGatewayController.MERCHANT_ID_HEADER, merchantId)
+        .defaultHeader(TenantInterceptor.API_KEY_HEADER, apiKey)
+        .build();
+  }
+}
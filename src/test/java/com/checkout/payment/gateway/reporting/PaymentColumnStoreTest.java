@@ -0,0 +1,166 @@
+package com.checkout.payment.gateway.reporting;
+
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.AuthorizationRate;
+import com.checkout.payment.gateway.model.PaymentVolume;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaymentColumnStoreTest {
+
+  private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+  private static final long DAY_START = DAY.toEpochDay() * 86_400_000L;
+
+  @TempDir
+  Path directory;
+
+  private long sequence;
+
+  @Test
+  @DisplayName("should report volume per currency and day from sealed and buffered payments")
+  void shouldReportDailyVolume() throws IOException {
+    try (PaymentColumnStore store = PaymentColumnStore.open(null, 4, Duration.ofDays(1),
+        c -> c)) {
+      record(store, DAY_START + 1000, "GBP", PaymentStatus.AUTHORIZED, 100);
+      record(store, DAY_START + 2000, "USD", PaymentStatus.AUTHORIZED, 250);
+      record(store, DAY_START + 3000, "GBP", PaymentStatus.DECLINED, 999);
+      record(store, DAY_START + 4000, "GBP", PaymentStatus.AUTHORIZED, 300);
+      record(store, DAY_START + 86_400_000L, "GBP", PaymentStatus.AUTHORIZED, 50);
+      // Only the event that gave the payment its outcome counts
+      store.onEvent(event(PaymentEventType.CAPTURED, DAY_START, "GBP", PaymentStatus.AUTHORIZED,
+          100));
+      store.onEvent(event(PaymentEventType.CREATED, DAY_START, "GBP", null, 100));
+
+      assertEquals(List.of(
+              new PaymentVolume("2026-03-01", "GBP", 2, 400),
+              new PaymentVolume("2026-03-01", "USD", 1, 250),
+              new PaymentVolume("2026-03-02", "GBP", 1, 50)),
+          store.dailyVolume(DAY, DAY.plusDays(6)));
+      assertEquals(List.of(new PaymentVolume("2026-03-02", "GBP", 1, 50)),
+          store.dailyVolume(DAY.plusDays(1), DAY.plusDays(1)));
+      assertEquals(5, store.size());
+    }
+  }
+
+  @Test
+  @DisplayName("should report the share of payments sent to the bank that were authorized")
+  void shouldReportAuthorizationRate() throws IOException {
+    try (PaymentColumnStore store = PaymentColumnStore.open(null, 2, Duration.ofDays(1),
+        c -> c)) {
+      record(store, DAY_START, "GBP", PaymentStatus.AUTHORIZED, 100);
+      record(store, DAY_START, "GBP", PaymentStatus.AUTHORIZED, 100);
+      record(store, DAY_START, "GBP", PaymentStatus.AUTHORIZED, 100);
+      record(store, DAY_START, "GBP", PaymentStatus.DECLINED, 100);
+      record(store, DAY_START, "GBP", PaymentStatus.REJECTED, 100);
+      record(store, DAY_START, "USD", PaymentStatus.DECLINED, 100);
+
+      assertEquals(new AuthorizationRate("2026-03-01", "2026-03-01", "GBP", 3, 1, 1, 0.75),
+          store.authorizationRate(DAY, DAY, "GBP"));
+      assertEquals(new AuthorizationRate("2026-03-01", "2026-03-31", null, 3, 2, 1, 0.6),
+          store.authorizationRate(DAY, DAY.plusDays(30), null));
+      assertEquals(new AuthorizationRate("2026-03-02", "2026-03-02", null, 0, 0, 0, 0),
+          store.authorizationRate(DAY.plusDays(1), DAY.plusDays(1), null));
+    }
+  }
+
+  @Test
+  @DisplayName("should keep sealed segments across restarts and say where to replay from")
+  void shouldReloadSegments() throws IOException {
+    try (PaymentColumnStore store = PaymentColumnStore.open(directory, 2, Duration.ofDays(1),
+        c -> c)) {
+      for (int i = 0; i < 5; i++) {
+        record(store, DAY_START + i, "EUR", PaymentStatus.AUTHORIZED, 10);
+      }
+    }
+
+    try (PaymentColumnStore store = PaymentColumnStore.open(directory, 2, Duration.ofDays(1),
+        c -> c)) {
+      assertEquals(5, store.size());
+      assertEquals(5, store.nextSequence());
+      assertEquals(List.of(new PaymentVolume("2026-03-01", "EUR", 5, 50)),
+          store.dailyVolume(DAY, DAY));
+    }
+  }
+
+  @Test
+  @DisplayName("should match a row-by-row aggregation across many packed segments")
+  void shouldMatchRowByRowAggregation() throws IOException {
+    Random random = new Random(7);
+    String[] currencies = {"GBP", "USD", "EUR"};
+    PaymentStatus[] outcomes = {PaymentStatus.AUTHORIZED, PaymentStatus.AUTHORIZED,
+        PaymentStatus.DECLINED, PaymentStatus.REJECTED};
+    Map<String, long[]> expected = new TreeMap<>();
+    long[] outcomeCounts = new long[PaymentStatus.values().length];
+    List<PaymentEvent> events = new ArrayList<>();
+    long time = DAY_START - 86_400_000L;
+    for (int i = 0; i < 50_000; i++) {
+      // Runs of identical rows, as in quiet hours, exercise whole-block aggregation
+      boolean run = i % 5000 < 1000;
+      time += run ? 1 : random.nextInt(50_000);
+      String currency = run ? "GBP" : currencies[random.nextInt(currencies.length)];
+      PaymentStatus outcome = run ? PaymentStatus.AUTHORIZED
+          : outcomes[random.nextInt(outcomes.length)];
+      int amount = run ? 500 : 1 + random.nextInt(random.nextBoolean() ? 100 : 10_000_000);
+      events.add(event(PaymentEventType.BANK_RESPONDED, time, currency, outcome, amount));
+      LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(time, 86_400_000L));
+      if (!day.isBefore(DAY) && !day.isAfter(DAY.plusDays(5))) {
+        outcomeCounts[outcome.ordinal()]++;
+        if (outcome == PaymentStatus.AUTHORIZED) {
+          long[] totals = expected.computeIfAbsent(day + " " + currency, k -> new long[2]);
+          totals[0]++;
+          totals[1] += amount;
+        }
+      }
+    }
+    // Rows arrive slightly out of order, as appends from concurrent requests do
+    for (int i = 0; i + 1 < events.size(); i += 7) {
+      events.set(i, events.set(i + 1, events.get(i)));
+    }
+
+    try (PaymentColumnStore store = PaymentColumnStore.open(directory, 3000, Duration.ofDays(1),
+        c -> c)) {
+      events.forEach(store::onEvent);
+      store.roll();
+
+      Map<String, long[]> actual = new TreeMap<>();
+      for (PaymentVolume volume : store.dailyVolume(DAY, DAY.plusDays(5))) {
+        actual.put(volume.date() + " " + volume.currency(),
+            new long[] {volume.payments(), volume.amount()});
+      }
+      assertEquals(expected.keySet(), actual.keySet());
+      expected.forEach((key, totals) -> assertEquals(List.of(totals[0], totals[1]),
+          List.of(actual.get(key)[0], actual.get(key)[1]), key));
+      AuthorizationRate rate = store.authorizationRate(DAY, DAY.plusDays(5), null);
+      assertEquals(outcomeCounts[PaymentStatus.AUTHORIZED.ordinal()], rate.authorized());
+      assertEquals(outcomeCounts[PaymentStatus.DECLINED.ordinal()], rate.declined());
+      assertEquals(outcomeCounts[PaymentStatus.REJECTED.ordinal()], rate.rejected());
+    }
+  }
+
+  private void record(PaymentColumnStore store, long timestampMillis, String currency,
+      PaymentStatus outcome, int amount) {
+    store.onEvent(event(PaymentEventType.BANK_RESPONDED, timestampMillis, currency, outcome,
+        amount));
+  }
+
+  private PaymentEvent event(PaymentEventType type, long timestampMillis, String currency,
+      PaymentStatus outcome, int amount) {
+    return new PaymentEvent(sequence++, PaymentEvent.NONE, timestampMillis, type,
+        UUID.randomUUID(), outcome, 0, 8877, 4, 2030, currency, amount, null, null);
+  }
+}
@@ -0,0 +1,157 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentsRepositoryTest {
+
+  private final PaymentsRepository repository = new PaymentsRepository();
+
+  @Test
+  @DisplayName("should find payments by reference and by card and amount, most recent first")
+  void shouldFindByReferenceAndCard() {
+    PostPaymentResponse first = payment("order-1", 1234, 100);
+    PostPaymentResponse second = payment("order-1", 1234, 250);
+    PostPaymentResponse third = payment("order-2", 1234, 100);
+    PostPaymentResponse unreferenced = payment(null, 1234, 100);
+
+    assertThat(repository.findByReference("order-1", 10)).containsExactly(second, first);
+    assertThat(repository.findByReference("order-1", 1)).containsExactly(second);
+    assertThat(repository.findByReference("order-3", 10)).isEmpty();
+    assertThat(repository.findByCardAndAmount(1234, 100, 10))
+        .containsExactly(unreferenced, third, first);
+    assertThat(repository.findByCardAndAmount(4321, 100, 10)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("should move a payment between statuses when it is added again")
+  void shouldFollowStatusChanges() {
+    PostPaymentResponse authorized = payment("order-1", 1234, 100);
+    PostPaymentResponse declined = payment("order-2", 1234, 100, PaymentStatus.DECLINED);
+
+    authorized.capture(40);
+    repository.add(authorized);
+
+    assertThat(repository.findByStatus(PaymentStatus.AUTHORIZED, 10)).isEmpty();
+    assertThat(repository.findByStatus(PaymentStatus.PARTIALLY_CAPTURED, 10))
+        .containsExactly(authorized);
+    assertThat(repository.findByStatus(PaymentStatus.DECLINED, 10)).containsExactly(declined);
+    assertThat(repository.size()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should only find a replaced payment under its new keys")
+  void shouldReindexReplacedPayment() {
+    PostPaymentResponse original = payment("order-1", 1234, 100);
+    PostPaymentResponse replacement = new PostPaymentResponse(original.getId(),
+        PaymentStatus.AUTHORIZED, 5678, 12, 2030, "USD", 100);
+    replacement.setReference("order-2");
+    repository.add(replacement);
+
+    assertThat(repository.get(original.getId())).contains(replacement);
+    assertThat(repository.findByReference("order-1", 10)).isEmpty();
+    assertThat(repository.findByReference("order-2", 10)).containsExactly(replacement);
+    assertThat(repository.findByCardAndAmount(1234, 100, 10)).isEmpty();
+    assertThat(repository.findByStatus(PaymentStatus.AUTHORIZED, 10))
+        .containsExactly(replacement);
+    assertThat(repository.findAll()).containsExactly(replacement);
+  }
+
+  @Test
+  @DisplayName("should index payments added concurrently across storage chunks")
+  void shouldIndexConcurrentAdds() throws Exception {
+    int perThread = 40_000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int thread = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          payment("thread-" + thread, thread, i % 100 + 1,
+              i % 2 == 0 ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(repository.size()).isEqualTo(threads.length * perThread);
+    assertThat(repository.findAll()).hasSize(threads.length * perThread);
+    for (int t = 0; t < threads.length; t++) {
+      assertThat(repository.findByReference("thread-" + t, Integer.MAX_VALUE))
+          .hasSize(perThread);
+      assertThat(repository.findByCardAndAmount(t, 1, Integer.MAX_VALUE))
+          .hasSize(perThread / 100);
+    }
+    List<PostPaymentResponse> declined =
+        repository.findByStatus(PaymentStatus.DECLINED, Integer.MAX_VALUE);
+    assertThat(declined).hasSize(threads.length * perThread / 2)
+        .allMatch(payment -> payment.getStatus() == PaymentStatus.DECLINED);
+  }
+
+  @Test
+  @DisplayName("should release the oldest storage once its payments are removed")
+  void shouldCompactRemovedPayments() {
+    List<PostPaymentResponse> added = new ArrayList<>();
+    for (int i = 0; i < 70_000; i++) {
+      added.add(payment("order-" + i % 2, 1234, 100));
+    }
+    for (PostPaymentResponse payment : added.subList(0, 65_536)) {
+      repository.remove(payment.getId());
+    }
+
+    assertThat(repository.compact()).isEqualTo(65_536);
+    assertThat(repository.compact()).isZero();
+    assertThat(repository.get(added.get(0).getId())).isEmpty();
+    assertThat(repository.findAll()).hasSize(4_464);
+    assertThat(repository.findByReference("order-0", Integer.MAX_VALUE)).hasSize(2_232);
+    assertThat(repository.findByStatus(PaymentStatus.AUTHORIZED, Integer.MAX_VALUE))
+        .hasSize(4_464);
+    PostPaymentResponse later = payment("order-0", 1234, 100);
+    assertThat(repository.findByCardAndAmount(1234, 100, 1)).containsExactly(later);
+  }
+
+  @Test
+  @DisplayName("should only find a merchant's payments in its own partition")
+  void shouldKeepMerchantsApart() {
+    PostPaymentResponse mine = payment("order-1", 1234, 100);
+    mine.setMerchantId("merchant-a");
+    repository.remove(mine.getId());
+    repository.add(mine);
+    PostPaymentResponse theirs = payment("order-1", 1234, 100);
+    theirs.setMerchantId("merchant-b");
+    repository.remove(theirs.getId());
+    repository.add(theirs);
+
+    assertThat(repository.get("merchant-a", mine.getId())).contains(mine);
+    assertThat(repository.get("merchant-a", theirs.getId())).isEmpty();
+    assertThat(repository.get(mine.getId())).isEmpty();
+    assertThat(repository.findByReference("merchant-b", "order-1", 10)).containsExactly(theirs);
+    assertThat(repository.findByCardAndAmount("merchant-a", 1234, 100, 10)).containsExactly(mine);
+    assertThat(repository.findByStatus("merchant-c", PaymentStatus.AUTHORIZED, 10)).isEmpty();
+    assertThat(repository.size("merchant-a")).isEqualTo(1);
+    assertThat(repository.size()).isEqualTo(2);
+    assertThat(repository.findAll()).containsExactlyInAnyOrder(mine, theirs);
+  }
+
+  private PostPaymentResponse payment(String reference, int lastFour, int amount) {
+    return payment(reference, lastFour, amount, PaymentStatus.AUTHORIZED);
+  }
+
+  private PostPaymentResponse payment(String reference, int lastFour, int amount,
+      PaymentStatus status) {
+    PostPaymentResponse payment = new PostPaymentResponse(UUID.randomUUID(), status, lastFour, 12,
+        2030, "USD", amount);
+    payment.setReference(reference);
+    repository.add(payment);
+    return payment;
+  }
+}
@@ -0,0 +1,217 @@
+package com.checkout.payment.gateway.retention;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.ledger.PaymentArchive;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.PaymentSnapshotStore;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetentionEngineTest {
+
+  private static final Duration ARCHIVE_AFTER = Duration.ofDays(90);
+  private static final Duration DELETE_AFTER = Duration.ofDays(395);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("should archive payments past archive-after and drop the log segments they used")
+  void shouldArchiveOldPayments() throws Exception {
+    List<PostPaymentResponse> old;
+    List<PostPaymentResponse> recent;
+    PaymentsRepository repository = new PaymentsRepository();
+    try (PaymentArchive archive = archive();
+        PaymentLedger ledger = fileLedger(repository, archive)) {
+      old = record(ledger, 10);
+      old.get(0).capture(0);
+      ledger.record(PaymentEventType.CAPTURED, old.get(0));
+      long cutoff = waitForNextMillisecond();
+      recent = record(ledger, 2);
+
+      try (RetentionEngine engine = engine(ledger, archive, cutoff)) {
+        assertEquals(new RetentionEngine.Pass(10, 0), engine.runOnce());
+      }
+
+      assertEquals(2, repository.size());
+      PostPaymentResponse archived = ledger.findArchived(old.get(0).getId()).orElseThrow();
+      assertEquals(PaymentStatus.CAPTURED, archived.getStatus());
+      assertEquals("order-0", archived.getReference());
+      assertTrue(ledger.history(old.get(0).getId()).isEmpty());
+      assertTrue(ledger.findArchived(recent.get(0).getId()).isEmpty());
+      assertEquals(List.of(PaymentEventType.CREATED, PaymentEventType.BANK_RESPONDED),
+          ledger.history(recent.get(1).getId()).stream().map(PaymentEvent::type).toList());
+    }
+    // 21 old events in segments of 4: the first five segments only held archived payments
+    assertFalse(Files.exists(directory.resolve("events/segment-0000000000000016.log")));
+    assertTrue(Files.exists(directory.resolve("events/segment-0000000000000020.log")));
+
+    PaymentsRepository restored = new PaymentsRepository();
+    try (PaymentArchive archive = archive();
+        PaymentLedger ledger = fileLedger(restored, archive)) {
+      ledger.restore();
+
+      assertEquals(2, restored.size());
+      assertTrue(restored.get(recent.get(0).getId()).isPresent());
+      assertTrue(restored.get(old.get(3).getId()).isEmpty());
+      assertEquals(PaymentStatus.AUTHORIZED,
+          ledger.findArchived(old.get(3).getId()).orElseThrow().getStatus());
+    }
+  }
+
+  @Test
+  @DisplayName("should refuse events for a payment that has been archived")
+  void shouldRefuseEventsForArchivedPayment() throws Exception {
+    try (PaymentArchive archive = archive();
+        PaymentLedger ledger = fileLedger(new PaymentsRepository(), archive)) {
+      PostPaymentResponse payment = record(ledger, 1).get(0);
+      try (RetentionEngine engine = engine(ledger, archive, waitForNextMillisecond())) {
+        engine.runOnce();
+      }
+
+      payment.capture(0);
+      assertThrows(EventProcessingException.class,
+          () -> ledger.record(PaymentEventType.CAPTURED, payment));
+      assertEquals(PaymentStatus.AUTHORIZED,
+          ledger.findArchived(payment.getId()).orElseThrow().getStatus());
+    }
+  }
+
+  @Test
+  @DisplayName("should delete archived payments past delete-after")
+  void shouldDeleteExpiredPayments() throws Exception {
+    try (PaymentArchive archive = archive();
+        PaymentLedger ledger = fileLedger(new PaymentsRepository(), archive)) {
+      List<PostPaymentResponse> old = record(ledger, 10);
+      long cutoff = waitForNextMillisecond();
+      List<PostPaymentResponse> recent = record(ledger, 2);
+      try (RetentionEngine engine = engine(ledger, archive, cutoff)) {
+        engine.runOnce();
+      }
+
+      // Moving on by delete-after expires the old payments and archives the recent ones
+      long later = cutoff + DELETE_AFTER.minus(ARCHIVE_AFTER).toMillis();
+      try (RetentionEngine engine = engine(ledger, archive, later)) {
+        assertEquals(new RetentionEngine.Pass(2, 10), engine.runOnce());
+      }
+
+      assertTrue(ledger.findArchived(old.get(0).getId()).isEmpty());
+      assertTrue(ledger.findArchived(recent.get(0).getId()).isPresent());
+      assertEquals(2, archive.size());
+    }
+  }
+
+  @Test
+  @DisplayName("should archive across files and release storage while payments are recorded")
+  void shouldArchiveWhileRecording() throws Exception {
+    PaymentsRepository repository = new PaymentsRepository();
+    try (PaymentArchive archive = archive()) {
+      PaymentLedger ledger = new PaymentLedger(SegmentedPaymentEventLog.inMemory(4096, s -> s),
+          null, archive, repository, Long.MAX_VALUE);
+      List<PostPaymentResponse> old = record(ledger, 70_000);
+      long cutoff = waitForNextMillisecond();
+      List<List<PostPaymentResponse>> recent = new ArrayList<>();
+      Thread[] writers = new Thread[2];
+      for (int t = 0; t < writers.length; t++) {
+        List<PostPaymentResponse> recorded = new ArrayList<>();
+        recent.add(recorded);
+        writers[t] = new Thread(() -> recorded.addAll(record(ledger, 5_000)));
+        writers[t].start();
+      }
+
+      try (RetentionEngine engine = engine(ledger, archive, cutoff)) {
+        assertEquals(new RetentionEngine.Pass(70_000, 0), engine.runOnce());
+      }
+      for (Thread writer : writers) {
+        writer.join();
+      }
+
+      assertEquals(10_000, repository.size());
+      assertEquals(70_000, archive.size());
+      for (List<PostPaymentResponse> recorded : recent) {
+        for (PostPaymentResponse payment : recorded) {
+          assertTrue(repository.get(payment.getId()).isPresent());
+        }
+      }
+      for (int i = 0; i < old.size(); i += 97) {
+        assertEquals(old.get(i).getReference(),
+            ledger.findArchived(old.get(i).getId()).orElseThrow().getReference());
+      }
+      // Only the writers' first payments: the archived one's index entries were released
+      assertEquals(2, repository.findByReference("order-0", 10).size());
+    }
+  }
+
+  private PaymentArchive archive() throws IOException {
+    return PaymentArchive.open(directory.resolve("archive"), s -> s);
+  }
+
+  private PaymentLedger fileLedger(PaymentsRepository repository, PaymentArchive archive)
+      throws IOException {
+    return new PaymentLedger(
+        SegmentedPaymentEventLog.open(directory.resolve("events"), 4, s -> s),
+        new PaymentSnapshotStore(directory.resolve("snapshots"), s -> s),
+        archive, repository, Long.MAX_VALUE);
+  }
+
+  /**
+   * An engine whose archive cutoff is {@code cutoffMillis}.
+   */
+  private static RetentionEngine engine(PaymentLedger ledger, PaymentArchive archive,
+      long cutoffMillis) {
+    ApplicationConfiguration.Retention settings = new ApplicationConfiguration.Retention();
+    settings.setArchiveAfter(ARCHIVE_AFTER);
+    settings.setDeleteAfter(DELETE_AFTER);
+    settings.setInterval(Duration.ofDays(1));
+    settings.setFilePayments(1000);
+    return new RetentionEngine(settings, ledger, archive,
+        () -> cutoffMillis + ARCHIVE_AFTER.toMillis());
+  }
+
+  private static List<PostPaymentResponse> record(PaymentLedger ledger, int count) {
+    List<PostPaymentResponse> payments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      PostPaymentResponse payment =
+          new PostPaymentResponse(UUID.randomUUID(), null, 8877, 4, 2030, "GBP", 1000);
+      payment.setReference("order-" + i);
+      ledger.record(PaymentEventType.CREATED, payment);
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      ledger.record(PaymentEventType.BANK_RESPONDED, payment);
+      payments.add(payment);
+    }
+    return payments;
+  }
+
+  /**
+   * Waits until the clock has moved past every event recorded so far.
+   *
+   * @return the current time, later than every earlier event
+   */
+  private static long waitForNextMillisecond() {
+    long next = System.currentTimeMillis() + 1;
+    while (System.currentTimeMillis() < next) {
+      Thread.onSpinWait();
+    }
+    return next;
+  }
+}
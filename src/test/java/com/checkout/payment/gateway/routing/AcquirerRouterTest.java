@@ -0,0 +1,142 @@
+package com.checkout.payment.gateway.routing;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.CardScheme;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcquirerRouterTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  private static final BinTable BINS = BinTable.defaults();
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  @DisplayName("should fall back to the bank url when no acquirers are configured")
+  void shouldFallBackToBankUrl() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setBankUrl("http://localhost:8080/payments");
+
+    AcquirerRouter router = AcquirerRouter.fromConfig(config, BINS);
+
+    assertEquals(1, router.getEndpoints().size());
+    assertEquals("http://localhost:8080/payments",
+        router.select("GBP", "4111111111111111", List.of()).getUrl());
+  }
+
+  @Test
+  @DisplayName("should only route to acquirers accepting the currency")
+  void shouldRouteByCurrency() {
+    AcquirerEndpoint sterling = endpoint("sterling", Set.of("GBP"), List.of());
+    AcquirerEndpoint dollars = endpoint("dollars", Set.of("USD"), List.of());
+    AcquirerRouter router = new AcquirerRouter(List.of(sterling, dollars),
+        AcquirerRouter.LEAST_LATENCY, BINS);
+
+    for (int i = 0; i < 20; i++) {
+      assertSame(dollars, router.select("USD", "4111111111111111", List.of()));
+    }
+    assertNull(router.select("EUR", "4111111111111111", List.of()));
+  }
+
+  @Test
+  @DisplayName("should only route to acquirers accepting the card scheme")
+  void shouldRouteByScheme() {
+    AcquirerEndpoint visa = new AcquirerEndpoint("visa", "http://visa", 1, Set.of(),
+        Set.of(CardScheme.VISA), List.of(), 1000 * MILLI, 1000 * MILLI, clock::get);
+    AcquirerEndpoint amex = new AcquirerEndpoint("amex", "http://amex", 1, Set.of(),
+        Set.of(CardScheme.AMEX), List.of(), 1000 * MILLI, 1000 * MILLI, clock::get);
+    AcquirerRouter router = new AcquirerRouter(List.of(visa, amex),
+        AcquirerRouter.LEAST_LATENCY, BINS);
+
+    assertSame(visa, router.select("GBP", "4111111111111111", List.of()));
+    assertSame(amex, router.select("GBP", "378282246310005", List.of()));
+    assertNull(router.select("GBP", "5555555555554444", List.of()));
+  }
+
+  @Test
+  @DisplayName("should prefer acquirers matching the card BIN")
+  void shouldPreferBinMatch() {
+    AcquirerEndpoint visa = endpoint("visa", Set.of(), List.of("4"));
+    AcquirerEndpoint any = endpoint("any", Set.of(), List.of());
+    AcquirerRouter router = new AcquirerRouter(List.of(visa, any),
+        AcquirerRouter.LEAST_LATENCY, BINS);
+    visa.succeeded(visa.begin() - 50 * MILLI);
+
+    assertSame(visa, router.select("GBP", "4111111111111111", List.of()));
+    assertSame(any, router.select("GBP", "5555555555554444", List.of()));
+    assertSame(any, router.select("GBP", "4111111111111111", List.of(visa)));
+  }
+
+  @Test
+  @DisplayName("should prefer the acquirer with the lower expected wait")
+  void shouldPreferFasterAcquirer() {
+    AcquirerEndpoint fast = endpoint("fast", Set.of(), List.of());
+    AcquirerEndpoint slow = endpoint("slow", Set.of(), List.of());
+    AcquirerRouter router = new AcquirerRouter(List.of(fast, slow),
+        AcquirerRouter.LEAST_LATENCY, BINS);
+    fast.succeeded(fast.begin() - 5 * MILLI);
+    slow.succeeded(slow.begin() - 50 * MILLI);
+
+    assertSame(fast, router.select("GBP", "4111111111111111", List.of()));
+
+    // Ten requests in flight at 5ms wait longer than one request at 50ms
+    for (int i = 0; i < 10; i++) {
+      fast.begin();
+    }
+    assertSame(slow, router.select("GBP", "4111111111111111", List.of()));
+  }
+
+  @Test
+  @DisplayName("should avoid a failed acquirer until its penalty fades")
+  void shouldPenaliseFailures() {
+    AcquirerEndpoint flaky = endpoint("flaky", Set.of(), List.of());
+    AcquirerEndpoint steady = endpoint("steady", Set.of(), List.of());
+    AcquirerRouter router = new AcquirerRouter(List.of(flaky, steady),
+        AcquirerRouter.LEAST_LATENCY, BINS);
+    steady.succeeded(steady.begin() - 20 * MILLI);
+    flaky.failed(flaky.begin());
+
+    assertTrue(flaky.getLatencyNanos() >= 50 * MILLI);
+    assertSame(steady, router.select("GBP", "4111111111111111", List.of()));
+
+    clock.addAndGet(30_000 * MILLI);
+    steady.succeeded(steady.begin() - 20 * MILLI);
+    assertTrue(flaky.getLatencyNanos() < steady.getLatencyNanos());
+  }
+
+  @Test
+  @DisplayName("should split traffic by weight with the weighted strategy")
+  void shouldSplitByWeight() {
+    AcquirerEndpoint heavy = new AcquirerEndpoint("heavy", "http://heavy", 3, Set.of(), Set.of(),
+        List.of(), 1000 * MILLI, 1000 * MILLI, clock::get);
+    AcquirerEndpoint light = endpoint("light", Set.of(), List.of());
+    AcquirerRouter router = new AcquirerRouter(List.of(heavy, light),
+        AcquirerRouter.WEIGHTED, BINS);
+
+    int heavyCount = 0;
+    for (int i = 0; i < 4000; i++) {
+      if (router.select("GBP", "4111111111111111", List.of()) == heavy) {
+        heavyCount++;
+      }
+    }
+
+    assertTrue(heavyCount > 2700 && heavyCount < 3300, "heavy got " + heavyCount);
+  }
+
+  private AcquirerEndpoint endpoint(String name, Set<String> currencies,
+      List<String> binPrefixes) {
+    return new AcquirerEndpoint(name, "http://" + name, 1, currencies, Set.of(), binPrefixes,
+        1000 * MILLI, 1000 * MILLI, clock::get);
+  }
+}
@@ -0,0 +1,171 @@
+package com.checkout.payment.gateway.screening;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.ScreeningException;
+import com.checkout.payment.gateway.model.PaymentOrigin;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocityScreenerTest {
+
+  private static final String CARD = "4111111111111111";
+  private static final PaymentOrigin ORIGIN = new PaymentOrigin("merchant-1", "203.0.113.7");
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+  private ApplicationConfiguration.Screening settings;
+
+  @BeforeEach
+  void setUp() {
+    settings = new ApplicationConfiguration.Screening();
+    settings.setEnabled(true);
+    settings.setWindow(Duration.ofMinutes(1));
+    settings.setBuckets(6);
+    settings.setCardLimit(3);
+    settings.setIpLimit(5);
+    settings.setMerchantLimit(0);
+  }
+
+  @Test
+  @DisplayName("should refuse a card once it exceeds its limit within the window")
+  void shouldRefuseCardOverLimit() {
+    VelocityScreener screener = new VelocityScreener(settings, clock::get);
+
+    for (int i = 0; i < 3; i++) {
+      screener.screen(CARD, ORIGIN);
+    }
+    ScreeningException exception =
+        assertThrows(ScreeningException.class, () -> screener.screen(CARD, ORIGIN));
+    assertEquals("Too many attempts for this card", exception.getMessage());
+    assertDoesNotThrow(() -> screener.screen("5555555555554444", ORIGIN));
+  }
+
+  @Test
+  @DisplayName("should allow the card again once earlier attempts leave the window")
+  void shouldForgetAttemptsOutsideWindow() {
+    VelocityScreener screener = new VelocityScreener(settings, clock::get);
+
+    for (int i = 0; i < 3; i++) {
+      screener.screen(CARD, ORIGIN);
+    }
+    clock.addAndGet(Duration.ofSeconds(30).toMillis());
+    assertThrows(ScreeningException.class, () -> screener.screen(CARD, ORIGIN));
+
+    clock.addAndGet(Duration.ofSeconds(50).toMillis());
+    assertDoesNotThrow(() -> screener.screen(CARD, ORIGIN));
+  }
+
+  @Test
+  @DisplayName("should refuse a client IP that exceeds its limit across cards")
+  void shouldRefuseClientIpOverLimit() {
+    VelocityScreener screener = new VelocityScreener(settings, clock::get);
+
+    for (int i = 0; i < 5; i++) {
+      screener.screen("400000000000000" + i, ORIGIN);
+    }
+    ScreeningException exception = assertThrows(ScreeningException.class,
+        () -> screener.screen("4000000000000099", ORIGIN));
+    assertEquals("Too many attempts from this client", exception.getMessage());
+    assertDoesNotThrow(() -> screener.screen("4000000000000098",
+        new PaymentOrigin("merchant-1", "198.51.100.1")));
+  }
+
+  @Test
+  @DisplayName("should not limit a client IP unless a limit is configured")
+  void shouldNotLimitClientIpByDefault() {
+    ApplicationConfiguration.Screening defaults = new ApplicationConfiguration.Screening();
+    defaults.setEnabled(true);
+    VelocityScreener screener = new VelocityScreener(defaults, clock::get);
+
+    for (int i = 0; i < 1000; i++) {
+      String card = "4" + String.format("%015d", i);
+      assertDoesNotThrow(() -> screener.screen(card, ORIGIN));
+    }
+  }
+
+  @Test
+  @DisplayName("should only count attempts against a merchant that was authenticated")
+  void shouldLimitOnlyAuthenticatedMerchant() {
+    settings.setCardLimit(0);
+    settings.setIpLimit(0);
+    settings.setMerchantLimit(2);
+    VelocityScreener screener = new VelocityScreener(settings, clock::get);
+    PaymentOrigin authenticated = new PaymentOrigin("merchant-1", "203.0.113.7", true);
+
+    for (int i = 0; i < 5; i++) {
+      // Claiming the merchant's ID neither dodges its limit nor uses it up
+      screener.screen(CARD, ORIGIN);
+    }
+    screener.screen(CARD, authenticated);
+    screener.screen(CARD, authenticated);
+    ScreeningException exception =
+        assertThrows(ScreeningException.class, () -> screener.screen(CARD, authenticated));
+    assertEquals("Too many attempts for this merchant", exception.getMessage());
+  }
+
+  @Test
+  @DisplayName("should not screen unless enabled")
+  void shouldBeOffByDefault() {
+    VelocityScreener screener =
+        new VelocityScreener(new ApplicationConfiguration.Screening(), clock::get);
+
+    for (int i = 0; i < 20; i++) {
+      assertDoesNotThrow(() -> screener.screen(CARD, ORIGIN));
+    }
+  }
+
+  @Test
+  @DisplayName("should count nothing when disabled")
+  void shouldAllowEverythingWhenDisabled() {
+    settings.setEnabled(false);
+    VelocityScreener screener = new VelocityScreener(settings, clock::get);
+
+    for (int i = 0; i < 10; i++) {
+      assertDoesNotThrow(() -> screener.screen(CARD, ORIGIN));
+    }
+  }
+
+  @Test
+  @DisplayName("should never undercount, even with more keys than counters")
+  void shouldNeverUndercount() {
+    SlidingWindowSketch sketch = new SlidingWindowSketch(60_000, 6, 64);
+    long now = clock.get();
+    for (int key = 0; key < 1000; key++) {
+      sketch.incrementAndEstimate(SlidingWindowSketch.hash("key-" + key, 42), now);
+    }
+    for (int key = 0; key < 1000; key++) {
+      long hash = SlidingWindowSketch.hash("key-" + key, 42);
+      assertTrue(sketch.incrementAndEstimate(hash, now) >= 2);
+    }
+  }
+
+  @Test
+  @DisplayName("should keep every count made while the window moves to a new slice")
+  void shouldNotLoseCountsAtSliceBoundary() throws InterruptedException {
+    SlidingWindowSketch sketch = new SlidingWindowSketch(60_000, 6, 64);
+    long hash = SlidingWindowSketch.hash("card", 42);
+    long boundary = (clock.get() / 10_000 + 1) * 10_000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          // Threads straddle the boundary, as request threads with slightly different clocks do
+          sketch.incrementAndEstimate(hash, boundary - 1 + (i & 1));
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(4001, sketch.incrementAndEstimate(hash, boundary));
+  }
+}
@@ -1,13 +1,27 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
 import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
 import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
@@ -22,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BankServiceTest {
@@ -29,12 +44,16 @@ public class BankServiceTest {
   @Mock
   private RestTemplate restTemplate;
 
-  @InjectMocks
   private BankService bankService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setBankUrl("http://localhost:8080/payments");
+    bankService = new BankService(restTemplate, config,
+        OpenTelemetry.propagating(ContextPropagators.create(
+            W3CTraceContextPropagator.getInstance())), BinTable.defaults());
   }
 
   @Test
@@ -114,4 +133,106 @@ public class BankServiceTest {
 
     assertNull(actual);
   }
+
+  @Test
+  @DisplayName("should pass trace context to the acquiring bank")
+  void shouldPropagateTraceContextToBank() {
+    SpanContext parent = SpanContext.create("0af7651916cd43dd8448eb211c80319c",
+        "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault());
+    when(restTemplate.exchange(anyString(), any(), any(), eq(GetAcquiringBankResponse.class)))
+        .thenReturn(new ResponseEntity<>(new GetAcquiringBankResponse(), HttpStatus.OK));
+
+    try (Scope ignored = Span.wrap(parent).makeCurrent()) {
+      bankService.submitBankRequest(new GetAcquiringBankRequest());
+    }
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<HttpEntity<GetAcquiringBankRequest>> captor =
+        ArgumentCaptor.forClass(HttpEntity.class);
+    verify(restTemplate).exchange(anyString(), any(), captor.capture(),
+        eq(GetAcquiringBankResponse.class));
+    assertEquals("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+        captor.getValue().getHeaders().getFirst("traceparent"));
+  }
+
+  @Test
+  @DisplayName("should fail over to another acquirer when one returns 503")
+  void shouldFailOverWhenAcquirerUnavailable() throws Exception {
+    try (BankSimulator unavailable = BankSimulator.builder().errorRate(1.0).errorStatus(503)
+        .start();
+        BankSimulator healthy = BankSimulator.builder().start()) {
+      BankService routed = routedBankService(unavailable, healthy);
+
+      for (int i = 0; i < 10; i++) {
+        GetAcquiringBankResponse actual = routed.submitBankRequest(bankRequest("4111111111111111"));
+        assertNotNull(actual);
+        assertTrue(actual.isAuthorized());
+      }
+      assertEquals(10, healthy.getRequestCount());
+      // The 503 penalty keeps the unavailable acquirer out of rotation after its first failure
+      assertTrue(unavailable.getRequestCount() <= 1);
+    }
+  }
+
+  @Test
+  @DisplayName("should send most payments to the faster acquirer")
+  void shouldPreferFasterAcquirer() throws Exception {
+    try (BankSimulator slow = BankSimulator.builder()
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(40))).start();
+        BankSimulator fast = BankSimulator.builder()
+            .latency(LatencyDistribution.fixed(Duration.ofMillis(2))).start()) {
+      ApplicationConfiguration config = new ApplicationConfiguration();
+      // A pause such as a GC on one fast call would otherwise hold the fast acquirer's average
+      // above the slow one's for longer than the test runs
+      config.getRouting().setLatencyDecay(Duration.ofMillis(200));
+      BankService routed = routedBankService(config, slow, fast);
+      // The first requests include connection setup, which would skew both averages
+      for (int i = 0; i < 10; i++) {
+        routed.submitBankRequest(bankRequest("4111111111111111"));
+      }
+      long slowBefore = slow.getRequestCount();
+      long fastBefore = fast.getRequestCount();
+
+      for (int i = 0; i < 40; i++) {
+        assertNotNull(routed.submitBankRequest(bankRequest("4111111111111111")));
+      }
+
+      long slowCount = slow.getRequestCount() - slowBefore;
+      long fastCount = fast.getRequestCount() - fastBefore;
+      assertTrue(fastCount > 3 * slowCount, "fast " + fastCount + ", slow " + slowCount);
+    }
+  }
+
+  @Test
+  @DisplayName("should return null when every acquirer returns 503")
+  void shouldReturnNullWhenAllAcquirersUnavailable() throws Exception {
+    try (BankSimulator first = BankSimulator.builder().start();
+        BankSimulator second = BankSimulator.builder().start()) {
+      BankService routed = routedBankService(first, second);
+
+      assertNull(routed.submitBankRequest(bankRequest("4111111111111110")));
+      assertEquals(1, first.getRequestCount());
+      assertEquals(1, second.getRequestCount());
+    }
+  }
+
+  private static BankService routedBankService(BankSimulator... banks) {
+    return routedBankService(new ApplicationConfiguration(), banks);
+  }
+
+  private static BankService routedBankService(ApplicationConfiguration config,
+      BankSimulator... banks) {
+    for (int i = 0; i < banks.length; i++) {
+      ApplicationConfiguration.Acquirer acquirer = new ApplicationConfiguration.Acquirer();
+      acquirer.setName("bank-" + i);
+      acquirer.setUrl(banks[i].getPaymentsUrl());
+      config.getAcquirers().add(acquirer);
+    }
+    return new BankService(new RestTemplate(), config, OpenTelemetry.noop(),
+        BinTable.defaults());
+  }
+
+  private static GetAcquiringBankRequest bankRequest(String cardNumber) {
+    return new GetAcquiringBankRequest(cardNumber, "04/2030", "GBP", 100, "123");
+  }
 }
@@ -0,0 +1,79 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration.CurrencySettings;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CurrencyRegistryTest {
+
+  @Test
+  @DisplayName("should assign codes in configuration order and resolve them ignoring case")
+  void shouldResolveCodesIgnoringCase() {
+    CurrencyRegistry registry = new CurrencyRegistry(config(List.of("USD", "GBP", "EUR")));
+
+    assertEquals(1, registry.codeOf("USD"));
+    assertEquals(2, registry.codeOf("gbp"));
+    assertEquals(3, registry.codeOf("eUr"));
+    assertSame(registry.alphaCode(2), registry.canonical("Gbp"));
+  }
+
+  @Test
+  @DisplayName("should return UNKNOWN for unsupported or malformed codes")
+  void shouldRejectUnknownCodes() {
+    CurrencyRegistry registry = new CurrencyRegistry(config(List.of("USD")));
+
+    assertEquals(CurrencyRegistry.UNKNOWN, registry.codeOf("JPY"));
+    assertEquals(CurrencyRegistry.UNKNOWN, registry.codeOf(null));
+    assertEquals(CurrencyRegistry.UNKNOWN, registry.codeOf("US"));
+    assertEquals(CurrencyRegistry.UNKNOWN, registry.codeOf("U$D"));
+    assertEquals(CurrencyRegistry.UNKNOWN, registry.codeOf("U[D"));
+    assertEquals("usdt", registry.canonical("usdt"));
+  }
+
+  @Test
+  @DisplayName("should take minor units from ISO 4217 and convert max amount to minor units")
+  void shouldApplyCurrencyMetadata() {
+    ApplicationConfiguration config = config(List.of("GBP", "JPY", "BHD"));
+    config.getCurrencySettings().put("GBP", settings(null, 5_000L));
+    config.getCurrencySettings().put("JPY", settings(null, 1_000_000L));
+
+    CurrencyRegistry registry = new CurrencyRegistry(config);
+
+    assertEquals(2, registry.minorUnits(registry.codeOf("GBP")));
+    assertEquals(0, registry.minorUnits(registry.codeOf("JPY")));
+    assertEquals(3, registry.minorUnits(registry.codeOf("BHD")));
+    assertEquals(500_000, registry.maxAmount(registry.codeOf("GBP")));
+    assertEquals(1_000_000, registry.maxAmount(registry.codeOf("JPY")));
+    assertEquals(Integer.MAX_VALUE, registry.maxAmount(registry.codeOf("BHD")));
+  }
+
+  @Test
+  @DisplayName("should require minor units for codes unknown to ISO 4217")
+  void shouldRequireMinorUnitsForNonIsoCodes() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new CurrencyRegistry(config(List.of("ZZZ"))));
+
+    ApplicationConfiguration config = config(List.of("ZZZ"));
+    config.getCurrencySettings().put("ZZZ", settings(4, null));
+    assertEquals(4, new CurrencyRegistry(config).minorUnits(1));
+  }
+
+  private static ApplicationConfiguration config(List<String> currencies) {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(currencies);
+    return config;
+  }
+
+  private static CurrencySettings settings(Integer minorUnits, Long maxAmount) {
+    CurrencySettings settings = new CurrencySettings();
+    settings.setMinorUnits(minorUnits);
+    settings.setMaxAmount(maxAmount);
+    return settings;
+  }
+}
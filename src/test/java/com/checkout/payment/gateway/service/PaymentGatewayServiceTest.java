@@ -1,31 +1,48 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.decline.DeclineCache;
+import com.checkout.payment.gateway.enums.PaymentEventType;
 import com.checkout.payment.gateway.enums.PaymentStatus;
 import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.exception.ScreeningException;
+import com.checkout.payment.gateway.exception.ServiceUnavailableException;
 import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.instrumentation.PaymentInstrumentation;
+import com.checkout.payment.gateway.ledger.PaymentLedger;
+import com.checkout.payment.gateway.ledger.SegmentedPaymentEventLog;
 import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
 import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.model.PaymentEventResponse;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.model.PaymentOrigin;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.screening.VelocityScreener;
+import com.checkout.payment.gateway.shutdown.PaymentDrain;
+import io.opentelemetry.api.OpenTelemetry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,12 +56,30 @@ public class PaymentGatewayServiceTest {
   @Mock
   private BankService bankService;
 
-  @InjectMocks
+  @Mock
+  private VelocityScreener velocityScreener;
+
+  @Spy
+  private PaymentInstrumentation instrumentation = new PaymentInstrumentation(OpenTelemetry.noop());
+
+  @Spy
+  private CurrencyRegistry currencyRegistry = new CurrencyRegistry(currencyConfig());
+
   private PaymentGatewayService paymentGatewayService;
+  private PaymentDrain paymentDrain;
+  private long nowMillis = 1_000_000;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    PaymentLedger ledger = new PaymentLedger(SegmentedPaymentEventLog.inMemory(1024, s -> s),
+        null, paymentsRepository, Long.MAX_VALUE);
+    paymentDrain = new PaymentDrain(currencyConfig(), ledger);
+    ApplicationConfiguration.DeclineCache declines = new ApplicationConfiguration.DeclineCache();
+    declines.setEnabled(true);
+    paymentGatewayService = new PaymentGatewayService(paymentsRepository, paymentValidator,
+        bankService, instrumentation, currencyRegistry, ledger, velocityScreener, paymentDrain,
+        new DeclineCache(declines, () -> nowMillis));
   }
 
   @Test
@@ -53,7 +88,7 @@ public class PaymentGatewayServiceTest {
     UUID paymentId = UUID.randomUUID();
     PostPaymentResponse expectedResponse = createPaymentResponse(paymentId, PaymentStatus.AUTHORIZED);
 
-    when(paymentsRepository.get(paymentId)).thenReturn(Optional.of(expectedResponse));
+    when(paymentsRepository.get(null, paymentId)).thenReturn(Optional.of(expectedResponse));
 
     PostPaymentResponse actual = paymentGatewayService.getPaymentById(paymentId);
 
@@ -66,7 +101,7 @@ public class PaymentGatewayServiceTest {
   @DisplayName("should throw exception when payment ID not found")
   void shouldThrowExceptionWhenPaymentIdNotFound() {
     UUID paymentId = UUID.randomUUID();
-    when(paymentsRepository.get(paymentId)).thenReturn(Optional.empty());
+    when(paymentsRepository.get(null, paymentId)).thenReturn(Optional.empty());
 
     assertThrows(EventProcessingException.class, () -> paymentGatewayService.getPaymentById(paymentId));
   }
@@ -78,7 +113,7 @@ public class PaymentGatewayServiceTest {
     GetAcquiringBankResponse bankResponse = createBankResponse(true);
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(bankResponse);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(bankResponse);
 
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
@@ -94,7 +129,7 @@ public class PaymentGatewayServiceTest {
     GetAcquiringBankResponse bankResponse = createBankResponse(false);
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(bankResponse);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(bankResponse);
 
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
@@ -102,6 +137,40 @@ public class PaymentGatewayServiceTest {
     verify(paymentsRepository).add(any(PostPaymentResponse.class));
   }
 
+  @Test
+  @DisplayName("should decline a repeat of a declined payment without calling the bank")
+  void shouldDeclineRepeatedPaymentWithoutCallingBank() {
+    PostPaymentRequest request = createValidPaymentRequest();
+    doNothing().when(paymentValidator).validate(any());
+    when(bankService.submitBankRequest(any(), any())).thenReturn(createBankResponse(false));
+
+    paymentGatewayService.processPayment(request);
+    PostPaymentResponse repeated = paymentGatewayService.processPayment(request);
+
+    assertEquals(PaymentStatus.DECLINED, repeated.getStatus());
+    verify(bankService, times(1)).submitBankRequest(any(), any());
+    List<PaymentEventResponse> history = paymentGatewayService.getPaymentHistory(repeated.getId());
+    assertEquals(PaymentEventType.DECLINE_REPEATED, history.get(history.size() - 1).getType());
+
+    request.setAmount(request.getAmount() + 1);
+    paymentGatewayService.processPayment(request);
+    verify(bankService, times(2)).submitBankRequest(any(), any());
+  }
+
+  @Test
+  @DisplayName("should ask the bank again once a cached decline expires")
+  void shouldAskBankAgainAfterDeclineExpires() {
+    PostPaymentRequest request = createValidPaymentRequest();
+    doNothing().when(paymentValidator).validate(any());
+    when(bankService.submitBankRequest(any(), any())).thenReturn(createBankResponse(false));
+
+    paymentGatewayService.processPayment(request);
+    nowMillis += 30_001;
+    paymentGatewayService.processPayment(request);
+
+    verify(bankService, times(2)).submitBankRequest(any(), any());
+  }
+
   @Test
   @DisplayName("should return REJECTED status when validation fails")
   void shouldReturnRejectedStatusWhenValidationFails() {
@@ -112,7 +181,7 @@ public class PaymentGatewayServiceTest {
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
     assertEquals(PaymentStatus.REJECTED, response.getStatus());
-    verify(bankService, never()).submitBankRequest(any());
+    verify(bankService, never()).submitBankRequest(any(), any());
     verify(paymentsRepository).add(any(PostPaymentResponse.class));
   }
 
@@ -122,7 +191,7 @@ public class PaymentGatewayServiceTest {
     PostPaymentRequest request = createValidPaymentRequest();
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(null);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(null);
 
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
@@ -130,6 +199,25 @@ public class PaymentGatewayServiceTest {
     verify(paymentsRepository).add(any(PostPaymentResponse.class));
   }
 
+  @Test
+  @DisplayName("should return REJECTED status without calling the bank when screening refuses")
+  void shouldReturnRejectedStatusWhenScreeningRefuses() {
+    PostPaymentRequest request = createValidPaymentRequest();
+    PaymentOrigin origin = new PaymentOrigin("merchant-1", "203.0.113.7");
+
+    doNothing().when(paymentValidator).validate(any());
+    doThrow(new ScreeningException("Too many attempts for this card"))
+        .when(velocityScreener).screen(request.getCardNumber(), origin);
+
+    PostPaymentResponse response = paymentGatewayService.processPayment(request, origin);
+
+    assertEquals(PaymentStatus.REJECTED, response.getStatus());
+    verify(bankService, never()).submitBankRequest(any(), any());
+    verify(paymentsRepository).add(any(PostPaymentResponse.class));
+    assertEquals(PaymentEventType.SCREENED,
+        paymentGatewayService.getPaymentHistory(response.getId()).get(2).getType());
+  }
+
   @Test
   @DisplayName("should extract last 4 digits from card number correctly")
   void shouldExtractLastFourDigitsFromCardNumberCorrectly() {
@@ -138,7 +226,7 @@ public class PaymentGatewayServiceTest {
     GetAcquiringBankResponse bankResponse = createBankResponse(true);
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(bankResponse);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(bankResponse);
 
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
@@ -153,7 +241,7 @@ public class PaymentGatewayServiceTest {
     GetAcquiringBankResponse bankResponse = createBankResponse(true);
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(bankResponse);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(bankResponse);
 
     PostPaymentResponse response = paymentGatewayService.processPayment(request);
 
@@ -174,14 +262,14 @@ public class PaymentGatewayServiceTest {
     GetAcquiringBankResponse bankResponse = createBankResponse(true);
 
     doNothing().when(paymentValidator).validate(any());
-    when(bankService.submitBankRequest(any())).thenReturn(bankResponse);
+    when(bankService.submitBankRequest(any(), any())).thenReturn(bankResponse);
 
     ArgumentCaptor<GetAcquiringBankRequest> captor =
         ArgumentCaptor.forClass(GetAcquiringBankRequest.class);
 
     paymentGatewayService.processPayment(request);
 
-    verify(bankService).submitBankRequest(captor.capture());
+    verify(bankService).submitBankRequest(captor.capture(), any());
     GetAcquiringBankRequest capturedRequest = captor.getValue();
 
     assertEquals("4111111111111111", capturedRequest.getCardNumber());
@@ -191,6 +279,64 @@ public class PaymentGatewayServiceTest {
     assertEquals("123", capturedRequest.getCvv());
   }
 
+  @Test
+  @DisplayName("should send and store the canonical currency code")
+  void shouldUseCanonicalCurrencyCode() {
+    PostPaymentRequest request = createValidPaymentRequest();
+    request.setCurrency("gbp");
+
+    doNothing().when(paymentValidator).validate(any());
+    when(bankService.submitBankRequest(any(), any())).thenReturn(createBankResponse(true));
+
+    ArgumentCaptor<GetAcquiringBankRequest> captor =
+        ArgumentCaptor.forClass(GetAcquiringBankRequest.class);
+
+    PostPaymentResponse response = paymentGatewayService.processPayment(request);
+
+    verify(bankService).submitBankRequest(captor.capture(), any());
+    assertEquals("GBP", captor.getValue().getCurrency());
+    assertSame(currencyRegistry.alphaCode(currencyRegistry.codeOf("GBP")), response.getCurrency());
+  }
+
+  @Test
+  @DisplayName("should record the history of a payment")
+  void shouldRecordPaymentHistory() {
+    doNothing().when(paymentValidator).validate(any());
+    when(bankService.submitBankRequest(any(), any())).thenReturn(createBankResponse(true));
+
+    PostPaymentResponse response = paymentGatewayService.processPayment(createValidPaymentRequest());
+    List<PaymentEventResponse> history = paymentGatewayService.getPaymentHistory(response.getId());
+
+    assertEquals(List.of(PaymentEventType.CREATED, PaymentEventType.VALIDATED,
+            PaymentEventType.BANK_RESPONDED),
+        history.stream().map(PaymentEventResponse::getType).toList());
+    assertNull(history.get(0).getStatus());
+    assertEquals(PaymentStatus.AUTHORIZED, history.get(2).getStatus());
+  }
+
+  @Test
+  @DisplayName("should throw exception when history is requested for unknown payment")
+  void shouldThrowExceptionWhenHistoryIdNotFound() {
+    assertThrows(EventProcessingException.class,
+        () -> paymentGatewayService.getPaymentHistory(UUID.randomUUID()));
+  }
+
+  @Test
+  @DisplayName("should refuse new payments once draining has started")
+  void shouldRefusePaymentsWhileDraining() {
+    paymentDrain.drain();
+
+    assertThrows(ServiceUnavailableException.class,
+        () -> paymentGatewayService.processPayment(createValidPaymentRequest()));
+    verify(bankService, never()).submitBankRequest(any(), any());
+  }
+
+  private static ApplicationConfiguration currencyConfig() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    return config;
+  }
+
   private GetAcquiringBankResponse createBankResponse(boolean authorized) {
     GetAcquiringBankResponse response = new GetAcquiringBankResponse();
     response.setAuthorized(authorized);
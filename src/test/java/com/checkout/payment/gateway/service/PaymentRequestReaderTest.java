@@ -0,0 +1,137 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration.CurrencySettings;
+import com.checkout.payment.gateway.exception.ValidationException;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentRequestReaderTest {
+
+  private static final String VALID = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+
+  private PaymentValidator validator;
+  private PaymentRequestReader reader;
+
+  @BeforeEach
+  void setUp() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    CurrencySettings gbp = new CurrencySettings();
+    gbp.setMaxAmount(1000L);
+    config.getCurrencySettings().put("GBP", gbp);
+    validator = new PaymentValidator(new CurrencyRegistry(config), new BinTable(config));
+    reader = new PaymentRequestReader(new ObjectMapper(), validator);
+  }
+
+  @Test
+  @DisplayName("should read and validate a valid payment")
+  void shouldReadValidPayment() throws IOException {
+    PostPaymentRequest request = read(VALID);
+
+    assertTrue(request.isValidated());
+    assertNull(request.getValidationFailure());
+    assertEquals("4111111111111111", request.getCardNumber());
+    assertEquals(12, request.getExpiryMonth());
+    assertEquals(2030, request.getExpiryYear());
+    assertEquals("USD", request.getCurrency());
+    assertEquals(100, request.getAmount());
+    assertEquals("123", request.getCvv());
+    assertNull(request.getReference());
+    assertEquals("order-1",
+        read(VALID.replace("}", ",\"reference\":\"order-1\"}")).getReference());
+  }
+
+  @Test
+  @DisplayName("should keep the first failure and still read the rest of the body")
+  void shouldReadPastFirstInvalidField() throws IOException {
+    PostPaymentRequest request = read(VALID.replace("4111111111111111", "4111111111111112")
+        .replace("100", "-5"));
+
+    assertEquals("Invalid Card Number", request.getValidationFailure());
+    assertEquals(12, request.getExpiryMonth());
+    assertEquals(2030, request.getExpiryYear());
+    assertEquals("USD", request.getCurrency());
+    assertEquals(-5, request.getAmount());
+    assertEquals("123", request.getCvv());
+    ValidationException ex = assertThrows(ValidationException.class,
+        () -> validator.validate(request));
+    assertEquals("Invalid Card Number", ex.getMessage());
+  }
+
+  @Test
+  @DisplayName("should report the same failures as the validator")
+  void shouldMatchValidatorFailures() throws IOException {
+    assertEquals("Currency is invalid", failureOf(VALID.replace("USD", "XYZ")));
+    assertEquals("Amount is invalid", failureOf(VALID.replace("100", "-5")));
+    assertEquals("Invalid expiry month", failureOf(VALID.replace(":12", ":13")));
+    assertEquals("Expiry is in the past", failureOf(VALID.replace("2030", "2001")));
+    assertEquals("CVV is invalid", failureOf(VALID.replace("\"123\"", "\"12a\"")));
+    assertEquals("Reference is invalid",
+        failureOf(VALID.replace("}", ",\"reference\":\"" + "r".repeat(51) + "\"}")));
+  }
+
+  @Test
+  @DisplayName("should check fields that depend on each other in any order")
+  void shouldCheckDependentFieldsInAnyOrder() throws IOException {
+    assertEquals("Amount exceeds the limit for the currency", failureOf(
+        "{\"amount\":100001,\"currency\":\"GBP\",\"card_number\":\"4111111111111111\"}"));
+    assertEquals("Expiry is in the past", failureOf(
+        "{\"expiry_year\":2001,\"expiry_month\":5,\"card_number\":\"4111111111111111\"}"));
+  }
+
+  @Test
+  @DisplayName("should reject missing fields and fields given twice")
+  void shouldRejectMissingAndDuplicateFields() throws IOException {
+    assertEquals("CVV is invalid", failureOf(VALID.replace(",\"cvv\":\"123\"", "")));
+    assertEquals("Invalid Card Number", failureOf("{}"));
+    assertEquals("Duplicate field amount", failureOf(VALID.replace("}", ",\"amount\":1}")));
+  }
+
+  @Test
+  @DisplayName("should coerce values as Jackson data binding does and skip unknown fields")
+  void shouldCoerceLikeDataBinding() throws IOException {
+    PostPaymentRequest request = read("{\"card_number\":4111111111111111,"
+        + "\"expiry_month\":\"12\",\"expiry_year\":2030.0,\"currency\":\"USD\","
+        + "\"amount\":100,\"cvv\":123,\"expiry_date\":\"12/2030\",\"metadata\":{\"a\":[1,2]}}");
+
+    assertNull(request.getValidationFailure());
+    assertEquals("4111111111111111", request.getCardNumber());
+    assertEquals(12, request.getExpiryMonth());
+    assertEquals(2030, request.getExpiryYear());
+    assertEquals("123", request.getCvv());
+  }
+
+  @Test
+  @DisplayName("should fail on bodies that are not a payment object")
+  void shouldFailOnMalformedBodies() {
+    assertThrows(IOException.class, () -> read("[1,2]"));
+    assertThrows(IOException.class, () -> read("{\"card_number\":{\"nested\":1}}"));
+    assertThrows(IOException.class, () -> read("{\"card_number\":\"4111111111111111\","
+        + "\"amount\":\"lots\"}"));
+    assertThrows(IOException.class, () -> read("{\"card_number\":\"4111111111111111\""));
+  }
+
+  private String failureOf(String json) throws IOException {
+    return read(json).getValidationFailure();
+  }
+
+  private PostPaymentRequest read(String json) throws IOException {
+    return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+}
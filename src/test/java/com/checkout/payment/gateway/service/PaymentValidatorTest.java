@@ -1,6 +1,8 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.bin.BinTable;
 import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration.CurrencySettings;
 import com.checkout.payment.gateway.exception.ValidationException;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +25,9 @@ public class PaymentValidatorTest {
   void setUp() {
     ApplicationConfiguration config = new ApplicationConfiguration();
     config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
-    validator = new PaymentValidator(config);
+    config.getCurrencySettings().put("GBP", currencySettings(1000L));
+    config.getBins().setAcceptedSchemes(List.of("VISA", "MASTERCARD"));
+    validator = new PaymentValidator(new CurrencyRegistry(config), new BinTable(config));
   }
 
   @Nested
@@ -41,7 +45,7 @@ public class PaymentValidatorTest {
     @DisplayName("should accept minimum valid card length (14 digits)")
     void shouldAcceptMinimumCardLength() {
       PostPaymentRequest request = createValidPaymentRequest();
-      request.setCardNumber("41111111111111");
+      request.setCardNumber("41111111111171");
       assertSuccessfulValidation(request);
     }
 
@@ -49,7 +53,7 @@ public class PaymentValidatorTest {
     @DisplayName("should accept maximum valid card length (19 digits)")
     void shouldAcceptMaximumCardLength() {
       PostPaymentRequest request = createValidPaymentRequest();
-      request.setCardNumber("4111111111111111111");
+      request.setCardNumber("4111111111111111151");
       assertSuccessfulValidation(request);
     }
 
@@ -85,6 +89,24 @@ public class PaymentValidatorTest {
       assertValidationErrorWithMessage(request, "Invalid Card Number");
     }
 
+    @Test
+    @DisplayName("should reject card number failing the Luhn check")
+    void shouldRejectCardNumberFailingLuhn() {
+      PostPaymentRequest request = createValidPaymentRequest();
+      request.setCardNumber("4111111111111112");
+      assertValidationErrorWithMessage(request, "Invalid Card Number");
+    }
+
+    @Test
+    @DisplayName("should reject card of a scheme that is not accepted")
+    void shouldRejectUnacceptedScheme() {
+      PostPaymentRequest request = createValidPaymentRequest();
+      request.setCardNumber("378282246310005");
+      assertValidationErrorWithMessage(request, "Card scheme is not accepted");
+      request.setCardNumber("5555555555554444");
+      assertSuccessfulValidation(request);
+    }
+
     @Test
     @DisplayName("should reject card number with letters")
     void shouldRejectCardNumberWithLetters() {
@@ -325,6 +347,24 @@ public class PaymentValidatorTest {
       assertValidationErrorWithMessage(request, "Amount is invalid");
     }
 
+    @Test
+    @DisplayName("should accept amount at the currency limit")
+    void shouldAcceptAmountAtCurrencyLimit() {
+      PostPaymentRequest request = createValidPaymentRequest();
+      request.setCurrency("GBP");
+      request.setAmount(100_000);
+      assertSuccessfulValidation(request);
+    }
+
+    @Test
+    @DisplayName("should reject amount above the currency limit")
+    void shouldRejectAmountAboveCurrencyLimit() {
+      PostPaymentRequest request = createValidPaymentRequest();
+      request.setCurrency("gbp");
+      request.setAmount(100_001);
+      assertValidationErrorWithMessage(request, "Amount exceeds the limit for the currency");
+    }
+
     @Test
     @DisplayName("should reject negative amount")
     void shouldRejectNegativeAmount() {
@@ -414,4 +454,10 @@ public class PaymentValidatorTest {
       assertEquals(message, exception.getMessage());
     }
   }
+
+  private static CurrencySettings currencySettings(Long maxAmount) {
+    CurrencySettings settings = new CurrencySettings();
+    settings.setMaxAmount(maxAmount);
+    return settings;
+  }
 }
@@ -0,0 +1,171 @@
+package com.checkout.payment.gateway.shutdown;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the whole gateway against a slow bank, shuts it down while payments are at the bank and
+ * restarts it on the same ledger directory.
+ */
+class GracefulShutdownTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String PAYMENT = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+
+  @TempDir
+  Path ledgerDirectory;
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+  private BankSimulator bank;
+  private ConfigurableApplicationContext gateway;
+
+  @BeforeEach
+  void startBank() throws Exception {
+    bank = BankSimulator.start(Duration.ofSeconds(1));
+  }
+
+  @AfterEach
+  void stop() {
+    if (gateway != null) {
+      gateway.close();
+    }
+    bank.close();
+  }
+
+  @Test
+  @DisplayName("should drain payments at the bank on shutdown without losing an authorization")
+  void shouldDrainPaymentsAtTheBankOnShutdown() throws Exception {
+    gateway = startGateway("20s");
+    String target = target(gateway);
+    List<CompletableFuture<HttpResponse<String>>> inFlight = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      inFlight.add(client.sendAsync(post(target), HttpResponse.BodyHandlers.ofString()));
+    }
+    awaitTrue(() -> bank.getRequestCount() == 20);
+
+    ConfigurableApplicationContext closing = gateway;
+    PaymentDrain drain = closing.getBean(PaymentDrain.class);
+    CompletableFuture<Void> shutdown = CompletableFuture.runAsync(closing::close);
+    // Readiness goes down first, then new payments are refused while the others drain
+    awaitTrue(() -> status(target + "/health/readiness") == 503);
+    awaitTrue(drain::isDraining);
+    assertThat(send(post(target)).statusCode()).isEqualTo(503);
+    assertThat(shutdown).isNotDone();
+    shutdown.get(30, TimeUnit.SECONDS);
+    gateway = null;
+
+    List<String> authorized = new ArrayList<>();
+    for (CompletableFuture<HttpResponse<String>> response : inFlight) {
+      HttpResponse<String> completed = response.get(5, TimeUnit.SECONDS);
+      assertThat(completed.statusCode()).isEqualTo(201);
+      JsonNode body = MAPPER.readTree(completed.body());
+      assertThat(body.get("status").asText()).isEqualTo("Authorized");
+      authorized.add(body.get("id").asText());
+    }
+
+    gateway = startGateway("20s");
+    String restarted = target(gateway);
+    assertThat(status(restarted + "/health/readiness")).isEqualTo(200);
+    for (String id : authorized) {
+      HttpResponse<String> payment = send(get(restarted + "/api/v1/payments/" + id));
+      assertThat(payment.statusCode()).isEqualTo(200);
+      assertThat(MAPPER.readTree(payment.body()).get("status").asText()).isEqualTo("Authorized");
+    }
+  }
+
+  @Test
+  @DisplayName("should journal bank calls still running when the drain times out")
+  void shouldJournalBankCallsStillRunningAtDrainTimeout() throws Exception {
+    gateway = startGateway("100ms");
+    String target = target(gateway);
+    CompletableFuture<HttpResponse<String>> inFlight =
+        client.sendAsync(post(target), HttpResponse.BodyHandlers.ofString());
+    awaitTrue(() -> bank.getRequestCount() == 1);
+
+    gateway.close();
+    gateway = null;
+    // The web server still lets the request finish after the drain gives up on it
+    String id = MAPPER.readTree(inFlight.get(5, TimeUnit.SECONDS).body()).get("id").asText();
+
+    gateway = startGateway("20s");
+    HttpResponse<String> events =
+        send(get(target(gateway) + "/api/v1/payments/" + id + "/events"));
+    List<String> types = new ArrayList<>();
+    MAPPER.readTree(events.body()).forEach(event -> types.add(event.get("type").asText()));
+    assertThat(types).containsExactly("CREATED", "VALIDATED", "BANK_PENDING", "BANK_RESPONDED");
+  }
+
+  private ConfigurableApplicationContext startGateway(String drainTimeout) {
+    return new SpringApplicationBuilder(PaymentGatewayApplication.class).run(
+        "--server.port=0",
+        "--payment.gateway.bank-url=" + bank.getPaymentsUrl(),
+        "--payment.gateway.ledger.directory=" + ledgerDirectory,
+        "--payment.gateway.screening.enabled=false",
+        "--payment.gateway.shutdown.readiness-delay=300ms",
+        "--payment.gateway.shutdown.drain-timeout=" + drainTimeout,
+        "--springdoc.api-docs.enabled=false",
+        "--springdoc.swagger-ui.enabled=false");
+  }
+
+  private static String target(ConfigurableApplicationContext gateway) {
+    return "http://localhost:" + ((WebServerApplicationContext) gateway).getWebServer().getPort();
+  }
+
+  private static HttpRequest post(String target) {
+    return HttpRequest.newBuilder(URI.create(target + "/api/v1/payments"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+        .build();
+  }
+
+  private static HttpRequest get(String url) {
+    return HttpRequest.newBuilder(URI.create(url)).GET().build();
+  }
+
+  private int status(String url) {
+    return send(get(url)).statusCode();
+  }
+
+  private HttpResponse<String> send(HttpRequest request) {
+    try {
+      return client.send(request, HttpResponse.BodyHandlers.ofString());
+    } catch (Exception ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+      Thread.sleep(20);
+    }
+  }
+}
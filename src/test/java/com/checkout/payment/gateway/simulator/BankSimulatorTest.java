@@ -0,0 +1,122 @@
+package com.checkout.payment.gateway.simulator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankSimulatorTest {
+
+  private static final String VALID_BODY = "{\"card_number\":\"%s\",\"expiry_date\":\"12/2030\","
+      + "\"currency\":\"USD\",\"amount\":100,\"cvv\":\"123\"}";
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .build();
+
+  @Test
+  @DisplayName("should authorize odd, decline even and return 503 for card numbers ending in 0")
+  void shouldApplyCardSuffixRules() throws Exception {
+    try (BankSimulator simulator = BankSimulator.builder().start()) {
+      HttpResponse<String> odd = post(simulator, String.format(VALID_BODY, "4111111111111111"));
+      HttpResponse<String> even = post(simulator, String.format(VALID_BODY, "4111111111111112"));
+      HttpResponse<String> zero = post(simulator, String.format(VALID_BODY, "4111111111111110"));
+
+      assertEquals(200, odd.statusCode());
+      assertTrue(odd.body().contains("\"authorized\":true"));
+      assertEquals(200, even.statusCode());
+      assertTrue(even.body().contains("\"authorized\":false"));
+      assertEquals(503, zero.statusCode());
+    }
+  }
+
+  @Test
+  @DisplayName("should return 400 when a required field is missing")
+  void shouldRejectMissingFields() throws Exception {
+    try (BankSimulator simulator = BankSimulator.builder().start()) {
+      HttpResponse<String> response = post(simulator,
+          "{\"card_number\":\"4111111111111111\",\"currency\":\"USD\",\"amount\":1,\"cvv\":\"1\"}");
+
+      assertEquals(400, response.statusCode());
+      assertTrue(response.body().contains("Not all required properties"));
+    }
+  }
+
+  @Test
+  @DisplayName("should inject configured error status")
+  void shouldInjectErrors() throws Exception {
+    try (BankSimulator simulator = BankSimulator.builder().errorRate(1.0).errorStatus(502)
+        .start()) {
+      HttpResponse<String> response =
+          post(simulator, String.format(VALID_BODY, "4111111111111111"));
+
+      assertEquals(502, response.statusCode());
+      assertEquals(1, simulator.getInjectedErrorCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should apply latency distribution to responses")
+  void shouldDelayResponses() throws Exception {
+    try (BankSimulator simulator = BankSimulator.builder()
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(50)))
+        .start()) {
+      long start = System.nanoTime();
+      post(simulator, String.format(VALID_BODY, "4111111111111111"));
+
+      assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+    }
+  }
+
+  @Test
+  @DisplayName("should answer 503 once the concurrency limit is reached")
+  void shouldEnforceConcurrencyLimit() throws Exception {
+    try (BankSimulator simulator = BankSimulator.builder()
+        .maxConcurrentRequests(1)
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(300)))
+        .start()) {
+      List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        responses.add(client.sendAsync(request(simulator,
+            String.format(VALID_BODY, "4111111111111111")), HttpResponse.BodyHandlers.ofString()));
+      }
+
+      long unavailable = responses.stream()
+          .map(CompletableFuture::join)
+          .filter(response -> response.statusCode() == 503)
+          .count();
+      assertTrue(unavailable >= 1);
+      assertEquals(unavailable, simulator.getLimitRejectionCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should parse latency specifications")
+  void shouldParseLatencySpecs() {
+    assertEquals(20_000_000L, LatencyDistribution.parse("fixed:20ms").nextDelayNanos());
+    assertEquals(0L, LatencyDistribution.parse("none").nextDelayNanos());
+    long uniform = LatencyDistribution.parse("uniform:5ms:10ms").nextDelayNanos();
+    assertTrue(uniform >= 5_000_000L && uniform <= 10_000_000L);
+    assertTrue(LatencyDistribution.parse("lognormal:20ms:0.5").nextDelayNanos() > 0);
+  }
+
+  private HttpResponse<String> post(BankSimulator simulator, String body) throws Exception {
+    return client.send(request(simulator, body), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpRequest request(BankSimulator simulator, String body) {
+    return HttpRequest.newBuilder(URI.create(simulator.getPaymentsUrl()))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
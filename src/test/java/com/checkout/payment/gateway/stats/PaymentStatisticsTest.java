@@ -0,0 +1,137 @@
+package com.checkout.payment.gateway.stats;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.PaymentStats;
+import com.checkout.payment.gateway.model.PaymentStats.CurrencyFigures;
+import com.checkout.payment.gateway.service.CurrencyRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaymentStatisticsTest {
+
+  private static final long START = 1_772_323_200_000L;
+
+  private long now = START;
+  private final CurrencyRegistry currencies = registry();
+
+  @Test
+  @DisplayName("should count outcomes by currency since startup and in the last window")
+  void shouldCountOutcomesByCurrency() {
+    PaymentStatistics statistics = new PaymentStatistics(Duration.ofSeconds(4), currencies,
+        () -> now);
+    record(statistics, START + 100, "GBP", PaymentStatus.AUTHORIZED, 100);
+    record(statistics, START + 200, "gbp", PaymentStatus.AUTHORIZED, 300);
+    record(statistics, START + 1100, "GBP", PaymentStatus.DECLINED, 999);
+    record(statistics, START + 1200, "USD", PaymentStatus.AUTHORIZED, 250);
+    record(statistics, START + 1300, "JPY", PaymentStatus.REJECTED, 10);
+    // Only the event that gave the payment its outcome counts
+    statistics.onEvent(event(PaymentEventType.CAPTURED, START, "GBP", PaymentStatus.AUTHORIZED,
+        100));
+    statistics.onEvent(event(PaymentEventType.CREATED, START, "GBP", null, 100));
+    now = START + 2500;
+
+    PaymentStats stats = statistics.report();
+
+    assertEquals("PT4S", stats.window());
+    assertArrayEquals(new long[] {0, 0, 2, 3}, stats.paymentsPerSecond());
+    List<CurrencyFigures> expected = List.of(
+        new CurrencyFigures("USD", 1, 0, 0, 250, 1.0),
+        new CurrencyFigures("GBP", 2, 1, 0, 400, 2 / 3.0),
+        new CurrencyFigures(PaymentStatistics.OTHER_CURRENCY, 0, 0, 1, 0, 0));
+    assertEquals(new PaymentStats.Figures(5, 2.0, 0.75, expected), stats.sinceStart());
+    assertEquals(new PaymentStats.Figures(5, 2.0, 0.75, expected), stats.lastWindow());
+  }
+
+  @Test
+  @DisplayName("should drop seconds from the series as the window moves past them")
+  void shouldSlideTheWindow() {
+    PaymentStatistics statistics = new PaymentStatistics(Duration.ofSeconds(3), currencies,
+        () -> now);
+    for (int second = 0; second < 10; second++) {
+      for (int i = 0; i <= second; i++) {
+        record(statistics, START + second * 1000L + i, "EUR", PaymentStatus.AUTHORIZED, 1);
+      }
+    }
+    now = START + 10_000;
+
+    PaymentStats stats = statistics.report();
+    assertArrayEquals(new long[] {8, 9, 10}, stats.paymentsPerSecond());
+    assertEquals(27, stats.lastWindow().payments());
+    assertEquals(55, stats.sinceStart().payments());
+
+    // A payment for a second whose slot was reused only counts since startup
+    record(statistics, START + 1000, "EUR", PaymentStatus.DECLINED, 1);
+    now = START + 60_000;
+    stats = statistics.report();
+    assertArrayEquals(new long[3], stats.paymentsPerSecond());
+    assertEquals(List.of(), stats.lastWindow().currencies());
+    assertEquals(56, stats.sinceStart().payments());
+    assertEquals(55 / 56.0, stats.sinceStart().authorizationRate());
+  }
+
+  @Test
+  @DisplayName("should not lose counts recorded from many threads at once")
+  void shouldCountConcurrentPayments() throws Exception {
+    PaymentStatistics statistics = new PaymentStatistics(Duration.ofSeconds(60), currencies,
+        () -> now);
+    int threads = 8;
+    int perThread = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            // Spreads payments over 20 seconds so threads race to claim new slots
+            record(statistics, START + i, "USD",
+                i % 4 == 0 ? PaymentStatus.DECLINED : PaymentStatus.AUTHORIZED, 2);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    now = START + 30_000;
+
+    PaymentStats stats = statistics.report();
+    long payments = (long) threads * perThread;
+    assertEquals(payments, stats.sinceStart().payments());
+    assertEquals(payments, stats.lastWindow().payments());
+    assertEquals(new CurrencyFigures("USD", payments * 3 / 4, payments / 4, 0,
+        payments * 3 / 4 * 2, 0.75), stats.lastWindow().currencies().get(0));
+  }
+
+  private static void record(PaymentStatistics statistics, long timestampMillis,
+      String currency, PaymentStatus outcome, int amount) {
+    statistics.onEvent(event(PaymentEventType.BANK_RESPONDED, timestampMillis, currency,
+        outcome, amount));
+  }
+
+  private static PaymentEvent event(PaymentEventType type, long timestampMillis,
+      String currency, PaymentStatus outcome, int amount) {
+    return new PaymentEvent(0, PaymentEvent.NONE, timestampMillis, type, UUID.randomUUID(),
+        outcome, 0, 8877, 4, 2030, currency, amount, null, null);
+  }
+
+  private static CurrencyRegistry registry() {
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    config.setSupportedCurrencies(List.of("USD", "GBP", "EUR"));
+    return new CurrencyRegistry(config);
+  }
+}
@@ -0,0 +1,221 @@
+package com.checkout.payment.gateway.tenant;
+
+import static com.checkout.payment.gateway.util.PaymentGatewayTestUtil.createValidPaymentRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.controller.PaymentGatewayController;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+@SpringBootTest(properties = {
+    "payment.gateway.tenants.enabled=true",
+    "payment.gateway.tenants.merchants.merchant-a.api-key=key-a",
+    "payment.gateway.tenants.merchants.merchant-b.api-key=key-b",
+    "payment.gateway.tenants.merchants.merchant-b.max-concurrent-requests=32",
+    "payment.gateway.tenants.merchants.merchant-c.api-key=key-c",
+    "payment.gateway.tenants.merchants.merchant-c.requests-per-second=1",
+    "payment.gateway.tuning.bank-max-concurrent-calls=4",
+    "payment.gateway.tuning.bank-queue-timeout=10s",
+    "payment.gateway.screening.enabled=false"
+})
+@AutoConfigureMockMvc
+class TenantIsolationTest {
+
+  private static final Duration BANK_LATENCY = Duration.ofMillis(100);
+
+  private static BankSimulator bankSimulator;
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private BankService bankService;
+
+  @BeforeAll
+  static void startBankSimulator() throws IOException {
+    bankSimulator = BankSimulator.start(BANK_LATENCY);
+  }
+
+  @AfterAll
+  static void stopBankSimulator() {
+    bankSimulator.close();
+  }
+
+  @DynamicPropertySource
+  static void bankProperties(DynamicPropertyRegistry registry) {
+    registry.add("payment.gateway.bank-url", () -> bankSimulator.getPaymentsUrl());
+  }
+
+  @Test
+  @DisplayName("should refuse payment requests without a merchant's own API key")
+  void shouldRequireApiKey() {
+    WebTestClient client = MockMvcWebTestClient.bindTo(mvc).build();
+
+    client.post().uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isUnauthorized();
+    client.get().uri("/api/v1/payments?status=Authorized")
+            .header(PaymentGatewayController.MERCHANT_ID_HEADER, "merchant-a")
+            .header(TenantInterceptor.API_KEY_HEADER, "key-b")
+            .exchange()
+        .expectStatus().isUnauthorized();
+  }
+
+  @Test
+  @DisplayName("should keep each merchant's payments out of other merchants' reach")
+  void shouldIsolatePayments() {
+    PostPaymentResponse payment = pay("merchant-a", "key-a");
+
+    assertThat(payment.getMerchantId()).isEqualTo("merchant-a");
+    client("merchant-a", "key-a").get().uri("/api/v1/payments/" + payment.getId())
+            .exchange()
+        .expectStatus().isOk();
+    client("merchant-b", "key-b").get().uri("/api/v1/payments/" + payment.getId())
+            .exchange()
+        .expectStatus().isNotFound();
+    client("merchant-b", "key-b").post().uri("/api/v1/payments/" + payment.getId() + "/voids")
+            .exchange()
+        .expectStatus().isNotFound();
+    client("merchant-b", "key-b").get().uri("/api/v1/payments/" + payment.getId() + "/events")
+            .exchange()
+        .expectStatus().isNotFound();
+    client("merchant-b", "key-b").get().uri("/api/v1/payments?status=Authorized")
+            .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[?(@.id == '" + payment.getId() + "')]").doesNotExist();
+  }
+
+  @Test
+  @DisplayName("should keep figures across all merchants out of merchants' reach")
+  void shouldNotServeAggregatesToMerchants() {
+    WebTestClient client = client("merchant-a", "key-a");
+
+    client.get().uri("/admin/stats").exchange()
+        .expectStatus().isUnauthorized();
+    client.get().uri("/admin/reports/volume?from=2026-01-01&to=2026-01-31").exchange()
+        .expectStatus().isUnauthorized();
+    client.get().uri("/api/v1/stats").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  @DisplayName("should refuse a merchant's requests over its rate with 429")
+  void shouldEnforceRate() {
+    WebTestClient client = client("merchant-c", "key-c");
+
+    client.get().uri("/api/v1/payments?status=Authorized").exchange()
+        .expectStatus().isOk();
+    client.get().uri("/api/v1/payments?status=Authorized").exchange()
+        .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+        .expectHeader().valueEquals("Retry-After", "1");
+  }
+
+  @Test
+  @DisplayName("should hold one merchant's p99 steady while another floods the gateway")
+  void shouldIsolateNoisyNeighbour() throws Exception {
+    // Warm up first, so the baseline is not the first requests' class loading and connecting
+    payments("merchant-a", "key-a", 20);
+    long[] baseline = payments("merchant-a", "key-a", 40);
+
+    AtomicBoolean flooding = new AtomicBoolean(true);
+    ConcurrentLinkedQueue<Long> floodLatencies = new ConcurrentLinkedQueue<>();
+    ExecutorService flood = Executors.newFixedThreadPool(16);
+    List<Future<?>> floodThreads = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      floodThreads.add(flood.submit(() -> {
+        while (flooding.get()) {
+          floodLatencies.add(payments("merchant-b", "key-b", 1)[0]);
+        }
+        return null;
+      }));
+    }
+    long[] underFlood;
+    try {
+      awaitBankQueue("merchant-b");
+      underFlood = payments("merchant-a", "key-a", 40);
+    } finally {
+      flooding.set(false);
+      flood.shutdown();
+    }
+    for (Future<?> thread : floodThreads) {
+      thread.get(30, TimeUnit.SECONDS);
+    }
+
+    long neighbour = p99(floodLatencies.stream().mapToLong(Long::longValue).toArray());
+    // Merchant B's calls queue behind each other for the 4 bank slots, while A's next call takes
+    // the next free one, after at most about one bank call; first come, first served, it would
+    // wait for B's whole queue
+    assertThat(p99(underFlood)).isLessThan(p99(baseline) + 2 * BANK_LATENCY.toNanos())
+        .isLessThan(neighbour);
+  }
+
+  private long[] payments(String merchantId, String apiKey, int count) {
+    long[] latencies = new long[count];
+    for (int i = 0; i < count; i++) {
+      long started = System.nanoTime();
+      pay(merchantId, apiKey);
+      latencies[i] = System.nanoTime() - started;
+    }
+    return latencies;
+  }
+
+  private PostPaymentResponse pay(String merchantId, String apiKey) {
+    return client(merchantId, apiKey).post().uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(createValidPaymentRequest())
+            .exchange()
+        .expectStatus().isCreated()
+        .expectBody(PostPaymentResponse.class)
+        .returnResult().getResponseBody();
+  }
+
+  private WebTestClient client(String merchantId, String apiKey) {
+    return MockMvcWebTestClient.bindTo(mvc)
+        .defaultHeader(PaymentGatewayController.MERCHANT_ID_HEADER, merchantId)
+        .defaultHeader(TenantInterceptor.API_KEY_HEADER, apiKey)
+        .build();
+  }
+
+  private void awaitBankQueue(String merchantId) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (bankService.getCallLimiter().getQueued(merchantId) < 8) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  private static long p99(long[] latencies) {
+    long[] sorted = latencies.clone();
+    Arrays.sort(sorted);
+    return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+  }
+}
@@ -0,0 +1,65 @@
+package com.checkout.payment.gateway.tenant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.exception.QuotaExceededException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TenantTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  @DisplayName("should refuse requests over the concurrency limit until one finishes")
+  void shouldLimitConcurrentRequests() {
+    Tenant tenant = tenant(2, 0);
+
+    tenant.enter(0);
+    tenant.enter(0);
+    assertThatThrownBy(() -> tenant.enter(0)).isInstanceOf(QuotaExceededException.class);
+    tenant.exit(0, 1_000_000);
+    tenant.enter(1_000_000);
+
+    assertThat(tenant.getActiveRequests()).isEqualTo(2);
+    assertThat(tenant.getRefusedForConcurrency()).isEqualTo(1);
+    assertThat(tenant.getRequests()).isEqualTo(4);
+    assertThat(tenant.latency().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should allow a second's burst at the rate limit and then one request per interval")
+  void shouldLimitRate() {
+    Tenant tenant = tenant(100, 10);
+
+    for (int i = 0; i < 10; i++) {
+      tenant.enter(0);
+      tenant.exit(0, 0);
+    }
+    assertThatThrownBy(() -> tenant.enter(0)).isInstanceOf(QuotaExceededException.class);
+    tenant.enter(SECOND / 10);
+
+    assertThat(tenant.getRefusedForRate()).isEqualTo(1);
+    assertThat(tenant.getActiveRequests()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should only accept the merchant's own API key")
+  void shouldCheckApiKey() {
+    Tenant tenant = tenant(1, 0);
+
+    assertThat(tenant.hasApiKey("secret")).isTrue();
+    assertThat(tenant.hasApiKey("secret ")).isFalse();
+  }
+
+  private static Tenant tenant(int maxConcurrentRequests, int requestsPerSecond) {
+    ApplicationConfiguration.Merchant settings = new ApplicationConfiguration.Merchant();
+    settings.setApiKey("secret");
+    settings.setMaxConcurrentRequests(maxConcurrentRequests);
+    settings.setRequestsPerSecond(requestsPerSecond);
+    return new Tenant("merchant-a", settings);
+  }
+}
@@ -0,0 +1,118 @@
+package com.checkout.payment.gateway.transport;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.model.GetAcquiringBankRequest;
+import com.checkout.payment.gateway.model.GetAcquiringBankResponse;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import com.checkout.payment.gateway.simulator.LatencyDistribution;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Http2ClientHttpRequestFactoryTest {
+
+  private static final int PAYMENTS = 60;
+
+  private ApplicationConfiguration.BankTransport settings;
+
+  @BeforeEach
+  void setUp() {
+    settings = new ApplicationConfiguration.BankTransport();
+    settings.setProtocol("http2");
+  }
+
+  @Test
+  @DisplayName("should multiplex concurrent payments over the configured HTTP/2 connections")
+  void shouldMultiplexOverFewConnections() throws Exception {
+    try (BankSimulator bank = BankSimulator.builder().http2(true)
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(20))).start()) {
+      List<GetAcquiringBankResponse> responses = payConcurrently(bank);
+
+      assertEquals(PAYMENTS, responses.size());
+      responses.forEach(response -> assertTrue(response.isAuthorized()));
+      assertEquals(PAYMENTS, bank.getHttp2RequestCount());
+      assertTrue(bank.getConnectionCount() <= settings.getConnections(),
+          "connections: " + bank.getConnectionCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should fall back to HTTP/1.1 when the bank does not support HTTP/2")
+  void shouldFallBackToHttp1() throws Exception {
+    try (BankSimulator bank = BankSimulator.builder()
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(20))).start()) {
+      List<GetAcquiringBankResponse> responses = payConcurrently(bank);
+
+      assertEquals(PAYMENTS, responses.size());
+      responses.forEach(response -> assertTrue(response.isAuthorized()));
+      assertEquals(0, bank.getHttp2RequestCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should lower the stream limit to what the bank allows")
+  void shouldAdaptToBankStreamLimit() throws Exception {
+    settings.setConnections(1);
+    try (BankSimulator bank = BankSimulator.builder().http2(true).maxConcurrentStreams(4)
+        .latency(LatencyDistribution.fixed(Duration.ofMillis(20))).start()) {
+      List<GetAcquiringBankResponse> responses = payConcurrently(bank);
+
+      assertEquals(PAYMENTS, responses.size());
+      assertEquals(PAYMENTS, bank.getRequestCount());
+      assertEquals(1, bank.getConnectionCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should pass bank error statuses through to the caller")
+  void shouldReportErrorStatus() throws Exception {
+    try (BankSimulator bank = BankSimulator.builder().http2(true).start()) {
+      RestTemplate restTemplate = new RestTemplate(new Http2ClientHttpRequestFactory(settings));
+
+      assertThrows(HttpServerErrorException.ServiceUnavailable.class,
+          () -> restTemplate.postForObject(bank.getPaymentsUrl(), payment("4111111111111110"),
+              GetAcquiringBankResponse.class));
+    }
+  }
+
+  private List<GetAcquiringBankResponse> payConcurrently(BankSimulator bank) throws Exception {
+    RestTemplate restTemplate = new RestTemplate(new Http2ClientHttpRequestFactory(settings));
+    ExecutorService callers = Executors.newFixedThreadPool(PAYMENTS / 2);
+    try {
+      List<Future<GetAcquiringBankResponse>> futures = new ArrayList<>();
+      for (int i = 0; i < PAYMENTS; i++) {
+        futures.add(callers.submit(() -> restTemplate.postForObject(bank.getPaymentsUrl(),
+            payment("4111111111111111"), GetAcquiringBankResponse.class)));
+      }
+      List<GetAcquiringBankResponse> responses = new ArrayList<>();
+      for (Future<GetAcquiringBankResponse> future : futures) {
+        responses.add(future.get());
+      }
+      return responses;
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  private static GetAcquiringBankRequest payment(String cardNumber) {
+    GetAcquiringBankRequest request = new GetAcquiringBankRequest();
+    request.setCardNumber(cardNumber);
+    request.setExpiryDate("12/2030");
+    request.setCurrency("USD");
+    request.setAmount(100);
+    request.setCvv("123");
+    return request;
+  }
+}
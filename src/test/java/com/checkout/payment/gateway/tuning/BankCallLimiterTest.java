@@ -0,0 +1,180 @@
+package com.checkout.payment.gateway.tuning;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankCallLimiterTest {
+
+  @Test
+  @DisplayName("should reject a call once the limit is reached and the wait times out")
+  void shouldRejectAfterQueueTimeout() {
+    BankCallLimiter limiter = new BankCallLimiter(2, 10, Duration.ofMillis(20));
+
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertEquals(2, limiter.getActive());
+    assertEquals(1, limiter.getRejected());
+
+    limiter.release();
+    assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  @DisplayName("should reject at once when the wait queue is full")
+  void shouldRejectWhenQueueFull() {
+    BankCallLimiter limiter = new BankCallLimiter(1, 0, Duration.ofMinutes(1));
+    limiter.tryAcquire();
+
+    long started = System.nanoTime();
+    assertFalse(limiter.tryAcquire());
+    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+    assertEquals(1, limiter.getRejected());
+  }
+
+  @Test
+  @DisplayName("should let a waiting call through when a slot is released")
+  void shouldAdmitWaiterOnRelease() throws Exception {
+    BankCallLimiter limiter = new BankCallLimiter(1, 1, Duration.ofSeconds(10));
+    limiter.tryAcquire();
+
+    CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(limiter::tryAcquire);
+    awaitQueued(limiter, 1);
+    limiter.release();
+
+    assertTrue(waiter.get(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.getActive());
+    assertEquals(0, limiter.getQueued());
+  }
+
+  @Test
+  @DisplayName("should admit waiting calls at once when the limit is raised")
+  void shouldAdmitWaitersWhenGrown() throws Exception {
+    BankCallLimiter limiter = new BankCallLimiter(1, 10, Duration.ofSeconds(10));
+    limiter.tryAcquire();
+
+    CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(limiter::tryAcquire);
+    CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(limiter::tryAcquire);
+    awaitQueued(limiter, 2);
+    limiter.resize(3, 10, Duration.ofSeconds(10));
+
+    assertTrue(first.get(5, TimeUnit.SECONDS));
+    assertTrue(second.get(5, TimeUnit.SECONDS));
+    assertEquals(3, limiter.getActive());
+  }
+
+  @Test
+  @DisplayName("should keep calls in progress when shrunk and admit new ones below the new limit")
+  void shouldDrainBelowShrunkLimit() {
+    BankCallLimiter limiter = new BankCallLimiter(3, 0, Duration.ZERO);
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+    limiter.tryAcquire();
+
+    limiter.resize(1, 0, Duration.ZERO);
+    assertEquals(3, limiter.getActive());
+    limiter.release();
+    assertFalse(limiter.tryAcquire());
+    limiter.release();
+    assertFalse(limiter.tryAcquire());
+    limiter.release();
+    assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  @DisplayName("should hand freed slots to merchants by weight, not by how many calls they queue")
+  void shouldShareSlotsByWeight() throws Exception {
+    BankCallLimiter limiter = new BankCallLimiter(1, 100, Duration.ofSeconds(10),
+        Map.of("heavy", 2));
+    limiter.tryAcquire();
+    List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+    List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      waiters.add(waitFor(limiter, "flooding", admitted));
+    }
+    awaitQueued(limiter, 6);
+    for (int i = 0; i < 4; i++) {
+      waiters.add(waitFor(limiter, "heavy", admitted));
+    }
+    awaitQueued(limiter, 10);
+    waiters.add(waitFor(limiter, null, admitted));
+    awaitQueued(limiter, 11);
+
+    assertEquals(6, limiter.getQueued("flooding"));
+    assertEquals(1, limiter.getQueued(null));
+    for (int i = 0; i < 5; i++) {
+      int before = admitted.size();
+      limiter.release();
+      awaitAdmitted(admitted, before + 1);
+    }
+
+    // Weight 2 gets two slots for every one of the others, however long their queues
+    assertThat(admitted.get(0)).isEqualTo("heavy");
+    assertThat(admitted).containsExactlyInAnyOrder("heavy", "heavy", "heavy", "flooding", "");
+    for (int i = 0; i < 6; i++) {
+      limiter.release();
+    }
+    for (CompletableFuture<Boolean> waiter : waiters) {
+      assertTrue(waiter.get(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  @DisplayName("should bound each merchant's queue separately")
+  void shouldRejectPerMerchantQueue() throws Exception {
+    BankCallLimiter limiter = new BankCallLimiter(1, 1, Duration.ofSeconds(10));
+    limiter.tryAcquire();
+    CompletableFuture<Boolean> flooding =
+        CompletableFuture.supplyAsync(() -> limiter.tryAcquire("flooding"));
+    awaitQueued(limiter, 1);
+
+    assertFalse(limiter.tryAcquire("flooding"));
+    CompletableFuture<Boolean> other =
+        CompletableFuture.supplyAsync(() -> limiter.tryAcquire("other"));
+    awaitQueued(limiter, 2);
+    assertEquals(1, limiter.getRejected("flooding"));
+    assertEquals(0, limiter.getRejected("other"));
+
+    limiter.release();
+    limiter.release();
+    assertTrue(flooding.get(5, TimeUnit.SECONDS));
+    assertTrue(other.get(5, TimeUnit.SECONDS));
+  }
+
+  private static CompletableFuture<Boolean> waitFor(BankCallLimiter limiter, String merchantId,
+      List<String> admitted) {
+    return CompletableFuture.supplyAsync(() -> {
+      boolean acquired = limiter.tryAcquire(merchantId);
+      admitted.add(merchantId == null ? "" : merchantId);
+      return acquired;
+    }, runnable -> new Thread(runnable).start());
+  }
+
+  private static void awaitAdmitted(List<String> admitted, int count) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (admitted.size() < count) {
+      assertTrue(System.nanoTime() < deadline, "admitted: " + admitted);
+      Thread.sleep(5);
+    }
+  }
+
+  private static void awaitQueued(BankCallLimiter limiter, int queued) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (limiter.getQueued() < queued) {
+      assertTrue(System.nanoTime() < deadline, "queued: " + limiter.getQueued());
+      Thread.sleep(5);
+    }
+  }
+}
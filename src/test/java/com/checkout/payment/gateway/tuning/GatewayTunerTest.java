@@ -0,0 +1,247 @@
+package com.checkout.payment.gateway.tuning;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.bin.BinTable;
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.controller.AdminInterceptor;
+import com.checkout.payment.gateway.service.BankService;
+import com.checkout.payment.gateway.simulator.BankSimulator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the whole gateway against a slow bank and changes its limits through the admin endpoint
+ * while payments are in progress.
+ */
+class GatewayTunerTest {
+
+  private static final String PAYMENT = "{\"card_number\":\"4111111111111111\","
+      + "\"expiry_month\":12,\"expiry_year\":2030,\"currency\":\"USD\",\"amount\":100,"
+      + "\"cvv\":\"123\"}";
+  private static final int CALLERS = 32;
+  private static final String ADMIN_KEY = "operator-key";
+
+  private static final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+  private static BankSimulator bank;
+  private static ConfigurableApplicationContext gateway;
+  private static String target;
+
+  @BeforeAll
+  static void start() throws Exception {
+    bank = BankSimulator.start(Duration.ofMillis(20));
+    gateway = new SpringApplicationBuilder(PaymentGatewayApplication.class).run(
+        "--server.port=0",
+        "--payment.gateway.bank-url=" + bank.getPaymentsUrl(),
+        "--payment.gateway.screening.enabled=false",
+        "--payment.gateway.admin.api-key=" + ADMIN_KEY,
+        "--payment.gateway.tuning.max-threads=8",
+        "--payment.gateway.tuning.min-spare-threads=2",
+        "--springdoc.api-docs.enabled=false",
+        "--springdoc.swagger-ui.enabled=false");
+    target = "http://localhost:"
+        + ((ServletWebServerApplicationContext) gateway).getWebServer().getPort();
+  }
+
+  @AfterAll
+  static void stop() {
+    gateway.close();
+    bank.close();
+  }
+
+  @Test
+  @DisplayName("should apply the configured limits at startup")
+  void shouldApplyLimitsAtStartup() throws Exception {
+    assertThat(requestExecutor().getMaximumPoolSize()).isEqualTo(8);
+    assertThat(requestExecutor().getCorePoolSize()).isEqualTo(2);
+
+    HttpResponse<String> response = send(get());
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body()).contains("\"maxThreads\":8", "\"bankMaxConcurrentCalls\":200");
+  }
+
+  @Test
+  @DisplayName("should resize the pools under load without dropping a payment")
+  void shouldResizeUnderLoad() throws Exception {
+    AtomicBoolean running = new AtomicBoolean(true);
+    Queue<String> failures = new ConcurrentLinkedQueue<>();
+    List<CompletableFuture<Integer>> callers = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      callers.add(pay(running, failures, 0));
+    }
+
+    Thread.sleep(300);
+    assertThat(patch("{\"maxThreads\":2,\"minSpareThreads\":1,\"bankMaxConcurrentCalls\":1,"
+        + "\"bankQueueTimeout\":\"PT30S\"}").statusCode()).isEqualTo(200);
+    assertThat(requestExecutor().getMaximumPoolSize()).isEqualTo(2);
+    assertThat(bankCallLimiter().getMaxConcurrent()).isEqualTo(1);
+    Thread.sleep(500);
+    assertThat(patch("{\"maxThreads\":48,\"minSpareThreads\":16,\"bankMaxConcurrentCalls\":48}")
+        .statusCode()).isEqualTo(200);
+    assertThat(requestExecutor().getMaximumPoolSize()).isEqualTo(48);
+    Thread.sleep(500);
+    assertThat(patch("{\"maxThreads\":6,\"minSpareThreads\":6,\"bankMaxConcurrentCalls\":3}")
+        .statusCode()).isEqualTo(200);
+    Thread.sleep(500);
+    running.set(false);
+
+    int payments = 0;
+    for (CompletableFuture<Integer> caller : callers) {
+      payments += caller.get();
+    }
+    assertThat(failures).isEmpty();
+    assertThat(payments).isGreaterThan(CALLERS);
+    assertThat(requestExecutor().getMaximumPoolSize()).isEqualTo(6);
+    assertThat(requestExecutor().getCorePoolSize()).isEqualTo(6);
+    assertThat(bankCallLimiter().getMaxConcurrent()).isEqualTo(3);
+    assertThat(bankCallLimiter().getRejected()).isZero();
+    assertThat(send(get()).body()).contains("\"maxThreads\":6", "\"bankMaxConcurrentCalls\":3");
+
+    // Back to the startup settings for the other tests
+    patch("{\"maxThreads\":8,\"minSpareThreads\":2,\"bankMaxConcurrentCalls\":200,"
+        + "\"bankQueueTimeout\":\"PT1S\"}");
+  }
+
+  @Test
+  @DisplayName("should refuse invalid settings and keep the ones in effect")
+  void shouldRefuseInvalidSettings() throws Exception {
+    int maxThreads = requestExecutor().getMaximumPoolSize();
+
+    assertThat(patch("{\"maxThreads\":0}").statusCode()).isEqualTo(400);
+    assertThat(patch("{\"minSpareThreads\":" + (maxThreads + 1) + "}").statusCode())
+        .isEqualTo(400);
+    assertThat(patch("{\"bankReadTimeout\":\"PT0S\"}").statusCode()).isEqualTo(400);
+    assertThat(patch("{\"maxThreadz\":10}").statusCode()).isEqualTo(400);
+    assertThat(patch("{\"maxThreads\":\"many\"}").statusCode()).isEqualTo(400);
+
+    assertThat(requestExecutor().getMaximumPoolSize()).isEqualTo(maxThreads);
+  }
+
+  @Test
+  @DisplayName("should publish the settings in effect and the bank calls as metrics")
+  void shouldPublishMetrics() {
+    InMemoryMetricReader reader = InMemoryMetricReader.create();
+    OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+        .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(reader).build())
+        .build();
+    ApplicationConfiguration config = new ApplicationConfiguration();
+    RestTemplate restTemplate = config.restTemplate(new RestTemplateBuilder());
+    BankService bankService = new BankService(restTemplate, config, openTelemetry,
+        BinTable.defaults());
+    GatewayTuner tuner = new GatewayTuner(config, restTemplate, bankService, openTelemetry,
+        new StaticApplicationContext());
+
+    tuner.update(tuning -> tuning.setBankMaxConcurrentCalls(7));
+    bankService.getCallLimiter().tryAcquire();
+
+    Collection<MetricData> metrics = reader.collectAllMetrics();
+    assertThat(setting(metrics, "bankMaxConcurrentCalls")).isEqualTo(7);
+    assertThat(setting(metrics, "bankReadTimeout")).isEqualTo(10_000);
+    assertThat(gauge(metrics, "gateway.bank.calls.active")).isEqualTo(1);
+    assertThat(gauge(metrics, "gateway.bank.calls.queued")).isZero();
+  }
+
+  private static long setting(Collection<MetricData> metrics, String setting) {
+    AttributeKey<String> key = AttributeKey.stringKey("setting");
+    return metric(metrics, "gateway.tuning.setting").getLongGaugeData().getPoints().stream()
+        .filter(point -> setting.equals(point.getAttributes().get(key)))
+        .findFirst().map(LongPointData::getValue).orElseThrow();
+  }
+
+  private static long gauge(Collection<MetricData> metrics, String name) {
+    return metric(metrics, name).getLongGaugeData().getPoints().iterator().next().getValue();
+  }
+
+  private static MetricData metric(Collection<MetricData> metrics, String name) {
+    return metrics.stream().filter(metric -> metric.getName().equals(name)).findFirst()
+        .orElseThrow(() -> new AssertionError("No metric " + name));
+  }
+
+  /**
+   * One caller: pays again as soon as the previous payment is answered, until told to stop.
+   * Completes with the number of payments made.
+   */
+  private static CompletableFuture<Integer> pay(AtomicBoolean running, Queue<String> failures,
+      int paid) {
+    if (!running.get()) {
+      return CompletableFuture.completedFuture(paid);
+    }
+    HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/api/v1/payments"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+        .build();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle((response, error) -> {
+          if (error != null) {
+            failures.add(error.toString());
+          } else if (response.statusCode() != 201 || !response.body().contains("Authorized")) {
+            failures.add(response.statusCode() + " " + response.body());
+          }
+          return null;
+        })
+        .thenCompose(ignored -> pay(running, failures, paid + 1));
+  }
+
+  private static HttpRequest get() {
+    return HttpRequest.newBuilder(URI.create(target + "/admin/tuning"))
+        .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+        .GET()
+        .build();
+  }
+
+  private static HttpResponse<String> patch(String changes) throws Exception {
+    return send(HttpRequest.newBuilder(URI.create(target + "/admin/tuning"))
+        .header(AdminInterceptor.ADMIN_KEY_HEADER, ADMIN_KEY)
+        .header("Content-Type", "application/json")
+        .method("PATCH", HttpRequest.BodyPublishers.ofString(changes))
+        .build());
+  }
+
+  private static HttpResponse<String> send(HttpRequest request) throws Exception {
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static ThreadPoolExecutor requestExecutor() {
+    TomcatWebServer server =
+        (TomcatWebServer) ((ServletWebServerApplicationContext) gateway).getWebServer();
+    AbstractProtocol<?> protocol =
+        (AbstractProtocol<?>) server.getTomcat().getConnector().getProtocolHandler();
+    return (ThreadPoolExecutor) protocol.getExecutor();
+  }
+
+  private static BankCallLimiter bankCallLimiter() {
+    return gateway.getBean(BankService.class).getCallLimiter();
+  }
+}
@@ -0,0 +1,215 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.checkout.payment.gateway.configuration.ApplicationConfiguration;
+import com.checkout.payment.gateway.enums.PaymentEventType;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.ledger.PaymentEvent;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookDispatcherTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+  private final Map<String, List<JsonNode>> receivedByMerchant = Map.of(
+      "merchant-a", new CopyOnWriteArrayList<>(), "merchant-b", new CopyOnWriteArrayList<>());
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+  private final AtomicInteger requests = new AtomicInteger();
+  private HttpServer receiver;
+  private ApplicationConfiguration.Webhooks settings;
+
+  @TempDir
+  Path retryDirectory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    receiver = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    receiver.createContext("/webhooks", exchange -> {
+      requests.incrementAndGet();
+      byte[] body = exchange.getRequestBody().readAllBytes();
+      int status = failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 503 : 200;
+      if (status == 200) {
+        objectMapper.readTree(body).forEach(received::add);
+      }
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+    });
+    receivedByMerchant.forEach((merchantId, notifications) ->
+        receiver.createContext("/" + merchantId, exchange -> {
+          objectMapper.readTree(exchange.getRequestBody().readAllBytes())
+              .forEach(notifications::add);
+          exchange.sendResponseHeaders(200, -1);
+          exchange.close();
+        }));
+    receiver.start();
+
+    settings = new ApplicationConfiguration.Webhooks();
+    settings.setUrl("http://localhost:" + receiver.getAddress().getPort() + "/webhooks");
+    settings.setInitialBackoff(Duration.ofMillis(10));
+    settings.setMaxBackoff(Duration.ofMillis(50));
+  }
+
+  @AfterEach
+  void tearDown() {
+    receiver.stop(0);
+  }
+
+  @Test
+  @DisplayName("should deliver status changes in order and skip events without a status")
+  void shouldDeliverStatusChanges() throws Exception {
+    try (WebhookDispatcher dispatcher = new WebhookDispatcher(settings, objectMapper, null)) {
+      PostPaymentResponse payment = payment(null);
+      dispatcher.onEvent(event(0, PaymentEventType.CREATED, payment));
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      dispatcher.onEvent(event(1, PaymentEventType.BANK_RESPONDED, payment));
+      payment.capture(400);
+      dispatcher.onEvent(event(2, PaymentEventType.CAPTURED, payment));
+
+      awaitUntil(() -> dispatcher.getDeliveredCount() == 2);
+
+      assertEquals(2, received.size());
+      assertEquals(1, received.get(0).get("id").asLong());
+      assertEquals(payment.getId().toString(), received.get(0).get("paymentId").asText());
+      assertEquals("Authorized", received.get(0).get("status").asText());
+      assertEquals("CAPTURED", received.get(1).get("type").asText());
+      assertEquals("Partially Captured", received.get(1).get("status").asText());
+      assertEquals(400, received.get(1).get("capturedAmount").asInt());
+    }
+  }
+
+  @Test
+  @DisplayName("should send each merchant only its own payments' notifications")
+  void shouldRouteByMerchant() throws Exception {
+    String base = "http://localhost:" + receiver.getAddress().getPort() + "/";
+    Map<String, URI> merchantDestinations = Map.of(
+        "merchant-a", URI.create(base + "merchant-a"),
+        "merchant-b", URI.create(base + "merchant-b"));
+    try (WebhookDispatcher dispatcher =
+        new WebhookDispatcher(settings, merchantDestinations, objectMapper, null)) {
+      PostPaymentResponse paymentA = payment(PaymentStatus.AUTHORIZED);
+      paymentA.setMerchantId("merchant-a");
+      PostPaymentResponse paymentB = payment(PaymentStatus.DECLINED);
+      paymentB.setMerchantId("merchant-b");
+      PostPaymentResponse paymentC = payment(PaymentStatus.AUTHORIZED);
+      paymentC.setMerchantId("merchant-c");
+      PostPaymentResponse unowned = payment(PaymentStatus.AUTHORIZED);
+      dispatcher.onEvent(event(1, PaymentEventType.BANK_RESPONDED, paymentA));
+      dispatcher.onEvent(event(2, PaymentEventType.BANK_RESPONDED, paymentB));
+      dispatcher.onEvent(event(3, PaymentEventType.BANK_RESPONDED, paymentC));
+      dispatcher.onEvent(event(4, PaymentEventType.BANK_RESPONDED, unowned));
+
+      awaitUntil(() -> dispatcher.getDeliveredCount() == 3);
+
+      List<JsonNode> toA = receivedByMerchant.get("merchant-a");
+      List<JsonNode> toB = receivedByMerchant.get("merchant-b");
+      assertEquals(1, toA.size());
+      assertEquals(paymentA.getId().toString(), toA.get(0).get("paymentId").asText());
+      assertEquals(1, toB.size());
+      assertEquals(paymentB.getId().toString(), toB.get(0).get("paymentId").asText());
+      // Merchant C has no URL, so its payment is not sent anywhere
+      assertEquals(1, received.size());
+      assertEquals(unowned.getId().toString(), received.get(0).get("paymentId").asText());
+    }
+  }
+
+  @Test
+  @DisplayName("should retry with backoff until the receiver accepts the batch")
+  void shouldRetryFailedDeliveries() throws Exception {
+    failuresLeft.set(2);
+    try (WebhookDispatcher dispatcher = new WebhookDispatcher(settings, objectMapper, null)) {
+      dispatcher.onEvent(event(7, PaymentEventType.BANK_RESPONDED,
+          payment(PaymentStatus.DECLINED)));
+
+      awaitUntil(() -> dispatcher.getDeliveredCount() == 1);
+
+      assertEquals(3, requests.get());
+      assertEquals("Declined", received.get(0).get("status").asText());
+    }
+  }
+
+  @Test
+  @DisplayName("should give up after the maximum number of attempts")
+  void shouldGiveUpAfterMaxAttempts() throws Exception {
+    failuresLeft.set(Integer.MAX_VALUE);
+    settings.setMaxAttempts(3);
+    try (WebhookDispatcher dispatcher = new WebhookDispatcher(settings, objectMapper, null)) {
+      dispatcher.onEvent(event(1, PaymentEventType.VOIDED, payment(PaymentStatus.AUTHORIZED)));
+
+      awaitUntil(() -> dispatcher.getFailedCount() == 1);
+
+      assertEquals(3, requests.get());
+      assertEquals(0, dispatcher.getDeliveredCount());
+    }
+  }
+
+  @Test
+  @DisplayName("should keep undelivered batches on disk and deliver them after a restart")
+  void shouldDeliverStoredBatchesAfterRestart() throws Exception {
+    failuresLeft.set(Integer.MAX_VALUE);
+    settings.setInitialBackoff(Duration.ofMinutes(1));
+    WebhookRetryStore store = new WebhookRetryStore(retryDirectory);
+    try (WebhookDispatcher dispatcher = new WebhookDispatcher(settings, objectMapper, store)) {
+      dispatcher.onEvent(event(3, PaymentEventType.BANK_RESPONDED,
+          payment(PaymentStatus.AUTHORIZED)));
+      awaitUntil(() -> storedBatches() == 1);
+    }
+
+    failuresLeft.set(0);
+    try (WebhookDispatcher dispatcher =
+        new WebhookDispatcher(settings, objectMapper, new WebhookRetryStore(retryDirectory))) {
+      awaitUntil(() -> dispatcher.getDeliveredCount() == 1);
+      awaitUntil(() -> storedBatches() == 0);
+    }
+    assertEquals(1, received.size());
+    assertEquals(3, received.get(0).get("id").asLong());
+  }
+
+  private long storedBatches() {
+    try (var files = Files.list(retryDirectory)) {
+      return files.filter(path -> path.toString().endsWith(".batch")).count();
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return new PostPaymentResponse(UUID.randomUUID(), status, 8877, 4, 2030, "GBP", 1000);
+  }
+
+  private static PaymentEvent event(long sequence, PaymentEventType type,
+      PostPaymentResponse payment) {
+    return PaymentEvent.of(type, payment).withPosition(sequence, PaymentEvent.NONE);
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met within 10 seconds");
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,471 @@
+package com.checkout.payment.gateway.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
+
+/**
+ * In-process stand-in for the mountebank acquiring bank simulator.
+ *
+ * <p>
+ * Applies the rules from {@code imposters/bank_simulator.ejs}: a request missing any of
+ * {@code card_number}, {@code expiry_date}, {@code currency}, {@code amount} or {@code cvv}
+ * gets a 400, an odd last card digit is authorized, an even one is declined and 0 returns 503.
+ * On top of that it can delay responses with a {@link LatencyDistribution}, inject 5xx errors
+ * at a given rate and cap concurrent requests, answering 503 once the cap is reached, so load
+ * tests and benchmarks can model a slow or overloaded bank without Docker.
+ *
+ * <p>
+ * By default it serves HTTP/1.1 only, with the JDK HTTP server. With {@link Builder#http2(boolean)}
+ * it runs on embedded Tomcat instead and also speaks HTTP/2, either upgraded from HTTP/1.1
+ * ({@code h2c}) or with prior knowledge, like an acquirer with an HTTP/2 front end.
+ *
+ * <p>
+ * Can also run standalone in place of the Docker container, see {@link #main(String[])}.
+ */
+public class BankSimulator implements AutoCloseable {
+
+  private static final String PAYMENTS_PATH = "/payments";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final List<String> REQUIRED_FIELDS =
+      List.of("card_number", "expiry_date", "currency", "amount", "cvv");
+  private static final String NOT_SUPPORTED =
+      "{\"errorMessage\":\"The request supplied is not supported by the simulator\"}";
+  private static final String MISSING_FIELDS =
+      "{\"error_message\":\"Not all required properties were sent in the request\"}";
+
+  static {
+    // The JDK server writes headers and body separately; without TCP_NODELAY every response
+    // waits on the client's delayed ACK (~40ms), which would dominate any latency measurement.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Tomcat tomcat;
+  private final Path tomcatBaseDir;
+  private final LatencyDistribution latency;
+  private final double errorRate;
+  private final int errorStatus;
+  private final Semaphore concurrencyLimit;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder limitRejections = new LongAdder();
+  private final LongAdder injectedErrors = new LongAdder();
+  private final LongAdder http2Requests = new LongAdder();
+  private final Set<String> connections = ConcurrentHashMap.newKeySet();
+
+  private BankSimulator(Builder builder) throws IOException {
+    this.latency = builder.latency;
+    this.errorRate = builder.errorRate;
+    this.errorStatus = builder.errorStatus;
+    this.concurrencyLimit = builder.maxConcurrentRequests > 0
+        ? new Semaphore(builder.maxConcurrentRequests) : null;
+    if (builder.http2) {
+      this.server = null;
+      this.executor = null;
+      this.tomcatBaseDir = Files.createTempDirectory("bank-simulator");
+      this.tomcat = tomcat(builder, tomcatBaseDir);
+    } else {
+      this.tomcat = null;
+      this.tomcatBaseDir = null;
+      this.server = HttpServer.create(new InetSocketAddress(builder.host, builder.port),
+          builder.backlog);
+      this.executor = builder.workerThreads > 0
+          ? Executors.newFixedThreadPool(builder.workerThreads)
+          : Executors.newCachedThreadPool();
+      server.createContext("/", this::handle);
+      server.setExecutor(executor);
+    }
+  }
+
+  private Tomcat tomcat(Builder builder, Path baseDir) {
+    Tomcat tomcat = new Tomcat();
+    tomcat.setSilent(true);
+    tomcat.setBaseDir(baseDir.toString());
+    Connector connector = new Connector();
+    connector.setProperty("address", builder.host);
+    connector.setPort(builder.port);
+    if (builder.backlog > 0) {
+      connector.setProperty("acceptCount", Integer.toString(builder.backlog));
+    }
+    if (builder.workerThreads > 0) {
+      connector.setProperty("maxThreads", Integer.toString(builder.workerThreads));
+    }
+    // Tomcat runs only 20 streams per connection at once by default, queueing the rest
+    int streams = builder.maxConcurrentStreams > 0 ? builder.maxConcurrentStreams : 100;
+    Http2Protocol http2 = new Http2Protocol();
+    http2.setMaxConcurrentStreams(streams);
+    http2.setMaxConcurrentStreamExecution(streams);
+    connector.addUpgradeProtocol(http2);
+    tomcat.getService().addConnector(connector);
+    tomcat.setConnector(connector);
+    StandardContext context = (StandardContext) tomcat.addContext("", null);
+    // Leak checks on stop need --add-opens and are pointless for a single servlet
+    context.setClearReferencesObjectStreamClassCaches(false);
+    context.setClearReferencesRmiTargets(false);
+    context.setClearReferencesThreadLocals(false);
+    Tomcat.addServlet(context, "bank", new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest request, HttpServletResponse response)
+          throws IOException {
+        handle(request, response);
+      }
+    });
+    context.addServletMappingDecoded("/*", "bank");
+    return tomcat;
+  }
+
+  /**
+   * Starts a simulator on an ephemeral port with a fixed latency and no error injection.
+   *
+   * @param latency delay applied before every response
+   * @return the running simulator
+   * @throws IOException if the server socket cannot be bound
+   */
+  public static BankSimulator start(Duration latency) throws IOException {
+    return builder().latency(LatencyDistribution.fixed(latency)).start();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Runs the simulator as a standalone process, e.g. in place of {@code docker-compose up}.
+   * Accepts {@code --port=8080}, {@code --latency=<spec>} (see
+   * {@link LatencyDistribution#parse(String)}), {@code --error-rate=0.01},
+   * {@code --error-status=503}, {@code --max-concurrent=<n>}, {@code --threads=<n>},
+   * {@code --http2} and {@code --max-streams=<n>}.
+   */
+  public static void main(String[] args) throws Exception {
+    Builder builder = builder().port(8080);
+    for (String arg : args) {
+      String[] option = arg.replaceFirst("^--", "").split("=", 2);
+      String value = option.length > 1 ? option[1] : "";
+      switch (option[0]) {
+        case "port" -> builder.port(Integer.parseInt(value));
+        case "latency" -> builder.latency(LatencyDistribution.parse(value));
+        case "error-rate" -> builder.errorRate(Double.parseDouble(value));
+        case "error-status" -> builder.errorStatus(Integer.parseInt(value));
+        case "max-concurrent" -> builder.maxConcurrentRequests(Integer.parseInt(value));
+        case "threads" -> builder.workerThreads(Integer.parseInt(value));
+        case "http2" -> builder.http2(!"false".equals(value));
+        case "max-streams" -> builder.maxConcurrentStreams(Integer.parseInt(value));
+        default -> throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+    BankSimulator simulator = builder.start();
+    System.out.println("Bank simulator listening on " + simulator.getPaymentsUrl());
+    CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      simulator.close();
+      stopped.countDown();
+    }));
+    stopped.await();
+  }
+
+  /**
+   * Returns the URL the gateway should use as {@code payment.gateway.bank-url}.
+   */
+  public String getPaymentsUrl() {
+    return "http://localhost:" + getPort() + PAYMENTS_PATH;
+  }
+
+  public int getPort() {
+    return tomcat != null
+        ? tomcat.getConnector().getLocalPort()
+        : server.getAddress().getPort();
+  }
+
+  /**
+   * Number of requests received, including ones rejected by the concurrency limit.
+   */
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  public long getLimitRejectionCount() {
+    return limitRejections.sum();
+  }
+
+  public long getInjectedErrorCount() {
+    return injectedErrors.sum();
+  }
+
+  /**
+   * Number of client connections that have sent at least one request.
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * Number of requests received over HTTP/2.
+   */
+  public long getHttp2RequestCount() {
+    return http2Requests.sum();
+  }
+
+  @Override
+  public void close() {
+    if (tomcat != null) {
+      try {
+        tomcat.stop();
+        tomcat.destroy();
+        deleteRecursively(tomcatBaseDir);
+      } catch (LifecycleException | IOException e) {
+        throw new IllegalStateException("Could not stop the bank simulator", e);
+      }
+    } else {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    connections.add(exchange.getRemoteAddress().toString());
+    try (exchange) {
+      Reply reply = process(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+          exchange.getRequestBody());
+      respond(exchange, reply);
+    }
+  }
+
+  private void handle(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    connections.add(request.getRemoteAddr() + ":" + request.getRemotePort());
+    if ("HTTP/2.0".equals(request.getProtocol())) {
+      http2Requests.increment();
+    }
+    Reply reply = process(request.getMethod(), request.getRequestURI(),
+        request.getInputStream());
+    byte[] bytes = reply.body().getBytes(StandardCharsets.UTF_8);
+    response.setStatus(reply.status());
+    response.setContentType("application/json");
+    response.setContentLength(bytes.length);
+    response.getOutputStream().write(bytes);
+  }
+
+  private Reply process(String method, String path, InputStream in) {
+    requests.increment();
+    if (concurrencyLimit != null && !concurrencyLimit.tryAcquire()) {
+      limitRejections.increment();
+      return new Reply(503, "{}");
+    }
+    try {
+      JsonNode body = readBody(in);
+      sleepNanos(latency.nextDelayNanos());
+      return reply(method, path, body);
+    } finally {
+      if (concurrencyLimit != null) {
+        concurrencyLimit.release();
+      }
+    }
+  }
+
+  private Reply reply(String method, String path, JsonNode body) {
+    if (!"POST".equals(method) || !PAYMENTS_PATH.equals(path) || body == null
+        || !body.isObject()) {
+      return new Reply(400, NOT_SUPPORTED);
+    }
+    for (String field : REQUIRED_FIELDS) {
+      if (!body.has(field)) {
+        return new Reply(400, MISSING_FIELDS);
+      }
+    }
+    if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+      injectedErrors.increment();
+      return new Reply(errorStatus, "{}");
+    }
+
+    String cardNumber = body.get("card_number").asText();
+    char lastDigit = cardNumber.isEmpty() ? ' ' : cardNumber.charAt(cardNumber.length() - 1);
+    if (lastDigit == '0') {
+      return new Reply(503, "{}");
+    } else if (lastDigit >= '1' && lastDigit <= '9' && (lastDigit - '0') % 2 == 1) {
+      return new Reply(200,
+          "{\"authorized\":true,\"authorization_code\":\"" + UUID.randomUUID() + "\"}");
+    } else if (lastDigit >= '2' && lastDigit <= '8') {
+      return new Reply(200, "{\"authorized\":false,\"authorization_code\":\"\"}");
+    } else {
+      return new Reply(400, NOT_SUPPORTED);
+    }
+  }
+
+  private static JsonNode readBody(InputStream in) {
+    try {
+      return MAPPER.readTree(in);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void respond(HttpExchange exchange, Reply reply) throws IOException {
+    byte[] bytes = reply.body().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.getResponseHeaders().set("Connection", "keep-alive");
+    exchange.sendResponseHeaders(reply.status(), bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private static void sleepNanos(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Configures a {@link BankSimulator}. Defaults to an ephemeral localhost port, no latency,
+   * no injected errors and no concurrency limit.
+   */
+  public static class Builder {
+
+    private String host = "localhost";
+    private int port;
+    private int backlog;
+    private int workerThreads;
+    private int maxConcurrentRequests;
+    private int maxConcurrentStreams;
+    private boolean http2;
+    private LatencyDistribution latency = LatencyDistribution.NONE;
+    private double errorRate;
+    private int errorStatus = 503;
+
+    public Builder host(String host) {
+      this.host = host;
+      return this;
+    }
+
+    public Builder port(int port) {
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * TCP accept queue length; 0 uses the system default.
+     */
+    public Builder backlog(int backlog) {
+      this.backlog = backlog;
+      return this;
+    }
+
+    /**
+     * Size of the request worker pool; 0 uses an unbounded cached pool. A bounded pool makes
+     * excess requests queue inside the simulator, like a bank with a fixed connection pool.
+     */
+    public Builder workerThreads(int workerThreads) {
+      this.workerThreads = workerThreads;
+      return this;
+    }
+
+    /**
+     * Requests allowed in flight at once; further requests get an immediate 503.
+     * 0 disables the limit.
+     */
+    public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      return this;
+    }
+
+    /**
+     * Serves HTTP/2 as well as HTTP/1.1, on embedded Tomcat rather than the JDK HTTP server.
+     */
+    public Builder http2(boolean http2) {
+      this.http2 = http2;
+      return this;
+    }
+
+    /**
+     * Concurrent HTTP/2 streams allowed per connection; 0 allows 100.
+     */
+    public Builder maxConcurrentStreams(int maxConcurrentStreams) {
+      this.maxConcurrentStreams = maxConcurrentStreams;
+      return this;
+    }
+
+    public Builder latency(LatencyDistribution latency) {
+      this.latency = latency;
+      return this;
+    }
+
+    /**
+     * Fraction of otherwise valid requests answered with {@link #errorStatus(int)}.
+     */
+    public Builder errorRate(double errorRate) {
+      if (errorRate < 0 || errorRate > 1) {
+        throw new IllegalArgumentException("errorRate must be between 0 and 1");
+      }
+      this.errorRate = errorRate;
+      return this;
+    }
+
+    public Builder errorStatus(int errorStatus) {
+      this.errorStatus = errorStatus;
+      return this;
+    }
+
+    public BankSimulator start() throws IOException {
+      BankSimulator simulator = new BankSimulator(this);
+      if (simulator.tomcat != null) {
+        try {
+          simulator.tomcat.start();
+        } catch (LifecycleException e) {
+          throw new IOException("Could not start the bank simulator", e);
+        }
+      } else {
+        simulator.server.start();
+      }
+      return simulator;
+    }
+  }
+
+  private record Reply(int status, String body) {
+  }
+}
@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.simulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of simulated bank response delays, in nanoseconds.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+  LatencyDistribution NONE = () -> 0L;
+
+  long nextDelayNanos();
+
+  /**
+   * Every response takes exactly {@code latency}.
+   */
+  static LatencyDistribution fixed(Duration latency) {
+    long nanos = latency.toNanos();
+    return () -> nanos;
+  }
+
+  /**
+   * Delays are spread evenly between {@code min} and {@code max}.
+   */
+  static LatencyDistribution uniform(Duration min, Duration max) {
+    long minNanos = min.toNanos();
+    long maxNanos = max.toNanos();
+    if (maxNanos < minNanos) {
+      throw new IllegalArgumentException("max must not be below min");
+    }
+    return () -> minNanos == maxNanos
+        ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+  }
+
+  /**
+   * Memoryless delays with the given mean, the usual model for independent queueing delays.
+   */
+  static LatencyDistribution exponential(Duration mean) {
+    double meanNanos = mean.toNanos();
+    return () -> (long) (-meanNanos * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+  }
+
+  /**
+   * Right-skewed delays with the given median; {@code sigma} controls the tail (0.5 is mild,
+   * 1.5 gives a heavy p99.9). Real service latencies are usually closer to this than to a
+   * normal distribution.
+   */
+  static LatencyDistribution logNormal(Duration median, double sigma) {
+    double mu = Math.log(median.toNanos());
+    return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+  }
+
+  /**
+   * Uses {@code spike} for a fraction {@code probability} of responses and this distribution
+   * otherwise, e.g. to model occasional GC pauses or retransmits on the bank side.
+   */
+  default LatencyDistribution withSpikes(double probability, LatencyDistribution spike) {
+    LatencyDistribution base = this;
+    return () -> ThreadLocalRandom.current().nextDouble() < probability
+        ? spike.nextDelayNanos() : base.nextDelayNanos();
+  }
+
+  /**
+   * Parses a command line specification: {@code none}, {@code fixed:20ms},
+   * {@code uniform:5ms:50ms}, {@code exponential:20ms} or {@code lognormal:20ms:0.8}.
+   */
+  static LatencyDistribution parse(String spec) {
+    String[] parts = spec.trim().split(":");
+    switch (parts[0].toLowerCase()) {
+      case "none":
+        return NONE;
+      case "fixed":
+        return fixed(parseDuration(parts, 1));
+      case "uniform":
+        return uniform(parseDuration(parts, 1), parseDuration(parts, 2));
+      case "exponential":
+        return exponential(parseDuration(parts, 1));
+      case "lognormal":
+        if (parts.length < 3) {
+          throw new IllegalArgumentException("Missing sigma in latency spec: " + spec);
+        }
+        return logNormal(parseDuration(parts, 1), Double.parseDouble(parts[2]));
+      default:
+        throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+    }
+  }
+
+  private static Duration parseDuration(String[] parts, int index) {
+    if (parts.length <= index) {
+      throw new IllegalArgumentException("Missing duration in latency spec: "
+          + String.join(":", parts));
+    }
+    String value = parts[index].trim().toLowerCase();
+    if (value.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+    }
+    if (value.endsWith("us")) {
+      return Duration.ofNanos(Long.parseLong(value.substring(0, value.length() - 2)) * 1_000);
+    }
+    if (value.endsWith("s")) {
+      return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+    }
+    return Duration.ofMillis(Long.parseLong(value));
+  }
+}